@@ -0,0 +1,155 @@
+package com.httpclient.benchmark.jmh;
+
+import com.httpclient.body.PooledBodyHandlers;
+import com.httpclient.util.HttpClientFactory;
+import com.httpclient.util.RequestTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation on the request hot path: building requests per call vs reusing them from a
+ * {@link RequestTemplate}, and {@code BodyHandlers.ofString()} vs
+ * {@link PooledBodyHandlers#ofString()}. The {@code collect*} benchmarks feed the body
+ * straight into the subscriber, without the network, so the difference in
+ * {@code gc.alloc.rate.norm} is the handler's own.
+ *
+ * <pre>
+ *   java -jar target/benchmarks.jar AllocationBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class AllocationBenchmark {
+
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    @Param({"1024", "65536"})
+    public int bodySize;
+
+    private LoopbackServer server;
+    private HttpClient client;
+    private String url;
+    private RequestTemplate template;
+    private byte[] body;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        server = new LoopbackServer(bodySize);
+        client = HttpClientFactory.createHttp11Client();
+        url = server.baseUri() + "/posts/1";
+        template = new RequestTemplate(server.baseUri().toString(), Duration.ofSeconds(10),
+                "Accept", "application/json");
+        body = new byte[bodySize];
+        Arrays.fill(body, (byte) 'x');
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public HttpRequest buildRequest() {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofSeconds(10))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+    }
+
+    @Benchmark
+    public HttpRequest templateRequest() {
+        return template.get("/posts/1");
+    }
+
+    @Benchmark
+    public int fetchString() throws Exception {
+        return client.send(buildRequest(), HttpResponse.BodyHandlers.ofString()).body().length();
+    }
+
+    @Benchmark
+    public int fetchPooled() throws Exception {
+        return client.send(templateRequest(), PooledBodyHandlers.ofString()).body().length();
+    }
+
+    @Benchmark
+    public int collectString() {
+        return collect(HttpResponse.BodyHandlers.ofString()).length();
+    }
+
+    @Benchmark
+    public int collectPooled() {
+        return collect(PooledBodyHandlers.ofString()).length();
+    }
+
+    /**
+     * Run the body through the handler's subscriber in network-sized chunks
+     */
+    private String collect(HttpResponse.BodyHandler<String> handler) {
+        HttpResponse.BodySubscriber<String> subscriber = handler.apply(new FixedResponseInfo(body.length));
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        for (int offset = 0; offset < body.length; offset += CHUNK_SIZE) {
+            int length = Math.min(CHUNK_SIZE, body.length - offset);
+            subscriber.onNext(List.of(ByteBuffer.wrap(body, offset, length)));
+        }
+        subscriber.onComplete();
+        return subscriber.getBody().toCompletableFuture().join();
+    }
+
+    private record FixedResponseInfo(HttpHeaders headers) implements HttpResponse.ResponseInfo {
+
+        FixedResponseInfo(int contentLength) {
+            this(HttpHeaders.of(Map.of(
+                    "Content-Type", List.of("application/json"),
+                    "Content-Length", List.of(String.valueOf(contentLength))), (name, value) -> true));
+        }
+
+        @Override
+        public int statusCode() {
+            return 200;
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.httpclient.benchmark.jmh;
+
+import com.google.gson.Gson;
+import com.httpclient.body.JsonBodyHandlers;
+import com.httpclient.compression.CompressingHttpClient;
+import com.httpclient.compression.DecodingBodyHandlers;
+import com.httpclient.compression.GzipBodyPublishers;
+import com.httpclient.util.HttpClientFactory;
+import com.httpclient.util.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cost and benefit of gzip on a JSON array of users: wire bytes are printed at setup, the
+ * {@code fetch*} benchmarks go through the loopback server (where bandwidth is free, so
+ * they show the CPU price; on a real network the 5-10x fewer bytes usually win), and
+ * {@code inflate}/{@code deflate} isolate the codec work.
+ *
+ * <pre>
+ *   java -jar target/benchmarks.jar CompressionBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class CompressionBenchmark {
+
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    @Param({"100", "10000"})
+    public int users;
+
+    private byte[] json;
+    private byte[] gzipped;
+    private LoopbackServer identityServer;
+    private LoopbackServer gzipServer;
+    private HttpClient client;
+    private HttpClient compressingClient;
+    private HttpRequest identityRequest;
+    private HttpRequest gzipRequest;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        List<User> list = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            list.add(new User(i, "User " + i, "user" + i + "@example.com"));
+        }
+        json = new Gson().toJson(list).getBytes(StandardCharsets.UTF_8);
+        gzipped = gzip(json);
+        System.out.printf("📦 %d users: %d bytes identity, %d bytes gzip (%.1fx)%n",
+                users, json.length, gzipped.length, (double) json.length / gzipped.length);
+
+        identityServer = new LoopbackServer(json);
+        gzipServer = new LoopbackServer(gzipped, "gzip");
+        client = HttpClientFactory.createHttp11Client();
+        compressingClient = new CompressingHttpClient(client);
+        identityRequest = HttpRequest.newBuilder()
+                .uri(identityServer.baseUri().resolve("/users"))
+                .timeout(Duration.ofSeconds(10))
+                .build();
+        gzipRequest = HttpRequest.newBuilder()
+                .uri(gzipServer.baseUri().resolve("/users"))
+                .timeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        client.close();
+        identityServer.close();
+        gzipServer.close();
+    }
+
+    @Benchmark
+    public int fetchIdentity() throws Exception {
+        return client.send(identityRequest, HttpResponse.BodyHandlers.ofString()).body().length();
+    }
+
+    @Benchmark
+    public int fetchGzip() throws Exception {
+        return compressingClient.send(gzipRequest, HttpResponse.BodyHandlers.ofString()).body().length();
+    }
+
+    @Benchmark
+    public int fetchGzipJson() throws Exception {
+        return compressingClient.send(gzipRequest, JsonBodyHandlers.ofJson(User[].class)).body().length;
+    }
+
+    /**
+     * Inflate the gzipped body through the decoding subscriber, in network-sized chunks
+     */
+    @Benchmark
+    public int inflate() {
+        HttpResponse.BodySubscriber<String> subscriber = DecodingBodyHandlers
+                .decoding(HttpResponse.BodyHandlers.ofString())
+                .apply(new GzipResponseInfo());
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        for (int offset = 0; offset < gzipped.length; offset += CHUNK_SIZE) {
+            int length = Math.min(CHUNK_SIZE, gzipped.length - offset);
+            subscriber.onNext(List.of(ByteBuffer.wrap(gzipped, offset, length)));
+        }
+        subscriber.onComplete();
+        return subscriber.getBody().toCompletableFuture().join().length();
+    }
+
+    /**
+     * Gzip the body through the request publisher
+     */
+    @Benchmark
+    public long deflate() {
+        long[] total = new long[1];
+        GzipBodyPublishers.gzip(HttpRequest.BodyPublishers.ofByteArray(json)).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                total[0] += item.remaining();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                throw new IllegalStateException(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        return total[0];
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static class GzipResponseInfo implements HttpResponse.ResponseInfo {
+        private static final HttpHeaders HEADERS = HttpHeaders.of(
+                Map.of("Content-Encoding", List.of("gzip")), (name, value) -> true);
+
+        @Override
+        public int statusCode() {
+            return 200;
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return HEADERS;
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+    }
+}
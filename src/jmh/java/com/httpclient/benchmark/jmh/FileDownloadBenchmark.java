@@ -0,0 +1,118 @@
+package com.httpclient.benchmark.jmh;
+
+import com.httpclient.body.FileBodyHandlers;
+import com.httpclient.download.DownloadOptions;
+import com.httpclient.download.SegmentedDownloader;
+import com.httpclient.util.HttpClientFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Large downloads from an in-process {@link FileServer}: the heap-bound
+ * {@code ofString}/{@code ofByteArray} vs the JDK's {@code ofFile} vs {@link FileBodyHandlers}
+ * and {@link SegmentedDownloader}. Run with {@code -prof gc}; {@code gc.alloc.rate.norm} is
+ * the heap allocated per download. The client allocates a fresh buffer per socket read, so
+ * even the file handlers allocate about the body size, but as short-lived garbage rather
+ * than one body-sized object (several, for {@code ofString}) that has to survive until the end.
+ *
+ * <pre>
+ *   java -jar target/benchmarks.jar FileDownloadBenchmark -prof gc -p version=HTTP_2
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class FileDownloadBenchmark {
+
+    @Param({"16", "256"})
+    public int sizeMb;
+
+    @Param({"HTTP_1_1", "HTTP_2"})
+    public HttpClient.Version version;
+
+    private Path source;
+    private Path target;
+    private FileServer server;
+    private HttpClient client;
+    private HttpRequest request;
+    private SegmentedDownloader segmented;
+    private SegmentedDownloader segmentedMapped;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        source = FileServer.createFile(sizeMb * 1024L * 1024L);
+        target = Files.createTempFile("download", ".bin");
+        server = new FileServer(source);
+        client = version == HttpClient.Version.HTTP_2
+                ? HttpClientFactory.createHttp2Client()
+                : HttpClientFactory.createHttp11Client();
+        request = HttpRequest.newBuilder(server.fileUri()).build();
+        DownloadOptions options = DownloadOptions.defaults().withSegments(4, 1024 * 1024);
+        segmented = new SegmentedDownloader(client, options);
+        segmentedMapped = new SegmentedDownloader(client, options.withMemoryMapped(true));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        client.close();
+        server.close();
+        Files.deleteIfExists(source);
+        Files.deleteIfExists(target);
+    }
+
+    @Benchmark
+    public int ofString() throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body().length();
+    }
+
+    @Benchmark
+    public int ofByteArray() throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray()).body().length;
+    }
+
+    @Benchmark
+    public Path ofFile() throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.ofFile(target)).body();
+    }
+
+    @Benchmark
+    public long ofChannel() throws Exception {
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            return client.send(request, FileBodyHandlers.ofChannel(channel, 0, null)).body();
+        }
+    }
+
+    @Benchmark
+    public long segmented() throws Exception {
+        return segmented.download(server.fileUri(), target).get().bytes();
+    }
+
+    @Benchmark
+    public long segmentedMapped() throws Exception {
+        return segmentedMapped.download(server.fileUri(), target).get().bytes();
+    }
+}
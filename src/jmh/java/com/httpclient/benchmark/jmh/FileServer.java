@@ -0,0 +1,141 @@
+package com.httpclient.benchmark.jmh;
+
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.Callback;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process HTTP/1.1 + h2c server that serves one file (up to 2 GiB, from a memory
+ * mapping) with single {@code Range} requests, {@code If-Range} and a strong ETag, like a
+ * typical static file server or CDN.
+ */
+public class FileServer implements AutoCloseable {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    private final Server server;
+    private final ServerConnector connector;
+    private final ByteBuffer content;
+    private final String etag;
+
+    public FileServer(Path file) throws Exception {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        etag = "\"" + Long.toHexString(Files.getLastModifiedTime(file).toMillis()) + "-"
+                + Long.toHexString(content.capacity()) + "\"";
+
+        HttpConfiguration config = new HttpConfiguration();
+        server = new Server();
+        connector = new ServerConnector(server,
+                new HttpConnectionFactory(config),
+                new HTTP2CServerConnectionFactory(config));
+        connector.setHost("127.0.0.1");
+        connector.setPort(0);
+        server.addConnector(connector);
+
+        server.setHandler(new Handler.Abstract() {
+            @Override
+            public boolean handle(Request request, Response response, Callback callback) {
+                serve(request, response, callback);
+                return true;
+            }
+        });
+
+        server.start();
+    }
+
+    /**
+     * URI of the served file, e.g. http://127.0.0.1:54321/file
+     */
+    public URI fileUri() {
+        return URI.create("http://127.0.0.1:" + connector.getLocalPort() + "/file");
+    }
+
+    @Override
+    public void close() throws Exception {
+        server.stop();
+    }
+
+    /**
+     * Create a file of {@code size} pseudo-random bytes
+     */
+    public static Path createFile(long size) throws IOException {
+        Path file = Files.createTempFile("file-server", ".bin");
+        file.toFile().deleteOnExit();
+        ByteBuffer chunk = ByteBuffer.allocate(1024 * 1024);
+        long seed = 42;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            for (long written = 0; written < size; ) {
+                chunk.clear();
+                while (chunk.remaining() >= Long.BYTES) {
+                    seed = seed * 6364136223846793005L + 1442695040888963407L;
+                    chunk.putLong(seed);
+                }
+                chunk.flip().limit((int) Math.min(chunk.limit(), size - written));
+                written += channel.write(chunk);
+            }
+        }
+        return file;
+    }
+
+    private void serve(Request request, Response response, Callback callback) {
+        long length = content.capacity();
+        long start = 0;
+        long end = length - 1;
+        int status = 200;
+
+        String range = request.getHeaders().get(HttpHeader.RANGE);
+        String ifRange = request.getHeaders().get(HttpHeader.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            Matcher matcher = RANGE.matcher(range);
+            if (matcher.matches() && !(matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+                if (matcher.group(1).isEmpty()) {
+                    start = Math.max(0, length - Long.parseLong(matcher.group(2)));
+                } else {
+                    start = Long.parseLong(matcher.group(1));
+                    if (!matcher.group(2).isEmpty()) {
+                        end = Math.min(end, Long.parseLong(matcher.group(2)));
+                    }
+                }
+                if (start > end) {
+                    response.setStatus(416);
+                    response.getHeaders().put(HttpHeader.CONTENT_RANGE, "bytes */" + length);
+                    callback.succeeded();
+                    return;
+                }
+                status = 206;
+                response.getHeaders().put(HttpHeader.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        response.setStatus(status);
+        response.getHeaders().put(HttpHeader.ACCEPT_RANGES, "bytes");
+        response.getHeaders().put(HttpHeader.ETAG, etag);
+        response.getHeaders().put(HttpHeader.CONTENT_TYPE, "application/octet-stream");
+        response.getHeaders().put(HttpHeader.CONTENT_LENGTH, end - start + 1);
+        if (HttpMethod.HEAD.is(request.getMethod())) {
+            callback.succeeded();
+            return;
+        }
+        response.write(true, content.slice((int) start, (int) (end - start + 1)), callback);
+    }
+}
@@ -0,0 +1,126 @@
+package com.httpclient.benchmark.jmh;
+
+import com.httpclient.util.HttpClientFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH version of {@link com.httpclient.benchmark.PerformanceBenchmark}: HTTP/1.1 vs HTTP/2
+ * and sync vs async, driven against an in-process {@link LoopbackServer} instead of
+ * jsonplaceholder.typicode.com.
+ *
+ * <pre>
+ *   mvn -Pjmh package
+ *   java -jar target/benchmarks.jar HttpClientBenchmark -p version=HTTP_2 -t 8
+ * </pre>
+ *
+ * Sync concurrency is the JMH thread count ({@code -t}); async concurrency is the
+ * {@code concurrency} parameter (requests in flight per operation).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "--enable-preview")
+public class HttpClientBenchmark {
+
+    /**
+     * One server and one client per trial, shared by all benchmark threads
+     */
+    @State(Scope.Benchmark)
+    public static class Loopback {
+
+        @Param({"HTTP_1_1", "HTTP_2"})
+        public HttpClient.Version version;
+
+        @Param({"64", "1024", "16384"})
+        public int bodySize;
+
+        LoopbackServer server;
+        HttpClient client;
+        HttpRequest request;
+
+        @Setup(Level.Trial)
+        public void start() throws Exception {
+            server = new LoopbackServer(bodySize);
+            client = version == HttpClient.Version.HTTP_2
+                    ? HttpClientFactory.createHttp2Client()
+                    : HttpClientFactory.createHttp11Client();
+            request = HttpRequest.newBuilder()
+                    .uri(server.baseUri().resolve("/posts/1"))
+                    .timeout(Duration.ofSeconds(10))
+                    .GET()
+                    .build();
+
+            // Prime the connection (and the h2c upgrade) outside of the measurement
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200 || response.body().length != bodySize) {
+                throw new IllegalStateException("Unexpected loopback response: " + response.statusCode());
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws Exception {
+            client.close();
+            server.close();
+        }
+    }
+
+    /**
+     * Number of requests kept in flight by the async scenario
+     */
+    @State(Scope.Thread)
+    public static class Batch {
+
+        @Param({"1", "16", "64"})
+        public int concurrency;
+
+        CompletableFuture<?>[] futures;
+
+        @Setup(Level.Trial)
+        public void allocate() {
+            futures = new CompletableFuture<?>[concurrency];
+        }
+    }
+
+    /**
+     * One blocking send per operation, like {@code PerformanceBenchmark.benchmarkSync}
+     */
+    @Benchmark
+    public int sync(Loopback loopback) throws Exception {
+        HttpResponse<byte[]> response = loopback.client.send(loopback.request,
+                HttpResponse.BodyHandlers.ofByteArray());
+        return response.body().length;
+    }
+
+    /**
+     * {@code concurrency} sendAsync calls joined with allOf per operation,
+     * like {@code PerformanceBenchmark.benchmarkAsync}
+     */
+    @Benchmark
+    public void async(Loopback loopback, Batch batch) {
+        CompletableFuture<?>[] futures = batch.futures;
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = loopback.client.sendAsync(loopback.request, HttpResponse.BodyHandlers.ofByteArray());
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+}
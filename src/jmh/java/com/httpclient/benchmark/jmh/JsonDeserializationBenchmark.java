@@ -0,0 +1,112 @@
+package com.httpclient.benchmark.jmh;
+
+import com.google.gson.Gson;
+import com.httpclient.body.JsonBodyHandlers;
+import com.httpclient.util.HttpClientFactory;
+import com.httpclient.util.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * ofString() + gson.fromJson (what {@code AdvancedHttpMethodsDemo.getUserById} used to do)
+ * vs the streaming {@link JsonBodyHandlers}, on a JSON array of users.
+ * <p>
+ * Run with {@code -prof gc}: {@code gc.alloc.rate.norm} is the bytes allocated per
+ * response, which is what drives peak heap when many large bodies are in flight.
+ *
+ * <pre>
+ *   java -jar target/benchmarks.jar JsonDeserializationBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class JsonDeserializationBenchmark {
+
+    @Param({"100", "10000"})
+    public int users;
+
+    private final Gson gson = new Gson();
+    private LoopbackServer server;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        List<User> list = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            list.add(new User(i, "User " + i, "user" + i + "@example.com"));
+        }
+        server = new LoopbackServer(gson.toJson(list).getBytes(StandardCharsets.UTF_8));
+        client = HttpClientFactory.createHttp11Client();
+        request = HttpRequest.newBuilder()
+                .uri(server.baseUri().resolve("/users"))
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    /**
+     * Current approach: whole body as String, then parse
+     */
+    @Benchmark
+    public long stringThenParse() throws Exception {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        User[] parsed = gson.fromJson(response.body(), User[].class);
+        return sumIds(Stream.of(parsed));
+    }
+
+    /**
+     * Whole array parsed while the bytes arrive
+     */
+    @Benchmark
+    public long streamingWhole() throws Exception {
+        HttpResponse<User[]> response = client.send(request, JsonBodyHandlers.ofJson(gson, User[].class));
+        return sumIds(Stream.of(response.body()));
+    }
+
+    /**
+     * Elements parsed one at a time as the stream is consumed
+     */
+    @Benchmark
+    public long streamingElements() throws Exception {
+        HttpResponse<Stream<User>> response = client.send(request, JsonBodyHandlers.ofJsonArray(gson, User.class));
+        try (Stream<User> stream = response.body()) {
+            return sumIds(stream);
+        }
+    }
+
+    private static long sumIds(Stream<User> stream) {
+        return stream.mapToLong(User::getId).sum();
+    }
+}
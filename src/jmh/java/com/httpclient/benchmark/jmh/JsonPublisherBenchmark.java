@@ -0,0 +1,136 @@
+package com.httpclient.benchmark.jmh;
+
+import com.google.gson.Gson;
+import com.httpclient.body.JsonBodyPublishers;
+import com.httpclient.util.HttpClientFactory;
+import com.httpclient.util.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation per request of {@code BodyPublishers.ofString(gson.toJson(...))} (what
+ * {@code AdvancedHttpMethodsDemo.postJson} used to do) vs {@link JsonBodyPublishers}.
+ * <p>
+ * The {@code publish*} benchmarks only drain the publisher, isolating serialization;
+ * the {@code post*} ones send it to the loopback server.
+ *
+ * <pre>
+ *   java -jar target/benchmarks.jar JsonPublisherBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class JsonPublisherBenchmark {
+
+    @Param({"1", "1000"})
+    public int users;
+
+    private final Gson gson = new Gson();
+    private Object payload;
+    private LoopbackServer server;
+    private HttpClient client;
+    private HttpRequest.Builder requestBuilder;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        List<User> list = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            list.add(new User(i, "User " + i, "user" + i + "@example.com"));
+        }
+        payload = users == 1 ? list.get(0) : list;
+
+        server = new LoopbackServer(64);
+        client = HttpClientFactory.createHttp11Client();
+        requestBuilder = HttpRequest.newBuilder()
+                .uri(server.baseUri().resolve("/users"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(10));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public long publishString() {
+        return drain(HttpRequest.BodyPublishers.ofString(gson.toJson(payload)));
+    }
+
+    @Benchmark
+    public long publishPooled() {
+        try (JsonBodyPublishers.PooledBodyPublisher body = JsonBodyPublishers.ofJson(gson, payload)) {
+            return drain(body);
+        }
+    }
+
+    @Benchmark
+    public int postString() throws Exception {
+        HttpRequest request = requestBuilder.copy()
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(payload)))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    public int postPooled() throws Exception {
+        try (JsonBodyPublishers.PooledBodyPublisher body = JsonBodyPublishers.ofJson(gson, payload)) {
+            HttpRequest request = requestBuilder.copy().POST(body).build();
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        }
+    }
+
+    /**
+     * Synchronously pull every buffer and return the byte count
+     */
+    private static long drain(HttpRequest.BodyPublisher publisher) {
+        long[] total = new long[1];
+        publisher.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                total[0] += item.remaining();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                throw new IllegalStateException(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        return total[0];
+    }
+}
@@ -0,0 +1,102 @@
+package com.httpclient.benchmark.jmh;
+
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.io.Content;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.Callback;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * In-process HTTP/1.1 + h2c server bound to the loopback interface.
+ * Every request is answered with the same fixed body (by default JSON-ish filler of the configured size),
+ * so benchmark numbers measure the client and not the network.
+ */
+public class LoopbackServer implements AutoCloseable {
+
+    private final Server server;
+    private final ServerConnector connector;
+
+    public LoopbackServer(int bodySize) throws Exception {
+        this(payload(bodySize));
+    }
+
+    /**
+     * Server that answers every request with exactly {@code body}
+     */
+    public LoopbackServer(byte[] body) throws Exception {
+        this(body, null);
+    }
+
+    /**
+     * Server that answers every request with {@code body}, already encoded with
+     * {@code contentEncoding} (e.g. "gzip"; null for none)
+     */
+    public LoopbackServer(byte[] body, String contentEncoding) throws Exception {
+        HttpConfiguration config = new HttpConfiguration();
+        server = new Server();
+
+        // HTTP/1.1 first so that prior-knowledge-less clients can upgrade to h2c
+        connector = new ServerConnector(server,
+                new HttpConnectionFactory(config),
+                new HTTP2CServerConnectionFactory(config));
+        connector.setHost("127.0.0.1");
+        connector.setPort(0);
+        server.addConnector(connector);
+
+        server.setHandler(new Handler.Abstract() {
+            @Override
+            public boolean handle(Request request, Response response, Callback callback) {
+                response.setStatus(200);
+                response.getHeaders().put(HttpHeader.CONTENT_TYPE, "application/json");
+                response.getHeaders().put(HttpHeader.CONTENT_LENGTH, body.length);
+                if (contentEncoding != null) {
+                    response.getHeaders().put(HttpHeader.CONTENT_ENCODING, contentEncoding);
+                }
+                // Drain any request body first so the connection stays reusable
+                Content.Source.consumeAll(request, Callback.from(
+                        () -> response.write(true, ByteBuffer.wrap(body), callback),
+                        callback::failed));
+                return true;
+            }
+        });
+
+        server.start();
+    }
+
+    /**
+     * Base URI of the running server, e.g. http://127.0.0.1:54321
+     */
+    public URI baseUri() {
+        return URI.create("http://127.0.0.1:" + connector.getLocalPort());
+    }
+
+    @Override
+    public void close() throws Exception {
+        server.stop();
+    }
+
+    /**
+     * Build a {"data":"xxxx..."} body of exactly {@code size} bytes (minimum 11)
+     */
+    private static byte[] payload(int size) {
+        byte[] prefix = "{\"data\":\"".getBytes();
+        byte[] suffix = "\"}".getBytes();
+        int fill = Math.max(0, size - prefix.length - suffix.length);
+
+        byte[] body = new byte[prefix.length + fill + suffix.length];
+        System.arraycopy(prefix, 0, body, 0, prefix.length);
+        Arrays.fill(body, prefix.length, prefix.length + fill, (byte) 'x');
+        System.arraycopy(suffix, 0, body, prefix.length + fill, suffix.length);
+        return body;
+    }
+}
@@ -0,0 +1,140 @@
+package com.httpclient.benchmark.jmh;
+
+import com.google.gson.Gson;
+import com.httpclient.mock.MockServer;
+import com.httpclient.streaming.StreamOptions;
+import com.httpclient.streaming.StreamingClient;
+import com.httpclient.util.HttpClientFactory;
+import com.httpclient.util.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Throughput of {@link StreamingClient} reading {@value #EVENTS} users per request from the
+ * {@link MockServer} stream endpoints, as server-sent events or NDJSON, deserialized with
+ * Gson. Score is users per second.
+ * <p>
+ * {@code demand} is how many items the subscriber requests at a time ({@code 0} for
+ * unbounded), which shows what the backpressure bookkeeping costs. {@code ofLines} is the
+ * JDK's {@code BodyHandlers.ofLines()} with the same Gson parsing, as a baseline without
+ * backpressure or SSE framing.
+ *
+ * <pre>
+ *   java -jar target/benchmarks.jar StreamingBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class StreamingBenchmark {
+
+    static final int EVENTS = 10_000;
+
+    @Param({"ndjson", "sse"})
+    public String format;
+
+    @Param({"1", "256", "0"})
+    public long demand;
+
+    private final Gson gson = new Gson();
+    private MockServer server;
+    private HttpClient client;
+    private StreamingClient streaming;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        server = MockServer.start();
+        client = HttpClientFactory.createHttp11Client();
+        // The streams are finite; reconnecting after the last event would only add the delay
+        streaming = new StreamingClient(client, StreamOptions.defaults().withoutReconnect());
+        String path = format.equals("sse") ? "/stream/users" : "/stream/users.ndjson";
+        request = HttpRequest.newBuilder(server.baseUri().resolve(path + "?count=" + EVENTS)).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void publisher(Blackhole blackhole) {
+        Flow.Publisher<User> users = format.equals("sse")
+                ? streaming.events(request, gson, User.class)
+                : streaming.ndjson(request, gson, User.class);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        long batch = demand > 0 ? demand : Long.MAX_VALUE;
+
+        users.subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+            private long outstanding;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                outstanding = batch;
+                subscription.request(batch);
+            }
+
+            @Override
+            public void onNext(User user) {
+                blackhole.consume(user);
+                if (batch != Long.MAX_VALUE && --outstanding == 0) {
+                    outstanding = batch;
+                    subscription.request(batch);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+        done.orTimeout(30, TimeUnit.SECONDS).join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void ofLines(Blackhole blackhole) throws Exception {
+        HttpResponse<Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+        try (Stream<String> lines = response.body()) {
+            if (format.equals("sse")) {
+                lines.filter(line -> line.startsWith("data: "))
+                        .forEach(line -> blackhole.consume(gson.fromJson(line.substring(6), User.class)));
+            } else {
+                lines.forEach(line -> blackhole.consume(gson.fromJson(line, User.class)));
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.httpclient.benchmark.jmh;
+
+import com.httpclient.util.HttpClientFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Can blocking-style code scale? Each operation issues {@code requests} calls either as
+ * blocking {@code client.send} on one virtual thread per call, or as {@code sendAsync}
+ * on a client using the default platform-thread executor.
+ *
+ * <pre>
+ *   java -jar target/benchmarks.jar VirtualThreadBenchmark -p requests=5000
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 2, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class VirtualThreadBenchmark {
+
+    @Param({"HTTP_1_1", "HTTP_2"})
+    public HttpClient.Version version;
+
+    @Param({"1000", "5000"})
+    public int requests;
+
+    private LoopbackServer server;
+    private HttpClient virtualThreadClient;
+    private HttpClient platformClient;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        server = new LoopbackServer(1024);
+        boolean http2 = version == HttpClient.Version.HTTP_2;
+        virtualThreadClient = http2
+                ? HttpClientFactory.createVirtualThreadHttp2Client()
+                : HttpClientFactory.createVirtualThreadHttp11Client();
+        platformClient = http2
+                ? HttpClientFactory.createHttp2Client()
+                : HttpClientFactory.createHttp11Client();
+        request = HttpRequest.newBuilder()
+                .uri(server.baseUri().resolve("/posts/1"))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        virtualThreadClient.close();
+        platformClient.close();
+        server.close();
+    }
+
+    /**
+     * {@code requests} blocking sends, each on its own virtual thread
+     */
+    @Benchmark
+    public long blockingOnVirtualThreads() {
+        LongAdder ok = new LongAdder();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                executor.submit(() -> {
+                    try {
+                        if (virtualThreadClient.send(request, HttpResponse.BodyHandlers.ofByteArray()).statusCode() == 200) {
+                            ok.increment();
+                        }
+                    } catch (Exception e) {
+                        // Count as failure
+                    }
+                });
+            }
+        }
+        return ok.sum();
+    }
+
+    /**
+     * {@code requests} sendAsync calls completed on the default platform thread pool
+     */
+    @Benchmark
+    public long asyncOnPlatformThreads() {
+        LongAdder ok = new LongAdder();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[requests];
+        for (int i = 0; i < requests; i++) {
+            futures[i] = platformClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                    .thenAccept(response -> {
+                        if (response.statusCode() == 200) {
+                            ok.increment();
+                        }
+                    });
+        }
+        CompletableFuture.allOf(futures).exceptionally(error -> null).join();
+        return ok.sum();
+    }
+}
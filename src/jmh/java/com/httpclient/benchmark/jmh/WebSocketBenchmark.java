@@ -0,0 +1,129 @@
+package com.httpclient.benchmark.jmh;
+
+import com.httpclient.mock.WebSocketEchoServer;
+import com.httpclient.util.HttpClientFactory;
+import com.httpclient.websocket.WebSocketHandler;
+import com.httpclient.websocket.WebSocketOptions;
+import com.httpclient.websocket.WebSocketSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * WebSocket echo throughput and round-trip latency through {@link WebSocketSession}
+ * against an in-process {@link WebSocketEchoServer}.
+ * <p>
+ * {@code pipelined} sends {@value #BATCH} messages back to back and waits for all echoes
+ * (score is per message); {@code roundTrip} sends one and waits for its echo.
+ *
+ * <pre>
+ *   java -jar target/benchmarks.jar WebSocketBenchmark
+ * </pre>
+ */
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class WebSocketBenchmark {
+
+    static final int BATCH = 1000;
+
+    @Param({"64", "4096"})
+    public int messageSize;
+
+    @Param({"false", "true"})
+    public boolean binary;
+
+    private WebSocketEchoServer server;
+    private HttpClient client;
+    private WebSocketSession session;
+    private String textMessage;
+    private ByteBuffer binaryMessage;
+    private volatile CountDownLatch echoes;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        server = new WebSocketEchoServer();
+        client = HttpClientFactory.createHttp11Client();
+
+        char[] chars = new char[messageSize];
+        Arrays.fill(chars, 'x');
+        textMessage = new String(chars);
+        binaryMessage = ByteBuffer.allocate(messageSize);
+
+        WebSocketHandler handler = new WebSocketHandler() {
+            @Override
+            public void onText(WebSocketSession s, CharSequence message) {
+                echoes.countDown();
+            }
+
+            @Override
+            public void onBinary(WebSocketSession s, ByteBuffer message) {
+                echoes.countDown();
+            }
+        };
+        session = WebSocketSession.connect(client, server.uri(),
+                WebSocketOptions.defaults().withMaxQueuedSends(BATCH).withDemandWindow(256), handler).join();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        session.close(WebSocket.NORMAL_CLOSURE, "done").join();
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void pipelined() throws Exception {
+        echoes = new CountDownLatch(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            send();
+        }
+        await();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void roundTrip() throws Exception {
+        echoes = new CountDownLatch(1);
+        send();
+        await();
+    }
+
+    private void send() {
+        if (binary) {
+            session.sendBinary(binaryMessage.duplicate());
+        } else {
+            session.sendText(textMessage);
+        }
+    }
+
+    private void await() throws Exception {
+        if (!echoes.await(30, TimeUnit.SECONDS)) {
+            throw new TimeoutException(echoes.getCount() + " echoes missing");
+        }
+    }
+}
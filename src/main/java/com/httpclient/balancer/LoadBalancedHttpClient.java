@@ -0,0 +1,118 @@
+package com.httpclient.balancer;
+
+import com.httpclient.util.ForwardingHttpClient;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Collection;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Client for one logical service running on several replicas.
+ * <p>
+ * Requests only need a path: whatever scheme and host they carry is replaced by the
+ * endpoint the {@link LoadBalancer} picks, keeping the request's path and query after the
+ * endpoint's own base path. So {@code http://posts/posts/1} with endpoints
+ * {@code http://10.0.0.5:8080} and {@code http://10.0.0.6:8080/v2} goes to
+ * {@code http://10.0.0.5:8080/posts/1} or {@code http://10.0.0.6:8080/v2/posts/1}.
+ * <p>
+ * 5xx responses and I/O errors count as endpoint failures for outlier detection. A failed
+ * request is not retried here; wrapped in a {@link com.httpclient.resilience.RetryingHttpClient}
+ * the retry goes through the balancer again and usually lands on another replica.
+ */
+public class LoadBalancedHttpClient extends ForwardingHttpClient {
+
+    private final LoadBalancer balancer;
+
+    public LoadBalancedHttpClient(HttpClient delegate, Collection<URI> endpoints) {
+        this(delegate, new LoadBalancer(endpoints));
+    }
+
+    public LoadBalancedHttpClient(HttpClient delegate, LoadBalancer balancer) {
+        super(delegate);
+        this.balancer = balancer;
+    }
+
+    public LoadBalancer balancer() {
+        return balancer;
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler)
+            throws IOException, InterruptedException {
+        LoadBalancer.Selection selection = balancer.pick();
+        try {
+            HttpResponse<T> response = delegate.send(route(request, selection.uri()), responseBodyHandler);
+            selection.release(isFailure(response));
+            return response;
+        } catch (InterruptedException e) {
+            selection.abandon();
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            selection.release(true);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler) {
+        LoadBalancer.Selection selection = balancer.pick();
+        return track(selection, () -> delegate.sendAsync(route(request, selection.uri()), responseBodyHandler));
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler,
+                                                            HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        LoadBalancer.Selection selection = balancer.pick();
+        return track(selection, () -> delegate.sendAsync(route(request, selection.uri()), responseBodyHandler,
+                pushPromiseHandler));
+    }
+
+    /**
+     * {@code request} sent to {@code endpoint} instead of its own origin
+     */
+    public static HttpRequest route(HttpRequest request, URI endpoint) {
+        URI target = request.uri();
+        String basePath = endpoint.getRawPath() == null ? "" : endpoint.getRawPath();
+        if (basePath.endsWith("/")) {
+            basePath = basePath.substring(0, basePath.length() - 1);
+        }
+        String path = target.getRawPath() == null || target.getRawPath().isEmpty() ? "/" : target.getRawPath();
+        String uri = endpoint.getScheme() + "://" + endpoint.getRawAuthority() + basePath + path
+                + (target.getRawQuery() != null ? "?" + target.getRawQuery() : "");
+        return HttpRequest.newBuilder(request, (name, value) -> true).uri(URI.create(uri)).build();
+    }
+
+    private static <T> CompletableFuture<HttpResponse<T>> track(
+            LoadBalancer.Selection selection,
+            Supplier<CompletableFuture<HttpResponse<T>>> send) {
+        CompletableFuture<HttpResponse<T>> future;
+        try {
+            future = send.get();
+        } catch (RuntimeException e) {
+            selection.release(true);
+            throw e;
+        }
+        return future.whenComplete((response, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            if (cause instanceof CancellationException) {
+                selection.abandon();
+            } else {
+                selection.release(cause != null || isFailure(response));
+            }
+        });
+    }
+
+    private static boolean isFailure(HttpResponse<?> response) {
+        return response.statusCode() >= 500;
+    }
+}
@@ -0,0 +1,316 @@
+package com.httpclient.balancer;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Picks one of several equivalent endpoints per request.
+ * <p>
+ * Power of two choices: two endpoints are drawn at random and the cheaper one wins, where
+ * the cost is the EWMA latency times (outstanding requests + 1). That steers traffic away
+ * from slow or busy replicas without the herding of always picking the global minimum.
+ * A pick is O(1) and allocation-free when both drawn endpoints are in rotation; only when
+ * one of them is ejected does it scan the endpoints and draw again among the others.
+ * <p>
+ * Outlier detection ejects an endpoint after {@code consecutiveFailures} failures in a row;
+ * each ejection of the same endpoint lasts longer, up to {@code maxEjectionTime}. Ejected
+ * endpoints, and ones added by {@link #update(Collection)}, come back through slow start:
+ * their share of traffic ramps up linearly over {@code slowStart}. If every endpoint is
+ * ejected the balancer ignores ejection rather than fail all requests.
+ */
+public class LoadBalancer {
+
+    private final LoadBalancerOptions options;
+    private volatile List<Endpoint> endpoints;
+
+    /**
+     * Current state of one endpoint
+     *
+     * @param weight slow-start share of traffic, 1 once fully warmed up
+     */
+    public record EndpointStats(URI uri, int outstanding, double latencyMillis, long requests, long failures,
+                                int ejections, boolean ejected, double weight) {
+    }
+
+    /**
+     * One request routed to {@link #uri()}; release it exactly once when the request ends.
+     * Only the first release counts.
+     */
+    public interface Selection {
+        URI uri();
+
+        /**
+         * Record the outcome; the latency is measured from the pick
+         */
+        void release(boolean failed);
+
+        /**
+         * End the request without a sample, e.g. when the caller cancelled it
+         */
+        void abandon();
+    }
+
+    public LoadBalancer(Collection<URI> endpoints) {
+        this(endpoints, LoadBalancerOptions.defaults());
+    }
+
+    public LoadBalancer(Collection<URI> endpoints, LoadBalancerOptions options) {
+        this.options = options;
+        // The initial set starts warm; only later additions slow-start
+        long warm = System.nanoTime() - options.slowStart().toNanos();
+        List<Endpoint> initial = new ArrayList<>();
+        for (URI uri : endpoints) {
+            initial.add(new Endpoint(uri, warm));
+        }
+        this.endpoints = List.copyOf(initial);
+    }
+
+    public LoadBalancerOptions options() {
+        return options;
+    }
+
+    /**
+     * Replace the endpoint set, e.g. from service discovery; endpoints that stay keep their
+     * state, new ones slow-start
+     */
+    public synchronized void update(Collection<URI> uris) {
+        Map<URI, Endpoint> existing = new LinkedHashMap<>();
+        for (Endpoint endpoint : endpoints) {
+            existing.put(endpoint.uri, endpoint);
+        }
+        long now = System.nanoTime();
+        List<Endpoint> next = new ArrayList<>();
+        for (URI uri : uris) {
+            Endpoint endpoint = existing.get(uri);
+            next.add(endpoint != null ? endpoint : new Endpoint(uri, now));
+        }
+        endpoints = List.copyOf(next);
+    }
+
+    /**
+     * The endpoint for the next request
+     *
+     * @throws IllegalStateException if there are no endpoints
+     */
+    public Selection pick() {
+        List<Endpoint> all = endpoints;
+        if (all.isEmpty()) {
+            throw new IllegalStateException("No endpoints to balance over");
+        }
+        long now = System.nanoTime();
+        Endpoint chosen = cheaperOfTwo(all, now, false);
+        if (chosen == null) {
+            List<Endpoint> available = new ArrayList<>(all.size());
+            for (Endpoint endpoint : all) {
+                if (!endpoint.isEjected(now)) {
+                    available.add(endpoint);
+                }
+            }
+            // Everything is ejected: better to try them all than to fail every request
+            chosen = cheaperOfTwo(available.isEmpty() ? all : available, now, true);
+        }
+        chosen.outstanding.incrementAndGet();
+        chosen.requests.increment();
+        return new EndpointSelection(chosen, now);
+    }
+
+    /**
+     * The cheaper of two distinct random candidates (the only one, if there is just one), or
+     * null if an ejected one was drawn and {@code ejected} does not allow that
+     */
+    private static Endpoint cheaperOfTwo(List<Endpoint> candidates, long now, boolean ejected) {
+        if (candidates.size() == 1) {
+            Endpoint only = candidates.getFirst();
+            return ejected || !only.isEjected(now) ? only : null;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        Endpoint a = candidates.get(first);
+        Endpoint b = candidates.get(second);
+        if (!ejected && (a.isEjected(now) || b.isEjected(now))) {
+            return null;
+        }
+        return a.cost(now) <= b.cost(now) ? a : b;
+    }
+
+    public List<EndpointStats> stats() {
+        long now = System.nanoTime();
+        List<EndpointStats> stats = new ArrayList<>();
+        for (Endpoint endpoint : endpoints) {
+            stats.add(endpoint.stats(now));
+        }
+        return stats;
+    }
+
+    /**
+     * Print one line per endpoint
+     */
+    public void printStats() {
+        stats().forEach(s -> System.out.println("  " + s.uri()
+                + ": requests=" + s.requests()
+                + ", failures=" + s.failures()
+                + ", outstanding=" + s.outstanding()
+                + ", latency=" + String.format("%.1f", s.latencyMillis()) + " ms"
+                + ", ejections=" + s.ejections()
+                + (s.ejected() ? " (ejected)" : "")
+                + (s.weight() < 1.0 ? String.format(", warming %.0f%%", s.weight() * 100) : "")));
+    }
+
+    /**
+     * Eject {@code endpoint} unless that would put more than {@code maxEjectedPercent} out of rotation
+     */
+    private synchronized void eject(Endpoint endpoint, long now) {
+        if (endpoint.isEjected(now)) {
+            return;
+        }
+        List<Endpoint> all = endpoints;
+        int ejected = 0;
+        for (Endpoint other : all) {
+            if (other.isEjected(now)) {
+                ejected++;
+            }
+        }
+        if (ejected + 1 > options.maxEjectedPercent() * all.size()) {
+            return;
+        }
+        long maxNanos = options.maxEjectionTime().toNanos();
+        if (endpoint.ejections > 0 && now - endpoint.ejectedUntil > maxNanos) {
+            // Healthy for a long while since the last one: start over
+            endpoint.ejections = 0;
+        }
+        endpoint.ejections++;
+        long duration = Math.min(maxNanos, options.baseEjectionTime().toNanos() * endpoint.ejections);
+        endpoint.ejectedUntil = now + duration;
+        endpoint.consecutiveFailures.set(0);
+    }
+
+    private class EndpointSelection implements Selection {
+        private final Endpoint endpoint;
+        private final long startNanos;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        EndpointSelection(Endpoint endpoint, long startNanos) {
+            this.endpoint = endpoint;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public URI uri() {
+            return endpoint.uri;
+        }
+
+        @Override
+        public void release(boolean failed) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            long now = System.nanoTime();
+            endpoint.outstanding.decrementAndGet();
+            endpoint.sample(now - startNanos, failed, now, options.latencyDecay().toNanos());
+            if (!failed) {
+                endpoint.consecutiveFailures.set(0);
+            } else {
+                endpoint.failures.increment();
+                if (endpoint.consecutiveFailures.incrementAndGet() >= options.consecutiveFailures()) {
+                    eject(endpoint, now);
+                }
+            }
+        }
+
+        @Override
+        public void abandon() {
+            if (released.compareAndSet(false, true)) {
+                endpoint.outstanding.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * One endpoint and what is known about it
+     */
+    private class Endpoint {
+        final URI uri;
+        final AtomicInteger outstanding = new AtomicInteger();
+        final AtomicInteger consecutiveFailures = new AtomicInteger();
+        final LongAdder requests = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        /** Added at; slow start runs from the later of this and the end of the last ejection */
+        final long addedNanos;
+        volatile long ejectedUntil;
+        /** Guarded by the balancer */
+        int ejections;
+        /** Guarded by this */
+        private double latencyNanos;
+        private long lastSampleNanos;
+        private boolean sampled;
+
+        Endpoint(URI uri, long addedNanos) {
+            this.uri = uri;
+            this.addedNanos = addedNanos;
+            this.ejectedUntil = addedNanos;
+        }
+
+        boolean isEjected(long now) {
+            return ejectedUntil - now > 0;
+        }
+
+        /**
+         * Share of traffic during slow start, from 10% up to 1
+         */
+        double weight(long now) {
+            long slowStart = options.slowStart().toNanos();
+            long since = now - Math.max(addedNanos, ejectedUntil);
+            if (slowStart <= 0 || since >= slowStart) {
+                return 1.0;
+            }
+            return Math.max(0.1, (double) since / slowStart);
+        }
+
+        synchronized double latency() {
+            return latencyNanos;
+        }
+
+        double cost(long now) {
+            // No sample yet counts as 1 ns, so only outstanding requests and slow start matter
+            return Math.max(latency(), 1.0) * (outstanding.get() + 1) / weight(now);
+        }
+
+        /**
+         * Time-weighted EWMA: a sample counts more the longer it has been since the previous one.
+         * A failure counts as at least twice the current latency, so a node that fails fast
+         * doesn't look fast.
+         */
+        synchronized void sample(long rttNanos, boolean failed, long now, long decayNanos) {
+            double rtt = failed ? Math.max(rttNanos, 2 * latencyNanos) : rttNanos;
+            if (!sampled) {
+                latencyNanos = rtt;
+                sampled = true;
+            } else {
+                double keep = Math.exp(-(double) Math.max(0, now - lastSampleNanos) / decayNanos);
+                latencyNanos = latencyNanos * keep + rtt * (1 - keep);
+            }
+            lastSampleNanos = now;
+        }
+
+        EndpointStats stats(long now) {
+            int ejectionCount;
+            synchronized (LoadBalancer.this) {
+                ejectionCount = ejections;
+            }
+            return new EndpointStats(uri, outstanding.get(), latency() / 1_000_000.0, requests.sum(),
+                    failures.sum(), ejectionCount, isEjected(now), weight(now));
+        }
+    }
+}
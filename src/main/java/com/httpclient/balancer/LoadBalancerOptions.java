@@ -0,0 +1,52 @@
+package com.httpclient.balancer;
+
+import java.time.Duration;
+
+/**
+ * How a {@link LoadBalancer} weighs and ejects endpoints.
+ *
+ * @param latencyDecay        time constant of the latency EWMA; older samples fade out over about this long
+ * @param consecutiveFailures failures in a row (5xx or I/O errors) that eject an endpoint
+ * @param baseEjectionTime    first ejection length; each further ejection of the same endpoint adds this again
+ * @param maxEjectionTime     cap on the ejection length, and the quiet time after which the count resets
+ * @param maxEjectedPercent   share of endpoints (0..1) that may be ejected at once, so a bad deploy
+ *                            can't empty the pool
+ * @param slowStart           ramp-up time of an endpoint that was just added or came back from ejection
+ */
+public record LoadBalancerOptions(Duration latencyDecay,
+                                  int consecutiveFailures,
+                                  Duration baseEjectionTime,
+                                  Duration maxEjectionTime,
+                                  double maxEjectedPercent,
+                                  Duration slowStart) {
+
+    /**
+     * 1 s latency decay, eject after 5 failures for 30 s (up to 5 min), at most half the
+     * endpoints ejected, 30 s slow start
+     */
+    public static LoadBalancerOptions defaults() {
+        return new LoadBalancerOptions(Duration.ofSeconds(1), 5, Duration.ofSeconds(30),
+                Duration.ofMinutes(5), 0.5, Duration.ofSeconds(30));
+    }
+
+    public LoadBalancerOptions withLatencyDecay(Duration latencyDecay) {
+        return new LoadBalancerOptions(latencyDecay, consecutiveFailures, baseEjectionTime, maxEjectionTime,
+                maxEjectedPercent, slowStart);
+    }
+
+    public LoadBalancerOptions withEjection(int consecutiveFailures, Duration baseEjectionTime,
+                                            Duration maxEjectionTime) {
+        return new LoadBalancerOptions(latencyDecay, consecutiveFailures, baseEjectionTime, maxEjectionTime,
+                maxEjectedPercent, slowStart);
+    }
+
+    public LoadBalancerOptions withMaxEjectedPercent(double maxEjectedPercent) {
+        return new LoadBalancerOptions(latencyDecay, consecutiveFailures, baseEjectionTime, maxEjectionTime,
+                maxEjectedPercent, slowStart);
+    }
+
+    public LoadBalancerOptions withSlowStart(Duration slowStart) {
+        return new LoadBalancerOptions(latencyDecay, consecutiveFailures, baseEjectionTime, maxEjectionTime,
+                maxEjectedPercent, slowStart);
+    }
+}
@@ -0,0 +1,34 @@
+package com.httpclient.batch;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * Outcome of one request in a batch: either a response (of any status) or the error
+ * that prevented one.
+ *
+ * @param index position of the request in the submitted collection
+ */
+public record BatchResult<T>(int index, HttpRequest request, HttpResponse<T> response, Throwable error) {
+
+    /**
+     * A 2xx response arrived
+     */
+    public boolean isSuccess() {
+        return error == null && response.statusCode() >= 200 && response.statusCode() < 300;
+    }
+
+    public boolean isFailure() {
+        return !isSuccess();
+    }
+
+    /**
+     * "200", or the exception name and message
+     */
+    public String describe() {
+        if (error != null) {
+            return error.getClass().getSimpleName() + ": " + error.getMessage();
+        }
+        return String.valueOf(response.statusCode());
+    }
+}
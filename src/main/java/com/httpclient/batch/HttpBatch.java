@@ -0,0 +1,233 @@
+package com.httpclient.batch;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Sends a collection of requests as one call, keeping each origin busy without
+ * overrunning it.
+ * <p>
+ * Requests are grouped by origin (scheme, host and port). The JDK client multiplexes
+ * HTTP/2 requests to one origin over a single connection, so for HTTP/2 the window is the
+ * number of concurrent streams; for HTTP/1.1 every in-flight request holds its own
+ * connection, so the window is the number of connections. Asking for HTTP/2 does not mean
+ * the origin speaks it, so every origin starts with the HTTP/1.1 window and widens to the
+ * HTTP/2 one once a response arrives over HTTP/2. Each completion immediately starts the
+ * next queued request for the same origin.
+ * <p>
+ * A failed request never fails the batch: every request yields a {@link BatchResult}.
+ */
+public class HttpBatch {
+
+    /**
+     * Servers commonly advertise SETTINGS_MAX_CONCURRENT_STREAMS of 100 (RFC 9113 recommends
+     * no less), and the JDK client does not expose the negotiated value
+     */
+    public static final int DEFAULT_MAX_STREAMS = 100;
+
+    /**
+     * Browsers' long-standing per-origin connection cap for HTTP/1.1
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS = 6;
+
+    private final HttpClient client;
+    private final int maxStreamsPerOrigin;
+    private final int maxConnectionsPerOrigin;
+
+    public HttpBatch(HttpClient client) {
+        this(client, DEFAULT_MAX_STREAMS, DEFAULT_MAX_CONNECTIONS);
+    }
+
+    /**
+     * @param maxStreamsPerOrigin     concurrent requests per origin over HTTP/2
+     * @param maxConnectionsPerOrigin concurrent requests per origin over HTTP/1.1
+     */
+    public HttpBatch(HttpClient client, int maxStreamsPerOrigin, int maxConnectionsPerOrigin) {
+        this.client = client;
+        this.maxStreamsPerOrigin = maxStreamsPerOrigin;
+        this.maxConnectionsPerOrigin = maxConnectionsPerOrigin;
+    }
+
+    /**
+     * Send every request; the future completes with all results in input order
+     */
+    public <T> CompletableFuture<List<BatchResult<T>>> sendAll(Collection<HttpRequest> requests,
+                                                               HttpResponse.BodyHandler<T> handler) {
+        List<HttpRequest> batch = List.copyOf(requests);
+        AtomicReferenceArray<BatchResult<T>> results = new AtomicReferenceArray<>(batch.size());
+        return run(batch, handler, result -> results.set(result.index(), result)).thenApply(done -> {
+            List<BatchResult<T>> ordered = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                ordered.add(results.get(i));
+            }
+            return ordered;
+        });
+    }
+
+    /**
+     * Send every request and return the results in completion order. The stream blocks
+     * while waiting for the next result, which is cheap on a virtual thread.
+     */
+    public <T> Stream<BatchResult<T>> stream(Collection<HttpRequest> requests, HttpResponse.BodyHandler<T> handler) {
+        List<HttpRequest> batch = List.copyOf(requests);
+        BlockingQueue<BatchResult<T>> completed = new LinkedBlockingQueue<>();
+        run(batch, handler, completed::add);
+        return Stream.generate(() -> take(completed)).limit(batch.size());
+    }
+
+    /**
+     * Send every request, handing each result to {@code onResult} as it completes (on the
+     * client's completion thread). The future completes after the last result.
+     */
+    public <T> CompletableFuture<Void> forEach(Collection<HttpRequest> requests, HttpResponse.BodyHandler<T> handler,
+                                               Consumer<BatchResult<T>> onResult) {
+        return run(List.copyOf(requests), handler, onResult);
+    }
+
+    private <T> CompletableFuture<Void> run(List<HttpRequest> batch, HttpResponse.BodyHandler<T> handler,
+                                            Consumer<BatchResult<T>> onResult) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (batch.isEmpty()) {
+            done.complete(null);
+            return done;
+        }
+
+        AtomicInteger remaining = new AtomicInteger(batch.size());
+        Consumer<BatchResult<T>> deliver = result -> {
+            try {
+                onResult.accept(result);
+            } finally {
+                if (remaining.decrementAndGet() == 0) {
+                    done.complete(null);
+                }
+            }
+        };
+
+        Map<String, OriginQueue<T>> origins = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            HttpRequest request = batch.get(i);
+            origins.computeIfAbsent(origin(request.uri()), o -> new OriginQueue<>(handler, deliver))
+                    .add(i, request);
+        }
+        origins.values().forEach(OriginQueue::start);
+        return done;
+    }
+
+    private static String origin(URI uri) {
+        String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+        int port = uri.getPort();
+        if (port < 0) {
+            port = scheme.equals("https") ? 443 : 80;
+        }
+        return scheme + "://" + uri.getHost().toLowerCase(Locale.ROOT) + ":" + port;
+    }
+
+    private static <T> T take(BlockingQueue<T> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for batch results");
+        }
+    }
+
+    /**
+     * Pending requests for one origin, at most {@code window} of them in flight.
+     * <p>
+     * Completions free a slot and call {@link #drain}; as in {@code BufferSubscription}, only
+     * one thread drains at a time and the others just leave it more work. A request that
+     * completes while it is being sent (a rejection, an open circuit) then continues the
+     * loop instead of recursing, so long batches cannot overflow the stack.
+     */
+    private class OriginQueue<T> {
+        private record Pending(int index, HttpRequest request) {
+        }
+
+        private final HttpResponse.BodyHandler<T> handler;
+        private final Consumer<BatchResult<T>> deliver;
+        private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+        private final AtomicInteger wip = new AtomicInteger();
+        private int window = maxConnectionsPerOrigin;
+        private int freeSlots = window;
+
+        OriginQueue(HttpResponse.BodyHandler<T> handler, Consumer<BatchResult<T>> deliver) {
+            this.handler = handler;
+            this.deliver = deliver;
+        }
+
+        void add(int index, HttpRequest request) {
+            pending.add(new Pending(index, request));
+        }
+
+        void start() {
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                Pending next;
+                while ((next = take()) != null) {
+                    send(next);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private synchronized Pending take() {
+            if (freeSlots == 0 || pending.isEmpty()) {
+                return null;
+            }
+            freeSlots--;
+            return pending.poll();
+        }
+
+        private void send(Pending next) {
+            CompletableFuture<HttpResponse<T>> sent;
+            try {
+                sent = client.sendAsync(next.request(), handler);
+            } catch (RuntimeException e) {
+                sent = CompletableFuture.failedFuture(e);
+            }
+            sent.whenComplete((response, error) -> {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error;
+                try {
+                    deliver.accept(new BatchResult<>(next.index(), next.request(), response, cause));
+                } finally {
+                    synchronized (this) {
+                        freeSlots++;
+                        if (response != null && response.version() == HttpClient.Version.HTTP_2
+                                && window < maxStreamsPerOrigin) {
+                            freeSlots += maxStreamsPerOrigin - window;
+                            window = maxStreamsPerOrigin;
+                        }
+                    }
+                    drain();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.httpclient.benchmark;
+
+import com.httpclient.metrics.LatencyRecorder;
+import com.httpclient.util.Config;
+import com.httpclient.util.HttpClientFactory;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop, constant-rate load generator.
+ * <p>
+ * Requests are issued on a fixed schedule regardless of how fast responses come back,
+ * so a slow server shows up as growing latency instead of a lower request rate.
+ * Each request has an intended start time (its slot in the schedule) and an actual
+ * start time (when the dispatcher managed to send it); response time is measured from
+ * the intended start, service time from the actual start.
+ * <p>
+ * In-flight requests are capped: a slot that finds the cap exhausted is counted as
+ * dropped rather than queued, which keeps the generator itself from becoming the
+ * bottleneck.
+ */
+public class OpenLoopLoadGenerator {
+
+    private static final double SATURATION_RATIO = 0.95;
+
+    private final HttpClient client;
+    private final HttpRequest request;
+    private final Semaphore inFlight;
+
+    /**
+     * One step of the load profile: a target rate held for a duration
+     */
+    public record Step(double requestsPerSecond, Duration duration) {
+    }
+
+    /**
+     * Outcome of one step. Latency histograms are in nanoseconds.
+     */
+    public record StepResult(Step step,
+                             double achievedRps,
+                             long sent,
+                             long succeeded,
+                             long failed,
+                             long dropped,
+                             Histogram responseTime,
+                             Histogram serviceTime,
+                             Histogram startLag) {
+    }
+
+    public OpenLoopLoadGenerator(HttpClient client, HttpRequest request, int maxInFlight) {
+        this.client = client;
+        this.request = request;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Constant rate for the whole run
+     */
+    public static List<Step> constant(double requestsPerSecond, Duration duration) {
+        return List.of(new Step(requestsPerSecond, duration));
+    }
+
+    /**
+     * Linear ramp from {@code fromRps} to {@code toRps} in {@code steps} equal steps
+     */
+    public static List<Step> ramp(double fromRps, double toRps, int steps, Duration stepDuration) {
+        List<Step> profile = new ArrayList<>();
+        for (int i = 0; i < steps; i++) {
+            double rps = steps == 1 ? fromRps : fromRps + (toRps - fromRps) * i / (steps - 1);
+            profile.add(new Step(rps, stepDuration));
+        }
+        return profile;
+    }
+
+    /**
+     * Run the load profile and wait for every issued request to finish
+     */
+    public List<StepResult> run(List<Step> steps) {
+        List<StepRun> runs = new ArrayList<>();
+        for (Step step : steps) {
+            runs.add(dispatch(step));
+        }
+
+        List<StepResult> results = new ArrayList<>();
+        for (StepRun run : runs) {
+            results.add(run.await());
+        }
+        return results;
+    }
+
+    /**
+     * Issue the requests of one step on schedule from the calling thread
+     */
+    private StepRun dispatch(Step step) {
+        StepRun run = new StepRun(step);
+        long intervalNanos = (long) (1_000_000_000L / step.requestsPerSecond());
+        long total = (long) (step.requestsPerSecond() * step.duration().toNanos() / 1_000_000_000L);
+
+        for (long i = 0; i < total; i++) {
+            long intended = run.startNanos + i * intervalNanos;
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            run.startLag.record(now - intended);
+
+            if (!inFlight.tryAcquire()) {
+                run.dropped.increment();
+                continue;
+            }
+
+            long actual = now;
+            run.sent.increment();
+            run.futures.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        inFlight.release();
+                        long completed = System.nanoTime();
+                        run.responseTime.record(completed - intended);
+                        run.serviceTime.record(completed - actual);
+                        run.lastCompletionNanos.accumulateAndGet(completed, Math::max);
+                        if (error == null && response.statusCode() < 400) {
+                            run.succeeded.increment();
+                        } else {
+                            run.failed.increment();
+                        }
+                    }));
+        }
+
+        // Hold the step for its full duration so the next one starts on time
+        long end = run.startNanos + step.duration().toNanos();
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            LockSupport.parkNanos(end - now);
+        }
+        return run;
+    }
+
+    /**
+     * Print one line per step and flag the first step that could not keep up
+     */
+    public static void printResults(List<StepResult> results) {
+        System.out.println(String.format("  %10s %10s %8s %8s %8s %10s %10s %10s %10s",
+                "target/s", "actual/s", "sent", "failed", "dropped", "p50 ms", "p99 ms", "max ms", "lag p99"));
+
+        boolean kneeReported = false;
+        for (StepResult r : results) {
+            System.out.println(String.format("  %10.1f %10.1f %8d %8d %8d %10.2f %10.2f %10.2f %10.2f",
+                    r.step().requestsPerSecond(), r.achievedRps(), r.sent(), r.failed(), r.dropped(),
+                    millis(r.responseTime().getValueAtPercentile(50.0)),
+                    millis(r.responseTime().getValueAtPercentile(99.0)),
+                    millis(r.responseTime().getMaxValue()),
+                    millis(r.startLag().getValueAtPercentile(99.0))));
+
+            if (!kneeReported && r.achievedRps() < r.step().requestsPerSecond() * SATURATION_RATIO) {
+                System.out.println("  ⚠️  Saturation at ~" + String.format("%.1f", r.step().requestsPerSecond()) + " req/s");
+                kneeReported = true;
+            }
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Mutable state of one dispatched step
+     */
+    private static class StepRun {
+        final Step step;
+        final long startNanos = System.nanoTime();
+        final AtomicLong lastCompletionNanos = new AtomicLong(startNanos);
+        final List<CompletableFuture<?>> futures = new ArrayList<>();
+        final LatencyRecorder responseTime = new LatencyRecorder();
+        final LatencyRecorder serviceTime = new LatencyRecorder();
+        final LatencyRecorder startLag = new LatencyRecorder();
+        final LongAdder sent = new LongAdder();
+        final LongAdder succeeded = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+
+        StepRun(Step step) {
+            this.step = step;
+        }
+
+        StepResult await() {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                    .exceptionally(error -> null)
+                    .join();
+
+            // A step that could not keep up finishes after its nominal duration
+            long elapsed = Math.max(lastCompletionNanos.get() - startNanos, step.duration().toNanos());
+            double achieved = succeeded.sum() * 1_000_000_000.0 / elapsed;
+
+            return new StepResult(step, achieved, sent.sum(), succeeded.sum(), failed.sum(), dropped.sum(),
+                    responseTime.snapshot(), serviceTime.snapshot(), startLag.snapshot());
+        }
+    }
+
+    public static void main(String[] args) {
+        System.out.println("=== Open-Loop Load Generator ===\n");
+
+        HttpClient client = HttpClientFactory.createHttp2Client();
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(Config.postUrl()))
+                .timeout(Duration.ofSeconds(Config.REQUEST_TIMEOUT_SECONDS))
+                .GET()
+                .build();
+
+        OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(client, request, Config.CONCURRENT_REQUESTS * 10);
+
+        System.out.println("📈 Ramp 10 → 100 req/s against " + Config.postUrl());
+        printResults(generator.run(ramp(10, 100, 10, Duration.ofSeconds(5))));
+
+        System.out.println("\n✅ Load generation completed!");
+    }
+}
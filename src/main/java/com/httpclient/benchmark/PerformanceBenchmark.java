@@ -1,11 +1,21 @@
 package com.httpclient.benchmark;
 
-import com.httpclient.util.HttpClientFactory;
+import com.httpclient.batch.BatchResult;
+import com.httpclient.batch.HttpBatch;
+import com.httpclient.body.PooledBodyHandlers;
+import com.httpclient.cache.CoalescingHttpClient;
+import com.httpclient.metrics.LatencyRecorder;
+import com.httpclient.resilience.ConcurrencyLimitedHttpClient;
+import com.httpclient.resilience.ConcurrencyLimiter;
+import com.httpclient.util.ClientConfig;
+import com.httpclient.util.Config;
+import com.httpclient.util.HttpClientRegistry;
+import com.httpclient.util.RequestTemplate;
 
-import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -13,50 +23,99 @@ import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Performance benchmarks for HTTP/1.1 vs HTTP/2 and sync vs async
+ * <p>
+ * This is a quick smoke run against the public internet. For repeatable numbers use
+ * the JMH harness in {@code src/jmh/java} ({@code mvn -Pjmh package}), which drives the
+ * same scenarios against an in-process loopback server. To reproduce a real request mix
+ * rather than one synthetic GET, record it with {@link com.httpclient.capture.RecordingHttpClient}
+ * and replay the log with {@link TrafficReplayer}.
  */
 public class PerformanceBenchmark {
 
-    private static final String TEST_URL = "https://jsonplaceholder.typicode.com/posts/1";
+    // Requests are built once per path and reused; HttpRequest is immutable
+    private static final RequestTemplate POSTS = new RequestTemplate(Config.jsonPlaceholderUrl(),
+            Duration.ofSeconds(10));
+    private static final String TEST_PATH = "/posts/1";
     private static final int REQUEST_COUNT = 50;
 
+    // Schedule the sync loop keeps, like a caller polling at a fixed rate
+    private static final Duration SYNC_INTERVAL = Duration.ofMillis(50);
+    private static final Path HISTOGRAM_DIR = Path.of("target", "latency");
+
     public static void main(String[] args) throws Exception {
         System.out.println("=== HTTP Client Performance Benchmarks ===\n");
 
         // Test 1: HTTP/1.1 vs HTTP/2 (Synchronous)
         System.out.println("📊 Test 1: HTTP/1.1 vs HTTP/2 (Sync)");
-        benchmarkSync(HttpClientFactory.createHttp11Client(), "HTTP/1.1");
-        benchmarkSync(HttpClientFactory.createHttp2Client(), "HTTP/2");
+        benchmarkSync(HttpClientRegistry.get(ClientConfig.http11()), "HTTP/1.1");
+        benchmarkSync(HttpClientRegistry.get(ClientConfig.http2()), "HTTP/2");
 
         // Test 2: Sync vs Async (HTTP/2)
         System.out.println("\n📊 Test 2: Sync vs Async (HTTP/2)");
-        benchmarkSync(HttpClientFactory.createHttp2Client(), "Sync");
-        benchmarkAsync(HttpClientFactory.createHttp2Client(), "Async");
+        benchmarkSync(HttpClientRegistry.get(ClientConfig.http2()), "Sync");
+        benchmarkAsync(HttpClientRegistry.get(ClientConfig.http2()), "Async");
+
+        // Test 3: Blocking send on virtual threads vs sendAsync on platform threads (HTTP/2)
+        System.out.println("\n📊 Test 3: Virtual Threads vs Async (HTTP/2)");
+        benchmarkVirtualThreads(HttpClientRegistry.get(
+                ClientConfig.http2().withExecutor(ClientConfig.ExecutorType.VIRTUAL_THREADS)), "Virtual Threads");
+        benchmarkAsync(HttpClientRegistry.get(ClientConfig.http2()), "Async (platform)");
+
+        // Test 4: Identical concurrent GETs collapsed into one exchange (HTTP/2)
+        System.out.println("\n📊 Test 4: Async with request coalescing (HTTP/2)");
+        CoalescingHttpClient coalescing = new CoalescingHttpClient(HttpClientRegistry.get(ClientConfig.http2()));
+        benchmarkAsync(coalescing, "Async (coalesced)");
+        CoalescingHttpClient.Stats coalesced = coalescing.stats();
+        System.out.println("      Upstream: " + coalesced.upstream() + ", Collapsed: " + coalesced.collapsed()
+                + " (" + String.format("%.1f", coalesced.collapseRatio() * 100) + "%)");
+
+        // Test 5: Async burst through the adaptive per-host concurrency limiter (HTTP/2)
+        System.out.println("\n📊 Test 5: Async with adaptive concurrency limit (HTTP/2)");
+        ConcurrencyLimitedHttpClient limited = new ConcurrencyLimitedHttpClient(
+                HttpClientRegistry.get(ClientConfig.http2()), ConcurrencyLimiter.defaults());
+        benchmarkAsync(limited, "Async (limited)");
+        limited.limiter().printStats();
+
+        // Test 6: Distinct posts fetched as one batch call (HTTP/2 vs HTTP/1.1)
+        System.out.println("\n📊 Test 6: Batch API over distinct URLs");
+        benchmarkBatch(HttpClientRegistry.get(ClientConfig.http2()), "Batch (HTTP/2)");
+        benchmarkBatch(HttpClientRegistry.get(ClientConfig.http11()), "Batch (HTTP/1.1)");
+
+        System.out.println("\n🔌 Shared clients:");
+        HttpClientRegistry.printStats();
+        HttpClientRegistry.shutdown(Duration.ofSeconds(5));
 
         System.out.println("\n✅ All benchmarks completed!");
     }
 
     /**
-     * Benchmark synchronous requests
+     * Benchmark synchronous requests sent on a fixed schedule, one every {@link #SYNC_INTERVAL}.
+     * Latency is measured from when each request was due, not from when the previous one let
+     * it go, so a stall also counts against the requests it held back (coordinated omission).
      */
     private static void benchmarkSync(HttpClient client, String label) throws Exception {
         System.out.println("\n  Testing " + label + "...");
 
+        LatencyRecorder latencies = new LatencyRecorder();
         Instant start = Instant.now();
+        long scheduleStart = System.nanoTime();
         int successCount = 0;
 
         for (int i = 0; i < REQUEST_COUNT; i++) {
+            long requestStart = scheduleStart + i * SYNC_INTERVAL.toNanos();
+            long wait = requestStart - System.nanoTime();
+            if (wait > 0) {
+                Thread.sleep(Duration.ofNanos(wait));
+            }
             try {
-                HttpRequest request = HttpRequest.newBuilder()
-                        .uri(URI.create(TEST_URL))
-                        .timeout(Duration.ofSeconds(10))
-                        .GET()
-                        .build();
+                HttpRequest request = POSTS.get(TEST_PATH);
 
                 HttpResponse<String> response = client.send(request,
-                        HttpResponse.BodyHandlers.ofString());
+                        PooledBodyHandlers.ofString());
 
                 if (response.statusCode() == 200) {
                     successCount++;
@@ -64,12 +123,13 @@ public class PerformanceBenchmark {
             } catch (Exception e) {
                 // Count as failure
             }
+            latencies.recordSince(requestStart);
         }
 
         Instant end = Instant.now();
         long duration = Duration.between(start, end).toMillis();
 
-        printResults(label, duration, successCount);
+        printResults(label, duration, successCount, latencies);
     }
 
     /**
@@ -78,18 +138,17 @@ public class PerformanceBenchmark {
     private static void benchmarkAsync(HttpClient client, String label) throws Exception {
         System.out.println("\n  Testing " + label + "...");
 
+        LatencyRecorder latencies = new LatencyRecorder();
         Instant start = Instant.now();
         List<CompletableFuture<HttpResponse<String>>> futures = new ArrayList<>();
 
         // Create all requests
         for (int i = 0; i < REQUEST_COUNT; i++) {
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(TEST_URL))
-                    .timeout(Duration.ofSeconds(10))
-                    .GET()
-                    .build();
+            HttpRequest request = POSTS.get(TEST_PATH);
 
-            futures.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+            long requestStart = System.nanoTime();
+            futures.add(client.sendAsync(request, PooledBodyHandlers.ofString())
+                    .whenComplete((response, error) -> latencies.recordSince(requestStart)));
         }
 
         // Wait for all to complete
@@ -115,22 +174,101 @@ public class PerformanceBenchmark {
         Instant end = Instant.now();
         long duration = Duration.between(start, end).toMillis();
 
-        printResults(label, duration, successCount);
+        printResults(label, duration, successCount, latencies);
+    }
+
+    /**
+     * Benchmark blocking requests, each on its own virtual thread
+     */
+    private static void benchmarkVirtualThreads(HttpClient client, String label) throws Exception {
+        System.out.println("\n  Testing " + label + "...");
+
+        LatencyRecorder latencies = new LatencyRecorder();
+        AtomicInteger successCount = new AtomicInteger();
+        Instant start = Instant.now();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < REQUEST_COUNT; i++) {
+                executor.submit(() -> {
+                    long requestStart = System.nanoTime();
+                    try {
+                        HttpRequest request = POSTS.get(TEST_PATH);
+
+                        HttpResponse<String> response = client.send(request,
+                                PooledBodyHandlers.ofString());
+
+                        if (response.statusCode() == 200) {
+                            successCount.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        // Count as failure
+                    }
+                    latencies.recordSince(requestStart);
+                });
+            }
+        } // close() waits for every virtual thread to finish
+
+        Instant end = Instant.now();
+        long duration = Duration.between(start, end).toMillis();
+
+        printResults(label, duration, successCount.get(), latencies);
+    }
+
+    /**
+     * Benchmark one {@link HttpBatch} call fetching /posts/1../posts/N; latency is measured
+     * from the start of the batch, so it includes time spent waiting for a stream or connection
+     */
+    private static void benchmarkBatch(HttpClient client, String label) throws Exception {
+        System.out.println("\n  Testing " + label + "...");
+
+        List<HttpRequest> requests = new ArrayList<>();
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            requests.add(POSTS.get("/posts/" + (i % 100 + 1)));
+        }
+
+        LatencyRecorder latencies = new LatencyRecorder();
+        AtomicInteger successCount = new AtomicInteger();
+        List<BatchResult<String>> failures = new ArrayList<>();
+        Instant start = Instant.now();
+        long batchStart = System.nanoTime();
+
+        new HttpBatch(client).forEach(requests, PooledBodyHandlers.ofString(), result -> {
+            latencies.recordSince(batchStart);
+            if (result.isSuccess()) {
+                successCount.incrementAndGet();
+            } else {
+                synchronized (failures) {
+                    failures.add(result);
+                }
+            }
+        }).join();
+
+        Instant end = Instant.now();
+        long duration = Duration.between(start, end).toMillis();
+
+        printResults(label, duration, successCount.get(), latencies);
+        failures.stream().limit(3).forEach(result ->
+                System.out.println("      ❌ " + result.request().uri() + " -> " + result.describe()));
     }
 
     /**
-     * Print formatted results
+     * Print formatted results and export the latency histogram to target/latency
      */
-    private static void printResults(String label, long durationMs, int successCount) {
+    private static void printResults(String label, long durationMs, int successCount,
+                                     LatencyRecorder latencies) throws Exception {
         double requestsPerSecond = (REQUEST_COUNT * 1000.0) / durationMs;
-        double avgTimePerRequest = durationMs / (double) REQUEST_COUNT;
         double successRate = (successCount * 100.0) / REQUEST_COUNT;
 
         System.out.println("    " + label + " Results:");
         System.out.println("      Total Time: " + durationMs + " ms");
         System.out.println("      Requests/sec: " + String.format("%.2f", requestsPerSecond));
-        System.out.println("      Avg Time/Request: " + String.format("%.2f", avgTimePerRequest) + " ms");
         System.out.println("      Success Rate: " + String.format("%.1f", successRate) + "%");
         System.out.println("      Successful: " + successCount + "/" + REQUEST_COUNT);
+        System.out.println("      Latency:");
+        latencies.printPercentiles("        ");
+
+        Path histogramFile = HISTOGRAM_DIR.resolve(label.replaceAll("[^A-Za-z0-9.-]", "_"));
+        latencies.export(histogramFile);
+        System.out.println("      Histogram: " + histogramFile + ".hlog");
     }
 }
\ No newline at end of file
@@ -0,0 +1,311 @@
+package com.httpclient.benchmark;
+
+import com.httpclient.balancer.LoadBalancedHttpClient;
+import com.httpclient.capture.CapturedExchange;
+import com.httpclient.capture.TrafficLogReader;
+import com.httpclient.metrics.LatencyRecorder;
+import com.httpclient.util.Config;
+import com.httpclient.util.HttpClientFactory;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a traffic log recorded by {@link com.httpclient.capture.RecordingHttpClient}
+ * against another server, keeping the recorded request mix and arrival times.
+ * <p>
+ * Each exchange is sent at its recorded offset from the first one, divided by
+ * {@code speed} (2.0 replays twice as fast), to the same path and query on the target
+ * host, with the recorded method, headers and protocol version. Bodies that were not
+ * captured are replaced by filler of the recorded size. Like {@link OpenLoopLoadGenerator}
+ * this is open-loop: a slow target shows up as latency, not as a lower rate, and response
+ * time is measured from the scheduled send time.
+ * <p>
+ * Records are written when an exchange completes, so a log is only roughly ordered by
+ * start time; the replayer re-sorts within a {@link #REORDER_WINDOW}.
+ */
+public class TrafficReplayer {
+
+    /**
+     * Exchanges that took longer than this to complete may be sent a little late
+     */
+    public static final Duration REORDER_WINDOW = Duration.ofSeconds(Config.REQUEST_TIMEOUT_SECONDS);
+
+    // Set by the client itself; HttpRequest.Builder rejects them
+    private static final Set<String> RESTRICTED_HEADERS = Set.of(
+            "connection", "content-length", "expect", "host", "upgrade");
+
+    private final HttpClient client;
+    private final URI target;
+    private final double speed;
+    private final Semaphore inFlight;
+    private byte[] filler = new byte[0];
+
+    /**
+     * Latencies per method, in nanoseconds: as recorded and as seen in the replay
+     * (service time, from the actual send)
+     */
+    public record MethodResult(long count, Histogram captured, Histogram replayed) {
+    }
+
+    /**
+     * Outcome of one replay. Histograms are in nanoseconds.
+     *
+     * @param statusMismatches responses whose status differs from the recorded one
+     * @param capturedSpan     time between the first and last recorded send
+     * @param responseTime     from the scheduled send, so it includes start lag
+     * @param truncated        the log ended in a damaged frame
+     */
+    public record Result(double speed,
+                         long replayed,
+                         long succeeded,
+                         long failed,
+                         long dropped,
+                         long statusMismatches,
+                         Duration capturedSpan,
+                         Duration elapsed,
+                         Histogram responseTime,
+                         Histogram startLag,
+                         Map<String, MethodResult> byMethod,
+                         boolean truncated) {
+    }
+
+    /**
+     * @param target      scheme and authority (plus an optional base path) to send to
+     * @param speed       time scale; 1.0 keeps the recorded pacing
+     * @param maxInFlight exchanges due while this many are outstanding are dropped, not queued
+     */
+    public TrafficReplayer(HttpClient client, URI target, double speed, int maxInFlight) {
+        if (speed <= 0) {
+            throw new IllegalArgumentException("speed must be positive: " + speed);
+        }
+        this.client = client;
+        this.target = target;
+        this.speed = speed;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Replay the whole log from the calling thread and wait for every exchange to finish
+     */
+    public Result replay(Path log) throws IOException {
+        Run run = new Run();
+        try (TrafficLogReader reader = TrafficLogReader.open(log)) {
+            PriorityQueue<CapturedExchange> pending =
+                    new PriorityQueue<>(Comparator.comparingLong(CapturedExchange::startMicros));
+            long windowMicros = REORDER_WINDOW.toNanos() / 1_000;
+            long latestEndMicros = Long.MIN_VALUE;
+
+            while (reader.hasNext()) {
+                CapturedExchange exchange = reader.next();
+                pending.add(exchange);
+                latestEndMicros = Math.max(latestEndMicros, exchange.startMicros() + exchange.latencyMicros());
+                while (!pending.isEmpty() && latestEndMicros - pending.peek().startMicros() > windowMicros) {
+                    dispatch(run, pending.poll());
+                }
+            }
+            while (!pending.isEmpty()) {
+                dispatch(run, pending.poll());
+            }
+            run.truncated = reader.truncated();
+        }
+        return run.await();
+    }
+
+    private void dispatch(Run run, CapturedExchange exchange) {
+        if (run.originMicros == Long.MIN_VALUE) {
+            run.originMicros = exchange.startMicros();
+            run.startNanos = System.nanoTime();
+        }
+        long offsetMicros = Math.max(0, exchange.startMicros() - run.originMicros);
+        run.lastOffsetMicros = Math.max(run.lastOffsetMicros, offsetMicros);
+        long intended = run.startNanos + (long) (offsetMicros * 1_000 / speed);
+        long now;
+        while ((now = System.nanoTime()) < intended) {
+            LockSupport.parkNanos(intended - now);
+        }
+        run.startLag.record(now - intended);
+
+        MethodRun method = run.byMethod.computeIfAbsent(exchange.method(), m -> new MethodRun());
+        method.count.increment();
+        if (!exchange.isFailure()) {
+            method.captured.record(exchange.latencyMicros() * 1_000);
+        }
+
+        if (!inFlight.tryAcquire()) {
+            run.dropped.increment();
+            return;
+        }
+
+        HttpRequest request;
+        try {
+            request = toRequest(exchange);
+        } catch (IllegalArgumentException e) {
+            inFlight.release();
+            run.failed.increment();
+            return;
+        }
+
+        long actual = now;
+        run.replayed.increment();
+        run.futures.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    inFlight.release();
+                    long completed = System.nanoTime();
+                    run.responseTime.record(completed - intended);
+                    method.replayed.record(completed - actual);
+                    run.lastCompletionNanos.accumulateAndGet(completed, Math::max);
+                    if (error != null) {
+                        run.failed.increment();
+                        return;
+                    }
+                    if (response.statusCode() < 400) {
+                        run.succeeded.increment();
+                    } else {
+                        run.failed.increment();
+                    }
+                    if (!exchange.isFailure() && response.statusCode() != exchange.statusCode()) {
+                        run.statusMismatches.increment();
+                    }
+                }));
+    }
+
+    /**
+     * The recorded request, pointed at the target
+     */
+    private HttpRequest toRequest(CapturedExchange exchange) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(exchange.uri())
+                .timeout(Duration.ofSeconds(Config.REQUEST_TIMEOUT_SECONDS))
+                .method(exchange.method(), body(exchange));
+        if (exchange.version() != null) {
+            builder.version(exchange.version());
+        }
+        exchange.headers().forEach((name, values) -> {
+            if (!RESTRICTED_HEADERS.contains(name.toLowerCase())) {
+                values.forEach(value -> builder.header(name, value));
+            }
+        });
+        return LoadBalancedHttpClient.route(builder.build(), target);
+    }
+
+    private HttpRequest.BodyPublisher body(CapturedExchange exchange) {
+        if (exchange.requestBody() != null) {
+            return HttpRequest.BodyPublishers.ofByteArray(exchange.requestBody());
+        }
+        if (exchange.requestBytes() <= 0) {
+            return HttpRequest.BodyPublishers.noBody();
+        }
+        int size = (int) Math.min(exchange.requestBytes(), Integer.MAX_VALUE);
+        if (filler.length < size) {
+            // Only the dispatching thread grows it; in-flight publishers keep the old array
+            filler = new byte[Math.max(size, filler.length * 2)];
+            Arrays.fill(filler, (byte) 'x');
+        }
+        return HttpRequest.BodyPublishers.ofByteArray(filler, 0, size);
+    }
+
+    /**
+     * Print the totals, a per-method latency comparison and the response-time percentiles
+     */
+    public static void printResults(Result result) {
+        System.out.println(String.format("  Replayed %d exchanges recorded over %.0f ms in %.0f ms (%.2fx)",
+                result.replayed(), millis(result.capturedSpan().toNanos()), millis(result.elapsed().toNanos()),
+                result.speed()));
+        System.out.println("  Succeeded: " + result.succeeded() + ", Failed: " + result.failed()
+                + ", Dropped: " + result.dropped() + ", Status mismatches: " + result.statusMismatches()
+                + (result.truncated() ? " (log ends in a damaged frame)" : ""));
+
+        System.out.println(String.format("  %-8s %8s %14s %14s %14s %14s",
+                "method", "count", "recorded p50", "recorded p99", "replay p50", "replay p99"));
+        result.byMethod().forEach((method, r) -> System.out.println(String.format(
+                "  %-8s %8d %11.2f ms %11.2f ms %11.2f ms %11.2f ms", method, r.count(),
+                millis(r.captured().getValueAtPercentile(50.0)), millis(r.captured().getValueAtPercentile(99.0)),
+                millis(r.replayed().getValueAtPercentile(50.0)), millis(r.replayed().getValueAtPercentile(99.0)))));
+
+        System.out.println("  Response time (from schedule):");
+        LatencyRecorder.print(result.responseTime(), "    ");
+        System.out.println("  Start lag p99: " + String.format("%.3f", millis(result.startLag().getValueAtPercentile(99.0)))
+                + " ms");
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static class MethodRun {
+        final LongAdder count = new LongAdder();
+        final LatencyRecorder captured = new LatencyRecorder();
+        final LatencyRecorder replayed = new LatencyRecorder();
+    }
+
+    /**
+     * Mutable state of one replay
+     */
+    private class Run {
+        long originMicros = Long.MIN_VALUE;
+        long startNanos = System.nanoTime();
+        long lastOffsetMicros;
+        boolean truncated;
+        final AtomicLong lastCompletionNanos = new AtomicLong();
+        final List<CompletableFuture<?>> futures = new ArrayList<>();
+        final Map<String, MethodRun> byMethod = new ConcurrentHashMap<>();
+        final LatencyRecorder responseTime = new LatencyRecorder();
+        final LatencyRecorder startLag = new LatencyRecorder();
+        final LongAdder replayed = new LongAdder();
+        final LongAdder succeeded = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        final LongAdder statusMismatches = new LongAdder();
+
+        Result await() {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                    .exceptionally(error -> null)
+                    .join();
+
+            long elapsed = futures.isEmpty() ? 0 : lastCompletionNanos.get() - startNanos;
+            Map<String, MethodResult> methods = new TreeMap<>();
+            byMethod.forEach((name, m) -> methods.put(name,
+                    new MethodResult(m.count.sum(), m.captured.snapshot(), m.replayed.snapshot())));
+            return new Result(speed, replayed.sum(), succeeded.sum(), failed.sum(), dropped.sum(),
+                    statusMismatches.sum(), Duration.ofNanos(lastOffsetMicros * 1_000), Duration.ofNanos(elapsed),
+                    responseTime.snapshot(), startLag.snapshot(), methods, truncated);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: TrafficReplayer <log> <target-url> [speed] [max-in-flight]");
+            return;
+        }
+        Path log = Path.of(args[0]);
+        URI target = URI.create(args[1]);
+        double speed = args.length > 2 ? Double.parseDouble(args[2]) : 1.0;
+        int maxInFlight = args.length > 3 ? Integer.parseInt(args[3]) : Config.CONCURRENT_REQUESTS * 100;
+
+        System.out.println("=== Traffic Replay ===\n");
+        System.out.println("🎬 Replaying " + log + " against " + target + " at " + speed + "x");
+        HttpClient client = HttpClientFactory.createHttp11Client();
+        printResults(new TrafficReplayer(client, target, speed, maxInFlight).replay(log));
+        client.shutdownNow();
+    }
+}
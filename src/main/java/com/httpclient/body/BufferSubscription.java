@@ -0,0 +1,78 @@
+package com.httpclient.body;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Demand-driven subscription that pulls ByteBuffers from a {@link Source}.
+ * <p>
+ * Safe against re-entrant {@code request()} calls from inside {@code onNext}: only one
+ * thread drains at a time and extra demand is picked up by the draining thread.
+ */
+class BufferSubscription implements Flow.Subscription {
+
+    /**
+     * Produces the next buffer, or {@code null} at the end of the body
+     */
+    @FunctionalInterface
+    interface Source {
+        ByteBuffer next() throws Exception;
+    }
+
+    private final Flow.Subscriber<? super ByteBuffer> subscriber;
+    private final Source source;
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean cancelled;
+    private boolean done;
+
+    BufferSubscription(Flow.Subscriber<? super ByteBuffer> subscriber, Source source) {
+        this.subscriber = subscriber;
+        this.source = source;
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            cancelled = true;
+            subscriber.onError(new IllegalArgumentException("non-positive subscription request: " + n));
+            return;
+        }
+        demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+        drain();
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (!cancelled && !done && demand.get() > 0) {
+                ByteBuffer next;
+                try {
+                    next = source.next();
+                } catch (Throwable t) {
+                    done = true;
+                    subscriber.onError(t);
+                    break;
+                }
+                if (next == null) {
+                    done = true;
+                    subscriber.onComplete();
+                    break;
+                }
+                demand.decrementAndGet();
+                subscriber.onNext(next);
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+}
@@ -0,0 +1,133 @@
+package com.httpclient.body;
+
+import javax.net.ssl.SSLSession;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * A fully read response (status, headers, bytes) that can be delivered again through
+ * any {@link HttpResponse.BodyHandler}.
+ * <p>
+ * Layers that have to hold on to a body, such as a cache or request coalescing, read
+ * it once with {@code BodyHandlers.ofByteArray()} and then hand each caller an
+ * {@code HttpResponse<T>} built by that caller's own handler, as if it came off the wire.
+ */
+public record BufferedResponse(int statusCode,
+                               HttpHeaders headers,
+                               HttpClient.Version version,
+                               URI uri,
+                               byte[] body) {
+
+    /**
+     * Capture a response read with {@code BodyHandlers.ofByteArray()}
+     */
+    public static BufferedResponse of(HttpResponse<byte[]> response) {
+        return new BufferedResponse(response.statusCode(), response.headers(), response.version(),
+                response.uri(), response.body());
+    }
+
+    /**
+     * Same response with different headers (e.g. refreshed by a 304)
+     */
+    public BufferedResponse withHeaders(HttpHeaders headers) {
+        return new BufferedResponse(statusCode, headers, version, uri, body);
+    }
+
+    /**
+     * Run the body through {@code handler} and wrap the result as a response to {@code request}
+     */
+    public <T> CompletableFuture<HttpResponse<T>> deliver(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        HttpResponse.ResponseInfo info = new HttpResponse.ResponseInfo() {
+            @Override
+            public int statusCode() {
+                return statusCode;
+            }
+
+            @Override
+            public HttpHeaders headers() {
+                return headers;
+            }
+
+            @Override
+            public HttpClient.Version version() {
+                return version;
+            }
+        };
+
+        HttpResponse.BodySubscriber<T> subscriber = handler.apply(info);
+        ByteBuffer[] remaining = {ByteBuffer.wrap(body)};
+        subscriber.onSubscribe(new BufferSubscription(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                // Already subscribed above
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                subscriber.onNext(List.of(item));
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                subscriber.onError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                subscriber.onComplete();
+            }
+        }, () -> {
+            ByteBuffer next = remaining[0];
+            remaining[0] = null;
+            // read-only view so one caller's handler cannot corrupt another's bytes
+            return next == null || !next.hasRemaining() ? null : next.asReadOnlyBuffer();
+        }));
+
+        return subscriber.getBody().toCompletableFuture()
+                .thenApply(value -> new Response<>(request, this, value));
+    }
+
+    /**
+     * HttpResponse backed by a BufferedResponse
+     */
+    private record Response<T>(HttpRequest request, BufferedResponse source, T body) implements HttpResponse<T> {
+
+        @Override
+        public int statusCode() {
+            return source.statusCode();
+        }
+
+        @Override
+        public Optional<HttpResponse<T>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return source.headers();
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return source.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return source.version();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.httpclient.body;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, size-classed pool of heap or direct ByteBuffers.
+ * <p>
+ * Sizes are grouped in power-of-two classes from {@code minSize} to {@code maxSize};
+ * {@link #acquire(int)} hands out a buffer of the smallest class that fits, so buffers of
+ * similar size are shared instead of each caller allocating its own. Requests above
+ * {@code maxSize} are allocated unpooled. Buffers are handed out cleared and must be given
+ * back with {@link #release(ByteBuffer)} once nothing reads them anymore. When a class is
+ * empty a new buffer is allocated; when it is full a released buffer is simply dropped
+ * for the GC.
+ * <p>
+ * Direct buffers cost more to allocate but are what channels and sockets read and write
+ * without an extra copy, which makes them the ones most worth pooling.
+ */
+public class ByteBufferPool {
+
+    public static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+    private static final int DEFAULT_MIN_SIZE = 512;
+    private static final int DEFAULT_MAX_SIZE = 1024 * 1024;
+    private static final long DEFAULT_MAX_POOLED_BYTES = 64L * 1024 * 1024;
+
+    private static final ByteBufferPool SHARED = new ByteBufferPool(
+            DEFAULT_MIN_SIZE, DEFAULT_MAX_SIZE, DEFAULT_MAX_POOLED_BYTES, false);
+    private static final ByteBufferPool SHARED_DIRECT = new ByteBufferPool(
+            DEFAULT_MIN_SIZE, DEFAULT_MAX_SIZE, DEFAULT_MAX_POOLED_BYTES, true);
+
+    /**
+     * Reuse counters; a low hit rate means the pool is too small or buffers aren't released
+     */
+    public record Stats(long hits, long misses, long pooledBytes) {
+    }
+
+    private final int[] sizes;
+    private final int[] maxPooled;
+    private final ConcurrentLinkedQueue<ByteBuffer>[] free;
+    private final AtomicInteger[] pooled;
+    private final boolean direct;
+    private final int defaultSize;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Single-class heap pool of up to {@code maxPooled} buffers of {@code bufferSize} bytes
+     */
+    public ByteBufferPool(int bufferSize, int maxPooled) {
+        this(bufferSize, bufferSize, (long) bufferSize * maxPooled, false);
+    }
+
+    /**
+     * Pool of {@code minSize}, 2 * {@code minSize}, ... up to {@code maxSize} byte buffers,
+     * holding at most {@code maxPooledBytes} split evenly over the classes
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ByteBufferPool(int minSize, int maxSize, long maxPooledBytes, boolean direct) {
+        if (minSize <= 0 || maxSize < minSize) {
+            throw new IllegalArgumentException("Invalid size range " + minSize + ".." + maxSize);
+        }
+        int classes = 1;
+        while ((long) minSize << classes <= maxSize) {
+            classes++;
+        }
+        this.sizes = new int[classes];
+        this.maxPooled = new int[classes];
+        this.free = new ConcurrentLinkedQueue[classes];
+        this.pooled = new AtomicInteger[classes];
+        for (int i = 0; i < classes; i++) {
+            sizes[i] = minSize << i;
+            maxPooled[i] = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxPooledBytes / classes / sizes[i]));
+            free[i] = new ConcurrentLinkedQueue<>();
+            pooled[i] = new AtomicInteger();
+        }
+        this.direct = direct;
+        this.defaultSize = sizes[classIndex(Math.min(DEFAULT_BUFFER_SIZE, sizes[classes - 1]))];
+    }
+
+    /**
+     * Process-wide heap pool of 512 B .. 1 MiB buffers
+     */
+    public static ByteBufferPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Process-wide direct pool of 512 B .. 1 MiB buffers
+     */
+    public static ByteBufferPool sharedDirect() {
+        return SHARED_DIRECT;
+    }
+
+    /**
+     * Capacity of the buffers returned by {@link #acquire()}
+     */
+    public int bufferSize() {
+        return defaultSize;
+    }
+
+    /**
+     * Capacity of the largest size class; larger buffers are allocated unpooled
+     */
+    public int maxBufferSize() {
+        return sizes[sizes.length - 1];
+    }
+
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * A cleared buffer of {@link #bufferSize()} bytes
+     */
+    public ByteBuffer acquire() {
+        return acquire(defaultSize);
+    }
+
+    /**
+     * A cleared buffer of at least {@code minCapacity} bytes (the capacity of its size class)
+     */
+    public ByteBuffer acquire(int minCapacity) {
+        int index = classIndex(minCapacity);
+        if (index < 0) {
+            misses.increment();
+            return allocate(minCapacity);
+        }
+        ByteBuffer buffer = free[index].poll();
+        if (buffer == null) {
+            misses.increment();
+            return allocate(sizes[index]);
+        }
+        hits.increment();
+        pooled[index].decrementAndGet();
+        return buffer.clear();
+    }
+
+    /**
+     * Give a buffer back; buffers that don't match a size class (or the heap/direct kind)
+     * are ignored
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer.isReadOnly() || buffer.isDirect() != direct) {
+            return;
+        }
+        int index = classIndex(buffer.capacity());
+        if (index < 0 || sizes[index] != buffer.capacity()) {
+            return;
+        }
+        if (pooled[index].incrementAndGet() <= maxPooled[index]) {
+            free[index].offer(buffer);
+        } else {
+            pooled[index].decrementAndGet();
+        }
+    }
+
+    public Stats stats() {
+        long bytes = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            bytes += (long) pooled[i].get() * sizes[i];
+        }
+        return new Stats(hits.sum(), misses.sum(), bytes);
+    }
+
+    /**
+     * Smallest class holding {@code capacity} bytes, or -1 if it is above the largest
+     */
+    private int classIndex(int capacity) {
+        for (int i = 0; i < sizes.length; i++) {
+            if (sizes[i] >= capacity) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+}
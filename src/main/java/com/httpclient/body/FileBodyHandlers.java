@@ -0,0 +1,173 @@
+package com.httpclient.body;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * Body handlers that write the body straight into a file region.
+ * <p>
+ * {@code BodyHandlers.ofString()} and {@code ofByteArray()} keep the whole body on the heap,
+ * which for a few hundred MB means as many bytes of garbage per download (twice, for the
+ * String). These write every received buffer to a {@link FileChannel} at an explicit
+ * position, so several of them can fill different ranges of the same file concurrently,
+ * and heap use stays at the client's own receive buffers.
+ * <p>
+ * An optional {@code observer} sees every buffer after it has been written, e.g. a
+ * {@code CRC32C::update} or {@code MessageDigest::update} to check integrity while the data
+ * streams instead of reading the file back afterwards. The channel is not closed.
+ */
+public class FileBodyHandlers {
+
+    // Regions are mapped a window at a time so huge bodies don't need one huge mapping
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+
+    private FileBodyHandlers() {
+    }
+
+    /**
+     * Write the body to {@code channel} starting at {@code position}; the result is the
+     * number of bytes written
+     */
+    public static HttpResponse.BodyHandler<Long> ofChannel(FileChannel channel, long position,
+                                                           Consumer<ByteBuffer> observer) {
+        return responseInfo -> channelSubscriber(channel, position, observer);
+    }
+
+    /**
+     * Copy the body into a memory-mapped region of exactly {@code length} bytes starting at
+     * {@code position}; the channel must be open for reading and writing
+     */
+    public static HttpResponse.BodyHandler<Long> ofMapped(FileChannel channel, long position, long length,
+                                                          Consumer<ByteBuffer> observer) {
+        return responseInfo -> mappedSubscriber(channel, position, length, observer);
+    }
+
+    /**
+     * Subscriber behind {@link #ofChannel}, for handlers that pick it per response
+     */
+    public static HttpResponse.BodySubscriber<Long> channelSubscriber(FileChannel channel, long position,
+                                                                      Consumer<ByteBuffer> observer) {
+        return new RegionSubscriber(observer) {
+            private long next = position;
+
+            @Override
+            void write(ByteBuffer buffer) throws IOException {
+                while (buffer.hasRemaining()) {
+                    next += channel.write(buffer, next);
+                }
+            }
+
+            @Override
+            long finish() {
+                return next - position;
+            }
+        };
+    }
+
+    /**
+     * Subscriber behind {@link #ofMapped}, for handlers that pick it per response
+     */
+    public static HttpResponse.BodySubscriber<Long> mappedSubscriber(FileChannel channel, long position, long length,
+                                                                     Consumer<ByteBuffer> observer) {
+        return new RegionSubscriber(observer) {
+            private long written;
+            private MappedByteBuffer window;
+
+            @Override
+            void write(ByteBuffer buffer) throws IOException {
+                if (buffer.remaining() > length - written) {
+                    throw new IOException("Body is longer than the " + length + "-byte region");
+                }
+                while (buffer.hasRemaining()) {
+                    if (window == null || !window.hasRemaining()) {
+                        window = channel.map(FileChannel.MapMode.READ_WRITE, position + written,
+                                Math.min(MAP_WINDOW, length - written));
+                    }
+                    int n = Math.min(buffer.remaining(), window.remaining());
+                    window.put(window.position(), buffer, buffer.position(), n);
+                    window.position(window.position() + n);
+                    buffer.position(buffer.position() + n);
+                    written += n;
+                }
+            }
+
+            @Override
+            long finish() throws IOException {
+                if (written != length) {
+                    throw new IOException("Body ended after " + written + " of " + length + " bytes");
+                }
+                return written;
+            }
+        };
+    }
+
+    /**
+     * Writes each buffer synchronously in {@code onNext} and asks for the next one only
+     * afterwards, so a slow disk pushes back on the connection instead of queueing
+     */
+    private abstract static class RegionSubscriber implements HttpResponse.BodySubscriber<Long> {
+
+        private final Consumer<ByteBuffer> observer;
+        private final CompletableFuture<Long> body = new CompletableFuture<>();
+        private Flow.Subscription subscription;
+
+        RegionSubscriber(Consumer<ByteBuffer> observer) {
+            this.observer = observer;
+        }
+
+        abstract void write(ByteBuffer buffer) throws IOException;
+
+        abstract long finish() throws IOException;
+
+        @Override
+        public CompletionStage<Long> getBody() {
+            return body;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            try {
+                for (ByteBuffer buffer : items) {
+                    ByteBuffer view = observer == null ? null : buffer.duplicate();
+                    write(buffer);
+                    if (view != null) {
+                        observer.accept(view);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                subscription.cancel();
+                body.completeExceptionally(e);
+                return;
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            body.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            try {
+                body.complete(finish());
+            } catch (IOException e) {
+                body.completeExceptionally(e);
+            }
+        }
+    }
+}
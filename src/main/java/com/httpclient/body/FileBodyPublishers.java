@@ -0,0 +1,93 @@
+package com.httpclient.body;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Flow;
+
+/**
+ * Request body publishers that send a file (or a range of it) from memory-mapped regions.
+ * <p>
+ * {@code BodyPublishers.ofFile()} copies the file through heap buffers; these hand the
+ * client read-only slices of a mapping instead, so the bytes go from the page cache to the
+ * socket without passing through the Java heap. The file is opened (and mapped window by
+ * window) per subscription, so the publisher can be resent on redirect or retry.
+ */
+public class FileBodyPublishers {
+
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+    private static final int SLICE_SIZE = 64 * 1024;
+
+    private FileBodyPublishers() {
+    }
+
+    /**
+     * Publish the whole file
+     */
+    public static HttpRequest.BodyPublisher ofMapped(Path path) throws IOException {
+        return ofMapped(path, 0, Files.size(path));
+    }
+
+    /**
+     * Publish {@code length} bytes of the file starting at {@code offset}, e.g. one part of
+     * a chunked or resumed upload
+     */
+    public static HttpRequest.BodyPublisher ofMapped(Path path, long offset, long length) {
+        return new HttpRequest.BodyPublisher() {
+            @Override
+            public long contentLength() {
+                return length;
+            }
+
+            @Override
+            public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+                subscriber.onSubscribe(new BufferSubscription(subscriber, new MappedSource(path, offset, length)));
+            }
+        };
+    }
+
+    /**
+     * Maps the next window when the current one has been handed out
+     */
+    private static class MappedSource implements BufferSubscription.Source {
+
+        private final Path path;
+        private final long offset;
+        private final long length;
+        private long mapped;
+        private MappedByteBuffer window;
+
+        MappedSource(Path path, long offset, long length) {
+            this.path = path;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public ByteBuffer next() throws IOException {
+            if (window == null || !window.hasRemaining()) {
+                if (mapped == length) {
+                    return null;
+                }
+                long size = Math.min(MAP_WINDOW, length - mapped);
+                // The mapping stays valid after the channel is closed
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    if (channel.size() < offset + mapped + size) {
+                        throw new IOException(path + " is shorter than the published range");
+                    }
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, offset + mapped, size);
+                }
+                mapped += size;
+            }
+            int n = Math.min(SLICE_SIZE, window.remaining());
+            ByteBuffer slice = window.slice(window.position(), n);
+            window.position(window.position() + n);
+            return slice;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.httpclient.body;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Body handlers that deserialize JSON with Gson while the body is still arriving.
+ * <p>
+ * Incoming {@code ByteBuffer}s are fed through {@link HttpResponse.BodySubscribers#ofInputStream()}
+ * into a streaming {@link JsonReader}, so the body is never materialized as a String
+ * (or a byte[]) before parsing. Compare with {@code BodyHandlers.ofString()} followed by
+ * {@code gson.fromJson(body, ...)}, which holds the raw bytes, the decoded String and
+ * the parsed object at the same time.
+ */
+public class JsonBodyHandlers {
+
+    private static final Gson DEFAULT_GSON = new Gson();
+
+    // Parsing blocks on the network, so it gets its own (cheap) thread per body
+    private static final Executor PARSER_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private JsonBodyHandlers() {
+    }
+
+    /**
+     * Parse the whole body into one {@code type} instance
+     */
+    public static <T> HttpResponse.BodyHandler<T> ofJson(Class<T> type) {
+        return ofJson(DEFAULT_GSON, type);
+    }
+
+    /**
+     * Parse the whole body into one {@code type} instance with a custom Gson
+     */
+    public static <T> HttpResponse.BodyHandler<T> ofJson(Gson gson, Class<T> type) {
+        return responseInfo -> new JsonBodySubscriber<>(in -> {
+            try (JsonReader reader = newReader(in)) {
+                return gson.fromJson(reader, type);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Stream the elements of a top-level JSON array one at a time.
+     * <p>
+     * The response is returned as soon as the headers arrive; each element is parsed when
+     * the stream pulls it, so only one element is held in memory at a time. Close the
+     * stream (or consume it fully) to release the connection.
+     */
+    public static <T> HttpResponse.BodyHandler<Stream<T>> ofJsonArray(Class<T> elementType) {
+        return ofJsonArray(DEFAULT_GSON, elementType);
+    }
+
+    /**
+     * Stream the elements of a top-level JSON array with a custom Gson
+     */
+    public static <T> HttpResponse.BodyHandler<Stream<T>> ofJsonArray(Gson gson, Class<T> elementType) {
+        return responseInfo -> HttpResponse.BodySubscribers.mapping(
+                HttpResponse.BodySubscribers.ofInputStream(),
+                in -> elements(in, gson, elementType));
+    }
+
+    private static JsonReader newReader(InputStream in) {
+        return new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Lazy stream over the array elements; nothing is read until the first pull
+     */
+    private static <T> Stream<T> elements(InputStream in, Gson gson, Class<T> elementType) {
+        JsonReader reader = newReader(in);
+
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private boolean started;
+            private boolean finished;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                if (finished) {
+                    return false;
+                }
+                try {
+                    if (!started) {
+                        started = true;
+                        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                            throw new JsonIOException("Expected a JSON array but was " + reader.peek());
+                        }
+                        reader.beginArray();
+                    }
+                    if (reader.hasNext()) {
+                        action.accept(gson.fromJson(reader, elementType));
+                        return true;
+                    }
+                    reader.endArray();
+                    finished = true;
+                    return false;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Forwards the body to an InputStream subscriber and parses it on a separate thread,
+     * so parsing overlaps with the transfer without blocking the client's own threads.
+     */
+    private static class JsonBodySubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+        private final HttpResponse.BodySubscriber<InputStream> upstream = HttpResponse.BodySubscribers.ofInputStream();
+        private final CompletableFuture<T> body;
+
+        JsonBodySubscriber(Function<InputStream, T> parser) {
+            this.body = upstream.getBody().toCompletableFuture()
+                    .thenApplyAsync(parser, PARSER_EXECUTOR);
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return body;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            upstream.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            upstream.onNext(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            upstream.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            upstream.onComplete();
+        }
+    }
+}
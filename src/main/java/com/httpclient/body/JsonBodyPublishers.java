@@ -0,0 +1,173 @@
+package com.httpclient.body;
+
+import com.google.gson.Gson;
+
+import java.nio.ByteBuffer;
+import java.net.http.HttpRequest;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Request body publishers that serialize objects with Gson straight into ByteBuffers.
+ * <p>
+ * {@code BodyPublishers.ofString(gson.toJson(user))} builds the JSON in a StringBuilder,
+ * copies it into a String and then encodes it again into a byte[]. These publishers
+ * UTF-8 encode Gson's output directly into the buffers the client sends.
+ */
+public class JsonBodyPublishers {
+
+    private static final Gson DEFAULT_GSON = new Gson();
+    private static final int STREAM_CHUNK_SIZE = 8 * 1024;
+
+    private JsonBodyPublishers() {
+    }
+
+    /**
+     * Serialize {@code value} into pooled buffers; see {@link PooledBodyPublisher}
+     */
+    public static PooledBodyPublisher ofJson(Object value) {
+        return ofJson(DEFAULT_GSON, value);
+    }
+
+    /**
+     * Serialize {@code value} into pooled buffers with a custom Gson
+     */
+    public static PooledBodyPublisher ofJson(Gson gson, Object value) {
+        return ofJson(gson, value, ByteBufferPool.shared());
+    }
+
+    /**
+     * Serialize {@code value} into buffers taken from {@code pool}
+     */
+    public static PooledBodyPublisher ofJson(Gson gson, Object value, ByteBufferPool pool) {
+        Utf8BufferWriter writer = new Utf8BufferWriter(pool::acquire);
+        gson.toJson(value, writer);
+        long length = writer.size();
+        return new PooledBodyPublisher(pool, writer.finish(), length);
+    }
+
+    /**
+     * Stream {@code elements} as a JSON array, serializing a few KB at a time as the
+     * client asks for more. The length is unknown up front, so HTTP/1.1 sends it chunked.
+     * The iterable is iterated again if the body has to be resent (e.g. on redirect).
+     */
+    public static HttpRequest.BodyPublisher ofJsonArray(Iterable<?> elements) {
+        return ofJsonArray(DEFAULT_GSON, elements);
+    }
+
+    /**
+     * Stream {@code elements} as a JSON array with a custom Gson
+     */
+    public static HttpRequest.BodyPublisher ofJsonArray(Gson gson, Iterable<?> elements) {
+        return new HttpRequest.BodyPublisher() {
+            @Override
+            public long contentLength() {
+                return -1;
+            }
+
+            @Override
+            public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+                subscriber.onSubscribe(new BufferSubscription(subscriber, new ArraySource(gson, elements.iterator())));
+            }
+        };
+    }
+
+    /**
+     * Fixed-length body held in pooled buffers.
+     * <p>
+     * The client may still be writing the buffers after the body has been published, and
+     * may publish it again on redirect, so they are only returned to the pool on
+     * {@link #close()}. Close it once the response (or the async future) has completed.
+     */
+    public static class PooledBodyPublisher implements HttpRequest.BodyPublisher, AutoCloseable {
+
+        private final ByteBufferPool pool;
+        private final List<ByteBuffer> buffers;
+        private final long length;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        PooledBodyPublisher(ByteBufferPool pool, List<ByteBuffer> buffers, long length) {
+            this.pool = pool;
+            this.buffers = buffers;
+            this.length = length;
+        }
+
+        @Override
+        public long contentLength() {
+            return length;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            if (closed.get()) {
+                subscriber.onSubscribe(new BufferSubscription(subscriber, () -> {
+                    throw new IllegalStateException("Body publisher already closed");
+                }));
+                return;
+            }
+            Iterator<ByteBuffer> iterator = buffers.iterator();
+            subscriber.onSubscribe(new BufferSubscription(subscriber,
+                    () -> iterator.hasNext() ? iterator.next().duplicate() : null));
+        }
+
+        /**
+         * Return the buffers to the pool
+         */
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                buffers.forEach(pool::release);
+            }
+        }
+    }
+
+    /**
+     * Serializes array elements until a chunk is about full, then hands its buffers out
+     */
+    private static class ArraySource implements BufferSubscription.Source {
+
+        private final Gson gson;
+        private final Iterator<?> elements;
+        private final Utf8BufferWriter writer = new Utf8BufferWriter(() -> ByteBuffer.allocate(STREAM_CHUNK_SIZE));
+        private final ArrayDeque<ByteBuffer> ready = new ArrayDeque<>();
+        private boolean opened;
+        private boolean closed;
+
+        ArraySource(Gson gson, Iterator<?> elements) {
+            this.gson = gson;
+            this.elements = elements;
+        }
+
+        @Override
+        public ByteBuffer next() {
+            if (ready.isEmpty() && !closed) {
+                fill();
+            }
+            return ready.poll();
+        }
+
+        private void fill() {
+            if (!opened) {
+                opened = true;
+                writer.write('[');
+            } else if (elements.hasNext()) {
+                writer.write(',');
+            }
+            while (elements.hasNext()) {
+                gson.toJson(elements.next(), writer);
+                if (writer.size() >= STREAM_CHUNK_SIZE || !elements.hasNext()) {
+                    break;
+                }
+                writer.write(',');
+            }
+            if (!elements.hasNext()) {
+                writer.write(']');
+                closed = true;
+            }
+            ready.addAll(writer.finish());
+        }
+    }
+}
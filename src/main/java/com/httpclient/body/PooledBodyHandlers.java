@@ -0,0 +1,221 @@
+package com.httpclient.body;
+
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Body handlers that collect the body into one {@link ByteBufferPool} buffer.
+ * <p>
+ * {@code BodyHandlers.ofString()} keeps the received buffers, copies them into a fresh
+ * byte[] and decodes that into the String, so every response allocates the body twice
+ * besides the String itself. These copy the received buffers straight into a pooled
+ * buffer, sized from {@code Content-Length} (up to the pool's largest class) once the first
+ * bytes arrive, and decode from there;
+ * {@link #ofPooled()} skips the decoding too and lends the buffer to the caller.
+ */
+public class PooledBodyHandlers {
+
+    private PooledBodyHandlers() {
+    }
+
+    /**
+     * Body as a String, decoded with the {@code Content-Type} charset (UTF-8 by default)
+     */
+    public static HttpResponse.BodyHandler<String> ofString() {
+        return ofString(ByteBufferPool.shared());
+    }
+
+    public static HttpResponse.BodyHandler<String> ofString(ByteBufferPool pool) {
+        return responseInfo -> {
+            Charset charset = charset(responseInfo.headers());
+            return new CollectingSubscriber<>(pool, responseInfo.headers(), buffer -> {
+                try {
+                    return decode(buffer, charset);
+                } finally {
+                    pool.release(buffer);
+                }
+            });
+        };
+    }
+
+    /**
+     * Body left in a pooled buffer; close the {@link PooledBody} to give the buffer back
+     */
+    public static HttpResponse.BodyHandler<PooledBody> ofPooled() {
+        return ofPooled(ByteBufferPool.shared());
+    }
+
+    public static HttpResponse.BodyHandler<PooledBody> ofPooled(ByteBufferPool pool) {
+        return responseInfo -> new CollectingSubscriber<>(pool, responseInfo.headers(),
+                buffer -> new PooledBody(pool, buffer, charset(responseInfo.headers())));
+    }
+
+    /**
+     * A response body borrowed from a pool
+     */
+    public static class PooledBody implements AutoCloseable {
+
+        private final ByteBufferPool pool;
+        private final ByteBuffer buffer;
+        private final Charset charset;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        PooledBody(ByteBufferPool pool, ByteBuffer buffer, Charset charset) {
+            this.pool = pool;
+            this.buffer = buffer;
+            this.charset = charset;
+        }
+
+        /**
+         * Read-only view of the body; invalid once closed
+         */
+        public ByteBuffer buffer() {
+            if (closed.get()) {
+                throw new IllegalStateException("Body already released");
+            }
+            return buffer.asReadOnlyBuffer();
+        }
+
+        public int size() {
+            return buffer.remaining();
+        }
+
+        /**
+         * Decode with the response charset
+         */
+        public String asString() {
+            return decode(buffer(), charset);
+        }
+
+        /**
+         * Return the buffer to the pool
+         */
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                pool.release(buffer);
+            }
+        }
+    }
+
+    private static Charset charset(HttpHeaders headers) {
+        String contentType = headers.firstValue("Content-Type").orElse("");
+        for (String parameter : contentType.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.regionMatches(true, 0, "charset=", 0, 8)) {
+                try {
+                    return Charset.forName(trimmed.substring(8).replace("\"", ""));
+                } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+                    break;
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    private static String decode(ByteBuffer body, Charset charset) {
+        if (body.hasArray()) {
+            return new String(body.array(), body.arrayOffset() + body.position(), body.remaining(), charset);
+        }
+        return charset.decode(body.duplicate()).toString();
+    }
+
+    /**
+     * Copies every received buffer into one pooled buffer, moving to a larger size class
+     * when it fills up.
+     * <p>
+     * The buffer is only taken when the first bytes arrive: a HEAD, 204 or 304 response
+     * carries a {@code Content-Length} but no body, and the header is the server's claim, so
+     * the presize never goes past the pool's largest class.
+     */
+    private static class CollectingSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+        private final ByteBufferPool pool;
+        private final Function<ByteBuffer, T> finisher;
+        private final int expected;
+        private final CompletableFuture<T> body = new CompletableFuture<>();
+        private Flow.Subscription subscription;
+        private ByteBuffer buffer;
+        private boolean done;
+
+        CollectingSubscriber(ByteBufferPool pool, HttpHeaders headers, Function<ByteBuffer, T> finisher) {
+            this.pool = pool;
+            this.finisher = finisher;
+            long length = headers.firstValueAsLong("Content-Length").orElse(-1);
+            this.expected = length >= 0 ? (int) Math.min(length, pool.maxBufferSize()) : pool.bufferSize();
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return body;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            if (done) {
+                return;
+            }
+            if (buffer == null) {
+                buffer = pool.acquire(expected);
+            }
+            for (ByteBuffer item : items) {
+                if (buffer.remaining() < item.remaining()) {
+                    long needed = (long) buffer.position() + item.remaining();
+                    if (needed > Integer.MAX_VALUE) {
+                        subscription.cancel();
+                        onError(new IllegalStateException("Body larger than 2 GiB"));
+                        return;
+                    }
+                    long grown = Math.max(needed, Math.min(Integer.MAX_VALUE, 2L * buffer.capacity()));
+                    ByteBuffer larger = pool.acquire((int) grown);
+                    larger.put(buffer.flip());
+                    pool.release(buffer);
+                    buffer = larger;
+                }
+                buffer.put(item);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done = true;
+            if (buffer != null) {
+                pool.release(buffer);
+                buffer = null;
+            }
+            body.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (done) {
+                return;
+            }
+            done = true;
+            ByteBuffer complete = (buffer != null ? buffer : pool.acquire(0)).flip();
+            buffer = null;
+            try {
+                body.complete(finisher.apply(complete));
+            } catch (RuntimeException e) {
+                body.completeExceptionally(e);
+            }
+        }
+    }
+}
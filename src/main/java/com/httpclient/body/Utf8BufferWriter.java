@@ -0,0 +1,139 @@
+package com.httpclient.body;
+
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Writer that UTF-8 encodes straight into a chain of ByteBuffers.
+ * <p>
+ * Lets Gson serialize into request-body buffers without an intermediate String
+ * or byte[]. Buffers come from {@code allocator}; {@link #finish()} returns them
+ * flipped and ready to read.
+ */
+class Utf8BufferWriter extends Writer {
+
+    private static final int MAX_BYTES_PER_CHAR = 4;
+
+    private final Supplier<ByteBuffer> allocator;
+    private final List<ByteBuffer> buffers = new ArrayList<>();
+    private ByteBuffer current;
+    private char pendingHighSurrogate;
+    private long size;
+
+    Utf8BufferWriter(Supplier<ByteBuffer> allocator) {
+        this.allocator = allocator;
+    }
+
+    @Override
+    public void write(int c) {
+        encode((char) c);
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            encode(chars[i]);
+        }
+    }
+
+    @Override
+    public void write(String str, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            encode(str.charAt(i));
+        }
+    }
+
+    @Override
+    public void flush() {
+        // Nothing buffered outside of the ByteBuffers
+    }
+
+    @Override
+    public void close() {
+        // Buffers are handed over by finish()
+    }
+
+    /**
+     * Bytes written so far
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Buffers written so far, flipped for reading. The writer is reset and can be reused.
+     */
+    List<ByteBuffer> finish() {
+        if (pendingHighSurrogate != 0) {
+            pendingHighSurrogate = 0;
+            putByte((byte) '?');
+        }
+        List<ByteBuffer> result = new ArrayList<>(buffers.size());
+        for (ByteBuffer buffer : buffers) {
+            result.add(buffer.flip());
+        }
+        buffers.clear();
+        current = null;
+        size = 0;
+        return result;
+    }
+
+    private void encode(char c) {
+        if (pendingHighSurrogate != 0) {
+            char high = pendingHighSurrogate;
+            pendingHighSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                int codePoint = Character.toCodePoint(high, c);
+                ensureRoom();
+                current.put((byte) (0xF0 | (codePoint >> 18)));
+                current.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                current.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                current.put((byte) (0x80 | (codePoint & 0x3F)));
+                size += 4;
+                return;
+            }
+            putByte((byte) '?');
+        }
+
+        if (c < 0x80) {
+            putByte((byte) c);
+        } else if (c < 0x800) {
+            ensureRoom();
+            current.put((byte) (0xC0 | (c >> 6)));
+            current.put((byte) (0x80 | (c & 0x3F)));
+            size += 2;
+        } else if (Character.isHighSurrogate(c)) {
+            pendingHighSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            putByte((byte) '?');
+        } else {
+            ensureRoom();
+            current.put((byte) (0xE0 | (c >> 12)));
+            current.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+            current.put((byte) (0x80 | (c & 0x3F)));
+            size += 3;
+        }
+    }
+
+    private void putByte(byte b) {
+        if (current == null || !current.hasRemaining()) {
+            nextBuffer();
+        }
+        current.put(b);
+        size++;
+    }
+
+    private void ensureRoom() {
+        if (current == null || current.remaining() < MAX_BYTES_PER_CHAR) {
+            nextBuffer();
+        }
+    }
+
+    private void nextBuffer() {
+        current = allocator.get();
+        buffers.add(current);
+    }
+}
@@ -0,0 +1,195 @@
+package com.httpclient.cache;
+
+import com.httpclient.body.BufferedResponse;
+
+import java.net.http.HttpHeaders;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A stored response plus the freshness and validator information needed to reuse it.
+ *
+ * @param response       the response as it came from the origin (headers refreshed on 304)
+ * @param storedAtMillis when the response was received
+ * @param freshUntilMillis until when it may be served without contacting the origin
+ */
+public record CacheEntry(BufferedResponse response, long storedAtMillis, long freshUntilMillis) {
+
+    private static final long HEADER_OVERHEAD_BYTES = 512;
+
+    /**
+     * Headers that a 304 Not Modified is allowed to update on the stored response
+     */
+    private static final List<String> REFRESHABLE_HEADERS =
+            List.of("cache-control", "date", "etag", "expires", "last-modified", "age");
+
+    /**
+     * Build an entry if the response may be stored, using Cache-Control max-age
+     * (or Expires) for freshness. Returns empty for no-store, Vary, non-200 and
+     * responses that are neither fresh nor revalidatable.
+     */
+    public static Optional<CacheEntry> from(BufferedResponse response, long nowMillis) {
+        return from(response, nowMillis, Set.of());
+    }
+
+    /**
+     * Same, but a Vary naming only {@code ignoredVary} headers (lower-case) is accepted:
+     * the body stored does not depend on them
+     */
+    public static Optional<CacheEntry> from(BufferedResponse response, long nowMillis, Set<String> ignoredVary) {
+        if (response.statusCode() != 200) {
+            return Optional.empty();
+        }
+        HttpHeaders headers = response.headers();
+        Map<String, String> cacheControl = cacheControl(headers);
+        if (cacheControl.containsKey("no-store") || cacheControl.containsKey("private")
+                || !variesOnlyOn(headers, ignoredVary)) {
+            return Optional.empty();
+        }
+
+        long freshUntil = plus(nowMillis, freshnessLifetimeMillis(headers, cacheControl));
+        CacheEntry entry = new CacheEntry(response, nowMillis, freshUntil);
+        if (freshUntil <= nowMillis && !entry.hasValidators()) {
+            return Optional.empty();
+        }
+        return Optional.of(entry);
+    }
+
+    public boolean isFresh(long nowMillis) {
+        return nowMillis < freshUntilMillis;
+    }
+
+    public Optional<String> etag() {
+        return response.headers().firstValue("ETag");
+    }
+
+    public Optional<String> lastModified() {
+        return response.headers().firstValue("Last-Modified");
+    }
+
+    public boolean hasValidators() {
+        return etag().isPresent() || lastModified().isPresent();
+    }
+
+    /**
+     * Approximate heap footprint, used for the cache size budget
+     */
+    public long sizeBytes() {
+        return response.body().length + HEADER_OVERHEAD_BYTES;
+    }
+
+    /**
+     * New entry after a 304: same body, validator/freshness headers taken from the 304
+     */
+    public CacheEntry revalidated(HttpHeaders notModifiedHeaders, long nowMillis) {
+        Map<String, List<String>> merged = new HashMap<>(response.headers().map());
+        notModifiedHeaders.map().forEach((name, values) -> {
+            if (REFRESHABLE_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                merged.keySet().removeIf(existing -> existing.equalsIgnoreCase(name));
+                merged.put(name, values);
+            }
+        });
+        HttpHeaders headers = HttpHeaders.of(merged, (name, value) -> true);
+        long freshUntil = plus(nowMillis, freshnessLifetimeMillis(headers, cacheControl(headers)));
+        return new CacheEntry(response.withHeaders(headers), nowMillis, freshUntil);
+    }
+
+    /**
+     * Whether a response to a request with credentials may be stored and reused for other
+     * callers: only when it says so explicitly (RFC 9111 section 3.5)
+     */
+    static boolean allowsSharedCaching(HttpHeaders headers) {
+        Map<String, String> cacheControl = cacheControl(headers);
+        return cacheControl.containsKey("public") || cacheControl.containsKey("s-maxage")
+                || cacheControl.containsKey("must-revalidate");
+    }
+
+    private static boolean variesOnlyOn(HttpHeaders headers, Set<String> ignoredVary) {
+        for (String header : headers.allValues("Vary")) {
+            for (String name : header.split(",")) {
+                String field = name.trim().toLowerCase(Locale.ROOT);
+                if (!field.isEmpty() && !ignoredVary.contains(field)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cache-Control directives, lower-cased, with their value ("" when valueless)
+     */
+    static Map<String, String> cacheControl(HttpHeaders headers) {
+        Map<String, String> directives = new HashMap<>();
+        for (String header : headers.allValues("Cache-Control")) {
+            for (String part : header.split(",")) {
+                String directive = part.trim();
+                if (directive.isEmpty()) {
+                    continue;
+                }
+                int eq = directive.indexOf('=');
+                if (eq < 0) {
+                    directives.put(directive.toLowerCase(Locale.ROOT), "");
+                } else {
+                    directives.put(directive.substring(0, eq).trim().toLowerCase(Locale.ROOT),
+                            directive.substring(eq + 1).trim().replace("\"", ""));
+                }
+            }
+        }
+        return directives;
+    }
+
+    private static long freshnessLifetimeMillis(HttpHeaders headers, Map<String, String> cacheControl) {
+        if (cacheControl.containsKey("no-cache")) {
+            return 0;
+        }
+        long age;
+        try {
+            age = secondsToMillis(headers.firstValueAsLong("Age").orElse(0));
+        } catch (NumberFormatException e) {
+            age = 0;
+        }
+
+        String maxAge = cacheControl.get("max-age");
+        if (maxAge != null) {
+            try {
+                return Math.max(0, secondsToMillis(Long.parseLong(maxAge)) - age);
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+
+        Optional<String> expires = headers.firstValue("Expires");
+        Optional<String> date = headers.firstValue("Date");
+        if (expires.isPresent() && date.isPresent()) {
+            try {
+                long expiresAt = ZonedDateTime.parse(expires.get(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                        .toInstant().toEpochMilli();
+                long servedAt = ZonedDateTime.parse(date.get(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                        .toInstant().toEpochMilli();
+                return Math.max(0, expiresAt - servedAt - age);
+            } catch (DateTimeParseException e) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Seconds from a header as millis, negatives as 0 and huge values saturated
+     */
+    private static long secondsToMillis(long seconds) {
+        return seconds <= 0 ? 0 : seconds > Long.MAX_VALUE / 1000 ? Long.MAX_VALUE : seconds * 1000;
+    }
+
+    private static long plus(long nowMillis, long lifetimeMillis) {
+        return lifetimeMillis > Long.MAX_VALUE - nowMillis ? Long.MAX_VALUE : nowMillis + lifetimeMillis;
+    }
+}
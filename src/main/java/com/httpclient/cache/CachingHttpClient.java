@@ -0,0 +1,147 @@
+package com.httpclient.cache;
+
+import com.httpclient.body.BufferedResponse;
+import com.httpclient.compression.CompressingHttpClient;
+import com.httpclient.util.ForwardingHttpClient;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * HttpClient decorator that answers GET requests from an {@link HttpCache}.
+ * <p>
+ * Fresh entries (Cache-Control max-age / Expires) are served without touching the
+ * network. Stale entries with an ETag or Last-Modified are revalidated with
+ * If-None-Match / If-Modified-Since; a 304 refreshes the entry and the stored body is
+ * served. A request with {@code Cache-Control: no-cache} always revalidates, and one
+ * with {@code no-store} bypasses the cache entirely.
+ * <p>
+ * Cacheable GETs are read fully into memory and then replayed through the caller's
+ * BodyHandler, so streaming handlers still work but no longer stream. Responses with a
+ * Vary header are not stored, unless it only names headers the delegate makes irrelevant
+ * (see {@link #aboveDecoding}). Requests with a PushPromiseHandler bypass the cache, since
+ * pushes cannot be replayed.
+ */
+public class CachingHttpClient extends ForwardingHttpClient {
+
+    private final HttpCache cache;
+    private final Set<String> ignoredVary;
+
+    public CachingHttpClient(HttpClient delegate, HttpCache cache) {
+        this(delegate, cache, Set.of());
+    }
+
+    private CachingHttpClient(HttpClient delegate, HttpCache cache, Set<String> ignoredVary) {
+        super(delegate);
+        this.cache = cache;
+        this.ignoredVary = ignoredVary;
+    }
+
+    /**
+     * Cache in front of a {@link CompressingHttpClient}: it hands back decoded bodies whatever
+     * the encoding, so {@code Vary: Accept-Encoding}, which compressing servers always send,
+     * does not keep responses out of the cache
+     */
+    public static CachingHttpClient aboveDecoding(CompressingHttpClient delegate, HttpCache cache) {
+        return new CachingHttpClient(delegate, cache, Set.of("accept-encoding"));
+    }
+
+    public HttpCache cache() {
+        return cache;
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler)
+            throws IOException, InterruptedException {
+        if (!isCacheable(request)) {
+            return delegate.send(request, responseBodyHandler);
+        }
+        return await(sendAsync(request, responseBodyHandler));
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler) {
+        if (!isCacheable(request)) {
+            return delegate.sendAsync(request, responseBodyHandler);
+        }
+
+        String key = request.uri().toString();
+        Optional<CacheEntry> cached = cache.get(key);
+        boolean forceRevalidate = CacheEntry.cacheControl(request.headers()).containsKey("no-cache");
+
+        if (cached.isPresent() && cached.get().isFresh(System.currentTimeMillis()) && !forceRevalidate) {
+            cache.hits.increment();
+            return cached.get().response().deliver(request, responseBodyHandler);
+        }
+
+        Optional<CacheEntry> revalidatable = cached.filter(CacheEntry::hasValidators);
+        HttpRequest upstream = revalidatable.map(entry -> conditional(request, entry)).orElse(request);
+
+        return delegate.sendAsync(upstream, HttpResponse.BodyHandlers.ofByteArray())
+                .thenCompose(response -> {
+                    long now = System.currentTimeMillis();
+
+                    if (response.statusCode() == 304 && revalidatable.isPresent()) {
+                        cache.revalidations.increment();
+                        CacheEntry refreshed = revalidatable.get().revalidated(response.headers(), now);
+                        cache.put(key, refreshed);
+                        return refreshed.response().deliver(request, responseBodyHandler);
+                    }
+
+                    if (revalidatable.isPresent()) {
+                        cache.revalidationsChanged.increment();
+                    } else {
+                        cache.misses.increment();
+                    }
+
+                    BufferedResponse buffered = BufferedResponse.of(response);
+                    // The key is only the URI: a credentialed answer is stored for everyone or not at all
+                    boolean storable = !hasCredentials(request)
+                            || CacheEntry.allowsSharedCaching(response.headers());
+                    (storable ? CacheEntry.from(buffered, now, ignoredVary) : Optional.<CacheEntry>empty())
+                            .ifPresentOrElse(
+                                    entry -> cache.put(key, entry),
+                                    () -> cache.remove(key));
+                    return buffered.deliver(request, responseBodyHandler);
+                });
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler,
+                                                            HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        return pushPromiseHandler == null
+                ? sendAsync(request, responseBodyHandler)
+                : delegate.sendAsync(request, responseBodyHandler, pushPromiseHandler);
+    }
+
+    /**
+     * Only plain GETs are cached; requests that already carry their own validators or
+     * ranges, or that ask for no-store, go straight to the origin
+     */
+    private static boolean isCacheable(HttpRequest request) {
+        return request.method().equals("GET")
+                && request.headers().firstValue("If-None-Match").isEmpty()
+                && request.headers().firstValue("If-Modified-Since").isEmpty()
+                && request.headers().firstValue("Range").isEmpty()
+                && !CacheEntry.cacheControl(request.headers()).containsKey("no-store");
+    }
+
+    private static boolean hasCredentials(HttpRequest request) {
+        return request.headers().firstValue("Authorization").isPresent()
+                || request.headers().firstValue("Cookie").isPresent();
+    }
+
+    private static HttpRequest conditional(HttpRequest request, CacheEntry entry) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request, (name, value) -> true);
+        entry.etag().ifPresent(etag -> builder.setHeader("If-None-Match", etag));
+        entry.lastModified().ifPresent(date -> builder.setHeader("If-Modified-Since", date));
+        return builder.build();
+    }
+}
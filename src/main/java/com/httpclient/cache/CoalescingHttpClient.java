@@ -0,0 +1,145 @@
+package com.httpclient.cache;
+
+import com.httpclient.body.BufferedResponse;
+import com.httpclient.util.ForwardingHttpClient;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HttpClient decorator that collapses identical concurrent GETs into one upstream exchange
+ * ("single-flight").
+ * <p>
+ * The first GET for a given URI and set of relevant headers goes to the origin; every
+ * identical GET that arrives while it is still in flight waits for the same response
+ * instead of sending its own. The body is read once and replayed read-only through each
+ * caller's own BodyHandler, so callers cannot see or disturb each other's buffers, and
+ * cancelling one caller's future does not cancel the shared exchange.
+ * <p>
+ * Nothing is kept after the exchange completes; combine with {@link CachingHttpClient}
+ * for reuse over time. Requests with a PushPromiseHandler are never shared.
+ */
+public class CoalescingHttpClient extends ForwardingHttpClient {
+
+    /**
+     * Request headers that can change the response and so must match for two GETs to share it
+     */
+    public static final Set<String> DEFAULT_KEY_HEADERS =
+            Set.of("accept", "accept-encoding", "accept-language", "authorization", "cookie");
+
+    private final Set<String> keyHeaders;
+    private final Map<Key, CompletableFuture<BufferedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder upstream = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+
+    /**
+     * @param upstream  GETs actually sent to the origin
+     * @param collapsed GETs answered by another caller's in-flight exchange
+     */
+    public record Stats(long upstream, long collapsed, int inFlight) {
+
+        public double collapseRatio() {
+            long total = upstream + collapsed;
+            return total == 0 ? 0.0 : (double) collapsed / total;
+        }
+    }
+
+    public CoalescingHttpClient(HttpClient delegate) {
+        this(delegate, DEFAULT_KEY_HEADERS);
+    }
+
+    /**
+     * @param keyHeaders lower-case names of the request headers that must match
+     */
+    public CoalescingHttpClient(HttpClient delegate, Set<String> keyHeaders) {
+        super(delegate);
+        this.keyHeaders = keyHeaders;
+    }
+
+    public Stats stats() {
+        return new Stats(upstream.sum(), collapsed.sum(), inFlight.size());
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler)
+            throws IOException, InterruptedException {
+        if (!request.method().equals("GET")) {
+            return delegate.send(request, responseBodyHandler);
+        }
+        return await(sendAsync(request, responseBodyHandler));
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler) {
+        if (!request.method().equals("GET")) {
+            return delegate.sendAsync(request, responseBodyHandler);
+        }
+
+        Key key = key(request);
+        CompletableFuture<BufferedResponse> mine = new CompletableFuture<>();
+        CompletableFuture<BufferedResponse> shared = inFlight.putIfAbsent(key, mine);
+
+        if (shared != null) {
+            collapsed.increment();
+        } else {
+            shared = mine;
+            upstream.increment();
+            try {
+                delegate.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                        .whenComplete((response, error) -> {
+                            // Unregister before completing so late arrivals start a fresh exchange
+                            inFlight.remove(key, mine);
+                            if (error != null) {
+                                mine.completeExceptionally(error);
+                            } else {
+                                mine.complete(BufferedResponse.of(response));
+                            }
+                        });
+            } catch (RuntimeException e) {
+                // A delegate that throws instead of failing its future must not leave the key
+                // registered, or every later identical GET would wait on it forever
+                inFlight.remove(key, mine);
+                mine.completeExceptionally(e);
+            }
+        }
+
+        // Each caller gets its own dependent future and its own handler run
+        return shared.thenCompose(buffered -> buffered.deliver(request, responseBodyHandler));
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler,
+                                                            HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        return pushPromiseHandler == null
+                ? sendAsync(request, responseBodyHandler)
+                : delegate.sendAsync(request, responseBodyHandler, pushPromiseHandler);
+    }
+
+    private Key key(HttpRequest request) {
+        List<String> headers = new ArrayList<>();
+        request.headers().map().forEach((name, values) -> {
+            String lower = name.toLowerCase(Locale.ROOT);
+            if (keyHeaders.contains(lower)) {
+                headers.add(lower + ":" + String.join(",", values));
+            }
+        });
+        headers.sort(null);
+        return new Key(request.uri(), headers);
+    }
+
+    private record Key(URI uri, List<String> headers) {
+    }
+}
@@ -0,0 +1,210 @@
+package com.httpclient.cache;
+
+import com.httpclient.body.BufferedResponse;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Second cache tier: one file per entry in a directory, bounded by total bytes.
+ * <p>
+ * Entries evicted from memory land here and are promoted back on a hit. The index
+ * (key → file size, LRU order) lives in memory and is rebuilt from the directory on
+ * start, ordered by file modification time. I/O failures are counted and the entry
+ * dropped; the disk tier never fails the exchange that uses it.
+ */
+public class DiskCacheStore {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String SUFFIX = ".entry";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    final LongAdder errors = new LongAdder();
+
+    public DiskCacheStore(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                    .sorted((a, b) -> Long.compare(a.toFile().lastModified(), b.toFile().lastModified()))
+                    .forEach(file -> {
+                        String name = file.getFileName().toString();
+                        long size = file.toFile().length();
+                        index.put(name.substring(0, name.length() - SUFFIX.length()), size);
+                        totalBytes += size;
+                    });
+        }
+    }
+
+    synchronized Optional<CacheEntry> get(String key) {
+        String id = id(key);
+        // get, not containsKey, so the read counts as a use in the LRU order
+        if (index.get(id) == null) {
+            return Optional.empty();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file(id))))) {
+            return Optional.of(read(in));
+        } catch (IOException | RuntimeException e) {
+            // Unreadable or corrupt entry
+            errors.increment();
+            removeById(id);
+            return Optional.empty();
+        }
+    }
+
+    synchronized void put(String key, CacheEntry entry) {
+        String id = id(key);
+        Path target = file(id);
+        Path temp = directory.resolve(id + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                write(out, entry);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            errors.increment();
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // Leftover temp file, not indexed
+            }
+            // Whatever was stored under this key is now older than the origin's answer
+            removeById(id);
+            return;
+        }
+
+        Long previous = index.put(id, target.toFile().length());
+        totalBytes += index.get(id) - (previous == null ? 0 : previous);
+        evict();
+    }
+
+    synchronized void remove(String key) {
+        removeById(id(key));
+    }
+
+    synchronized long sizeBytes() {
+        return totalBytes;
+    }
+
+    private void removeById(String id) {
+        Long size = index.remove(id);
+        if (size != null) {
+            totalBytes -= size;
+        }
+        try {
+            Files.deleteIfExists(file(id));
+        } catch (IOException e) {
+            // Orphaned file, picked up again on next start
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> oldest = index.entrySet().iterator();
+        while (totalBytes > maxBytes && oldest.hasNext()) {
+            Map.Entry<String, Long> victim = oldest.next();
+            totalBytes -= victim.getValue();
+            oldest.remove();
+            try {
+                Files.deleteIfExists(file(victim.getKey()));
+            } catch (IOException e) {
+                // Orphaned file, picked up again on next start
+            }
+        }
+    }
+
+    private Path file(String id) {
+        return directory.resolve(id + SUFFIX);
+    }
+
+    /**
+     * SHA-256 of the key, so any URI maps to a safe file name
+     */
+    private static String id(String key) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void write(DataOutputStream out, CacheEntry entry) throws IOException {
+        BufferedResponse response = entry.response();
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(entry.storedAtMillis());
+        out.writeLong(entry.freshUntilMillis());
+        out.writeInt(response.statusCode());
+        out.writeUTF(response.version().name());
+        out.writeUTF(response.uri().toString());
+
+        Map<String, List<String>> headers = response.headers().map();
+        out.writeInt(headers.size());
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            out.writeUTF(header.getKey());
+            out.writeInt(header.getValue().size());
+            for (String value : header.getValue()) {
+                out.writeUTF(value);
+            }
+        }
+
+        out.writeInt(response.body().length);
+        out.write(response.body());
+    }
+
+    private static CacheEntry read(DataInputStream in) throws IOException {
+        if (in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Unknown cache entry format");
+        }
+        long storedAt = in.readLong();
+        long freshUntil = in.readLong();
+        int status = in.readInt();
+        HttpClient.Version version = HttpClient.Version.valueOf(in.readUTF());
+        URI uri = URI.create(in.readUTF());
+
+        int headerCount = in.readInt();
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (int i = 0; i < headerCount; i++) {
+            String name = in.readUTF();
+            int valueCount = in.readInt();
+            List<String> values = new ArrayList<>(valueCount);
+            for (int j = 0; j < valueCount; j++) {
+                values.add(in.readUTF());
+            }
+            headers.put(name, values);
+        }
+
+        byte[] body = new byte[in.readInt()];
+        in.readFully(body);
+
+        BufferedResponse response = new BufferedResponse(status,
+                HttpHeaders.of(headers, (name, value) -> true), version, uri, body);
+        return new CacheEntry(response, storedAt, freshUntil);
+    }
+}
@@ -0,0 +1,126 @@
+package com.httpclient.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded response store: an in-memory LRU tier with an optional disk tier behind it.
+ * <p>
+ * The memory tier is bounded by the summed {@link CacheEntry#sizeBytes()} of its entries.
+ * Entries evicted from memory are spilled to the disk tier (when configured) and promoted
+ * back to memory on their next hit.
+ */
+public class HttpCache {
+
+    private final long maxMemoryBytes;
+    private final DiskCacheStore disk;
+    private final LinkedHashMap<String, CacheEntry> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private long memoryBytes;
+
+    final LongAdder hits = new LongAdder();
+    final LongAdder misses = new LongAdder();
+    final LongAdder revalidations = new LongAdder();
+    final LongAdder revalidationsChanged = new LongAdder();
+    final LongAdder evictions = new LongAdder();
+
+    /**
+     * Counters since the cache was created
+     *
+     * @param hits                 served fresh from the cache without contacting the origin
+     * @param misses               nothing usable stored; full request to the origin
+     * @param revalidations        stale entry confirmed by a 304 Not Modified
+     * @param revalidationsChanged stale entry replaced by a new 200
+     * @param evictions            entries pushed out of the memory tier
+     * @param diskErrors           disk tier reads or writes that failed and were dropped
+     */
+    public record Stats(long hits, long misses, long revalidations, long revalidationsChanged,
+                        long evictions, long diskErrors, int memoryEntries, long memoryBytes) {
+
+        public double hitRatio() {
+            long total = hits + misses + revalidations + revalidationsChanged;
+            return total == 0 ? 0.0 : (double) (hits + revalidations) / total;
+        }
+    }
+
+    /**
+     * Memory-only cache
+     */
+    public HttpCache(long maxMemoryBytes) {
+        this(maxMemoryBytes, null);
+    }
+
+    /**
+     * Memory cache that spills evicted entries to {@code disk}
+     */
+    public HttpCache(long maxMemoryBytes, DiskCacheStore disk) {
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.disk = disk;
+    }
+
+    Optional<CacheEntry> get(String key) {
+        synchronized (this) {
+            CacheEntry entry = memory.get(key);
+            if (entry != null) {
+                return Optional.of(entry);
+            }
+        }
+        if (disk == null) {
+            return Optional.empty();
+        }
+        Optional<CacheEntry> spilled = disk.get(key);
+        spilled.ifPresent(entry -> {
+            disk.remove(key);
+            put(key, entry);
+        });
+        return spilled;
+    }
+
+    void put(String key, CacheEntry entry) {
+        if (entry.sizeBytes() > maxMemoryBytes) {
+            if (disk != null) {
+                disk.put(key, entry);
+            }
+            return;
+        }
+
+        Map<String, CacheEntry> evicted = new LinkedHashMap<>();
+        synchronized (this) {
+            CacheEntry previous = memory.put(key, entry);
+            memoryBytes += entry.sizeBytes() - (previous == null ? 0 : previous.sizeBytes());
+
+            Iterator<Map.Entry<String, CacheEntry>> oldest = memory.entrySet().iterator();
+            while (memoryBytes > maxMemoryBytes && oldest.hasNext()) {
+                Map.Entry<String, CacheEntry> victim = oldest.next();
+                memoryBytes -= victim.getValue().sizeBytes();
+                oldest.remove();
+                evicted.put(victim.getKey(), victim.getValue());
+            }
+        }
+
+        evictions.add(evicted.size());
+        if (disk != null) {
+            // Disk I/O outside of the memory lock
+            evicted.forEach(disk::put);
+        }
+    }
+
+    void remove(String key) {
+        synchronized (this) {
+            CacheEntry removed = memory.remove(key);
+            if (removed != null) {
+                memoryBytes -= removed.sizeBytes();
+            }
+        }
+        if (disk != null) {
+            disk.remove(key);
+        }
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), revalidations.sum(), revalidationsChanged.sum(),
+                evictions.sum(), disk == null ? 0 : disk.errors.sum(), memory.size(), memoryBytes);
+    }
+}
@@ -0,0 +1,37 @@
+package com.httpclient.capture;
+
+import java.util.Set;
+
+/**
+ * What a {@link RecordingHttpClient} writes to the traffic log.
+ *
+ * @param captureBodies   also store request and response bodies; sizes are always stored, and
+ *                        the replayer sends filler of the recorded size when a body is missing
+ * @param maxBodyBytes    bodies larger than this are not stored, only their size
+ * @param redactedHeaders request headers (lower case) left out of the log, e.g. credentials
+ */
+public record CaptureOptions(boolean captureBodies, int maxBodyBytes, Set<String> redactedHeaders) {
+
+    /**
+     * Timings, methods, URIs and headers only; Authorization, Cookie and Proxy-Authorization
+     * are never written
+     */
+    public static CaptureOptions defaults() {
+        return new CaptureOptions(false, 64 * 1024, Set.of("authorization", "cookie", "proxy-authorization"));
+    }
+
+    /**
+     * Store bodies up to {@code maxBodyBytes}
+     */
+    public CaptureOptions withBodies(int maxBodyBytes) {
+        return new CaptureOptions(true, maxBodyBytes, redactedHeaders);
+    }
+
+    public CaptureOptions withRedactedHeaders(Set<String> redactedHeaders) {
+        return new CaptureOptions(captureBodies, maxBodyBytes, redactedHeaders);
+    }
+
+    boolean isRedacted(String header) {
+        return redactedHeaders.contains(header.toLowerCase());
+    }
+}
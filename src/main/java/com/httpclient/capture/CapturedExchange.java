@@ -0,0 +1,37 @@
+package com.httpclient.capture;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One request/response exchange as stored in a traffic log.
+ *
+ * @param startMicros   when the request was sent, in microseconds since the epoch
+ * @param version       protocol the request asked for, or null for the client default
+ * @param headers       request headers set by the caller, minus redacted ones
+ * @param requestBytes  request body size, -1 if it was a stream of unknown length that failed early
+ * @param requestBody   request body, or null if bodies were not captured or it was too large
+ * @param statusCode    response status, or 0 if the exchange failed
+ * @param latencyMicros send until the response (or failure) was handed back
+ * @param responseBody  response body, or null if bodies were not captured or it was too large
+ * @param error         simple class name of the failure, or null
+ */
+public record CapturedExchange(long startMicros,
+                               String method,
+                               URI uri,
+                               HttpClient.Version version,
+                               Map<String, List<String>> headers,
+                               long requestBytes,
+                               byte[] requestBody,
+                               int statusCode,
+                               long latencyMicros,
+                               long responseBytes,
+                               byte[] responseBody,
+                               String error) {
+
+    public boolean isFailure() {
+        return error != null;
+    }
+}
@@ -0,0 +1,335 @@
+package com.httpclient.capture;
+
+import com.httpclient.util.ForwardingHttpClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HttpClient decorator that appends every exchange to a {@link TrafficLogWriter}.
+ * <p>
+ * Each record holds the send time, method, URI, caller-set request headers (minus
+ * {@link CaptureOptions#redactedHeaders()}), request and response body sizes, status and
+ * latency as the caller saw it, plus the bodies when {@link CaptureOptions#captureBodies()}
+ * is on. Bodies are copied as they stream past, so the caller's handlers see exactly what
+ * they would without recording. The record is written once both the response and its body
+ * are done; a failing log only counts {@link #writeErrors()} and never fails a request.
+ * <p>
+ * Replay a log with {@link com.httpclient.benchmark.TrafficReplayer}.
+ */
+public class RecordingHttpClient extends ForwardingHttpClient {
+
+    private final TrafficLogWriter log;
+    private final CaptureOptions options;
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder writeErrors = new LongAdder();
+    private volatile IOException lastWriteError;
+
+    public RecordingHttpClient(HttpClient delegate, TrafficLogWriter log) {
+        this(delegate, log, CaptureOptions.defaults());
+    }
+
+    public RecordingHttpClient(HttpClient delegate, TrafficLogWriter log, CaptureOptions options) {
+        super(delegate);
+        this.log = log;
+        this.options = options;
+    }
+
+    public TrafficLogWriter log() {
+        return log;
+    }
+
+    /**
+     * Exchanges written to the log
+     */
+    public long recorded() {
+        return recorded.sum();
+    }
+
+    /**
+     * Exchanges that could not be written
+     */
+    public long writeErrors() {
+        return writeErrors.sum();
+    }
+
+    /**
+     * The most recent write failure, or null
+     */
+    public IOException lastWriteError() {
+        return lastWriteError;
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler)
+            throws IOException, InterruptedException {
+        if (logFailed()) {
+            return delegate.send(request, responseBodyHandler);
+        }
+        Exchange<T> exchange = new Exchange<>(request, responseBodyHandler);
+        try {
+            HttpResponse<T> response = delegate.send(exchange.request, exchange.handler);
+            exchange.completed(response, null);
+            return response;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            exchange.completed(null, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler) {
+        if (logFailed()) {
+            return delegate.sendAsync(request, responseBodyHandler);
+        }
+        Exchange<T> exchange = new Exchange<>(request, responseBodyHandler);
+        return delegate.sendAsync(exchange.request, exchange.handler).whenComplete(exchange::completed);
+    }
+
+    // Pushed responses are not recorded, only the main exchange
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler,
+                                                            HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        if (logFailed()) {
+            return delegate.sendAsync(request, responseBodyHandler, pushPromiseHandler);
+        }
+        Exchange<T> exchange = new Exchange<>(request, responseBodyHandler);
+        return delegate.sendAsync(exchange.request, exchange.handler, pushPromiseHandler)
+                .whenComplete(exchange::completed);
+    }
+
+    /**
+     * A log that failed rejects every append; count the exchange as lost without copying its bodies
+     */
+    private boolean logFailed() {
+        if (!log.isFailed()) {
+            return false;
+        }
+        writeErrors.increment();
+        return true;
+    }
+
+    private void write(CapturedExchange exchange) {
+        try {
+            log.append(exchange);
+            recorded.increment();
+        } catch (IOException e) {
+            writeErrors.increment();
+            lastWriteError = e;
+        }
+    }
+
+    /**
+     * Counts the bytes that stream past and, if enabled, keeps a copy up to the body limit
+     */
+    private final class BodyTap {
+        private long bytes;
+        private ByteArrayOutputStream copy;
+
+        BodyTap() {
+            reset();
+        }
+
+        synchronized void reset() {
+            bytes = 0;
+            copy = options.captureBodies() ? new ByteArrayOutputStream() : null;
+        }
+
+        synchronized void add(ByteBuffer buffer) {
+            int n = buffer.remaining();
+            bytes += n;
+            if (copy == null) {
+                return;
+            }
+            if (bytes > options.maxBodyBytes()) {
+                copy = null;
+                return;
+            }
+            ByteBuffer view = buffer.duplicate();
+            byte[] chunk = new byte[n];
+            view.get(chunk);
+            copy.write(chunk, 0, n);
+        }
+
+        synchronized long bytes() {
+            return bytes;
+        }
+
+        synchronized byte[] copy() {
+            return copy == null ? null : copy.toByteArray();
+        }
+    }
+
+    /**
+     * One exchange being recorded. As in the metrics decorator, the response future and the
+     * body subscriber finish independently, so the record is written by whichever is last.
+     */
+    private final class Exchange<T> {
+        final HttpRequest request;
+        final HttpResponse.BodyHandler<T> handler;
+        private final HttpRequest original;
+        private final long startMicros = TrafficLogFormat.nowMicros();
+        private final long startNanos = System.nanoTime();
+        private final BodyTap requestTap;
+        private final BodyTap responseTap = new BodyTap();
+        private final AtomicInteger outstanding = new AtomicInteger(2);
+        private volatile boolean headersReceived;
+        private volatile long latencyNanos;
+        private volatile int status;
+        private volatile String error;
+
+        Exchange(HttpRequest original, HttpResponse.BodyHandler<T> responseBodyHandler) {
+            this.original = original;
+            HttpRequest.BodyPublisher body = original.bodyPublisher().orElse(null);
+            // Known-length bodies only need tapping when they are copied; body-less requests
+            // are left alone so no Content-Length: 0 header is added
+            if (body == null || body.contentLength() == 0
+                    || (body.contentLength() > 0 && !options.captureBodies())) {
+                this.requestTap = null;
+                this.request = original;
+            } else {
+                this.requestTap = new BodyTap();
+                this.request = HttpRequest.newBuilder(original, (name, value) -> true)
+                        .method(original.method(), new TapPublisher(body, requestTap))
+                        .build();
+            }
+            this.handler = responseInfo -> {
+                HttpResponse.BodySubscriber<T> downstream = responseBodyHandler.apply(responseInfo);
+                headersReceived = true;
+                return new TapSubscriber(downstream);
+            };
+        }
+
+        void completed(HttpResponse<T> response, Throwable failure) {
+            latencyNanos = System.nanoTime() - startNanos;
+            if (failure != null) {
+                Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                        ? failure.getCause() : failure;
+                error = cause.getClass().getSimpleName();
+            } else {
+                status = response.statusCode();
+            }
+            // Failed before the headers: no body subscriber will ever report in
+            finish(headersReceived ? 1 : 2);
+        }
+
+        void bodyDone() {
+            finish(1);
+        }
+
+        private void finish(int parts) {
+            if (outstanding.addAndGet(-parts) != 0) {
+                return;
+            }
+            Map<String, List<String>> headers = new LinkedHashMap<>();
+            original.headers().map().forEach((name, values) -> {
+                if (!options.isRedacted(name)) {
+                    headers.put(name, values);
+                }
+            });
+            long requestBytes = requestTap != null
+                    ? requestTap.bytes()
+                    : original.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).orElse(0L);
+            write(new CapturedExchange(startMicros, original.method(), original.uri(),
+                    original.version().orElse(null), headers,
+                    requestBytes, requestTap != null ? requestTap.copy() : null,
+                    status, latencyNanos / 1_000, responseTap.bytes(), responseTap.copy(), error));
+        }
+
+        private final class TapPublisher implements HttpRequest.BodyPublisher {
+            private final HttpRequest.BodyPublisher body;
+            private final BodyTap tap;
+
+            TapPublisher(HttpRequest.BodyPublisher body, BodyTap tap) {
+                this.body = body;
+                this.tap = tap;
+            }
+
+            @Override
+            public long contentLength() {
+                return body.contentLength();
+            }
+
+            @Override
+            public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+                // A redirect or retry pulls the body again; only the last copy counts
+                tap.reset();
+                body.subscribe(new Flow.Subscriber<>() {
+                    @Override
+                    public void onSubscribe(Flow.Subscription subscription) {
+                        subscriber.onSubscribe(subscription);
+                    }
+
+                    @Override
+                    public void onNext(ByteBuffer item) {
+                        tap.add(item);
+                        subscriber.onNext(item);
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        subscriber.onError(throwable);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        subscriber.onComplete();
+                    }
+                });
+            }
+        }
+
+        private final class TapSubscriber implements HttpResponse.BodySubscriber<T> {
+            private final HttpResponse.BodySubscriber<T> downstream;
+
+            TapSubscriber(HttpResponse.BodySubscriber<T> downstream) {
+                this.downstream = downstream;
+            }
+
+            @Override
+            public CompletionStage<T> getBody() {
+                return downstream.getBody();
+            }
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                downstream.onSubscribe(subscription);
+            }
+
+            @Override
+            public void onNext(List<ByteBuffer> item) {
+                for (ByteBuffer buffer : item) {
+                    responseTap.add(buffer);
+                }
+                downstream.onNext(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                bodyDone();
+                downstream.onError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                bodyDone();
+                downstream.onComplete();
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.httpclient.capture;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary layout of a traffic log.
+ * <p>
+ * The file starts with {@link #MAGIC} and {@link #VERSION}, followed by frames:
+ * {@code varint length, type byte + payload, CRC32 of type and payload}. A {@link #SEGMENT}
+ * frame is written each time a writer opens the file; it carries the time base that
+ * exchange start offsets are relative to and resets the string dictionary. An
+ * {@link #EXCHANGE} frame holds one {@link CapturedExchange}.
+ * <p>
+ * Numbers are unsigned LEB128 varints (signed ones zigzag-encoded first). Methods, header
+ * names and header values go through a per-segment dictionary: the first occurrence is
+ * written inline and gets the next id, later ones are just the id, so a header repeated on
+ * every request costs one or two bytes.
+ */
+final class TrafficLogFormat {
+
+    static final int MAGIC = 0x48544C47; // "HTLG"
+    static final byte VERSION = 1;
+    static final int HEADER_BYTES = 5;
+
+    static final byte SEGMENT = 1;
+    static final byte EXCHANGE = 2;
+
+    static final int MAX_FRAME_BYTES = 64 * 1024 * 1024;
+    private static final int MAX_DICTIONARY = 4096;
+
+    private static final int HAS_REQUEST_BODY = 1;
+    private static final int HAS_RESPONSE_BODY = 2;
+    private static final int FAILED = 4;
+
+    private TrafficLogFormat() {
+    }
+
+    /**
+     * Writes frame payloads into a reusable, growing array. Not thread-safe.
+     */
+    static final class Encoder {
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private final List<String> added = new ArrayList<>();
+        private byte[] bytes = new byte[4096];
+        private int length;
+
+        /**
+         * Start a new segment: forget the dictionary and encode the segment frame
+         */
+        void segment(long baseMicros) {
+            dictionary.clear();
+            length = 0;
+            put(SEGMENT);
+            putVarLong(baseMicros);
+        }
+
+        void exchange(CapturedExchange exchange, long baseMicros) {
+            length = 0;
+            added.clear();
+            put(EXCHANGE);
+            putVarLong(zigzag(exchange.startMicros() - baseMicros));
+            putDictionary(exchange.method());
+            putString(exchange.uri().toString());
+            put((byte) (exchange.version() == null ? 0 : exchange.version().ordinal() + 1));
+
+            putVarLong(exchange.headers().size());
+            for (Map.Entry<String, List<String>> header : exchange.headers().entrySet()) {
+                putDictionary(header.getKey());
+                putVarLong(header.getValue().size());
+                for (String value : header.getValue()) {
+                    putDictionary(value);
+                }
+            }
+
+            int flags = (exchange.requestBody() != null ? HAS_REQUEST_BODY : 0)
+                    | (exchange.responseBody() != null ? HAS_RESPONSE_BODY : 0)
+                    | (exchange.isFailure() ? FAILED : 0);
+            put((byte) flags);
+            putVarLong(zigzag(exchange.requestBytes()));
+            putVarLong(exchange.statusCode());
+            putVarLong(exchange.latencyMicros());
+            putVarLong(exchange.responseBytes());
+            if (exchange.isFailure()) {
+                putDictionary(exchange.error());
+            }
+            if (exchange.requestBody() != null) {
+                putBytes(exchange.requestBody());
+            }
+            if (exchange.responseBody() != null) {
+                putBytes(exchange.responseBody());
+            }
+        }
+
+        /**
+         * Forget the dictionary entries the last exchange added, when its frame is not written:
+         * the reader would never see them defined
+         */
+        void discard() {
+            added.forEach(dictionary::remove);
+            added.clear();
+            length = 0;
+        }
+
+        byte[] array() {
+            return bytes;
+        }
+
+        int length() {
+            return length;
+        }
+
+        private void putDictionary(String value) {
+            Integer id = dictionary.get(value);
+            if (id != null) {
+                putVarLong(id + 1);
+                return;
+            }
+            putVarLong(0);
+            putString(value);
+            if (dictionary.size() < MAX_DICTIONARY) {
+                dictionary.put(value, dictionary.size());
+                added.add(value);
+            }
+        }
+
+        private void putString(String value) {
+            putBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void putBytes(byte[] value) {
+            putVarLong(value.length);
+            ensure(value.length);
+            System.arraycopy(value, 0, bytes, length, value.length);
+            length += value.length;
+        }
+
+        private void putVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        private void put(byte value) {
+            ensure(1);
+            bytes[length++] = value;
+        }
+
+        private void ensure(int more) {
+            if (length + more > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + more));
+            }
+        }
+    }
+
+    /**
+     * Reads frame payloads back; holds the dictionary of the current segment
+     */
+    static final class Decoder {
+        private final List<String> dictionary = new ArrayList<>();
+        private long baseMicros;
+
+        /**
+         * Decode one frame payload
+         *
+         * @return the exchange, or null for a segment frame
+         */
+        CapturedExchange decode(ByteBuffer frame) throws IOException {
+            byte type = frame.get();
+            if (type == SEGMENT) {
+                dictionary.clear();
+                baseMicros = getVarLong(frame);
+                return null;
+            }
+            if (type != EXCHANGE) {
+                throw new IOException("Unknown frame type " + type);
+            }
+
+            long start = baseMicros + unzigzag(getVarLong(frame));
+            String method = getDictionary(frame);
+            URI uri = URI.create(getString(frame));
+            int version = frame.get();
+
+            int headerCount = (int) getVarLong(frame);
+            Map<String, List<String>> headers = new LinkedHashMap<>();
+            for (int i = 0; i < headerCount; i++) {
+                String name = getDictionary(frame);
+                int valueCount = (int) getVarLong(frame);
+                List<String> values = new ArrayList<>(valueCount);
+                for (int j = 0; j < valueCount; j++) {
+                    values.add(getDictionary(frame));
+                }
+                headers.put(name, values);
+            }
+
+            int flags = frame.get();
+            long requestBytes = unzigzag(getVarLong(frame));
+            int status = (int) getVarLong(frame);
+            long latency = getVarLong(frame);
+            long responseBytes = getVarLong(frame);
+            String error = (flags & FAILED) != 0 ? getDictionary(frame) : null;
+            byte[] requestBody = (flags & HAS_REQUEST_BODY) != 0 ? getBytes(frame) : null;
+            byte[] responseBody = (flags & HAS_RESPONSE_BODY) != 0 ? getBytes(frame) : null;
+
+            return new CapturedExchange(start, method, uri,
+                    version == 0 ? null : HttpClient.Version.values()[version - 1],
+                    headers, requestBytes, requestBody, status, latency, responseBytes, responseBody, error);
+        }
+
+        private String getDictionary(ByteBuffer frame) throws IOException {
+            long id = getVarLong(frame);
+            if (id == 0) {
+                String value = getString(frame);
+                if (dictionary.size() < MAX_DICTIONARY) {
+                    dictionary.add(value);
+                }
+                return value;
+            }
+            if (id > dictionary.size()) {
+                throw new IOException("Unknown dictionary id " + id);
+            }
+            return dictionary.get((int) id - 1);
+        }
+
+        private static String getString(ByteBuffer frame) throws IOException {
+            return new String(getBytes(frame), StandardCharsets.UTF_8);
+        }
+
+        private static byte[] getBytes(ByteBuffer frame) throws IOException {
+            long length = getVarLong(frame);
+            if (length > frame.remaining()) {
+                throw new IOException("Field of " + length + " bytes overruns its frame");
+            }
+            byte[] value = new byte[(int) length];
+            frame.get(value);
+            return value;
+        }
+    }
+
+    /**
+     * Wall-clock time in microseconds since the epoch
+     */
+    static long nowMicros() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000 + now.getNano() / 1_000;
+    }
+
+    static long getVarLong(ByteBuffer buffer) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
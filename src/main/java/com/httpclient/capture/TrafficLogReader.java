@@ -0,0 +1,171 @@
+package com.httpclient.capture;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+
+/**
+ * Streams the exchanges of a traffic log in the order they were written.
+ * <p>
+ * Only one frame is held in memory at a time, so logs larger than the heap can be
+ * replayed. A damaged or half-written last frame (e.g. the recording process was killed)
+ * ends the iteration instead of failing it; {@link #truncated()} tells whether that happened.
+ */
+public final class TrafficLogReader implements Iterator<CapturedExchange>, Closeable {
+
+    private final DataInputStream in;
+    private final TrafficLogFormat.Decoder decoder = new TrafficLogFormat.Decoder();
+    private final CRC32 crc = new CRC32();
+    private byte[] frame = new byte[4096];
+    private CapturedExchange next;
+    private long validBytes = TrafficLogFormat.HEADER_BYTES;
+    private boolean truncated;
+    private boolean done;
+
+    private TrafficLogReader(DataInputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Open a log and check its header
+     */
+    public static TrafficLogReader open(Path file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024));
+        try {
+            if (in.readInt() != TrafficLogFormat.MAGIC) {
+                throw new IOException(file + " is not a traffic log");
+            }
+            byte version = in.readByte();
+            if (version != TrafficLogFormat.VERSION) {
+                throw new IOException(file + ": unsupported traffic log version " + version);
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e instanceof EOFException ? new IOException(file + " is not a traffic log", e) : e;
+        }
+        return new TrafficLogReader(in);
+    }
+
+    /**
+     * Every exchange in a log, for small logs
+     */
+    public static List<CapturedExchange> readAll(Path file) throws IOException {
+        List<CapturedExchange> exchanges = new ArrayList<>();
+        try (TrafficLogReader reader = open(file)) {
+            reader.forEachRemaining(exchanges::add);
+        }
+        return exchanges;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && !done) {
+            try {
+                next = readFrame();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public CapturedExchange next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        CapturedExchange exchange = next;
+        next = null;
+        return exchange;
+    }
+
+    /**
+     * Whether reading stopped at a damaged or incomplete frame rather than a clean end
+     */
+    public boolean truncated() {
+        return truncated;
+    }
+
+    /**
+     * File offset just past the last intact frame read so far
+     */
+    long validBytes() {
+        return validBytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * @return the next exchange, or null after a segment frame or at the end
+     */
+    private CapturedExchange readFrame() throws IOException {
+        int first = in.read();
+        if (first < 0) {
+            done = true;
+            return null;
+        }
+        try {
+            int length = readVarInt(first);
+            if (length <= 0 || length > TrafficLogFormat.MAX_FRAME_BYTES) {
+                throw new IOException("Bad frame length " + length);
+            }
+            if (frame.length < length) {
+                frame = new byte[Math.max(length, frame.length * 2)];
+            }
+            in.readFully(frame, 0, length);
+            int checksum = in.readInt();
+            crc.reset();
+            crc.update(frame, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                throw new IOException("Frame checksum mismatch");
+            }
+            CapturedExchange exchange = decoder.decode(ByteBuffer.wrap(frame, 0, length));
+            validBytes += varIntSize(length) + length + Integer.BYTES;
+            return exchange;
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            // Torn or corrupt tail: everything before it is still good
+            truncated = true;
+            done = true;
+            return null;
+        }
+    }
+
+    private int readVarInt(int first) throws IOException {
+        int value = first & 0x7F;
+        if ((first & 0x80) == 0) {
+            return value;
+        }
+        for (int shift = 7; shift < 32; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed frame length");
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,208 @@
+package com.httpclient.capture;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Appends {@link CapturedExchange}s to a traffic log (layout in {@link TrafficLogFormat}).
+ * <p>
+ * Opening an existing log appends to it: a half-written last frame from a crashed run is
+ * cut off first, then a new segment starts. Frames are collected in a 64 KiB buffer and
+ * written when it fills, on {@link #flush()} and on {@link #close()}, so a crash loses at
+ * most the unflushed tail. {@link #append} is synchronized; encoding one exchange takes
+ * microseconds, so recording from many completion threads does not serialise the traffic.
+ * <p>
+ * A failed write leaves the file ending in a partial frame and the encoder's string
+ * dictionary ahead of what reached the file, so after the first I/O error the writer
+ * rejects everything but {@link #close()}. Reopening the log cuts the partial frame off.
+ */
+public final class TrafficLogWriter implements Closeable {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private final TrafficLogFormat.Encoder encoder = new TrafficLogFormat.Encoder();
+    private final CRC32 crc = new CRC32();
+    private final long baseMicros;
+    private long exchanges;
+    private boolean closed;
+    private volatile IOException failure;
+
+    private TrafficLogWriter(Path file, FileChannel channel, long baseMicros) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.baseMicros = baseMicros;
+        encoder.segment(baseMicros);
+        frame();
+    }
+
+    /**
+     * Open a log for appending, creating it if needed
+     */
+    public static TrafficLogWriter open(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        return open(file, FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE));
+    }
+
+    /**
+     * Append to {@code file} through {@code channel}, which must be open for writing on it
+     */
+    static TrafficLogWriter open(Path file, FileChannel channel) throws IOException {
+        try {
+            long end = Files.size(file) > 0 ? validEnd(file) : 0;
+            if (end == 0) {
+                channel.truncate(0);
+                ByteBuffer header = ByteBuffer.allocate(TrafficLogFormat.HEADER_BYTES)
+                        .putInt(TrafficLogFormat.MAGIC)
+                        .put(TrafficLogFormat.VERSION)
+                        .flip();
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+            } else {
+                channel.truncate(end);
+                channel.position(end);
+            }
+            return new TrafficLogWriter(file, channel, TrafficLogFormat.nowMicros());
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * Exchanges appended by this writer
+     */
+    public synchronized long exchanges() {
+        return exchanges;
+    }
+
+    /**
+     * Whether a write failed; the writer then accepts nothing but {@link #close()}
+     */
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    /**
+     * Current log size, including the unflushed buffer
+     */
+    public synchronized long sizeBytes() throws IOException {
+        return channel.position() + buffer.position();
+    }
+
+    public synchronized void append(CapturedExchange exchange) throws IOException {
+        if (closed) {
+            throw new IOException("Traffic log " + file + " is closed");
+        }
+        checkNotFailed();
+        encoder.exchange(exchange, baseMicros);
+        if (encoder.length() > TrafficLogFormat.MAX_FRAME_BYTES) {
+            int length = encoder.length();
+            encoder.discard();
+            throw new IOException("Exchange of " + length + " bytes is too large for the traffic log");
+        }
+        frame();
+        exchanges++;
+    }
+
+    /**
+     * Write buffered frames to the file
+     */
+    public synchronized void flush() throws IOException {
+        checkNotFailed();
+        write(buffer.flip());
+        buffer.clear();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (failure == null) {
+                flush();
+                channel.force(false);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Frame the encoder's payload: length, payload, CRC32
+     */
+    private void frame() throws IOException {
+        int length = encoder.length();
+        crc.reset();
+        crc.update(encoder.array(), 0, length);
+
+        if (buffer.remaining() < length + 5 + Integer.BYTES) {
+            flush();
+        }
+        if (buffer.remaining() < length + 5 + Integer.BYTES) {
+            // Larger than the whole buffer: write it straight through
+            ByteBuffer large = ByteBuffer.allocate(length + 5 + Integer.BYTES);
+            putVarInt(large, length);
+            large.put(encoder.array(), 0, length).putInt((int) crc.getValue()).flip();
+            write(large);
+            return;
+        }
+        putVarInt(buffer, length);
+        buffer.put(encoder.array(), 0, length).putInt((int) crc.getValue());
+    }
+
+    private void write(ByteBuffer source) throws IOException {
+        try {
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        }
+    }
+
+    private void checkNotFailed() throws IOException {
+        if (failure != null) {
+            throw new IOException("Traffic log " + file + " failed on an earlier write", failure);
+        }
+    }
+
+    private static void putVarInt(ByteBuffer target, int value) {
+        while ((value & ~0x7F) != 0) {
+            target.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        target.put((byte) value);
+    }
+
+    /**
+     * End of the last intact frame of an existing log
+     */
+    private static long validEnd(Path file) throws IOException {
+        try (TrafficLogReader reader = TrafficLogReader.open(file)) {
+            while (reader.hasNext()) {
+                reader.next();
+            }
+            return reader.validBytes();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.httpclient.compression;
+
+import com.httpclient.util.ForwardingHttpClient;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Decorator that asks for compressed responses and decodes them transparently.
+ * <p>
+ * Requests without an {@code Accept-Encoding} get {@value DecodingBodyHandlers#ACCEPT_ENCODING},
+ * and every body handler is wrapped with {@link DecodingBodyHandlers#decoding}, so callers
+ * keep using {@code ofString()} or the JSON handlers unchanged. JSON typically shrinks
+ * 5-10x on the wire.
+ * <p>
+ * Optionally, request bodies of at least {@code requestCompressionThreshold} bytes (known
+ * length, no {@code Content-Encoding} yet) are gzipped with {@link GzipBodyPublishers}. That
+ * is off by default since the server has to accept compressed requests.
+ */
+public class CompressingHttpClient extends ForwardingHttpClient {
+
+    private final long requestCompressionThreshold;
+
+    /**
+     * Decode responses, send requests as they are
+     */
+    public CompressingHttpClient(HttpClient delegate) {
+        this(delegate, -1);
+    }
+
+    /**
+     * Also gzip request bodies from {@code requestCompressionThreshold} bytes on; negative disables it
+     */
+    public CompressingHttpClient(HttpClient delegate, long requestCompressionThreshold) {
+        super(delegate);
+        this.requestCompressionThreshold = requestCompressionThreshold;
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler)
+            throws IOException, InterruptedException {
+        return delegate.send(prepare(request), DecodingBodyHandlers.decoding(responseBodyHandler));
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler) {
+        return delegate.sendAsync(prepare(request), DecodingBodyHandlers.decoding(responseBodyHandler));
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler,
+                                                            HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        // Pushed responses are compressed the same way
+        HttpResponse.PushPromiseHandler<T> decodingPushes = pushPromiseHandler == null ? null
+                : (initiating, pushed, acceptor) -> pushPromiseHandler.applyPushPromise(initiating, pushed,
+                handler -> acceptor.apply(DecodingBodyHandlers.decoding(handler)));
+        return delegate.sendAsync(prepare(request), DecodingBodyHandlers.decoding(responseBodyHandler), decodingPushes);
+    }
+
+    private HttpRequest prepare(HttpRequest request) {
+        boolean advertise = request.headers().firstValue("Accept-Encoding").isEmpty();
+        boolean compress = requestCompressionThreshold >= 0
+                && request.headers().firstValue("Content-Encoding").isEmpty()
+                && request.bodyPublisher().map(body -> body.contentLength() >= requestCompressionThreshold).orElse(false);
+        if (!advertise && !compress) {
+            return request;
+        }
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request, (name, value) -> true);
+        if (advertise) {
+            builder.header("Accept-Encoding", DecodingBodyHandlers.ACCEPT_ENCODING);
+        }
+        if (compress) {
+            builder.header("Content-Encoding", "gzip")
+                    .method(request.method(), GzipBodyPublishers.gzip(request.bodyPublisher().orElseThrow()));
+        }
+        return builder.build();
+    }
+}
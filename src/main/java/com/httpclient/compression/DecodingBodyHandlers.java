@@ -0,0 +1,134 @@
+package com.httpclient.compression;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * Body handlers that undo {@code Content-Encoding: gzip} / {@code deflate}.
+ * <p>
+ * The JDK client neither asks for nor decodes compressed responses. Wrapping any handler
+ * with {@link #decoding(HttpResponse.BodyHandler)} inflates the body buffer by buffer
+ * before it reaches the wrapped subscriber, so it composes with {@code ofString()},
+ * {@code JsonBodyHandlers.ofJson(...)} and the rest without ever holding the compressed
+ * or the inflated body in full. Responses with any other (or no) encoding pass through
+ * untouched. The request still has to send {@link #ACCEPT_ENCODING}; the
+ * {@link CompressingHttpClient} decorator does both.
+ */
+public class DecodingBodyHandlers {
+
+    /**
+     * {@code Accept-Encoding} value for the codings these handlers decode
+     */
+    public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private DecodingBodyHandlers() {
+    }
+
+    /**
+     * Decode gzip/deflate bodies before handing them to {@code downstream}
+     */
+    public static <T> HttpResponse.BodyHandler<T> decoding(HttpResponse.BodyHandler<T> downstream) {
+        return decoding(downstream, InflaterPool.shared());
+    }
+
+    /**
+     * Decode with inflaters from {@code pool}
+     */
+    public static <T> HttpResponse.BodyHandler<T> decoding(HttpResponse.BodyHandler<T> downstream, InflaterPool pool) {
+        return responseInfo -> {
+            HttpResponse.BodySubscriber<T> subscriber = downstream.apply(responseInfo);
+            StreamingInflater.Coding coding = responseInfo.headers().firstValue("Content-Encoding")
+                    .map(StreamingInflater::coding)
+                    .orElse(null);
+            return coding == null ? subscriber : new DecodingSubscriber<>(subscriber, new StreamingInflater(coding, pool));
+        };
+    }
+
+    /**
+     * Passes demand straight through; a batch that inflates to nothing (e.g. only part of
+     * the gzip header) is not forwarded and the next one is requested instead
+     */
+    private static class DecodingSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+        private final HttpResponse.BodySubscriber<T> downstream;
+        private final StreamingInflater inflater;
+        private Flow.Subscription subscription;
+        private boolean failed;
+
+        DecodingSubscriber(HttpResponse.BodySubscriber<T> downstream, StreamingInflater inflater) {
+            this.downstream = downstream;
+            this.inflater = inflater;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return downstream.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            downstream.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    subscription.request(n);
+                }
+
+                @Override
+                public void cancel() {
+                    subscription.cancel();
+                    inflater.release();
+                }
+            });
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            if (failed) {
+                return;
+            }
+            List<ByteBuffer> decoded;
+            try {
+                decoded = inflater.decode(item);
+            } catch (Exception e) {
+                failed = true;
+                subscription.cancel();
+                inflater.release();
+                downstream.onError(e);
+                return;
+            }
+            if (decoded.isEmpty()) {
+                subscription.request(1);
+            } else {
+                downstream.onNext(decoded);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            inflater.release();
+            if (!failed) {
+                downstream.onError(throwable);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (failed) {
+                return;
+            }
+            try {
+                inflater.finish();
+            } catch (Exception e) {
+                inflater.release();
+                downstream.onError(e);
+                return;
+            }
+            inflater.release();
+            downstream.onComplete();
+        }
+    }
+}
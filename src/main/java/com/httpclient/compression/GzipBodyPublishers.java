@@ -0,0 +1,191 @@
+package com.httpclient.compression;
+
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Request body publishers that gzip another publisher's output as it streams.
+ * <p>
+ * Only worth it for large bodies sent to servers that accept {@code Content-Encoding: gzip}
+ * on requests (many APIs don't). The compressed length isn't known up front, so HTTP/1.1
+ * sends it chunked. Each subscription gets its own {@link Deflater}, which is ended when the
+ * body completes, fails or is cancelled.
+ */
+public class GzipBodyPublishers {
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int TRAILER_SIZE = 8;
+
+    private GzipBodyPublishers() {
+    }
+
+    /**
+     * Gzip {@code body} at the default compression level
+     */
+    public static HttpRequest.BodyPublisher gzip(HttpRequest.BodyPublisher body) {
+        return gzip(body, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Gzip {@code body} at {@code level} (1 = fastest .. 9 = smallest)
+     */
+    public static HttpRequest.BodyPublisher gzip(HttpRequest.BodyPublisher body, int level) {
+        return new HttpRequest.BodyPublisher() {
+            @Override
+            public long contentLength() {
+                return -1;
+            }
+
+            @Override
+            public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+                body.subscribe(new GzipProcessor(subscriber, level));
+            }
+        };
+    }
+
+    /**
+     * Compresses each upstream buffer into (at most) one downstream buffer, so downstream
+     * demand maps one to one onto upstream demand. Input the deflater only buffers yields
+     * nothing and another upstream buffer is requested; the rest of the stream and the
+     * trailer go out on completion, once there is demand for them.
+     * <p>
+     * Synchronized throughout: the deflater must not be ended by a cancel while it compresses.
+     */
+    private static class GzipProcessor implements Flow.Subscriber<ByteBuffer>, Flow.Subscription {
+
+        private final Flow.Subscriber<? super ByteBuffer> downstream;
+        private final Deflater deflater;
+        private final CRC32 crc = new CRC32();
+        private Flow.Subscription upstream;
+        private long demand;
+        private long size;
+        private boolean headerWritten;
+        private ByteBuffer tail;
+        private boolean done;
+
+        GzipProcessor(Flow.Subscriber<? super ByteBuffer> downstream, int level) {
+            this.downstream = downstream;
+            this.deflater = new Deflater(level, true);
+        }
+
+        @Override
+        public synchronized void onSubscribe(Flow.Subscription subscription) {
+            upstream = subscription;
+            downstream.onSubscribe(this);
+        }
+
+        @Override
+        public synchronized void request(long n) {
+            if (done) {
+                return;
+            }
+            if (n <= 0) {
+                cancel();
+                downstream.onError(new IllegalArgumentException("non-positive subscription request: " + n));
+                return;
+            }
+            demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            if (tail != null) {
+                ByteBuffer last = tail;
+                tail = null;
+                complete(last);
+                return;
+            }
+            upstream.request(n);
+        }
+
+        @Override
+        public synchronized void cancel() {
+            if (!done) {
+                done = true;
+                deflater.end();
+                upstream.cancel();
+            }
+        }
+
+        @Override
+        public synchronized void onNext(ByteBuffer item) {
+            if (done) {
+                return;
+            }
+            crc.update(item.duplicate());
+            size += item.remaining();
+            ByteBuffer out = start(item.remaining() / 2 + 64);
+            deflater.setInput(item);
+            while (!deflater.needsInput()) {
+                out = deflate(out);
+            }
+            if (out.position() == 0) {
+                upstream.request(1);
+                return;
+            }
+            demand--;
+            downstream.onNext(out.flip());
+        }
+
+        @Override
+        public synchronized void onError(Throwable throwable) {
+            if (!done) {
+                done = true;
+                deflater.end();
+                downstream.onError(throwable);
+            }
+        }
+
+        @Override
+        public synchronized void onComplete() {
+            if (done) {
+                return;
+            }
+            ByteBuffer out = start(256);
+            deflater.finish();
+            while (!deflater.finished()) {
+                out = deflate(out);
+            }
+            out = ensure(out, TRAILER_SIZE);
+            out.putInt(Integer.reverseBytes((int) crc.getValue()));
+            out.putInt(Integer.reverseBytes((int) size));
+            if (demand > 0) {
+                complete(out.flip());
+            } else {
+                tail = out.flip();
+            }
+        }
+
+        private void complete(ByteBuffer last) {
+            done = true;
+            deflater.end();
+            downstream.onNext(last);
+            downstream.onComplete();
+        }
+
+        /**
+         * A buffer for the next output, starting with the gzip header if it hasn't been sent
+         */
+        private ByteBuffer start(int capacity) {
+            ByteBuffer out = ByteBuffer.allocate(capacity + GZIP_HEADER.length);
+            if (!headerWritten) {
+                headerWritten = true;
+                out.put(GZIP_HEADER);
+            }
+            return out;
+        }
+
+        private ByteBuffer deflate(ByteBuffer out) {
+            out = ensure(out, 64);
+            deflater.deflate(out);
+            return out;
+        }
+
+        private static ByteBuffer ensure(ByteBuffer out, int space) {
+            if (out.remaining() >= space) {
+                return out;
+            }
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + space));
+            return larger.put(out.flip());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.httpclient.compression;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Inflater;
+
+/**
+ * Bounded pool of {@link Inflater}s.
+ * <p>
+ * Every Inflater owns a native zlib stream (about 40 KB of off-heap state) that is only
+ * freed by {@link Inflater#end()} or, much later, by a Cleaner. Reusing them across
+ * responses saves that allocation and the native init per body. Raw-deflate ("nowrap",
+ * used for gzip) and zlib-wrapped inflaters are kept apart since the mode is fixed at
+ * construction. When the pool is full a released inflater is ended instead.
+ */
+public class InflaterPool {
+
+    private static final int DEFAULT_MAX_POOLED = 64;
+
+    private static final InflaterPool SHARED = new InflaterPool(DEFAULT_MAX_POOLED);
+
+    private final int maxPooled;
+    private final ConcurrentLinkedQueue<Inflater> raw = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Inflater> wrapped = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    public InflaterPool(int maxPooled) {
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * Process-wide pool of up to {@value #DEFAULT_MAX_POOLED} inflaters
+     */
+    public static InflaterPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * A reset inflater; {@code nowrap} for raw deflate data without a zlib header
+     */
+    public Inflater acquire(boolean nowrap) {
+        Inflater inflater = (nowrap ? raw : wrapped).poll();
+        if (inflater == null) {
+            return new Inflater(nowrap);
+        }
+        pooled.decrementAndGet();
+        return inflater;
+    }
+
+    /**
+     * Give an inflater back, with the same {@code nowrap} it was acquired with
+     */
+    public void release(Inflater inflater, boolean nowrap) {
+        if (pooled.incrementAndGet() <= maxPooled) {
+            inflater.reset();
+            (nowrap ? raw : wrapped).offer(inflater);
+        } else {
+            pooled.decrementAndGet();
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.httpclient.compression;
+
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Incremental gzip / deflate decoder: feed it the body buffers as they arrive and it returns
+ * whatever they inflate to, without ever holding the whole body.
+ * <p>
+ * gzip headers and trailers are parsed by hand so the inflater can run in raw mode straight
+ * on the received buffers; the trailer's CRC-32 and length are verified, and concatenated
+ * gzip members are decoded one after another. {@code deflate} is supposed to be
+ * zlib-wrapped, but some servers send raw deflate, so the first two bytes decide.
+ * <p>
+ * Methods are synchronized so that {@link #release()} from a cancelling thread cannot hand
+ * the inflater back while a body buffer is still being decoded.
+ */
+class StreamingInflater {
+
+    enum Coding { GZIP, DEFLATE }
+
+    private enum Stage { HEADER, BODY, TRAILER, DONE }
+
+    private static final int OUTPUT_SIZE = 16 * 1024;
+    private static final int MAX_HEADER_SIZE = 64 * 1024;
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private final Coding coding;
+    private final InflaterPool pool;
+    private final CRC32 crc = new CRC32();
+    private Inflater inflater;
+    private boolean nowrap;
+    private Stage stage = Stage.HEADER;
+    private byte[] header = new byte[16];
+    private int headerLength;
+    private final byte[] trailer = new byte[8];
+    private int trailerLength;
+    private long memberSize;
+    private long received;
+    private ByteBuffer output;
+    private boolean released;
+
+    StreamingInflater(Coding coding, InflaterPool pool) {
+        this.coding = coding;
+        this.pool = pool;
+    }
+
+    /**
+     * Map a {@code Content-Encoding} value to a coding, or null if it isn't one we decode
+     */
+    static Coding coding(String contentEncoding) {
+        return switch (contentEncoding.trim().toLowerCase()) {
+            case "gzip", "x-gzip" -> Coding.GZIP;
+            case "deflate" -> Coding.DEFLATE;
+            default -> null;
+        };
+    }
+
+    /**
+     * Inflate the next body buffers; the result may be empty while headers are still arriving
+     */
+    synchronized List<ByteBuffer> decode(List<ByteBuffer> input) throws ZipException {
+        if (released) {
+            throw new ZipException("Decoder already released");
+        }
+        List<ByteBuffer> decoded = new ArrayList<>(2);
+        for (ByteBuffer buffer : input) {
+            received += buffer.remaining();
+            process(buffer, decoded);
+        }
+        flush(decoded);
+        return decoded;
+    }
+
+    /**
+     * Check that the body ended with a complete stream
+     */
+    synchronized void finish() throws EOFException {
+        if (stage != Stage.DONE && received > 0) {
+            throw new EOFException("Truncated " + coding.name().toLowerCase() + " body after " + received + " bytes");
+        }
+    }
+
+    /**
+     * Return the inflater to the pool; safe to call more than once
+     */
+    synchronized void release() {
+        if (!released) {
+            released = true;
+            if (inflater != null) {
+                pool.release(inflater, nowrap);
+                inflater = null;
+            }
+        }
+    }
+
+    private void process(ByteBuffer in, List<ByteBuffer> decoded) throws ZipException {
+        while (in.hasRemaining()) {
+            switch (stage) {
+                case HEADER -> {
+                    int n = Math.min(in.remaining(), MAX_HEADER_SIZE - headerLength);
+                    if (n == 0) {
+                        throw new ZipException("gzip header too large");
+                    }
+                    if (headerLength + n > header.length) {
+                        header = Arrays.copyOf(header, Math.max(headerLength + n, header.length * 2));
+                    }
+                    in.get(header, headerLength, n);
+                    headerLength += n;
+                    int size = headerSize();
+                    if (size >= 0) {
+                        startBody();
+                        // Whatever followed the header is compressed data (or even the next member)
+                        byte[] collected = header;
+                        int length = headerLength;
+                        header = new byte[16];
+                        headerLength = 0;
+                        process(ByteBuffer.wrap(collected, size, length - size), decoded);
+                    }
+                }
+                case BODY -> inflate(in, decoded);
+                case TRAILER -> {
+                    int n = Math.min(in.remaining(), trailer.length - trailerLength);
+                    in.get(trailer, trailerLength, n);
+                    trailerLength += n;
+                    if (trailerLength == trailer.length) {
+                        checkTrailer();
+                        stage = Stage.DONE;
+                    }
+                }
+                case DONE -> {
+                    if (coding == Coding.GZIP) {
+                        // Another gzip member follows
+                        stage = Stage.HEADER;
+                    } else {
+                        // Trailing bytes after a zlib stream are ignored, like InflaterInputStream does
+                        in.position(in.limit());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Size of the collected header, or -1 while it is incomplete
+     */
+    private int headerSize() throws ZipException {
+        if (coding == Coding.DEFLATE) {
+            if (headerLength < 2) {
+                return -1;
+            }
+            int cmf = header[0] & 0xff;
+            int flg = header[1] & 0xff;
+            nowrap = (cmf & 0x0f) != 8 || ((cmf << 8) | flg) % 31 != 0;
+            // The inflater parses the zlib header itself
+            return 0;
+        }
+        if (headerLength < 10) {
+            return -1;
+        }
+        if ((header[0] & 0xff) != 0x1f || (header[1] & 0xff) != 0x8b) {
+            throw new ZipException("Not in gzip format");
+        }
+        if (header[2] != 8) {
+            throw new ZipException("Unsupported gzip compression method " + header[2]);
+        }
+        int flags = header[3] & 0xff;
+        int position = 10;
+        if ((flags & FEXTRA) != 0) {
+            if (headerLength < position + 2) {
+                return -1;
+            }
+            position += 2 + ((header[position] & 0xff) | (header[position + 1] & 0xff) << 8);
+        }
+        for (int flag : new int[]{FNAME, FCOMMENT}) {
+            if ((flags & flag) != 0) {
+                while (position < headerLength && header[position] != 0) {
+                    position++;
+                }
+                position++;
+            }
+        }
+        if ((flags & FHCRC) != 0) {
+            position += 2;
+        }
+        nowrap = true;
+        return position <= headerLength ? position : -1;
+    }
+
+    private void startBody() {
+        if (inflater == null) {
+            inflater = pool.acquire(nowrap);
+        } else {
+            inflater.reset();
+        }
+        crc.reset();
+        memberSize = 0;
+        trailerLength = 0;
+        stage = Stage.BODY;
+    }
+
+    private void inflate(ByteBuffer in, List<ByteBuffer> decoded) throws ZipException {
+        inflater.setInput(in);
+        try {
+            while (true) {
+                if (output == null || !output.hasRemaining()) {
+                    flush(decoded);
+                    output = ByteBuffer.allocate(OUTPUT_SIZE);
+                }
+                int start = output.position();
+                int n = inflater.inflate(output);
+                if (n > 0 && coding == Coding.GZIP) {
+                    crc.update(output.slice(start, n));
+                }
+                memberSize += n;
+                if (inflater.finished()) {
+                    stage = coding == Coding.GZIP ? Stage.TRAILER : Stage.DONE;
+                    return;
+                }
+                if (n == 0) {
+                    if (inflater.needsDictionary()) {
+                        throw new ZipException("Preset deflate dictionaries are not supported");
+                    }
+                    if (inflater.needsInput()) {
+                        return;
+                    }
+                }
+            }
+        } catch (DataFormatException e) {
+            ZipException invalid = new ZipException("Invalid " + coding.name().toLowerCase() + " data: " + e.getMessage());
+            invalid.initCause(e);
+            throw invalid;
+        }
+    }
+
+    private void checkTrailer() throws ZipException {
+        long expectedCrc = littleEndianInt(0);
+        long expectedSize = littleEndianInt(4);
+        if (expectedCrc != crc.getValue()) {
+            throw new ZipException("gzip CRC-32 mismatch");
+        }
+        if (expectedSize != (memberSize & 0xffffffffL)) {
+            throw new ZipException("gzip size mismatch");
+        }
+    }
+
+    private long littleEndianInt(int offset) {
+        return (trailer[offset] & 0xffL)
+                | (trailer[offset + 1] & 0xffL) << 8
+                | (trailer[offset + 2] & 0xffL) << 16
+                | (trailer[offset + 3] & 0xffL) << 24;
+    }
+
+    /**
+     * Hand out what has been inflated so far
+     */
+    private void flush(List<ByteBuffer> decoded) {
+        if (output != null && output.position() > 0) {
+            decoded.add(output.flip());
+            output = null;
+        }
+    }
+}
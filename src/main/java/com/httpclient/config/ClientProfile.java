@@ -0,0 +1,93 @@
+package com.httpclient.config;
+
+import com.httpclient.util.ClientConfig;
+import com.httpclient.util.Config;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Named set of client settings, loaded by {@link ClientProfiles} and turned into a client
+ * by {@link com.httpclient.util.HttpClientFactory#createClient(ClientProfile)}.
+ *
+ * @param name                  profile name, e.g. "default" or "bulk"
+ * @param version               preferred protocol version
+ * @param connectTimeout        TCP + TLS connect timeout
+ * @param requestTimeout        timeout for requests that don't set their own
+ * @param redirect              redirect policy
+ * @param executor              executor the client runs its async work on
+ * @param executorThreads       threads of a {@link ClientConfig.ExecutorType#FIXED_THREADS} pool; 0 for one per CPU
+ * @param maxConcurrentRequests requests in flight per host; 0 for no limit
+ * @param maxQueuedRequests     requests that may wait per host once the limit is reached
+ * @param cacheSize             bytes of responses kept in an in-memory HTTP cache; 0 for no cache
+ * @param compression           ask for gzip/deflate responses and decode them
+ */
+public record ClientProfile(String name,
+                            HttpClient.Version version,
+                            Duration connectTimeout,
+                            Duration requestTimeout,
+                            HttpClient.Redirect redirect,
+                            ClientConfig.ExecutorType executor,
+                            int executorThreads,
+                            int maxConcurrentRequests,
+                            int maxQueuedRequests,
+                            long cacheSize,
+                            boolean compression) {
+
+    /**
+     * The {@link Config} timeouts over HTTP/2 on the default executor, no limit, cache or compression
+     */
+    public static ClientProfile defaults(String name) {
+        return new ClientProfile(name,
+                HttpClient.Version.HTTP_2,
+                Duration.ofSeconds(Config.CONNECT_TIMEOUT_SECONDS),
+                Duration.ofSeconds(Config.REQUEST_TIMEOUT_SECONDS),
+                HttpClient.Redirect.NORMAL,
+                ClientConfig.ExecutorType.DEFAULT,
+                0,
+                0,
+                100,
+                0,
+                false);
+    }
+
+    public ClientProfile withName(String name) {
+        return new ClientProfile(name, version, connectTimeout, requestTimeout, redirect, executor,
+                executorThreads, maxConcurrentRequests, maxQueuedRequests, cacheSize, compression);
+    }
+
+    public ClientProfile withVersion(HttpClient.Version version) {
+        return new ClientProfile(name, version, connectTimeout, requestTimeout, redirect, executor,
+                executorThreads, maxConcurrentRequests, maxQueuedRequests, cacheSize, compression);
+    }
+
+    public ClientProfile withTimeouts(Duration connectTimeout, Duration requestTimeout) {
+        return new ClientProfile(name, version, connectTimeout, requestTimeout, redirect, executor,
+                executorThreads, maxConcurrentRequests, maxQueuedRequests, cacheSize, compression);
+    }
+
+    public ClientProfile withRedirect(HttpClient.Redirect redirect) {
+        return new ClientProfile(name, version, connectTimeout, requestTimeout, redirect, executor,
+                executorThreads, maxConcurrentRequests, maxQueuedRequests, cacheSize, compression);
+    }
+
+    public ClientProfile withExecutor(ClientConfig.ExecutorType executor, int executorThreads) {
+        return new ClientProfile(name, version, connectTimeout, requestTimeout, redirect, executor,
+                executorThreads, maxConcurrentRequests, maxQueuedRequests, cacheSize, compression);
+    }
+
+    public ClientProfile withConcurrency(int maxConcurrentRequests, int maxQueuedRequests) {
+        return new ClientProfile(name, version, connectTimeout, requestTimeout, redirect, executor,
+                executorThreads, maxConcurrentRequests, maxQueuedRequests, cacheSize, compression);
+    }
+
+    public ClientProfile withCacheSize(long cacheSize) {
+        return new ClientProfile(name, version, connectTimeout, requestTimeout, redirect, executor,
+                executorThreads, maxConcurrentRequests, maxQueuedRequests, cacheSize, compression);
+    }
+
+    public ClientProfile withCompression(boolean compression) {
+        return new ClientProfile(name, version, connectTimeout, requestTimeout, redirect, executor,
+                executorThreads, maxConcurrentRequests, maxQueuedRequests, cacheSize, compression);
+    }
+}
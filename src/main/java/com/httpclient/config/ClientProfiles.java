@@ -0,0 +1,321 @@
+package com.httpclient.config;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.httpclient.util.ClientConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Named {@link ClientProfile}s read from a properties or JSON file, with environment overrides.
+ * <p>
+ * Properties use {@code <profile>.<setting>=value}:
+ * <pre>
+ *   default.version=HTTP_2
+ *   default.connectTimeout=5s
+ *   bulk.executor=FIXED_THREADS
+ *   bulk.executorThreads=32
+ *   bulk.maxConcurrentRequests=64
+ *   bulk.cacheSize=64MiB
+ * </pre>
+ * and JSON files ({@code .json}) an object of profiles:
+ * {@code {"default": {"version": "HTTP_2"}, "bulk": {"executorThreads": 32}}}.
+ * <p>
+ * Every profile starts from {@link ClientProfile#defaults(String)}, then takes the settings of
+ * the {@value #DEFAULT_PROFILE} profile, then its own, then environment variables named
+ * {@code HTTPCLIENT_<PROFILE>_<SETTING>}, e.g. {@code HTTPCLIENT_BULK_CONNECT_TIMEOUT=2s}.
+ * A {@value #DEFAULT_PROFILE} profile always exists. Unknown settings and bad values fail
+ * the whole load with an {@link IllegalArgumentException} naming the setting.
+ * <p>
+ * Durations are {@code 250ms}, {@code 10s}, {@code 2m}, {@code 1h}, ISO-8601 ({@code PT10S})
+ * or plain seconds; sizes are bytes with an optional {@code k}/{@code m}/{@code g} (binary) suffix.
+ */
+public class ClientProfiles {
+
+    public static final String DEFAULT_PROFILE = "default";
+
+    /**
+     * Environment variable pointing {@link #fromEnvironment()} at a profiles file
+     */
+    public static final String FILE_VARIABLE = "HTTPCLIENT_PROFILES";
+
+    /**
+     * Classpath resource used when {@value #FILE_VARIABLE} is not set
+     */
+    public static final String RESOURCE = "/client-profiles.properties";
+
+    private static final String ENV_PREFIX = "HTTPCLIENT_";
+    private static final Pattern DURATION = Pattern.compile("(\\d+)\\s*(ms|s|m|h)?", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SIZE = Pattern.compile("(\\d+)\\s*(?:([kmg])(?:i?b)?|b)?", Pattern.CASE_INSENSITIVE);
+    private static final String[] SETTINGS = {
+            "version", "connectTimeout", "requestTimeout", "redirect", "executor", "executorThreads",
+            "maxConcurrentRequests", "maxQueuedRequests", "cacheSize", "compression"
+    };
+
+    private final Map<String, ClientProfile> profiles;
+
+    private ClientProfiles(Map<String, ClientProfile> profiles) {
+        this.profiles = Collections.unmodifiableMap(profiles);
+    }
+
+    /**
+     * Profiles from {@code file} with overrides from the process environment
+     */
+    public static ClientProfiles load(Path file) throws IOException {
+        return load(file, System.getenv());
+    }
+
+    /**
+     * Profiles from {@code file} with overrides from {@code env}
+     */
+    public static ClientProfiles load(Path file, Map<String, String> env) throws IOException {
+        String text = Files.readString(file);
+        String source = file.toString();
+        Map<String, Map<String, String>> settings = source.endsWith(".json")
+                ? parseJson(text, source)
+                : parseProperties(text);
+        return of(settings, env, source);
+    }
+
+    /**
+     * Profiles from the file in {@value #FILE_VARIABLE}, else from the {@value #RESOURCE}
+     * resource, else just the built-in default; environment overrides apply either way
+     */
+    public static ClientProfiles fromEnvironment() throws IOException {
+        Map<String, String> env = System.getenv();
+        String file = env.get(FILE_VARIABLE);
+        if (file != null && !file.isBlank()) {
+            return load(Path.of(file), env);
+        }
+        try (InputStream in = ClientProfiles.class.getResourceAsStream(RESOURCE)) {
+            if (in != null) {
+                return of(parseProperties(new String(in.readAllBytes(), StandardCharsets.UTF_8)), env, RESOURCE);
+            }
+        }
+        return of(Map.of(), env, "environment");
+    }
+
+    /**
+     * Profiles from already parsed {@code profile -> setting -> value} maps
+     */
+    public static ClientProfiles of(Map<String, Map<String, String>> settings, Map<String, String> env,
+                                    String source) {
+        Map<String, String> defaults = settings.getOrDefault(DEFAULT_PROFILE, Map.of());
+        Map<String, ClientProfile> profiles = new LinkedHashMap<>();
+        profiles.put(DEFAULT_PROFILE, build(DEFAULT_PROFILE, defaults, Map.of(), env, source));
+        settings.forEach((name, own) -> {
+            if (!name.equals(DEFAULT_PROFILE)) {
+                profiles.put(name, build(name, defaults, own, env, source));
+            }
+        });
+        return new ClientProfiles(profiles);
+    }
+
+    /**
+     * The named profile
+     *
+     * @throws IllegalArgumentException if there is no such profile
+     */
+    public ClientProfile profile(String name) {
+        ClientProfile profile = profiles.get(name);
+        if (profile == null) {
+            throw new IllegalArgumentException("Unknown client profile '" + name + "', have " + profiles.keySet());
+        }
+        return profile;
+    }
+
+    public Optional<ClientProfile> find(String name) {
+        return Optional.ofNullable(profiles.get(name));
+    }
+
+    public ClientProfile defaultProfile() {
+        return profiles.get(DEFAULT_PROFILE);
+    }
+
+    public Set<String> names() {
+        return profiles.keySet();
+    }
+
+    private static ClientProfile build(String name, Map<String, String> defaults, Map<String, String> own,
+                                       Map<String, String> env, String source) {
+        ClientProfile profile = ClientProfile.defaults(name);
+        for (Map<String, String> layer : List.of(defaults, own)) {
+            for (Map.Entry<String, String> setting : layer.entrySet()) {
+                profile = apply(profile, setting.getKey(), setting.getValue(), source);
+            }
+        }
+        for (String setting : SETTINGS) {
+            String variable = ENV_PREFIX + envName(name) + "_" + envName(setting);
+            String value = env.get(variable);
+            if (value != null) {
+                profile = apply(profile, setting, value, variable);
+            }
+        }
+        validate(profile, source);
+        return profile;
+    }
+
+    private static ClientProfile apply(ClientProfile profile, String setting, String value, String source) {
+        String trimmed = value.trim();
+        try {
+            return switch (setting) {
+                case "version" -> profile.withVersion(parseVersion(trimmed));
+                case "connectTimeout" -> profile.withTimeouts(parseDuration(trimmed), profile.requestTimeout());
+                case "requestTimeout" -> profile.withTimeouts(profile.connectTimeout(), parseDuration(trimmed));
+                case "redirect" -> profile.withRedirect(HttpClient.Redirect.valueOf(constant(trimmed)));
+                case "executor" -> profile.withExecutor(ClientConfig.ExecutorType.valueOf(constant(trimmed)),
+                        profile.executorThreads());
+                case "executorThreads" -> profile.withExecutor(profile.executor(), Integer.parseInt(trimmed));
+                case "maxConcurrentRequests" -> profile.withConcurrency(Integer.parseInt(trimmed),
+                        profile.maxQueuedRequests());
+                case "maxQueuedRequests" -> profile.withConcurrency(profile.maxConcurrentRequests(),
+                        Integer.parseInt(trimmed));
+                case "cacheSize" -> profile.withCacheSize(parseSize(trimmed));
+                case "compression" -> profile.withCompression(parseBoolean(trimmed));
+                default -> throw new IllegalArgumentException("unknown setting");
+            };
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException(source + ": " + profile.name() + "." + setting
+                    + "='" + value + "': " + e.getMessage(), e);
+        }
+    }
+
+    private static void validate(ClientProfile profile, String source) {
+        String problem = null;
+        if (profile.connectTimeout().isNegative() || profile.connectTimeout().isZero()) {
+            problem = "connectTimeout must be positive";
+        } else if (profile.requestTimeout().isNegative() || profile.requestTimeout().isZero()) {
+            problem = "requestTimeout must be positive";
+        } else if (profile.executorThreads() < 0 || profile.maxConcurrentRequests() < 0
+                || profile.maxQueuedRequests() < 0 || profile.cacheSize() < 0) {
+            problem = "counts and sizes can't be negative";
+        }
+        if (problem != null) {
+            throw new IllegalArgumentException(source + ": profile " + profile.name() + ": " + problem);
+        }
+    }
+
+    private static Map<String, Map<String, String>> parseProperties(String text) throws IOException {
+        Properties properties = new Properties();
+        properties.load(new StringReader(text));
+        Map<String, Map<String, String>> settings = new LinkedHashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            int dot = key.lastIndexOf('.');
+            if (dot <= 0) {
+                throw new IllegalArgumentException("Expected <profile>.<setting>, got '" + key + "'");
+            }
+            settings.computeIfAbsent(key.substring(0, dot), name -> new LinkedHashMap<>())
+                    .put(key.substring(dot + 1), properties.getProperty(key));
+        }
+        return settings;
+    }
+
+    private static Map<String, Map<String, String>> parseJson(String text, String source) {
+        Map<String, Map<String, String>> settings = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, JsonElement> profile : JsonParser.parseString(text).getAsJsonObject().entrySet()) {
+                JsonObject object = profile.getValue().getAsJsonObject();
+                Map<String, String> values = new LinkedHashMap<>();
+                object.entrySet().forEach(setting -> values.put(setting.getKey(), setting.getValue().getAsString()));
+                settings.put(profile.getKey(), values);
+            }
+        } catch (JsonParseException | IllegalStateException | UnsupportedOperationException e) {
+            throw new IllegalArgumentException(source + ": expected {\"<profile>\": {\"<setting>\": value}}", e);
+        }
+        return settings;
+    }
+
+    private static HttpClient.Version parseVersion(String value) {
+        return switch (value.toUpperCase(Locale.ROOT)) {
+            case "2", "HTTP/2", "HTTP_2", "H2" -> HttpClient.Version.HTTP_2;
+            case "1.1", "HTTP/1.1", "HTTP_1_1" -> HttpClient.Version.HTTP_1_1;
+            default -> throw new IllegalArgumentException("expected HTTP_2 or HTTP_1_1");
+        };
+    }
+
+    /**
+     * "250ms", "10s", "2m", "1h", "PT0.5S", or plain seconds
+     */
+    public static Duration parseDuration(String value) {
+        if (value.regionMatches(true, 0, "PT", 0, 2)) {
+            return Duration.parse(value);
+        }
+        Matcher matcher = DURATION.matcher(value);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("expected a duration like 250ms, 10s, 2m or PT10S");
+        }
+        long amount = Long.parseLong(matcher.group(1));
+        String unit = matcher.group(2) == null ? "s" : matcher.group(2).toLowerCase(Locale.ROOT);
+        return switch (unit) {
+            case "ms" -> Duration.ofMillis(amount);
+            case "m" -> Duration.ofMinutes(amount);
+            case "h" -> Duration.ofHours(amount);
+            default -> Duration.ofSeconds(amount);
+        };
+    }
+
+    /**
+     * "65536", "64k", "64KiB", "8m", "1g" (binary units)
+     */
+    public static long parseSize(String value) {
+        Matcher matcher = SIZE.matcher(value);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("expected a size like 65536, 64k or 64MiB");
+        }
+        String unit = matcher.group(2) == null ? "" : matcher.group(2).toLowerCase(Locale.ROOT);
+        try {
+            long amount = Long.parseLong(matcher.group(1));
+            return switch (unit) {
+                case "k" -> Math.multiplyExact(amount, 1L << 10);
+                case "m" -> Math.multiplyExact(amount, 1L << 20);
+                case "g" -> Math.multiplyExact(amount, 1L << 30);
+                default -> amount;
+            };
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("size too large: " + value);
+        }
+    }
+
+    private static boolean parseBoolean(String value) {
+        if (value.equalsIgnoreCase("true")) {
+            return true;
+        }
+        if (value.equalsIgnoreCase("false")) {
+            return false;
+        }
+        throw new IllegalArgumentException("expected true or false");
+    }
+
+    private static String constant(String value) {
+        return value.toUpperCase(Locale.ROOT).replace('-', '_');
+    }
+
+    /**
+     * "connectTimeout" -> "CONNECT_TIMEOUT", "bulk-upload" -> "BULK_UPLOAD"
+     */
+    private static String envName(String name) {
+        return name.replaceAll("([a-z0-9])([A-Z])", "$1_$2")
+                .replaceAll("[^A-Za-z0-9]", "_")
+                .toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,92 @@
+package com.httpclient.config;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Reloads a profiles file whenever it changes on disk.
+ * <p>
+ * Watches the file's directory, so editors that save by writing a temp file and renaming
+ * it over the original are picked up too. Events arriving within {@code SETTLE_MILLIS} of
+ * each other are coalesced into one reload. A file that fails to load is reported to
+ * {@code onError} and the previous profiles stay in effect until the next good save.
+ */
+public final class ProfileWatcher implements AutoCloseable {
+
+    private static final long SETTLE_MILLIS = 100;
+
+    private final Path file;
+    private final Consumer<ClientProfiles> onReload;
+    private final Consumer<Exception> onError;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    public ProfileWatcher(Path file, Consumer<ClientProfiles> onReload, Consumer<Exception> onError)
+            throws IOException {
+        this.file = file.toAbsolutePath();
+        this.onReload = onReload;
+        this.onError = onError;
+        this.watchService = this.file.getFileSystem().newWatchService();
+        this.file.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+        this.thread = Thread.ofPlatform().daemon().name("profile-watcher").start(this::run);
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * Load the file now and hand the profiles to the listener
+     */
+    public void reload() {
+        try {
+            onReload.accept(ClientProfiles.load(file));
+        } catch (IOException | RuntimeException e) {
+            onError.accept(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        thread.interrupt();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                boolean changed = drain(watchService.take());
+                // Let the writer finish before reading
+                WatchKey more;
+                while ((more = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= drain(more);
+                }
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // Closed
+        }
+    }
+
+    private boolean drain(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || file.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+}
@@ -0,0 +1,331 @@
+package com.httpclient.config;
+
+import com.httpclient.util.HttpClientFactory;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import java.io.IOException;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * HttpClient built from a {@link ClientProfile} that can be swapped for a new one while in use.
+ * <p>
+ * {@link #reload(ClientProfile)} builds a client from the new profile and sends every request
+ * from then on through it. The previous client is retired, not closed: requests already
+ * running on it finish normally, and once the last one is done (or {@code drainTimeout}
+ * passes) it is shut down along with its executor. Nothing in flight is dropped, so a
+ * profile can be retuned under load.
+ * <p>
+ * WebSockets opened through {@link #newWebSocketBuilder()} belong to the client that was
+ * current at the time and are closed with it when it is retired.
+ */
+public class ReloadingHttpClient extends HttpClient {
+
+    private static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final AtomicReference<Generation> current;
+    private final Duration drainTimeout;
+    private final AtomicInteger reloads = new AtomicInteger();
+    private volatile ProfileWatcher watcher;
+    private volatile boolean shutdown;
+
+    public ReloadingHttpClient(ClientProfile profile) {
+        this(profile, DEFAULT_DRAIN_TIMEOUT);
+    }
+
+    /**
+     * @param drainTimeout how long a retired client may keep running in-flight requests
+     */
+    public ReloadingHttpClient(ClientProfile profile, Duration drainTimeout) {
+        this.current = new AtomicReference<>(new Generation(profile, HttpClientFactory.createClient(profile)));
+        this.drainTimeout = drainTimeout;
+    }
+
+    /**
+     * Client for the {@code profile} profile in {@code file}, reloaded whenever the file
+     * changes; load errors after the first are ignored and the current client is kept
+     */
+    public static ReloadingHttpClient watching(Path file, String profile) throws IOException {
+        return watching(file, profile, error -> {
+        });
+    }
+
+    /**
+     * Same, with load errors (bad values, missing profile) reported to {@code onError}
+     */
+    public static ReloadingHttpClient watching(Path file, String profile, Consumer<Exception> onError)
+            throws IOException {
+        ReloadingHttpClient client = new ReloadingHttpClient(ClientProfiles.load(file).profile(profile));
+        client.watcher = new ProfileWatcher(file,
+                profiles -> client.reload(profiles.profile(profile)), onError);
+        return client;
+    }
+
+    /**
+     * Profile of the client new requests go to
+     */
+    public ClientProfile profile() {
+        return current.get().profile;
+    }
+
+    /**
+     * Number of times the client has been replaced
+     */
+    public int reloads() {
+        return reloads.get();
+    }
+
+    /**
+     * Switch to a client built from {@code profile}; does nothing if it equals the current one
+     *
+     * @return whether the client was replaced
+     */
+    public boolean reload(ClientProfile profile) {
+        if (shutdown) {
+            throw new IllegalStateException("Client is shut down");
+        }
+        Generation previous = current.get();
+        if (previous.profile.equals(profile)) {
+            return false;
+        }
+        Generation next = new Generation(profile, HttpClientFactory.createClient(profile));
+        if (!current.compareAndSet(previous, next)) {
+            // Lost to a concurrent reload; that one wins
+            retire(next);
+            return false;
+        }
+        reloads.incrementAndGet();
+        retire(previous);
+        return true;
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler)
+            throws IOException, InterruptedException {
+        Generation generation = enter();
+        try {
+            return generation.client.send(request, responseBodyHandler);
+        } finally {
+            generation.exit();
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler) {
+        return sendAsync(request, responseBodyHandler, null);
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler,
+                                                            HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        Generation generation = enter();
+        try {
+            // The stacked decorators only handle the two-argument form themselves
+            CompletableFuture<HttpResponse<T>> future = pushPromiseHandler == null
+                    ? generation.client.sendAsync(request, responseBodyHandler)
+                    : generation.client.sendAsync(request, responseBodyHandler, pushPromiseHandler);
+            return future.whenComplete((response, error) -> generation.exit());
+        } catch (RuntimeException e) {
+            generation.exit();
+            throw e;
+        }
+    }
+
+    @Override
+    public WebSocket.Builder newWebSocketBuilder() {
+        return current.get().client.newWebSocketBuilder();
+    }
+
+    @Override
+    public Optional<CookieHandler> cookieHandler() {
+        return current.get().client.cookieHandler();
+    }
+
+    @Override
+    public Optional<Duration> connectTimeout() {
+        return current.get().client.connectTimeout();
+    }
+
+    @Override
+    public Redirect followRedirects() {
+        return current.get().client.followRedirects();
+    }
+
+    @Override
+    public Optional<ProxySelector> proxy() {
+        return current.get().client.proxy();
+    }
+
+    @Override
+    public SSLContext sslContext() {
+        return current.get().client.sslContext();
+    }
+
+    @Override
+    public SSLParameters sslParameters() {
+        return current.get().client.sslParameters();
+    }
+
+    @Override
+    public Optional<Authenticator> authenticator() {
+        return current.get().client.authenticator();
+    }
+
+    @Override
+    public Version version() {
+        return current.get().client.version();
+    }
+
+    @Override
+    public Optional<Executor> executor() {
+        return current.get().client.executor();
+    }
+
+    /**
+     * Stop watching for changes and shut down the current client; in-flight requests finish
+     */
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        stopWatching();
+        current.get().client.shutdown();
+    }
+
+    @Override
+    public boolean awaitTermination(Duration duration) throws InterruptedException {
+        Generation generation = current.get();
+        boolean terminated = generation.client.awaitTermination(duration);
+        if (terminated) {
+            shutdownExecutor(generation.client);
+        }
+        return terminated;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return current.get().client.isTerminated();
+    }
+
+    @Override
+    public void shutdownNow() {
+        shutdown = true;
+        stopWatching();
+        current.get().client.shutdownNow();
+        shutdownExecutor(current.get().client);
+    }
+
+    /**
+     * The current generation, registered as in use. Retries if it was retired in between.
+     */
+    private Generation enter() {
+        while (true) {
+            Generation generation = current.get();
+            if (generation.enter()) {
+                return generation;
+            }
+        }
+    }
+
+    /**
+     * Shut a replaced client down once its in-flight requests are done, in the background
+     */
+    private void retire(Generation generation) {
+        generation.retire();
+        Thread.ofVirtual().name("client-retire-" + generation.profile.name()).start(() -> {
+            try {
+                generation.drained.get(drainTimeout.toNanos(), TimeUnit.NANOSECONDS);
+                // Bodies still being streamed by the caller finish before termination
+                generation.client.shutdown();
+                if (!generation.client.awaitTermination(drainTimeout)) {
+                    generation.client.shutdownNow();
+                }
+            } catch (TimeoutException | ExecutionException e) {
+                generation.client.shutdownNow();
+            } catch (InterruptedException e) {
+                generation.client.shutdownNow();
+                Thread.currentThread().interrupt();
+            } finally {
+                shutdownExecutor(generation.client);
+            }
+        });
+    }
+
+    private void stopWatching() {
+        ProfileWatcher watching = watcher;
+        if (watching != null) {
+            try {
+                watching.close();
+            } catch (IOException e) {
+                // Nothing left to watch
+            }
+        }
+    }
+
+    /**
+     * Profile executors are created per client, so they go away with it
+     */
+    private static void shutdownExecutor(HttpClient client) {
+        client.executor()
+                .filter(ExecutorService.class::isInstance)
+                .map(ExecutorService.class::cast)
+                .ifPresent(ExecutorService::shutdown);
+    }
+
+    /**
+     * One client and the requests currently running on it
+     */
+    private static final class Generation {
+        final ClientProfile profile;
+        final HttpClient client;
+        final AtomicInteger inFlight = new AtomicInteger();
+        final CompletableFuture<Void> drained = new CompletableFuture<>();
+        volatile boolean retired;
+
+        Generation(ClientProfile profile, HttpClient client) {
+            this.profile = profile;
+            this.client = client;
+        }
+
+        boolean enter() {
+            inFlight.incrementAndGet();
+            if (retired) {
+                exit();
+                return false;
+            }
+            return true;
+        }
+
+        void exit() {
+            if (inFlight.decrementAndGet() == 0 && retired) {
+                drained.complete(null);
+            }
+        }
+
+        void retire() {
+            retired = true;
+            if (inFlight.get() == 0) {
+                drained.complete(null);
+            }
+        }
+    }
+}
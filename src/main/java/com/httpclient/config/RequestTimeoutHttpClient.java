@@ -0,0 +1,57 @@
+package com.httpclient.config;
+
+import com.httpclient.util.ForwardingHttpClient;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Decorator that gives requests without a timeout a default one.
+ * <p>
+ * {@code HttpClient} only has a connect timeout; the request timeout lives on each
+ * {@code HttpRequest}, so a profile's request timeout is applied here. Requests that set
+ * their own keep it.
+ */
+public class RequestTimeoutHttpClient extends ForwardingHttpClient {
+
+    private final Duration timeout;
+
+    public RequestTimeoutHttpClient(HttpClient delegate, Duration timeout) {
+        super(delegate);
+        this.timeout = timeout;
+    }
+
+    public Duration timeout() {
+        return timeout;
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler)
+            throws IOException, InterruptedException {
+        return delegate.send(withTimeout(request), responseBodyHandler);
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler) {
+        return delegate.sendAsync(withTimeout(request), responseBodyHandler);
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler,
+                                                            HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        return delegate.sendAsync(withTimeout(request), responseBodyHandler, pushPromiseHandler);
+    }
+
+    private HttpRequest withTimeout(HttpRequest request) {
+        if (request.timeout().isPresent()) {
+            return request;
+        }
+        return HttpRequest.newBuilder(request, (name, value) -> true).timeout(timeout).build();
+    }
+}
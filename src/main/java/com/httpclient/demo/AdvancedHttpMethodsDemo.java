@@ -6,16 +6,24 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.httpclient.body.JsonBodyHandlers;
+import com.httpclient.body.JsonBodyPublishers;
+import com.httpclient.resilience.RetryPolicy;
+import com.httpclient.resilience.RetryingHttpClient;
+import com.httpclient.util.Config;
 import com.httpclient.util.User;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public class AdvancedHttpMethodsDemo {
 
-    private static final HttpClient client = HttpClient.newBuilder()
+    // GET/PUT/DELETE are retried on transient failures; POST is sent exactly once
+    private static final HttpClient client = new RetryingHttpClient(HttpClient.newBuilder()
             .connectTimeout(Duration.ofSeconds(5))
             .version(HttpClient.Version.HTTP_2)
-            .build();
+            .build(), RetryPolicy.defaults());
 
     private static final Gson gson = new Gson();
 
@@ -24,17 +32,38 @@ public class AdvancedHttpMethodsDemo {
         System.out.println("--- GET USER (JSON) ---");
 
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://jsonplaceholder.typicode.com/users/" + userId))
+                .uri(URI.create(Config.usersUrl() + "/" + userId))
                 .GET()
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        // Parsed straight from the incoming bytes, no intermediate String
+        HttpResponse<User> response = client.send(request, JsonBodyHandlers.ofJson(gson, User.class));
 
         System.out.println("Status: " + response.statusCode());
-        System.out.println("Raw JSON: " + response.body());
+        System.out.println("Parsed User: " + response.body());
+    }
+
+    // ------------ GET + STREAMING JSON ARRAY ------------
+    public static void streamPosts() throws Exception {
+        System.out.println("--- GET POSTS (STREAMING) ---");
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(Config.postsUrl()))
+                .GET()
+                .build();
+
+        HttpResponse<Stream<JsonObject>> response =
+                client.send(request, JsonBodyHandlers.ofJsonArray(gson, JsonObject.class));
 
-        User user = gson.fromJson(response.body(), User.class);
-        System.out.println("Parsed User: " + user);
+        System.out.println("Status: " + response.statusCode());
+        try (Stream<JsonObject> posts = response.body()) {
+            long count = posts.peek(post -> {
+                if (post.get("id").getAsInt() == 1) {
+                    System.out.println("First post title: " + post.get("title").getAsString());
+                }
+            }).count();
+            System.out.println("Posts streamed: " + count);
+        }
     }
 
     // ------------ POST RAW BODY ------------
@@ -44,7 +73,7 @@ public class AdvancedHttpMethodsDemo {
         String body = "title=Hello&body=World&userId=1";
 
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://jsonplaceholder.typicode.com/posts"))
+                .uri(URI.create(Config.postsUrl()))
                 .POST(HttpRequest.BodyPublishers.ofString(body))
                 .header("Content-Type", "application/x-www-form-urlencoded")
                 .build();
@@ -60,19 +89,21 @@ public class AdvancedHttpMethodsDemo {
         System.out.println("--- POST JSON ---");
 
         User user = new User(1, "Skander", "skander@example.com");
-        String json = gson.toJson(user);
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://jsonplaceholder.typicode.com/users"))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(json))
-                .build();
+        // Serialized straight into pooled buffers, returned to the pool on close
+        try (JsonBodyPublishers.PooledBodyPublisher body = JsonBodyPublishers.ofJson(gson, user)) {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(Config.usersUrl()))
+                    .header("Content-Type", "application/json")
+                    .POST(body)
+                    .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
 
-        System.out.println("Status: " + response.statusCode());
-        System.out.println("Sent JSON: " + json);
-        System.out.println("Response: " + response.body());
+            System.out.println("Status: " + response.statusCode());
+            System.out.println("Sent User: " + user + " (" + body.contentLength() + " bytes)");
+            System.out.println("Response: " + response.body());
+        }
     }
 
     // ------------ PUT JSON ------------
@@ -80,19 +111,20 @@ public class AdvancedHttpMethodsDemo {
         System.out.println("--- PUT JSON ---");
 
         User updated = new User(userId, "Updated Name", "updated@example.com");
-        String json = gson.toJson(updated);
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://jsonplaceholder.typicode.com/users/" + userId))
-                .header("Content-Type", "application/json")
-                .PUT(HttpRequest.BodyPublishers.ofString(json))
-                .build();
+        try (JsonBodyPublishers.PooledBodyPublisher body = JsonBodyPublishers.ofJson(gson, updated)) {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(Config.usersUrl() + "/" + userId))
+                    .header("Content-Type", "application/json")
+                    .PUT(body)
+                    .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
 
-        System.out.println("Status: " + response.statusCode());
-        System.out.println("Updated JSON: " + json);
-        System.out.println("Response: " + response.body());
+            System.out.println("Status: " + response.statusCode());
+            System.out.println("Updated User: " + updated);
+            System.out.println("Response: " + response.body());
+        }
     }
 
     // ------------ DELETE ------------
@@ -100,7 +132,7 @@ public class AdvancedHttpMethodsDemo {
         System.out.println("--- DELETE USER ---");
 
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://jsonplaceholder.typicode.com/users/" + userId))
+                .uri(URI.create(Config.usersUrl() + "/" + userId))
                 .DELETE()
                 .build();
 
@@ -116,16 +148,17 @@ public class AdvancedHttpMethodsDemo {
         System.out.println("--- ASYNC POST JSON ---");
 
         User user = new User(99, "Async Test", "async@example.com");
-        String json = gson.toJson(user);
+        JsonBodyPublishers.PooledBodyPublisher json = JsonBodyPublishers.ofJson(gson, user);
 
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://jsonplaceholder.typicode.com/users"))
+                .uri(URI.create(Config.usersUrl()))
                 .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .POST(json)
                 .build();
 
         CompletableFuture<HttpResponse<String>> future =
-                client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+                client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                        .whenComplete((response, error) -> json.close());
 
         future.thenApply(HttpResponse::body)
                 .thenAccept(body -> {
@@ -140,6 +173,9 @@ public class AdvancedHttpMethodsDemo {
         getUserById(1);
         System.out.println();
 
+        streamPosts();
+        System.out.println();
+
         postRaw();
         System.out.println();
 
@@ -1,6 +1,10 @@
 package com.httpclient.demo;
 
+import com.httpclient.compression.CompressingHttpClient;
+import com.httpclient.metrics.InMemoryMetricsRegistry;
+import com.httpclient.metrics.InstrumentedHttpClient;
 import com.httpclient.util.Config;
+import com.httpclient.util.HttpClientRegistry;
 
 import java.net.URI;
 import java.net.http.HttpClient;
@@ -16,17 +20,20 @@ public class BasicHttpDemo {
 
         try {
 
-            HttpClient client = HttpClient.newHttpClient();
+            InMemoryMetricsRegistry metrics = new InMemoryMetricsRegistry();
+            // Asks for gzip and inflates transparently; metrics see the compressed wire bytes
+            HttpClient client = new CompressingHttpClient(
+                    new InstrumentedHttpClient(HttpClientRegistry.shared(), metrics));
 
 
             HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(Config.GET_POST_URL))
+                    .uri(URI.create(Config.postUrl()))
                     .timeout(Duration.ofSeconds(Config.REQUEST_TIMEOUT_SECONDS))
                     .header("User-Agent", "Java 25 HTTP Client Demo")
                     .GET()
                     .build();
 
-            System.out.println("Making GET request to: " + Config.GET_POST_URL);
+            System.out.println("Making GET request to: " + Config.postUrl());
 
 
             HttpResponse<String> response = client.send(request,
@@ -51,6 +58,9 @@ public class BasicHttpDemo {
                 System.out.println("\n❌ Request failed with status: " + response.statusCode());
             }
 
+            System.out.println("\n=== Client Metrics ===");
+            metrics.printSummary();
+
         } catch (Exception e) {
             System.err.println("❌ Error during HTTP request: " + e.getMessage());
             e.printStackTrace();
@@ -61,7 +71,7 @@ public class BasicHttpDemo {
 
 
     public static String makeSimpleGetRequest(String url) throws Exception {
-        HttpClient client = HttpClient.newHttpClient();
+        HttpClient client = HttpClientRegistry.shared();
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .build();
@@ -0,0 +1,52 @@
+package com.httpclient.demo;
+
+import com.httpclient.cache.CachingHttpClient;
+import com.httpclient.cache.HttpCache;
+import com.httpclient.util.Config;
+import com.httpclient.util.HttpClientRegistry;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Demo the response cache: repeated GETs of the same post are served locally,
+ * and a no-cache request is revalidated with the stored ETag
+ */
+public class CachingDemo {
+
+    private static final long CACHE_SIZE_BYTES = 16 * 1024 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== HTTP Cache Demo ===\n");
+
+        CachingHttpClient client = new CachingHttpClient(HttpClientRegistry.shared(), new HttpCache(CACHE_SIZE_BYTES));
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(Config.postUrl()))
+                .timeout(Duration.ofSeconds(Config.REQUEST_TIMEOUT_SECONDS))
+                .GET()
+                .build();
+
+        for (int i = 1; i <= 3; i++) {
+            long start = System.nanoTime();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            long micros = (System.nanoTime() - start) / 1_000;
+            System.out.println("GET #" + i + ": " + response.statusCode() + " in " + micros + " µs");
+        }
+
+        HttpRequest revalidate = HttpRequest.newBuilder(request, (name, value) -> true)
+                .header("Cache-Control", "no-cache")
+                .build();
+        HttpResponse<String> response = client.send(revalidate, HttpResponse.BodyHandlers.ofString());
+        System.out.println("GET (no-cache): " + response.statusCode());
+
+        HttpCache.Stats stats = client.cache().stats();
+        System.out.println("\n📦 Cache: hits=" + stats.hits()
+                + ", misses=" + stats.misses()
+                + ", revalidated=" + stats.revalidations()
+                + ", changed=" + stats.revalidationsChanged()
+                + ", hit ratio=" + String.format("%.1f", stats.hitRatio() * 100) + "%");
+    }
+}
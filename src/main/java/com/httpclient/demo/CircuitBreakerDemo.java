@@ -0,0 +1,107 @@
+package com.httpclient.demo;
+
+import com.httpclient.metrics.LatencyRecorder;
+import com.httpclient.mock.MockServer;
+import com.httpclient.mock.MockServerOptions;
+import com.httpclient.resilience.CircuitBreakerHttpClient;
+import com.httpclient.resilience.CircuitBreakerOpenException;
+import com.httpclient.resilience.CircuitBreakerPolicy;
+import com.httpclient.util.HttpClientFactory;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Demo the circuit breaker against a {@link MockServer} that stops answering: requests keep
+ * coming every 10 ms with a 5 s timeout. Without a breaker every one of them would hang
+ * for 5 s; with it, only the few in flight when the stall began do, the rest are rejected
+ * in microseconds until probes find the server healthy again.
+ */
+public class CircuitBreakerDemo {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration INTERVAL = Duration.ofMillis(10);
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Circuit Breaker Demo ===\n");
+
+        MockServerOptions healthy = MockServerOptions.defaults().withLatency(Duration.ofMillis(5), Duration.ZERO);
+        MockServer server = MockServer.start(healthy);
+
+        CircuitBreakerPolicy policy = CircuitBreakerPolicy.defaults()
+                .withWindow(50, 10)
+                .withSlowCalls(Duration.ofMillis(500), 0.5)
+                .withOpenDuration(Duration.ofSeconds(2))
+                .withHalfOpenProbes(3);
+        CircuitBreakerHttpClient client = new CircuitBreakerHttpClient(HttpClientFactory.createHttp11Client(),
+                policy, CircuitBreakerHttpClient.byHost(),
+                t -> System.out.printf("  ⚡ %s: %s -> %s (failures %.0f%%, slow %.0f%%)%n",
+                        t.name(), t.from(), t.to(), t.failureRate() * 100, t.slowCallRate() * 100));
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(server.baseUri().resolve("/posts/1"))
+                .timeout(REQUEST_TIMEOUT)
+                .build();
+
+        try {
+            phase("Healthy", client, request, Duration.ofSeconds(1));
+
+            server.setOptions(healthy.withLatency(REQUEST_TIMEOUT.multipliedBy(2), Duration.ZERO));
+            phase("Server stalls", client, request, Duration.ofSeconds(3));
+
+            server.setOptions(healthy);
+            phase("Server recovers", client, request, Duration.ofSeconds(3));
+
+            System.out.println("\n📊 Breakers:");
+            client.printStats();
+        } finally {
+            client.shutdownNow();
+            server.close();
+        }
+    }
+
+    /**
+     * Send a request every {@link #INTERVAL} for {@code duration} and wait for all of them
+     */
+    private static void phase(String name, CircuitBreakerHttpClient client, HttpRequest request,
+                              Duration duration) {
+        System.out.println("\n🔁 " + name);
+        LatencyRecorder latencies = new LatencyRecorder();
+        AtomicInteger ok = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        List<CompletableFuture<?>> calls = new ArrayList<>();
+
+        long end = System.nanoTime() + duration.toNanos();
+        while (System.nanoTime() < end) {
+            long start = System.nanoTime();
+            calls.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        latencies.recordSince(start);
+                        Throwable cause = error == null ? null : error.getCause() != null ? error.getCause() : error;
+                        if (cause == null) {
+                            ok.incrementAndGet();
+                        } else if (cause instanceof CircuitBreakerOpenException) {
+                            rejected.incrementAndGet();
+                        } else {
+                            failed.incrementAndGet();
+                        }
+                    }));
+            try {
+                Thread.sleep(INTERVAL);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).exceptionally(error -> null).join();
+
+        System.out.println("  ok=" + ok + ", rejected=" + rejected + ", failed=" + failed);
+        latencies.printPercentiles("  ");
+    }
+}
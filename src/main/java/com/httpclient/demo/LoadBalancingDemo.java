@@ -0,0 +1,83 @@
+package com.httpclient.demo;
+
+import com.httpclient.balancer.LoadBalancedHttpClient;
+import com.httpclient.balancer.LoadBalancer;
+import com.httpclient.balancer.LoadBalancerOptions;
+import com.httpclient.batch.BatchResult;
+import com.httpclient.batch.HttpBatch;
+import com.httpclient.mock.MockServer;
+import com.httpclient.mock.MockServerOptions;
+import com.httpclient.util.HttpClientFactory;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Demo the load balancer against four {@link MockServer} replicas of one service: two fast ones, one
+ * that answers 6x slower and one that fails with 503 until it is "fixed" halfway through.
+ * The slow replica should get a small share, the failing one should be ejected, and
+ * after the fix it should come back through slow start.
+ */
+public class LoadBalancingDemo {
+
+    private static final int REQUESTS = 2000;
+    private static final int CONCURRENCY = 32;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Load Balancing Demo ===\n");
+
+        MockServerOptions fast = MockServerOptions.defaults().withLatency(Duration.ofMillis(10), Duration.ZERO);
+        Map<String, MockServer> replicas = new LinkedHashMap<>();
+        replicas.put("fast-1", MockServer.start(fast));
+        replicas.put("fast-2", MockServer.start(fast));
+        replicas.put("slow", MockServer.start(fast.withLatency(Duration.ofMillis(60), Duration.ZERO)));
+        replicas.put("broken", MockServer.start(fast.withErrors(1.0, 503)));
+
+        LoadBalancerOptions options = LoadBalancerOptions.defaults()
+                .withEjection(5, Duration.ofSeconds(2), Duration.ofSeconds(10))
+                .withSlowStart(Duration.ofSeconds(3));
+        LoadBalancer balancer = new LoadBalancer(replicas.values().stream().map(MockServer::baseUri).toList(), options);
+        LoadBalancedHttpClient client = new LoadBalancedHttpClient(HttpClientFactory.createHttp11Client(), balancer);
+
+        try {
+            System.out.println("🔀 Round 1: " + REQUESTS + " requests, 'broken' answers 503");
+            run(client);
+            balancer.printStats();
+
+            replicas.get("broken").setOptions(fast);
+            System.out.println("\n🔧 'broken' fixed, waiting for its ejection to end...");
+            Thread.sleep(options.baseEjectionTime().toMillis());
+
+            System.out.println("\n🔀 Round 2: " + REQUESTS + " requests");
+            run(client);
+            balancer.printStats();
+
+            System.out.println("\n📊 Requests served per replica:");
+            replicas.forEach((name, replica) -> System.out.println("  " + name + ": " + replica.requests()));
+        } finally {
+            client.close();
+            replicas.values().forEach(MockServer::close);
+        }
+    }
+
+    private static void run(LoadBalancedHttpClient client) {
+        List<HttpRequest> requests = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            // The host is only a name for the service; the balancer fills in the replica
+            requests.add(HttpRequest.newBuilder(URI.create("http://posts/posts/" + (i % 100 + 1))).build());
+        }
+        long start = System.nanoTime();
+        List<BatchResult<String>> results = new HttpBatch(client, CONCURRENCY, CONCURRENCY)
+                .sendAll(requests, HttpResponse.BodyHandlers.ofString())
+                .join();
+        long failed = results.stream().filter(r -> r.isFailure() || r.response().statusCode() >= 500).count();
+        System.out.printf("  %d requests in %d ms, %d failed%n",
+                REQUESTS, (System.nanoTime() - start) / 1_000_000, failed);
+    }
+}
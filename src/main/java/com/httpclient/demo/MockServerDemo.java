@@ -0,0 +1,135 @@
+package com.httpclient.demo;
+
+import com.httpclient.cache.CachingHttpClient;
+import com.httpclient.cache.HttpCache;
+import com.httpclient.compression.CompressingHttpClient;
+import com.httpclient.download.DownloadOptions;
+import com.httpclient.download.DownloadResult;
+import com.httpclient.download.SegmentedDownloader;
+import com.httpclient.metrics.LatencyRecorder;
+import com.httpclient.mock.MockServer;
+import com.httpclient.mock.MockServerOptions;
+import com.httpclient.util.HttpClientFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Demo the embedded mock server: each section switches on one fault or response decoration
+ * and shows what the client sees, all without leaving the machine.
+ */
+public class MockServerDemo {
+
+    private static final int DOWNLOAD_BYTES = 2 * 1024 * 1024;
+    private static final long BANDWIDTH = 1024 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Mock Server Demo ===\n");
+
+        HttpClient client = HttpClientFactory.createHttp11Client();
+        try (MockServer server = MockServer.start()) {
+            System.out.println("🧪 " + server.jsonPlaceholderUrl() + ", " + server.httpBinUrl()
+                    + ", " + server.webSocketUrl());
+            URI post = server.baseUri().resolve("/posts/1");
+
+            // Unmeasured, so connection setup doesn't show up as latency
+            client.send(HttpRequest.newBuilder(post).build(), HttpResponse.BodyHandlers.discarding());
+
+            System.out.println("\n🐢 Latency 40 ms + up to 20 ms jitter");
+            server.setOptions(MockServerOptions.defaults().withLatency(Duration.ofMillis(40), Duration.ofMillis(20)));
+            LatencyRecorder latencies = new LatencyRecorder();
+            for (int i = 0; i < 20; i++) {
+                long start = System.nanoTime();
+                client.send(HttpRequest.newBuilder(post).build(), HttpResponse.BodyHandlers.discarding());
+                latencies.recordSince(start);
+            }
+            latencies.printPercentiles("  ");
+
+            System.out.println("\n💥 20% of requests answered 503");
+            server.setOptions(MockServerOptions.defaults().withErrors(0.2, 503));
+            int errors = 0;
+            for (int i = 0; i < 200; i++) {
+                if (client.send(HttpRequest.newBuilder(post).build(),
+                        HttpResponse.BodyHandlers.discarding()).statusCode() == 503) {
+                    errors++;
+                }
+            }
+            System.out.println("  503s seen: " + errors + " of 200, injected: " + server.injectedErrors());
+
+            System.out.println("\n🗜️  Compression");
+            server.setOptions(MockServerOptions.defaults().withCompression(true));
+            long before = server.bytesSent();
+            HttpResponse<String> posts = new CompressingHttpClient(client).send(
+                    HttpRequest.newBuilder(server.baseUri().resolve("/posts")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            System.out.println("  /posts: " + posts.body().length() + " characters, "
+                    + (server.bytesSent() - before) + " bytes on the wire");
+
+            System.out.println("\n📦 Cache-Control and ETags");
+            server.setOptions(MockServerOptions.defaults().withCaching(Duration.ofSeconds(60)));
+            CachingHttpClient caching = new CachingHttpClient(client, new HttpCache(1024 * 1024));
+            long requestsBefore = server.requests();
+            HttpRequest cached = HttpRequest.newBuilder(post).build();
+            for (int i = 0; i < 3; i++) {
+                caching.send(cached, HttpResponse.BodyHandlers.ofString());
+            }
+            caching.send(HttpRequest.newBuilder(post).header("Cache-Control", "no-cache").build(),
+                    HttpResponse.BodyHandlers.ofString());
+            System.out.println("  4 GETs, " + (server.requests() - requestsBefore) + " reached the server, "
+                    + server.notModified() + " answered 304");
+
+            System.out.println("\n🚰 Bandwidth capped at " + BANDWIDTH / 1024 + " KiB/s per response");
+            server.setOptions(MockServerOptions.defaults().withBandwidth(BANDWIDTH));
+            URI file = URI.create(server.httpBinUrl() + "/range/" + DOWNLOAD_BYTES);
+            Path target = Files.createTempFile("mock-download", ".bin");
+            try {
+                for (int segments : new int[]{1, 4}) {
+                    DownloadResult result = new SegmentedDownloader(client, DownloadOptions.defaults()
+                            .withSegments(segments, 64 * 1024)).download(file, target).join();
+                    System.out.println(String.format("  %d segment(s): %d bytes in %d ms, %.2f MB/s",
+                            result.segments(), result.bytes(), result.elapsed().toMillis(),
+                            result.megabytesPerSecond()));
+                }
+            } finally {
+                Files.deleteIfExists(target);
+            }
+
+            System.out.println("\n🔌 WebSocket echo with 25 ms latency");
+            server.setOptions(MockServerOptions.defaults().withLatency(Duration.ofMillis(25), Duration.ZERO));
+            AtomicReference<CompletableFuture<String>> reply = new AtomicReference<>(new CompletableFuture<>());
+            WebSocket webSocket = client.newWebSocketBuilder()
+                    .buildAsync(URI.create(server.webSocketUrl()), new WebSocket.Listener() {
+                        @Override
+                        public CompletionStage<?> onText(WebSocket socket, CharSequence data, boolean last) {
+                            reply.get().complete(data.toString());
+                            socket.request(1);
+                            return null;
+                        }
+                    }).join();
+            for (int i = 1; i <= 3; i++) {
+                reply.set(new CompletableFuture<>());
+                long start = System.nanoTime();
+                webSocket.sendText("ping " + i, true).join();
+                String echo = reply.get().join();
+                System.out.println("  " + echo + ": " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            }
+            webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "done").join();
+
+            System.out.println("\n📊 Server:");
+            server.printStats();
+        } finally {
+            client.shutdownNow();
+        }
+
+        System.out.println("\n✅ Mock server demo completed!");
+    }
+}
@@ -0,0 +1,158 @@
+package com.httpclient.demo;
+
+import com.httpclient.mock.MockServer;
+import com.httpclient.streaming.ServerSentEvent;
+import com.httpclient.streaming.StreamOptions;
+import com.httpclient.streaming.StreamingClient;
+import com.httpclient.util.HttpClientFactory;
+import com.httpclient.util.User;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Demo the streaming client against the mock server's user streams: NDJSON parsed into
+ * {@link User}s as it arrives, an event stream that keeps dropping its connection and
+ * resumes from the last event ID, and a slow subscriber whose backpressure holds the
+ * server back.
+ */
+public class StreamingDemo {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Streaming Demo ===\n");
+
+        HttpClient client = HttpClientFactory.createHttp11Client();
+        StreamingClient streaming = new StreamingClient(client,
+                StreamOptions.defaults().withReconnect(Duration.ofMillis(100), Duration.ofSeconds(5), 5));
+
+        try (MockServer server = MockServer.start()) {
+            URI base = server.baseUri();
+
+            System.out.println("📜 NDJSON: 100000 users");
+            AtomicLong users = new AtomicLong();
+            long start = System.nanoTime();
+            consume(streaming.ndjson(HttpRequest.newBuilder(base.resolve("/stream/users.ndjson?count=100000")).build(),
+                    User.class), Long.MAX_VALUE, user -> {
+                if (users.incrementAndGet() <= 2) {
+                    System.out.println("  " + user);
+                }
+            });
+            long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            System.out.println("  " + users + " users in " + millis + " ms (" + users.get() * 1000 / millis + "/s)");
+
+            System.out.println("\n📡 Server-sent events: 50 users, connection dropped every 20, resuming from event 10");
+            long reconnectsBefore = streaming.reconnects();
+            AtomicLong expected = new AtomicLong(11);
+            AtomicLong gaps = new AtomicLong();
+            HttpRequest events = HttpRequest.newBuilder(base.resolve("/stream/users?count=50&drop=20&interval=5&retry=200"))
+                    .header("Last-Event-ID", "10")
+                    .build();
+            consume(streaming.events(events), 8, (ServerSentEvent event) -> {
+                if (Long.parseLong(event.id()) != expected.getAndIncrement()) {
+                    gaps.incrementAndGet();
+                }
+                if (event.id().endsWith("0")) {
+                    System.out.println("  #" + event.id() + " " + event.event() + ": " + event.data());
+                }
+            });
+            System.out.println("  Received " + (expected.get() - 11) + " events, out of order or missing: " + gaps
+                    + ", reconnects: " + (streaming.reconnects() - reconnectsBefore));
+
+            System.out.println("\n🐌 Backpressure: a subscriber taking 1 user every 10 ms from a 1000000-user stream");
+            long sentBefore = server.bytesSent();
+            AtomicLong slow = new AtomicLong();
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            streaming.ndjson(HttpRequest.newBuilder(base.resolve("/stream/users.ndjson?count=1000000")).build(), User.class)
+                    .subscribe(new Flow.Subscriber<>() {
+                        private Flow.Subscription subscription;
+
+                        @Override
+                        public void onSubscribe(Flow.Subscription subscription) {
+                            this.subscription = subscription;
+                            subscription.request(1);
+                        }
+
+                        @Override
+                        public void onNext(User user) {
+                            sleep(Duration.ofMillis(10));
+                            if (slow.incrementAndGet() == 200) {
+                                subscription.cancel();
+                                done.complete(null);
+                            } else {
+                                subscription.request(1);
+                            }
+                        }
+
+                        @Override
+                        public void onError(Throwable throwable) {
+                            done.completeExceptionally(throwable);
+                        }
+
+                        @Override
+                        public void onComplete() {
+                            done.complete(null);
+                        }
+                    });
+            done.get(60, TimeUnit.SECONDS);
+            System.out.println("  Consumed " + slow + " users, the server had written "
+                    + (server.bytesSent() - sentBefore) / 1024 + " KiB of the ~65 MB stream by the time it was cancelled");
+        } finally {
+            client.shutdownNow();
+        }
+
+        System.out.println("\n✅ Streaming demo completed!");
+    }
+
+    /**
+     * Subscribe, requesting {@code batch} items at a time, and wait for the end
+     */
+    private static <T> void consume(Flow.Publisher<T> publisher, long batch, Consumer<T> action) throws Exception {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        publisher.subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+            private long outstanding;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                outstanding = batch;
+                subscription.request(batch);
+            }
+
+            @Override
+            public void onNext(T item) {
+                action.accept(item);
+                if (batch != Long.MAX_VALUE && --outstanding == 0) {
+                    outstanding = batch;
+                    subscription.request(batch);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+        done.get(60, TimeUnit.SECONDS);
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
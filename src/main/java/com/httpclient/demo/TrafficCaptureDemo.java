@@ -0,0 +1,136 @@
+package com.httpclient.demo;
+
+import com.httpclient.benchmark.TrafficReplayer;
+import com.httpclient.capture.CaptureOptions;
+import com.httpclient.capture.CapturedExchange;
+import com.httpclient.capture.RecordingHttpClient;
+import com.httpclient.capture.TrafficLogReader;
+import com.httpclient.capture.TrafficLogWriter;
+import com.httpclient.mock.MockServer;
+import com.httpclient.mock.MockServerOptions;
+import com.httpclient.util.HttpClientFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Demo traffic capture and replay: a mixed GET/POST/PUT/DELETE workload with varied body
+ * sizes is recorded against a {@link MockServer} standing in for production, then replayed from
+ * the log against a second, faster one at the recorded speed and at 4x.
+ */
+public class TrafficCaptureDemo {
+
+    private static final Path LOG = Path.of("target", "capture", "traffic.htlog");
+    private static final Duration WARM_UP = Duration.ofSeconds(1);
+    private static final Duration CAPTURE_DURATION = Duration.ofSeconds(3);
+    private static final double REQUESTS_PER_SECOND = 150;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Traffic Capture & Replay Demo ===\n");
+
+        MockServer production = MockServer.start(MockServerOptions.defaults()
+                .withLatency(Duration.ofMillis(8), Duration.ofMillis(8)));
+        MockServer isolated = MockServer.start(MockServerOptions.defaults()
+                .withLatency(Duration.ofMillis(3), Duration.ofMillis(3)));
+        HttpClient client = HttpClientFactory.createHttp11Client();
+
+        try {
+            Files.deleteIfExists(LOG);
+            URI productionUri = production.baseUri();
+            // Unrecorded, so JIT and connection setup don't end up in the captured latencies
+            generate(client, productionUri, WARM_UP);
+
+            System.out.println("🎙️  Recording " + CAPTURE_DURATION.toSeconds() + " s of mixed traffic to " + LOG);
+            try (TrafficLogWriter log = TrafficLogWriter.open(LOG)) {
+                RecordingHttpClient recording = new RecordingHttpClient(client, log,
+                        CaptureOptions.defaults().withBodies(16 * 1024));
+                generate(recording, productionUri, CAPTURE_DURATION);
+                System.out.println("  Recorded: " + recording.recorded() + ", write errors: " + recording.writeErrors());
+            }
+
+            List<CapturedExchange> exchanges = TrafficLogReader.readAll(LOG);
+            long size = Files.size(LOG);
+            Map<String, Integer> mix = new TreeMap<>();
+            long bodies = 0;
+            for (CapturedExchange exchange : exchanges) {
+                mix.merge(exchange.method(), 1, Integer::sum);
+                bodies += exchange.requestBody() != null ? exchange.requestBody().length : 0;
+                bodies += exchange.responseBody() != null ? exchange.responseBody().length : 0;
+            }
+            System.out.println("  Log: " + size + " bytes, " + exchanges.size() + " exchanges, "
+                    + (size - bodies) / Math.max(1, exchanges.size()) + " bytes/exchange without bodies");
+            System.out.println("  Mix: " + mix);
+
+            URI isolatedUri = isolated.baseUri();
+            for (double speed : new double[]{1.0, 4.0}) {
+                System.out.println("\n▶️  Replay at " + speed + "x against the isolated stand-in");
+                TrafficReplayer.printResults(new TrafficReplayer(client, isolatedUri, speed, 256).replay(LOG));
+            }
+
+            System.out.println("\n✅ Capture & replay completed!");
+        } finally {
+            client.shutdownNow();
+            production.close();
+            isolated.close();
+        }
+    }
+
+    /**
+     * Poisson arrivals of a jsonplaceholder-like mix: mostly single-post reads, some list
+     * reads, posts with bodies from 100 B to 24 KiB, updates and deletes
+     */
+    private static void generate(HttpClient client, URI base, Duration duration) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<CompletableFuture<?>> calls = new ArrayList<>();
+        long end = System.nanoTime() + duration.toNanos();
+        long next = System.nanoTime();
+
+        while (next < end) {
+            long now;
+            while ((now = System.nanoTime()) < next) {
+                LockSupport.parkNanos(next - now);
+            }
+            next += (long) (-Math.log(1 - random.nextDouble()) / REQUESTS_PER_SECOND * 1_000_000_000L);
+
+            int roll = random.nextInt(100);
+            int id = random.nextInt(1, 101);
+            int userId = random.nextInt(1, 11);
+            HttpRequest.Builder request;
+            if (roll < 60) {
+                request = HttpRequest.newBuilder(base.resolve("/posts/" + id)).GET();
+            } else if (roll < 70) {
+                request = HttpRequest.newBuilder(base.resolve("/posts")).GET();
+            } else if (roll < 85) {
+                request = HttpRequest.newBuilder(base.resolve("/posts"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(post(random.nextInt(100, 24 * 1024))));
+            } else if (roll < 95) {
+                request = HttpRequest.newBuilder(base.resolve("/users/" + userId))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(
+                                "{\"id\":" + userId + ",\"name\":\"Updated Name\",\"email\":\"updated@example.com\"}"));
+            } else {
+                request = HttpRequest.newBuilder(base.resolve("/users/" + userId)).DELETE();
+            }
+            calls.add(client.sendAsync(request.header("Authorization", "Bearer secret").build(),
+                    HttpResponse.BodyHandlers.ofString()));
+        }
+        CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])).exceptionally(error -> null).join();
+    }
+
+    private static String post(int size) {
+        return "{\"title\":\"Hello\",\"userId\":1,\"body\":\"" + "x".repeat(Math.max(0, size - 40)) + "\"}";
+    }
+}
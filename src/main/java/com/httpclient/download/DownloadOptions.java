@@ -0,0 +1,32 @@
+package com.httpclient.download;
+
+/**
+ * How a {@link SegmentedDownloader} splits and writes a download.
+ *
+ * @param segments       maximum number of ranges fetched in parallel; over HTTP/2 they are
+ *                       streams on one connection, over HTTP/1.1 separate connections
+ * @param minSegmentSize smaller files get fewer segments, so tiny ranges don't cost a request each
+ * @param maxAttempts    tries per segment; a retry continues where the failed one stopped
+ * @param memoryMapped   copy into memory-mapped regions instead of positional channel writes
+ */
+public record DownloadOptions(int segments, long minSegmentSize, int maxAttempts, boolean memoryMapped) {
+
+    /**
+     * 4 segments of at least 8 MiB, 3 attempts each, positional writes
+     */
+    public static DownloadOptions defaults() {
+        return new DownloadOptions(4, 8L * 1024 * 1024, 3, false);
+    }
+
+    public DownloadOptions withSegments(int segments, long minSegmentSize) {
+        return new DownloadOptions(segments, minSegmentSize, maxAttempts, memoryMapped);
+    }
+
+    public DownloadOptions withMaxAttempts(int maxAttempts) {
+        return new DownloadOptions(segments, minSegmentSize, maxAttempts, memoryMapped);
+    }
+
+    public DownloadOptions withMemoryMapped(boolean memoryMapped) {
+        return new DownloadOptions(segments, minSegmentSize, maxAttempts, memoryMapped);
+    }
+}
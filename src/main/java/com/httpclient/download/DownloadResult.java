@@ -0,0 +1,26 @@
+package com.httpclient.download;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * A finished download.
+ *
+ * @param path         the complete file
+ * @param bytes        its size
+ * @param segments     ranges it was fetched in; 0 if the server doesn't support ranges
+ * @param resumedBytes bytes kept from an earlier, interrupted attempt
+ * @param elapsed      wall time of this attempt
+ * @param sha256       hex SHA-256 of the file, or null if none was requested
+ */
+public record DownloadResult(Path path, long bytes, int segments, long resumedBytes,
+                             Duration elapsed, String sha256) {
+
+    /**
+     * Throughput of the bytes actually transferred in this attempt
+     */
+    public double megabytesPerSecond() {
+        double seconds = Math.max(elapsed.toNanos(), 1) / 1e9;
+        return (bytes - resumedBytes) / (1024.0 * 1024.0) / seconds;
+    }
+}
@@ -0,0 +1,435 @@
+package com.httpclient.download;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.httpclient.body.FileBodyHandlers;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32C;
+
+/**
+ * Downloads large files straight to disk in parallel byte ranges, resuming interrupted ones.
+ * <p>
+ * A HEAD request learns the size and validator (a strong ETag, else Last-Modified). If the
+ * server accepts ranges, the file is split into segments fetched concurrently with
+ * {@code Range} headers, each written into its own region of {@code <target>.part} by
+ * {@link FileBodyHandlers}; otherwise it is fetched in one piece. Every range also carries
+ * {@code If-Range}, so if the file changes midway the server answers 200 instead of
+ * handing out bytes of two versions, and the download fails.
+ * <p>
+ * <b>Resume.</b> Each segment's progress and a CRC32C of its bytes, computed as they stream,
+ * are saved to {@code <target>.part.json} whenever a segment finishes or fails. The next
+ * download of the same URI and validator re-checks each written prefix against its CRC and
+ * requests only the rest; a prefix that no longer matches is fetched again.
+ * <p>
+ * <b>Integrity.</b> With an expected SHA-256 the file is hashed (while streaming, when it
+ * comes in one piece) before it is moved into place; a mismatch discards it.
+ */
+public class SegmentedDownloader {
+
+    private static final Gson GSON = new Gson();
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-\\d+/(?:\\d+|\\*)");
+
+    // Finishing hashes, moves and deletes files, which blocks
+    private static final Executor FINISH_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final HttpClient client;
+    private final DownloadOptions options;
+
+    public SegmentedDownloader(HttpClient client) {
+        this(client, DownloadOptions.defaults());
+    }
+
+    public SegmentedDownloader(HttpClient client, DownloadOptions options) {
+        this.client = client;
+        this.options = options;
+    }
+
+    /**
+     * Download {@code uri} to {@code target}, replacing it once complete
+     */
+    public CompletableFuture<DownloadResult> download(URI uri, Path target) {
+        return download(uri, target, null);
+    }
+
+    /**
+     * Download {@code uri} to {@code target}, failing if the file's SHA-256 isn't
+     * {@code expectedSha256} (hex; null to skip the check)
+     */
+    public CompletableFuture<DownloadResult> download(URI uri, Path target, String expectedSha256) {
+        long start = System.nanoTime();
+        HttpRequest head = HttpRequest.newBuilder(uri)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .build();
+        return client.sendAsync(head, HttpResponse.BodyHandlers.discarding())
+                .thenCompose(response -> {
+                    if (response.statusCode() / 100 != 2) {
+                        return CompletableFuture.failedFuture(
+                                new IOException("HEAD " + uri + " returned " + response.statusCode()));
+                    }
+                    return new Transfer(uri, target, expectedSha256, start).run(response.headers());
+                });
+    }
+
+    /**
+     * Thrown when the server no longer serves the version the download started with
+     */
+    public static class ResourceChangedException extends IOException {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        public ResourceChangedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Persisted progress of an interrupted download
+     */
+    private record Journal(String uri, String validator, long length, List<SegmentState> segments) {
+    }
+
+    private record SegmentState(long start, long end, long written, long crc) {
+    }
+
+    /**
+     * One byte range [start, end) and how much of it is on disk
+     */
+    private static class Segment {
+        final long start;
+        final long end;
+        private long written;
+        private CRC32C crc = new CRC32C();
+
+        Segment(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        synchronized long position() {
+            return start + written;
+        }
+
+        synchronized long written() {
+            return written;
+        }
+
+        /**
+         * Observer of the body handler: called with every buffer once it is on disk
+         */
+        synchronized void update(ByteBuffer written) {
+            this.written += written.remaining();
+            crc.update(written);
+        }
+
+        synchronized SegmentState snapshot() {
+            return new SegmentState(start, end, written, crc.getValue());
+        }
+
+        /**
+         * Keep the saved prefix if the file still holds the bytes it was saved with
+         */
+        synchronized void restore(FileChannel channel, SegmentState saved) throws IOException {
+            if (saved.written() > end - start || channel.size() < start + saved.written()) {
+                return;
+            }
+            CRC32C check = new CRC32C();
+            read(channel, start, start + saved.written(), check::update);
+            if (check.getValue() == saved.crc()) {
+                written = saved.written();
+                crc = check;
+            }
+        }
+    }
+
+    /**
+     * State of one download
+     */
+    private class Transfer {
+        private final URI uri;
+        private final Path target;
+        private final Path part;
+        private final Path journal;
+        private final String expectedSha256;
+        private final long startNanos;
+        private String validator;
+        private long length;
+        private List<Segment> segments = List.of();
+        private FileChannel channel;
+        private long resumed;
+
+        Transfer(URI uri, Path target, String expectedSha256, long startNanos) {
+            this.uri = uri;
+            this.target = target;
+            this.part = target.resolveSibling(target.getFileName() + ".part");
+            this.journal = target.resolveSibling(target.getFileName() + ".part.json");
+            this.expectedSha256 = expectedSha256;
+            this.startNanos = startNanos;
+        }
+
+        CompletableFuture<DownloadResult> run(HttpHeaders headers) {
+            length = headers.firstValueAsLong("Content-Length").orElse(-1);
+            validator = headers.firstValue("ETag").filter(tag -> !tag.startsWith("W/"))
+                    .or(() -> headers.firstValue("Last-Modified"))
+                    .orElse(null);
+            boolean ranges = headers.firstValue("Accept-Ranges").filter("bytes"::equalsIgnoreCase).isPresent();
+            try {
+                channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+                return ranges && length >= 0 ? segmented() : whole();
+            } catch (IOException | RuntimeException e) {
+                return failed(e);
+            }
+        }
+
+        /**
+         * No range support: one GET, hashed while it streams
+         */
+        private CompletableFuture<DownloadResult> whole() throws IOException {
+            channel.truncate(0);
+            Files.deleteIfExists(journal);
+            MessageDigest digest = expectedSha256 == null ? null : sha256();
+            HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+            HttpResponse.BodyHandler<Long> handler = info -> info.statusCode() == 200
+                    ? FileBodyHandlers.channelSubscriber(channel, 0, digest == null ? null : digest::update)
+                    : HttpResponse.BodySubscribers.replacing(-1L);
+            return client.sendAsync(request, handler)
+                    .thenApplyAsync(response -> {
+                        if (response.statusCode() != 200) {
+                            throw new CompletionException(new IOException("GET " + uri + " returned " + response.statusCode()));
+                        }
+                        length = response.body();
+                        return finish(0, digest);
+                    }, FINISH_EXECUTOR)
+                    .exceptionallyCompose(this::failed);
+        }
+
+        private CompletableFuture<DownloadResult> segmented() throws IOException {
+            segments = restore();
+            resumed = segments.stream().mapToLong(Segment::written).sum();
+            save();
+            CompletableFuture<?>[] fetches = segments.stream()
+                    .map(segment -> fetch(segment, 1))
+                    .toArray(CompletableFuture[]::new);
+            // Wait for every segment, so the journal records all progress if one of them fails
+            return CompletableFuture.allOf(fetches)
+                    .thenApplyAsync(ignored -> finish(segments.size(), null), FINISH_EXECUTOR)
+                    .exceptionallyCompose(this::failed);
+        }
+
+        /**
+         * Segments saved by an earlier attempt at the same version of the file, or a fresh plan
+         */
+        private List<Segment> restore() throws IOException {
+            if (validator != null && Files.exists(journal)) {
+                Journal saved = null;
+                try {
+                    saved = GSON.fromJson(Files.readString(journal), Journal.class);
+                } catch (JsonParseException e) {
+                    // Unreadable journal, start over
+                }
+                if (saved != null && uri.toString().equals(saved.uri()) && validator.equals(saved.validator())
+                        && saved.length() == length && saved.segments() != null) {
+                    List<Segment> restored = new ArrayList<>();
+                    for (SegmentState state : saved.segments()) {
+                        Segment segment = new Segment(state.start(), state.end());
+                        segment.restore(channel, state);
+                        restored.add(segment);
+                    }
+                    return restored;
+                }
+            }
+            channel.truncate(0);
+            long minSize = Math.max(1, options.minSegmentSize());
+            int count = (int) Math.max(1, Math.min(options.segments(), (length + minSize - 1) / minSize));
+            long size = (length + count - 1) / Math.max(count, 1);
+            List<Segment> plan = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                long start = Math.min(length, i * size);
+                plan.add(new Segment(start, Math.min(length, start + size)));
+            }
+            return plan;
+        }
+
+        /**
+         * Fetch the rest of {@code segment}; a failed attempt is retried from where it stopped
+         */
+        private CompletableFuture<Void> fetch(Segment segment, int attempt) {
+            long from = segment.position();
+            if (from == segment.end) {
+                return CompletableFuture.completedFuture(null);
+            }
+            HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                    .header("Range", "bytes=" + from + "-" + (segment.end - 1))
+                    .GET();
+            if (validator != null) {
+                builder.header("If-Range", validator);
+            }
+            return client.sendAsync(builder.build(), info -> subscriber(info, segment, from))
+                    .thenAccept(response -> {
+                        int status = response.statusCode();
+                        if (status == 200 || status == 412) {
+                            throw new CompletionException(new ResourceChangedException(uri + " changed during the download"));
+                        }
+                        if (status != 206 || response.body() < 0) {
+                            throw new CompletionException(new IOException("Range " + from + "-" + (segment.end - 1)
+                                    + " of " + uri + " returned " + status
+                                    + response.headers().firstValue("Content-Range").map(range -> " " + range).orElse("")));
+                        }
+                        if (segment.position() != segment.end) {
+                            throw new CompletionException(new IOException("Range " + from + "-" + (segment.end - 1)
+                                    + " of " + uri + " ended at " + segment.position()));
+                        }
+                        save();
+                    })
+                    .exceptionallyCompose(error -> {
+                        Throwable cause = unwrap(error);
+                        if (cause instanceof ResourceChangedException || !(cause instanceof IOException)
+                                || attempt >= options.maxAttempts()) {
+                            return CompletableFuture.failedFuture(cause);
+                        }
+                        return fetch(segment, attempt + 1);
+                    });
+        }
+
+        /**
+         * Only write if the server sends exactly the range asked for
+         */
+        private HttpResponse.BodySubscriber<Long> subscriber(HttpResponse.ResponseInfo info, Segment segment, long from) {
+            if (info.statusCode() != 206 || !startsAt(info.headers(), from)) {
+                return HttpResponse.BodySubscribers.replacing(-1L);
+            }
+            return options.memoryMapped()
+                    ? FileBodyHandlers.mappedSubscriber(channel, from, segment.end - from, segment::update)
+                    : FileBodyHandlers.channelSubscriber(channel, from, segment::update);
+        }
+
+        private DownloadResult finish(int segmentCount, MessageDigest streamed) {
+            try {
+                channel.close();
+                String sha256 = null;
+                if (expectedSha256 != null) {
+                    MessageDigest digest = streamed;
+                    if (digest == null) {
+                        digest = sha256();
+                        try (FileChannel written = FileChannel.open(part, StandardOpenOption.READ)) {
+                            read(written, 0, length, digest::update);
+                        }
+                    }
+                    sha256 = HexFormat.of().formatHex(digest.digest());
+                    if (!sha256.equalsIgnoreCase(expectedSha256)) {
+                        discard();
+                        throw new IOException("SHA-256 of " + uri + " is " + sha256 + ", expected " + expectedSha256);
+                    }
+                }
+                Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+                Files.deleteIfExists(journal);
+                return new DownloadResult(target, length, segmentCount, resumed,
+                        Duration.ofNanos(System.nanoTime() - startNanos), sha256);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }
+
+        /**
+         * Keep the progress for the next attempt, unless it belongs to an outdated file
+         */
+        private CompletableFuture<DownloadResult> failed(Throwable error) {
+            Throwable cause = unwrap(error);
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+                if (cause instanceof ResourceChangedException) {
+                    discard();
+                } else if (!segments.isEmpty()) {
+                    save();
+                }
+            } catch (IOException | UncheckedIOException e) {
+                cause.addSuppressed(e);
+            }
+            return CompletableFuture.failedFuture(cause);
+        }
+
+        private synchronized void save() {
+            List<SegmentState> states = segments.stream().map(Segment::snapshot).toList();
+            Path temp = journal.resolveSibling(journal.getFileName() + ".tmp");
+            try {
+                Files.writeString(temp, GSON.toJson(new Journal(uri.toString(), validator, length, states)));
+                Files.move(temp, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Drop the partial file and its journal; nothing is saved for this download anymore
+         */
+        private synchronized void discard() throws IOException {
+            segments = List.of();
+            Files.deleteIfExists(part);
+            Files.deleteIfExists(journal);
+        }
+    }
+
+    private static boolean startsAt(HttpHeaders headers, long from) {
+        return headers.firstValue("Content-Range")
+                .map(CONTENT_RANGE::matcher)
+                .filter(Matcher::matches)
+                .map(matcher -> Long.parseLong(matcher.group(1)) == from)
+                .orElse(false);
+    }
+
+    /**
+     * Feed [from, to) of the file to {@code sink} through read-only mappings
+     */
+    private static void read(FileChannel channel, long from, long to, Consumer<ByteBuffer> sink) throws IOException {
+        for (long position = from; position < to; position += MAP_WINDOW) {
+            sink.accept(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW, to - position)));
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof UncheckedIOException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
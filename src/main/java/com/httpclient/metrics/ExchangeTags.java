@@ -0,0 +1,14 @@
+package com.httpclient.metrics;
+
+import java.net.http.HttpClient;
+
+/**
+ * Dimensions every exchange metric is broken down by
+ */
+public record ExchangeTags(String host, String method, HttpClient.Version version) {
+
+    @Override
+    public String toString() {
+        return "host=" + host + ", method=" + method + ", version=" + version;
+    }
+}
@@ -0,0 +1,49 @@
+package com.httpclient.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event covering one exchange, from send to the last body byte.
+ * <p>
+ * Enable with {@code -XX:StartFlightRecording} (or JMC) and look for
+ * {@code com.httpclient.HttpExchange}. When no recording is running the event is never
+ * committed and costs next to nothing.
+ */
+@Name("com.httpclient.HttpExchange")
+@Label("HTTP Exchange")
+@Category({"HTTP Client"})
+@Description("One request/response exchange made through InstrumentedHttpClient")
+class HttpExchangeEvent extends jdk.jfr.Event {
+
+    @Label("URI")
+    String uri;
+
+    @Label("Method")
+    String method;
+
+    @Label("Version")
+    String version;
+
+    @Label("Status")
+    int status;
+
+    @Label("Error")
+    String error;
+
+    @Label("Time to First Byte")
+    @Timespan(Timespan.NANOSECONDS)
+    long timeToFirstByte;
+
+    @Label("Bytes Sent")
+    @DataAmount
+    long bytesOut;
+
+    @Label("Bytes Received")
+    @DataAmount
+    long bytesIn;
+}
@@ -0,0 +1,82 @@
+package com.httpclient.metrics;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process {@link MetricsRegistry}: LongAdder counters, AtomicLong gauges and
+ * HdrHistogram timers, for demos, benchmarks and tests.
+ */
+public class InMemoryMetricsRegistry implements MetricsRegistry {
+
+    private record Key(String name, ExchangeTags tags) {
+    }
+
+    private static final Comparator<Key> ORDER =
+            Comparator.comparing(Key::name).thenComparing(key -> key.tags().toString());
+
+    private final Map<Key, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<Key, AtomicLong> gauges = new ConcurrentHashMap<>();
+    private final Map<Key, LatencyRecorder> timers = new ConcurrentHashMap<>();
+
+    @Override
+    public void count(String name, ExchangeTags tags, long amount) {
+        counters.computeIfAbsent(new Key(name, tags), k -> new LongAdder()).add(amount);
+    }
+
+    @Override
+    public void adjust(String name, ExchangeTags tags, long delta) {
+        gauges.computeIfAbsent(new Key(name, tags), k -> new AtomicLong()).addAndGet(delta);
+    }
+
+    @Override
+    public void time(String name, ExchangeTags tags, long nanos) {
+        timers.computeIfAbsent(new Key(name, tags), k -> new LatencyRecorder()).record(nanos);
+    }
+
+    public long counter(String name, ExchangeTags tags) {
+        LongAdder counter = counters.get(new Key(name, tags));
+        return counter == null ? 0 : counter.sum();
+    }
+
+    public long gauge(String name, ExchangeTags tags) {
+        AtomicLong gauge = gauges.get(new Key(name, tags));
+        return gauge == null ? 0 : gauge.get();
+    }
+
+    /**
+     * Everything recorded for one timer so far, in nanoseconds (empty if never recorded)
+     */
+    public Histogram timer(String name, ExchangeTags tags) {
+        LatencyRecorder timer = timers.get(new Key(name, tags));
+        return timer == null ? new Histogram(3) : timer.snapshot();
+    }
+
+    /**
+     * Print every counter, gauge and timer (p50/p99/max in ms), sorted by name
+     */
+    public void printSummary() {
+        counters.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(ORDER))
+                .forEach(e -> System.out.println("  " + e.getKey().name() + " {" + e.getKey().tags() + "} = "
+                        + e.getValue().sum()));
+        gauges.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(ORDER))
+                .forEach(e -> System.out.println("  " + e.getKey().name() + " {" + e.getKey().tags() + "} = "
+                        + e.getValue().get()));
+        timers.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(ORDER))
+                .forEach(e -> {
+                    Histogram h = e.getValue().snapshot();
+                    System.out.printf("  %s {%s} count=%d p50=%.3f ms p99=%.3f ms max=%.3f ms%n",
+                            e.getKey().name(), e.getKey().tags(), h.getTotalCount(),
+                            h.getValueAtPercentile(50.0) / 1e6, h.getValueAtPercentile(99.0) / 1e6,
+                            h.getMaxValue() / 1e6);
+                });
+    }
+}
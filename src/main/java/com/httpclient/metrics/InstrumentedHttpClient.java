@@ -0,0 +1,304 @@
+package com.httpclient.metrics;
+
+import com.httpclient.util.ForwardingHttpClient;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * HttpClient decorator that measures every exchange into a {@link MetricsRegistry}
+ * and, optionally, as a JFR {@link HttpExchangeEvent}.
+ * <p>
+ * Per exchange it records:
+ * <ul>
+ *   <li>{@value #DISPATCH}: send until the client starts pulling the request body. The JDK
+ *       client does not expose connection or TLS setup, and this is the closest observable
+ *       point (queueing + connect + headers written); only requests with a body have it</li>
+ *   <li>{@value #TTFB}: send until the response headers arrive</li>
+ *   <li>{@value #BODY}: response headers until the last body byte</li>
+ *   <li>{@value #TOTAL}: send until the response (or failure) is handed back</li>
+ *   <li>{@value #RESPONSES}{@code <status>} and {@value #ERRORS}{@code <exception>} counters</li>
+ *   <li>{@value #BYTES_OUT} / {@value #BYTES_IN} body bytes, and the {@value #IN_FLIGHT} gauge</li>
+ * </ul>
+ * Timings and status are tagged with the negotiated protocol version; the gauge and errors
+ * with the requested one. With a disabled registry and no JFR events every call goes
+ * straight to the delegate.
+ */
+public class InstrumentedHttpClient extends ForwardingHttpClient {
+
+    public static final String DISPATCH = "http.client.dispatch";
+    public static final String TTFB = "http.client.ttfb";
+    public static final String BODY = "http.client.body";
+    public static final String TOTAL = "http.client.total";
+    public static final String RESPONSES = "http.client.responses.";
+    public static final String ERRORS = "http.client.errors.";
+    public static final String BYTES_OUT = "http.client.bytes.out";
+    public static final String BYTES_IN = "http.client.bytes.in";
+    public static final String IN_FLIGHT = "http.client.inflight";
+
+    private final MetricsRegistry registry;
+    private final boolean jfrEvents;
+    private final boolean enabled;
+
+    public InstrumentedHttpClient(HttpClient delegate, MetricsRegistry registry) {
+        this(delegate, registry, false);
+    }
+
+    /**
+     * @param jfrEvents also emit an {@link HttpExchangeEvent} per exchange
+     */
+    public InstrumentedHttpClient(HttpClient delegate, MetricsRegistry registry, boolean jfrEvents) {
+        super(delegate);
+        this.registry = registry;
+        this.jfrEvents = jfrEvents;
+        this.enabled = registry.isEnabled() || jfrEvents;
+    }
+
+    public MetricsRegistry registry() {
+        return registry;
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler)
+            throws IOException, InterruptedException {
+        if (!enabled) {
+            return delegate.send(request, responseBodyHandler);
+        }
+        Exchange<T> exchange = new Exchange<>(request, responseBodyHandler);
+        try {
+            HttpResponse<T> response = delegate.send(exchange.request, exchange.handler);
+            exchange.completed(response, null);
+            return response;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            exchange.completed(null, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler) {
+        if (!enabled) {
+            return delegate.sendAsync(request, responseBodyHandler);
+        }
+        Exchange<T> exchange = new Exchange<>(request, responseBodyHandler);
+        return measured(exchange, () -> delegate.sendAsync(exchange.request, exchange.handler));
+    }
+
+    // Pushed responses are not instrumented, only the main exchange
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler,
+                                                            HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        if (!enabled) {
+            return delegate.sendAsync(request, responseBodyHandler, pushPromiseHandler);
+        }
+        Exchange<T> exchange = new Exchange<>(request, responseBodyHandler);
+        return measured(exchange, () -> delegate.sendAsync(exchange.request, exchange.handler, pushPromiseHandler));
+    }
+
+    private static <T> CompletableFuture<HttpResponse<T>> measured(Exchange<T> exchange,
+                                                                   Supplier<CompletableFuture<HttpResponse<T>>> send) {
+        CompletableFuture<HttpResponse<T>> sent;
+        try {
+            sent = send.get();
+        } catch (RuntimeException e) {
+            // Thrown before any future exists: close the gauge and the JFR event here
+            exchange.completed(null, e);
+            throw e;
+        }
+        return sent.whenComplete(exchange::completed);
+    }
+
+    private static String errorName(Throwable error) {
+        Throwable cause = error.getCause() != null ? error.getCause() : error;
+        return cause.getClass().getSimpleName();
+    }
+
+    /**
+     * Measurements of one exchange. The response future and the body subscriber finish
+     * independently (e.g. ofInputStream completes before the body is read), so the JFR
+     * event is committed when the second of the two is done.
+     */
+    private final class Exchange<T> {
+        final HttpRequest request;
+        final HttpResponse.BodyHandler<T> handler;
+        private final String host;
+        private final ExchangeTags requested;
+        private final long start = System.nanoTime();
+        private final HttpExchangeEvent event;
+        private final AtomicInteger outstanding = new AtomicInteger(2);
+        private volatile ExchangeTags negotiated;
+        private volatile long headersAt;
+        private volatile long bytesOut;
+        private volatile long bytesIn;
+
+        Exchange(HttpRequest original, HttpResponse.BodyHandler<T> responseBodyHandler) {
+            this.host = original.uri().getHost();
+            this.requested = new ExchangeTags(host, original.method(), original.version().orElse(delegate.version()));
+            this.request = withCountingBody(original);
+            this.handler = responseInfo -> {
+                headersAt = System.nanoTime();
+                negotiated = new ExchangeTags(host, requested.method(), responseInfo.version());
+                return new CountingSubscriber(responseBodyHandler.apply(responseInfo));
+            };
+            if (jfrEvents) {
+                event = new HttpExchangeEvent();
+                event.uri = original.uri().toString();
+                event.method = original.method();
+                event.begin();
+            } else {
+                event = null;
+            }
+            registry.adjust(IN_FLIGHT, requested, 1);
+        }
+
+        private HttpRequest withCountingBody(HttpRequest original) {
+            // Body-less requests are left alone: the client never subscribes to an empty
+            // publisher, and replacing it would add a Content-Length: 0 header
+            HttpRequest.BodyPublisher body = original.bodyPublisher().orElse(null);
+            if (body == null || body.contentLength() == 0) {
+                return original;
+            }
+            return HttpRequest.newBuilder(original, (name, value) -> true)
+                    .method(original.method(), new CountingPublisher(body))
+                    .build();
+        }
+
+        void completed(HttpResponse<T> response, Throwable error) {
+            long now = System.nanoTime();
+            registry.adjust(IN_FLIGHT, requested, -1);
+            registry.count(BYTES_OUT, requested, bytesOut);
+            if (error != null) {
+                registry.count(ERRORS + errorName(error), requested, 1);
+            } else {
+                ExchangeTags tags = new ExchangeTags(host, requested.method(), response.version());
+                registry.count(RESPONSES + response.statusCode(), tags, 1);
+                registry.time(TTFB, tags, headersAt - start);
+                registry.time(TOTAL, tags, now - start);
+            }
+            if (event != null) {
+                event.timeToFirstByte = headersAt == 0 ? 0 : headersAt - start;
+                event.bytesOut = bytesOut;
+                if (response != null) {
+                    event.status = response.statusCode();
+                    event.version = response.version().toString();
+                } else {
+                    event.error = errorName(error);
+                }
+            }
+            // Failed before the headers: no body subscriber will ever report in
+            finish(negotiated == null ? 2 : 1);
+        }
+
+        void bodyDone(Throwable error) {
+            ExchangeTags tags = negotiated;
+            registry.count(BYTES_IN, tags, bytesIn);
+            if (error == null) {
+                registry.time(BODY, tags, System.nanoTime() - headersAt);
+            }
+            if (event != null) {
+                event.bytesIn = bytesIn;
+            }
+            finish(1);
+        }
+
+        private void finish(int parts) {
+            if (outstanding.addAndGet(-parts) <= 0 && event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.commit();
+                }
+            }
+        }
+
+        private final class CountingPublisher implements HttpRequest.BodyPublisher {
+            private final HttpRequest.BodyPublisher body;
+
+            CountingPublisher(HttpRequest.BodyPublisher body) {
+                this.body = body;
+            }
+
+            @Override
+            public long contentLength() {
+                return body.contentLength();
+            }
+
+            @Override
+            public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+                registry.time(DISPATCH, requested, System.nanoTime() - start);
+                body.subscribe(new Flow.Subscriber<>() {
+                    @Override
+                    public void onSubscribe(Flow.Subscription subscription) {
+                        subscriber.onSubscribe(subscription);
+                    }
+
+                    @Override
+                    public void onNext(ByteBuffer item) {
+                        bytesOut += item.remaining();
+                        subscriber.onNext(item);
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        subscriber.onError(throwable);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        subscriber.onComplete();
+                    }
+                });
+            }
+        }
+
+        private final class CountingSubscriber implements HttpResponse.BodySubscriber<T> {
+            private final HttpResponse.BodySubscriber<T> downstream;
+
+            CountingSubscriber(HttpResponse.BodySubscriber<T> downstream) {
+                this.downstream = downstream;
+            }
+
+            @Override
+            public CompletionStage<T> getBody() {
+                return downstream.getBody();
+            }
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                downstream.onSubscribe(subscription);
+            }
+
+            @Override
+            public void onNext(List<ByteBuffer> item) {
+                long n = 0;
+                for (ByteBuffer buffer : item) {
+                    n += buffer.remaining();
+                }
+                bytesIn += n;
+                downstream.onNext(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                bodyDone(throwable);
+                downstream.onError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                bodyDone(null);
+                downstream.onComplete();
+            }
+        }
+    }
+}
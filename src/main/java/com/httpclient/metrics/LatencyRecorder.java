@@ -0,0 +1,130 @@
+package com.httpclient.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request latency recorder backed by HdrHistogram.
+ * <p>
+ * Recording is wait-free and allocation-free, so it can be called from any thread,
+ * including {@code CompletableFuture} completions of {@code sendAsync}. Values are
+ * stored in nanoseconds and reported in milliseconds.
+ * <p>
+ * When an expected interval is given, every sample is also corrected for coordinated
+ * omission: a request that took longer than the interval back-fills the samples the
+ * stalled caller would have recorded had it kept to its schedule.
+ */
+public class LatencyRecorder {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(2);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double NANOS_PER_MS = 1_000_000.0;
+
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    private final Histogram accumulated = new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    private final long expectedIntervalNanos;
+
+    /**
+     * Recorder without coordinated-omission correction (open-loop or one-shot bursts)
+     */
+    public LatencyRecorder() {
+        this.expectedIntervalNanos = 0;
+    }
+
+    /**
+     * Recorder that corrects for coordinated omission against the given request interval
+     */
+    public LatencyRecorder(Duration expectedInterval) {
+        this.expectedIntervalNanos = expectedInterval.toNanos();
+    }
+
+    /**
+     * Record the time elapsed since {@code startNanos} (a {@link System#nanoTime()} value)
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Record one latency sample in nanoseconds
+     */
+    public void record(long latencyNanos) {
+        long value = Math.min(Math.max(latencyNanos, 0), HIGHEST_TRACKABLE_NANOS);
+        if (expectedIntervalNanos > 0) {
+            recorder.recordValueWithExpectedInterval(value, expectedIntervalNanos);
+        } else {
+            recorder.recordValue(value);
+        }
+    }
+
+    /**
+     * Everything recorded so far. The returned histogram is a copy and can be merged
+     * with {@link Histogram#add(org.HdrHistogram.AbstractHistogram)}.
+     */
+    public synchronized Histogram snapshot() {
+        Histogram interval = recorder.getIntervalHistogram();
+        if (accumulated.getTotalCount() == 0) {
+            accumulated.setStartTimeStamp(interval.getStartTimeStamp());
+        }
+        accumulated.add(interval);
+        accumulated.setEndTimeStamp(interval.getEndTimeStamp());
+        return accumulated.copy();
+    }
+
+    /**
+     * Print p50/p90/p99/p99.9/max in milliseconds
+     */
+    public void printPercentiles(String indent) {
+        print(snapshot(), indent);
+    }
+
+    /**
+     * Print p50/p90/p99/p99.9/max of a histogram recorded in nanoseconds
+     */
+    public static void print(Histogram histogram, String indent) {
+        System.out.println(indent + "Samples: " + histogram.getTotalCount());
+        System.out.println(indent + "p50:   " + millis(histogram.getValueAtPercentile(50.0)) + " ms");
+        System.out.println(indent + "p90:   " + millis(histogram.getValueAtPercentile(90.0)) + " ms");
+        System.out.println(indent + "p99:   " + millis(histogram.getValueAtPercentile(99.0)) + " ms");
+        System.out.println(indent + "p99.9: " + millis(histogram.getValueAtPercentile(99.9)) + " ms");
+        System.out.println(indent + "max:   " + millis(histogram.getMaxValue()) + " ms");
+    }
+
+    /**
+     * Export the recorded histogram to {@code <base>.hlog} (HdrHistogram log, readable with
+     * HistogramLogReader for run-to-run comparison) and {@code <base>.hgrm} (percentile
+     * distribution in ms, for the HdrHistogram plotter).
+     */
+    public void export(Path base) throws IOException {
+        Histogram histogram = snapshot();
+        Path parent = base.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        try (PrintStream log = new PrintStream(Files.newOutputStream(base.resolveSibling(base.getFileName() + ".hlog")))) {
+            HistogramLogWriter writer = new HistogramLogWriter(log);
+            writer.outputLogFormatVersion();
+            writer.setBaseTime(histogram.getStartTimeStamp());
+            writer.outputStartTime(histogram.getStartTimeStamp());
+            writer.outputLegend();
+            writer.outputIntervalHistogram(histogram);
+        }
+
+        try (PrintStream hgrm = new PrintStream(Files.newOutputStream(base.resolveSibling(base.getFileName() + ".hgrm")))) {
+            histogram.outputPercentileDistribution(hgrm, NANOS_PER_MS);
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / NANOS_PER_MS);
+    }
+}
@@ -0,0 +1,62 @@
+package com.httpclient.metrics;
+
+/**
+ * Sink for the measurements taken by {@link InstrumentedHttpClient}.
+ * <p>
+ * Implementations are called on the HttpClient's completion threads and must be
+ * thread-safe and cheap; adapt to an external metrics library by implementing this
+ * interface. {@link #noop()} reports itself disabled, which lets the client skip
+ * instrumentation entirely.
+ */
+public interface MetricsRegistry {
+
+    /**
+     * Registry that drops everything
+     */
+    static MetricsRegistry noop() {
+        return Noop.INSTANCE;
+    }
+
+    /**
+     * False when nothing would be recorded, so callers can skip the measurement itself
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * Add {@code amount} to a monotonic counter
+     */
+    void count(String name, ExchangeTags tags, long amount);
+
+    /**
+     * Move a gauge up or down by {@code delta}
+     */
+    void adjust(String name, ExchangeTags tags, long delta);
+
+    /**
+     * Record one duration in nanoseconds
+     */
+    void time(String name, ExchangeTags tags, long nanos);
+
+    enum Noop implements MetricsRegistry {
+        INSTANCE;
+
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void count(String name, ExchangeTags tags, long amount) {
+        }
+
+        @Override
+        public void adjust(String name, ExchangeTags tags, long delta) {
+        }
+
+        @Override
+        public void time(String name, ExchangeTags tags, long nanos) {
+        }
+    }
+}
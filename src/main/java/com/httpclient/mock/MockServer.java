@@ -0,0 +1,892 @@
+package com.httpclient.mock;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-process stand-in for the public services the demos talk to, on the loopback interface:
+ * <ul>
+ *   <li>jsonplaceholder at {@link #jsonPlaceholderUrl()}: /posts, /users and /comments with
+ *       their nested and filtered forms, GET/POST/PUT/PATCH/DELETE, 100 posts, 10 users</li>
+ *   <li>httpbin at {@link #httpBinUrl()}: /get, /post, /put, /patch, /delete, /anything,
+ *       /headers, /response-headers, /ip, /user-agent, /status/{code}, /delay/{s}, /bytes/{n},
+ *       /range/{n} (with Range requests), /stream/{n} and /gzip</li>
+ *   <li>streams of users at /stream/users (server-sent events, resumable) and
+ *       /stream/users.ndjson</li>
+ *   <li>a WebSocket echo at {@link #webSocketUrl()}</li>
+ * </ul>
+ * Data is generated from fixed seeds, so every run serves the same bytes. The
+ * {@link MockServerOptions} in effect add latency, errors, a bandwidth cap, cache headers or
+ * compression, and can be swapped at any time with {@link #setOptions}, e.g. to make the
+ * upstream stall halfway through a demo.
+ * <p>
+ * Run every demo against it with {@code -Dhttpclient.mock=true} (see
+ * {@link com.httpclient.util.Config}), or start it on fixed ports with {@link #main} and point
+ * the Config URL overrides at it. HTTP is served by {@code com.sun.net.httpserver}, so it only
+ * speaks HTTP/1.1; HTTP/2 clients fall back to it. Server threads are daemons.
+ */
+public class MockServer implements AutoCloseable {
+
+    public static final String HTTP_BIN_PATH = "/httpbin";
+
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final int COMPRESSION_THRESHOLD = 256;
+    private static final int MAX_GENERATED_BYTES = 16 * 1024 * 1024;
+    private static final Duration MAX_DELAY = Duration.ofSeconds(10);
+    private static final Gson GSON = new Gson();
+    private static final String[] WORDS = ("sunt aut facere repellat provident occaecati excepturi optio "
+            + "reprehenderit qui est esse dolor beatae ea dolores neque eum et iusto sed quo iure voluptatem "
+            + "occaecati omnis eligendi aut ad nesciunt quas odio magnam").split(" ");
+    private static final String[] NAMES = {"Leanne Graham", "Ervin Howell", "Clementine Bauch",
+            "Patricia Lebsack", "Chelsey Dietrich", "Dennis Schulist", "Kurtis Weissnat",
+            "Nicholas Runolfsdottir", "Glenna Reichert", "Clementina DuBuque"};
+
+    static {
+        // The server writes headers and body separately; with Nagle on, the body waits for
+        // the client's delayed ACK and every response takes 40 ms more. Read once per JVM.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer http;
+    private final WebSocketEchoServer webSocket;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, List<JsonObject>> resources = new LinkedHashMap<>();
+    private final Map<String, byte[]> listBodies = new LinkedHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder injectedErrors = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private volatile MockServerOptions options;
+
+    /**
+     * A parsed request, body already read. HEAD is routed as GET and only differs in
+     * {@link #head}.
+     */
+    private record Request(HttpExchange exchange, String method, boolean head, String path,
+                           Map<String, List<String>> query, byte[] body) {
+
+        String header(String name) {
+            return exchange.getRequestHeaders().getFirst(name);
+        }
+    }
+
+    /**
+     * What an endpoint answers, before the options are applied. A reply with a {@code stream}
+     * writes its body incrementally, chunked, instead of sending {@code body}.
+     */
+    private record Reply(int status, String contentType, byte[] body, Map<String, String> headers,
+                         BodyWriter stream) {
+
+        Reply(int status, String contentType, byte[] body, Map<String, String> headers) {
+            this(status, contentType, body, headers, null);
+        }
+
+        static Reply json(int status, JsonElement json) {
+            return new Reply(status, JSON, GSON.toJson(json).getBytes(StandardCharsets.UTF_8), Map.of());
+        }
+
+        static Reply json(int status, byte[] json) {
+            return new Reply(status, JSON, json, Map.of());
+        }
+
+        static Reply empty(int status) {
+            return new Reply(status, null, new byte[0], Map.of());
+        }
+    }
+
+    @FunctionalInterface
+    private interface Endpoint {
+        Reply handle(Request request) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface BodyWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private MockServer(MockServerOptions options, int httpPort, int webSocketPort) throws IOException {
+        generateData();
+        this.options = options;
+        this.webSocket = new WebSocketEchoServer(webSocketPort);
+        webSocket.setEchoDelay(options.latency());
+
+        http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), httpPort), 128);
+        http.setExecutor(executor);
+        http.createContext("/", exchange -> serve(exchange, this::jsonPlaceholder));
+        http.createContext(HTTP_BIN_PATH, exchange -> serve(exchange, this::httpBin));
+        http.createContext("/stream", exchange -> serve(exchange, this::stream));
+        // The dispatcher thread inherits daemon status from the thread that starts the server
+        Thread starter = Thread.ofPlatform().daemon().start(http::start);
+        try {
+            starter.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new InterruptedIOException("Interrupted while starting the mock server");
+        }
+    }
+
+    /**
+     * Mock server with default options on free ports
+     */
+    public static MockServer start() throws IOException {
+        return start(MockServerOptions.defaults());
+    }
+
+    public static MockServer start(MockServerOptions options) throws IOException {
+        return start(options, 0, 0);
+    }
+
+    /**
+     * @param httpPort      port for HTTP, 0 for any free one
+     * @param webSocketPort port for the WebSocket echo, 0 for any free one
+     */
+    public static MockServer start(MockServerOptions options, int httpPort, int webSocketPort) throws IOException {
+        return new MockServer(options, httpPort, webSocketPort);
+    }
+
+    /**
+     * e.g. http://127.0.0.1:54321
+     */
+    public URI baseUri() {
+        return URI.create("http://127.0.0.1:" + http.getAddress().getPort());
+    }
+
+    public String jsonPlaceholderUrl() {
+        return baseUri().toString();
+    }
+
+    public String httpBinUrl() {
+        return baseUri() + HTTP_BIN_PATH;
+    }
+
+    public String webSocketUrl() {
+        return webSocket.uri().toString();
+    }
+
+    public MockServerOptions options() {
+        return options;
+    }
+
+    /**
+     * Apply new options from the next request (and WebSocket frame) on
+     */
+    public void setOptions(MockServerOptions options) {
+        this.options = options;
+        webSocket.setEchoDelay(options.latency());
+    }
+
+    public long requests() {
+        return requests.sum();
+    }
+
+    public long injectedErrors() {
+        return injectedErrors.sum();
+    }
+
+    /**
+     * 304 answers to conditional requests
+     */
+    public long notModified() {
+        return notModified.sum();
+    }
+
+    /**
+     * Response body bytes written, after compression
+     */
+    public long bytesSent() {
+        return bytesSent.sum();
+    }
+
+    public void printStats() {
+        System.out.println("  Requests: " + requests() + ", Injected errors: " + injectedErrors()
+                + ", Not modified: " + notModified() + ", Bytes sent: " + bytesSent());
+    }
+
+    @Override
+    public void close() {
+        http.stop(0);
+        try {
+            webSocket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+        executor.shutdownNow();
+    }
+
+    // ------------ Request pipeline ------------
+
+    private void serve(HttpExchange exchange, Endpoint endpoint) {
+        try {
+            requests.increment();
+            URI uri = exchange.getRequestURI();
+            boolean head = exchange.getRequestMethod().equals("HEAD");
+            Request request = new Request(exchange, head ? "GET" : exchange.getRequestMethod(), head, uri.getPath(),
+                    parseQuery(uri.getRawQuery()), exchange.getRequestBody().readAllBytes());
+
+            MockServerOptions current = options;
+            pause(current.latency().toNanos() + (current.jitter().isPositive()
+                    ? ThreadLocalRandom.current().nextLong(current.jitter().toNanos() + 1) : 0));
+
+            Reply reply;
+            if (current.errorRate() > 0 && ThreadLocalRandom.current().nextDouble() < current.errorRate()) {
+                injectedErrors.increment();
+                JsonObject error = new JsonObject();
+                error.addProperty("error", "injected");
+                error.addProperty("status", current.errorStatus());
+                reply = Reply.json(current.errorStatus(), error);
+            } else {
+                reply = endpoint.handle(request);
+            }
+            write(request, reply, current);
+        } catch (IOException e) {
+            // Client went away
+        } catch (RuntimeException e) {
+            try {
+                exchange.sendResponseHeaders(500, -1);
+            } catch (IOException | RuntimeException ignored) {
+                // Headers already sent
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void write(Request request, Reply reply, MockServerOptions current) throws IOException {
+        Headers headers = request.exchange().getResponseHeaders();
+        reply.headers().forEach(headers::set);
+        if (reply.contentType() != null) {
+            headers.set("Content-Type", reply.contentType());
+        }
+        int status = reply.status();
+        byte[] body = reply.body();
+
+        if (reply.stream() != null) {
+            if (request.head()) {
+                request.exchange().sendResponseHeaders(status, -1);
+                return;
+            }
+            request.exchange().sendResponseHeaders(status, 0);
+            try (OutputStream out = new PacedOutputStream(request.exchange().getResponseBody(), current.bandwidth())) {
+                reply.stream().writeTo(out);
+            }
+            return;
+        }
+
+        if (current.cacheMaxAge().isPositive() && request.method().equals("GET") && status == 200) {
+            String etag = headers.containsKey("ETag") ? headers.getFirst("ETag") : etag(body);
+            headers.set("ETag", etag);
+            headers.set("Cache-Control", "max-age=" + current.cacheMaxAge().toSeconds());
+            String ifNoneMatch = request.header("If-None-Match");
+            if (ifNoneMatch != null && matches(ifNoneMatch, etag)) {
+                notModified.increment();
+                status = 304;
+                body = new byte[0];
+            }
+        }
+
+        if (current.compression() && body.length >= COMPRESSION_THRESHOLD
+                && !headers.containsKey("Content-Encoding") && acceptsGzip(request)) {
+            body = gzip(body);
+            headers.set("Content-Encoding", "gzip");
+            headers.add("Vary", "Accept-Encoding");
+        }
+
+        if (request.head()) {
+            // The server only adds Content-Length itself when there is a body to send
+            if (status != 204 && status != 304) {
+                headers.set("Content-Length", Integer.toString(body.length));
+            }
+            request.exchange().sendResponseHeaders(status, -1);
+            return;
+        }
+        if (status == 204 || status == 304 || body.length == 0) {
+            request.exchange().sendResponseHeaders(status, -1);
+            return;
+        }
+        request.exchange().sendResponseHeaders(status, body.length);
+        try (OutputStream out = new PacedOutputStream(request.exchange().getResponseBody(), current.bandwidth())) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Adds what it writes to {@link #bytesSent} and, given a rate, writes in small flushed
+     * chunks, sleeping so the average stays at {@code bytesPerSecond}
+     */
+    private final class PacedOutputStream extends FilterOutputStream {
+        private final long bytesPerSecond;
+        private final int chunk;
+        private final long start = System.nanoTime();
+        private long written;
+
+        PacedOutputStream(OutputStream out, long bytesPerSecond) {
+            super(out);
+            this.bytesPerSecond = bytesPerSecond;
+            this.chunk = (int) Math.max(1024, Math.min(16 * 1024, bytesPerSecond / 50));
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (bytesPerSecond <= 0) {
+                out.write(b, off, len);
+                bytesSent.add(len);
+                return;
+            }
+            for (int offset = off; offset < off + len; offset += chunk) {
+                int length = Math.min(chunk, off + len - offset);
+                out.write(b, offset, length);
+                out.flush();
+                bytesSent.add(length);
+                written += length;
+                pause(start + (long) (written * 1_000_000_000.0 / bytesPerSecond) - System.nanoTime());
+            }
+        }
+    }
+
+    // ------------ jsonplaceholder ------------
+
+    private Reply jsonPlaceholder(Request request) {
+        String[] parts = request.path().replaceAll("^/+|/+$", "").split("/");
+        String resource = parts[0];
+        List<JsonObject> items = resources.get(resource);
+        if (items == null || parts.length > 3) {
+            return Reply.json(404, new JsonObject());
+        }
+
+        if (parts.length == 1) {
+            return switch (request.method()) {
+                case "GET" -> request.query().isEmpty()
+                        ? Reply.json(200, listBodies.get(resource))
+                        : Reply.json(200, filter(items, request.query()));
+                case "POST" -> {
+                    JsonObject created = parseBody(request);
+                    created.addProperty("id", items.size() + 1);
+                    yield Reply.json(201, created);
+                }
+                default -> Reply.json(404, new JsonObject());
+            };
+        }
+
+        int id = parseInt(parts[1]);
+        if (id < 1 || id > items.size()) {
+            // Like jsonplaceholder, writes to unknown ids fail and reads return {}
+            return Reply.json(request.method().equals("GET") ? 404 : 500, new JsonObject());
+        }
+        JsonObject item = items.get(id - 1);
+
+        if (parts.length == 3) {
+            // Nested collections: /posts/1/comments, /users/1/posts
+            String parent = resource.substring(0, resource.length() - 1) + "Id";
+            List<JsonObject> children = resources.get(parts[2]);
+            if (children == null || !request.method().equals("GET")) {
+                return Reply.json(404, new JsonObject());
+            }
+            return Reply.json(200, filter(children, Map.of(parent, List.of(String.valueOf(id)))));
+        }
+
+        return switch (request.method()) {
+            case "GET" -> Reply.json(200, item);
+            case "PUT" -> {
+                JsonObject replaced = parseBody(request);
+                replaced.addProperty("id", id);
+                yield Reply.json(200, replaced);
+            }
+            case "PATCH" -> {
+                JsonObject patched = item.deepCopy();
+                parseBody(request).entrySet().forEach(e -> patched.add(e.getKey(), e.getValue()));
+                yield Reply.json(200, patched);
+            }
+            case "DELETE" -> Reply.json(200, new JsonObject());
+            default -> Reply.json(404, new JsonObject());
+        };
+    }
+
+    private static JsonArray filter(List<JsonObject> items, Map<String, List<String>> query) {
+        Predicate<JsonObject> matches = item -> query.entrySet().stream().allMatch(condition ->
+                item.has(condition.getKey())
+                        && condition.getValue().contains(item.get(condition.getKey()).getAsString()));
+        JsonArray result = new JsonArray();
+        items.stream().filter(matches).forEach(result::add);
+        return result;
+    }
+
+    private void generateData() {
+        List<JsonObject> users = new ArrayList<>();
+        for (int id = 1; id <= NAMES.length; id++) {
+            String name = NAMES[id - 1];
+            String username = name.split(" ")[0] + "." + id;
+            JsonObject user = new JsonObject();
+            user.addProperty("id", id);
+            user.addProperty("name", name);
+            user.addProperty("username", username);
+            user.addProperty("email", username.toLowerCase(Locale.ROOT) + "@example.com");
+            user.addProperty("website", username.toLowerCase(Locale.ROOT) + ".example.org");
+            users.add(user);
+        }
+
+        List<JsonObject> posts = new ArrayList<>();
+        List<JsonObject> comments = new ArrayList<>();
+        for (int id = 1; id <= 100; id++) {
+            Random random = new Random(id);
+            JsonObject post = new JsonObject();
+            post.addProperty("userId", (id - 1) / 10 + 1);
+            post.addProperty("id", id);
+            post.addProperty("title", words(random, 3 + random.nextInt(6)));
+            post.addProperty("body", words(random, 20 + random.nextInt(20)));
+            posts.add(post);
+
+            for (int c = 1; c <= 5; c++) {
+                JsonObject comment = new JsonObject();
+                comment.addProperty("postId", id);
+                comment.addProperty("id", comments.size() + 1);
+                comment.addProperty("name", words(random, 4));
+                comment.addProperty("email", "reader" + (comments.size() + 1) + "@example.com");
+                comment.addProperty("body", words(random, 15 + random.nextInt(15)));
+                comments.add(comment);
+            }
+        }
+
+        resources.put("posts", posts);
+        resources.put("users", users);
+        resources.put("comments", comments);
+        resources.forEach((name, items) -> {
+            JsonArray all = new JsonArray();
+            items.forEach(all::add);
+            listBodies.put(name, GSON.toJson(all).getBytes(StandardCharsets.UTF_8));
+        });
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    // ------------ Streams ------------
+
+    /**
+     * /stream/users (server-sent events) and /stream/users.ndjson: {@code count} users
+     * (default 100) with ids from 1, {@code interval} ms apart. Event streams resume after the
+     * {@code Last-Event-ID}, answer 204 once everything was sent, send {@code retry} when
+     * given and, with {@code drop=k}, close the connection after every k events.
+     */
+    private Reply stream(Request request) {
+        boolean ndjson = request.path().equals("/stream/users.ndjson");
+        if (!request.method().equals("GET") || (!ndjson && !request.path().equals("/stream/users"))) {
+            return Reply.empty(404);
+        }
+        long count = longParameter(request, "count", 100);
+        long interval = longParameter(request, "interval", 0);
+        long drop = longParameter(request, "drop", 0);
+        long retry = longParameter(request, "retry", -1);
+        long first = ndjson ? 1 : Math.max(1, longValue(request.header("Last-Event-ID"), 0) + 1);
+        if (first > count) {
+            return Reply.empty(204);
+        }
+        long last = drop > 0 ? Math.min(count, first + drop - 1) : count;
+
+        return new Reply(200, ndjson ? "application/x-ndjson" : "text/event-stream; charset=utf-8", new byte[0],
+                Map.of("Cache-Control", "no-cache"), out -> {
+            OutputStream buffered = new BufferedOutputStream(out, 16 * 1024);
+            if (!ndjson && retry >= 0) {
+                buffered.write(("retry: " + retry + "\n\n").getBytes(StandardCharsets.US_ASCII));
+            }
+            StringBuilder line = new StringBuilder(128);
+            for (long id = first; id <= last; id++) {
+                if (interval > 0 && id > first) {
+                    buffered.flush();
+                    pause(Duration.ofMillis(interval).toNanos());
+                }
+                line.setLength(0);
+                if (!ndjson) {
+                    line.append("id: ").append(id).append("\nevent: user\ndata: ");
+                }
+                String name = NAMES[(int) ((id - 1) % NAMES.length)];
+                line.append("{\"id\":").append(id).append(",\"name\":\"").append(name)
+                        .append("\",\"email\":\"user").append(id).append("@example.com\"}\n");
+                if (!ndjson) {
+                    line.append('\n');
+                }
+                buffered.write(line.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            buffered.flush();
+        });
+    }
+
+    private static long longParameter(Request request, String name, long fallback) {
+        List<String> values = request.query().get(name);
+        return values == null ? fallback : longValue(values.getFirst(), fallback);
+    }
+
+    private static long longValue(String value, long fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    // ------------ httpbin ------------
+
+    private Reply httpBin(Request request) throws IOException {
+        String path = request.path().substring(HTTP_BIN_PATH.length());
+        String[] parts = path.replaceAll("^/+|/+$", "").split("/");
+
+        return switch (parts[0]) {
+            case "get", "post", "put", "patch", "delete" -> request.method().equalsIgnoreCase(parts[0])
+                    ? Reply.json(200, echo(request, false))
+                    : Reply.empty(405);
+            case "anything" -> Reply.json(200, echo(request, true));
+            case "headers" -> {
+                JsonObject headers = new JsonObject();
+                headers.add("headers", headers(request));
+                yield Reply.json(200, headers);
+            }
+            case "response-headers" -> {
+                // Every query parameter becomes a response header, e.g. ?Cache-Control=no-store
+                Map<String, String> headers = new LinkedHashMap<>();
+                request.query().forEach((name, values) -> headers.put(name, values.getFirst()));
+                yield new Reply(200, JSON, GSON.toJson(toJson(request.query())).getBytes(StandardCharsets.UTF_8),
+                        headers);
+            }
+            case "ip" -> {
+                JsonObject ip = new JsonObject();
+                ip.addProperty("origin", origin(request));
+                yield Reply.json(200, ip);
+            }
+            case "user-agent" -> {
+                JsonObject agent = new JsonObject();
+                agent.addProperty("user-agent", request.header("User-Agent"));
+                yield Reply.json(200, agent);
+            }
+            case "status" -> parts.length == 2 ? Reply.empty(parseInt(parts[1])) : Reply.empty(404);
+            case "delay" -> {
+                long seconds = parts.length == 2 ? parseInt(parts[1]) : 0;
+                pause(Math.min(Duration.ofSeconds(Math.max(0, seconds)).toNanos(), MAX_DELAY.toNanos()));
+                yield Reply.json(200, echo(request, false));
+            }
+            case "bytes" -> {
+                byte[] bytes = new byte[Math.min(Math.max(0, parts.length == 2 ? parseInt(parts[1]) : 0),
+                        MAX_GENERATED_BYTES)];
+                List<String> seed = request.query().get("seed");
+                new Random(seed == null ? 0 : Long.parseLong(seed.get(0))).nextBytes(bytes);
+                yield new Reply(200, "application/octet-stream", bytes, Map.of());
+            }
+            case "range" -> range(request, parts.length == 2 ? parseInt(parts[1]) : 0);
+            case "stream" -> {
+                // httpbin caps streams at 100 lines
+                int lines = Math.min(Math.max(0, parts.length == 2 ? parseInt(parts[1]) : 0), 100);
+                JsonObject echo = echo(request, false);
+                yield new Reply(200, JSON, new byte[0], Map.of(), out -> {
+                    for (int id = 0; id < lines; id++) {
+                        echo.addProperty("id", id);
+                        out.write(GSON.toJson(echo).getBytes(StandardCharsets.UTF_8));
+                        out.write('\n');
+                    }
+                });
+            }
+            case "gzip" -> {
+                JsonObject body = echo(request, false);
+                body.addProperty("gzipped", true);
+                yield new Reply(200, JSON, gzip(GSON.toJson(body).getBytes(StandardCharsets.UTF_8)),
+                        Map.of("Content-Encoding", "gzip"));
+            }
+            default -> Reply.empty(404);
+        };
+    }
+
+    /**
+     * The httpbin echo object: args, data, form, headers, json, origin, url (and method)
+     */
+    private JsonObject echo(Request request, boolean withMethod) {
+        JsonObject echo = new JsonObject();
+        echo.add("args", toJson(request.query()));
+        String contentType = request.header("Content-Type");
+        String data = new String(request.body(), StandardCharsets.UTF_8);
+        boolean form = contentType != null && contentType.startsWith("application/x-www-form-urlencoded");
+        echo.addProperty("data", form ? "" : data);
+        echo.add("files", new JsonObject());
+        echo.add("form", form ? toJson(parseQuery(data)) : new JsonObject());
+        echo.add("headers", headers(request));
+        JsonElement json = JsonNull.INSTANCE;
+        if (!form && !data.isBlank()) {
+            try {
+                json = JsonParser.parseString(data);
+            } catch (JsonParseException e) {
+                // Not JSON: httpbin reports null
+            }
+        }
+        echo.add("json", json);
+        if (withMethod) {
+            echo.addProperty("method", request.method());
+        }
+        echo.addProperty("origin", origin(request));
+        echo.addProperty("url", baseUri() + request.exchange().getRequestURI().toString());
+        return echo;
+    }
+
+    /**
+     * httpbin's /range/{n}: the alphabet repeated, honouring a single "bytes=" range and If-Range
+     */
+    private static Reply range(Request request, int size) {
+        byte[] content = new byte[Math.min(Math.max(0, size), MAX_GENERATED_BYTES)];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+        String etag = "\"range" + content.length + "\"";
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Accept-Ranges", "bytes");
+        headers.put("ETag", etag);
+
+        String range = request.header("Range");
+        String ifRange = request.header("If-Range");
+        if (range == null || (ifRange != null && !ifRange.equals(etag))) {
+            return new Reply(200, "application/octet-stream", content, headers);
+        }
+        long[] bounds = parseRange(range, content.length);
+        if (bounds == null) {
+            headers.put("Content-Range", "bytes */" + content.length);
+            return new Reply(416, null, new byte[0], headers);
+        }
+        int from = (int) bounds[0];
+        int to = (int) bounds[1];
+        byte[] part = new byte[to - from + 1];
+        System.arraycopy(content, from, part, 0, part.length);
+        headers.put("Content-Range", "bytes " + from + "-" + to + "/" + content.length);
+        return new Reply(206, "application/octet-stream", part, headers);
+    }
+
+    /**
+     * First and last byte of "bytes=a-b", "bytes=a-" or "bytes=-n", or null if unsatisfiable
+     */
+    private static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.contains(",")) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            long from;
+            long to;
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                from = Math.max(0, length - suffix);
+                to = length - 1;
+            } else {
+                from = Long.parseLong(spec.substring(0, dash));
+                to = dash == spec.length() - 1 ? length - 1 : Math.min(Long.parseLong(spec.substring(dash + 1)), length - 1);
+            }
+            return from <= to && from < length ? new long[]{from, to} : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static JsonObject headers(Request request) {
+        JsonObject headers = new JsonObject();
+        request.exchange().getRequestHeaders().forEach((name, values) ->
+                headers.addProperty(canonical(name), String.join(",", values)));
+        return headers;
+    }
+
+    private static String origin(Request request) {
+        return request.exchange().getRemoteAddress().getAddress().getHostAddress();
+    }
+
+    // ------------ Helpers ------------
+
+    private static JsonObject parseBody(Request request) {
+        String text = new String(request.body(), StandardCharsets.UTF_8);
+        String contentType = request.header("Content-Type");
+        if (contentType != null && contentType.startsWith("application/x-www-form-urlencoded")) {
+            JsonObject form = new JsonObject();
+            parseQuery(text).forEach((name, values) -> form.addProperty(name, values.getLast()));
+            return form;
+        }
+        try {
+            JsonElement json = JsonParser.parseString(text);
+            return json.isJsonObject() ? json.getAsJsonObject() : new JsonObject();
+        } catch (JsonParseException e) {
+            return new JsonObject();
+        }
+    }
+
+    private static Map<String, List<String>> parseQuery(String raw) {
+        Map<String, List<String>> query = new LinkedHashMap<>();
+        if (raw == null || raw.isEmpty()) {
+            return query;
+        }
+        for (String pair : raw.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            query.computeIfAbsent(name, n -> new ArrayList<>()).add(value);
+        }
+        return query;
+    }
+
+    /**
+     * Single values as strings, repeated ones as arrays, as httpbin does
+     */
+    private static JsonObject toJson(Map<String, List<String>> values) {
+        JsonObject json = new JsonObject();
+        values.forEach((name, list) -> {
+            if (list.size() == 1) {
+                json.addProperty(name, list.getFirst());
+            } else {
+                JsonArray array = new JsonArray();
+                list.forEach(array::add);
+                json.add(name, array);
+            }
+        });
+        return json;
+    }
+
+    /**
+     * "content-type" -> "Content-Type"
+     */
+    private static String canonical(String name) {
+        StringBuilder result = new StringBuilder(name.length());
+        boolean upper = true;
+        for (char c : name.toCharArray()) {
+            result.append(upper ? Character.toUpperCase(c) : Character.toLowerCase(c));
+            upper = c == '-';
+        }
+        return result.toString();
+    }
+
+    private static boolean acceptsGzip(Request request) {
+        String accept = request.header("Accept-Encoding");
+        return accept != null && accept.toLowerCase(Locale.ROOT).contains("gzip");
+    }
+
+    private static String etag(byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return "\"" + HexFormat.of().toHexDigits((int) crc.getValue()) + "-" + Integer.toHexString(body.length) + "\"";
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static int parseInt(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Sleep without throwing; returns early once the thread is interrupted (the server is
+     * shutting down), since parkNanos would otherwise return immediately and spin
+     */
+    private static void pause(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * Run standalone: {@code MockServer [http-port] [websocket-port]} (default 8089 and 8090),
+     * options from {@link MockServerOptions#fromSystemProperties()}
+     */
+    public static void main(String[] args) throws Exception {
+        int httpPort = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        int webSocketPort = args.length > 1 ? Integer.parseInt(args[1]) : 8090;
+        MockServer server = start(MockServerOptions.fromSystemProperties(), httpPort, webSocketPort);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+
+        System.out.println("=== Mock Server ===\n");
+        System.out.println("🧪 jsonplaceholder: " + server.jsonPlaceholderUrl());
+        System.out.println("🧪 httpbin:         " + server.httpBinUrl());
+        System.out.println("🧪 WebSocket echo:  " + server.webSocketUrl());
+        System.out.println("⚙️  " + server.options());
+        System.out.println("\nPoint the demos at it with:");
+        System.out.println("  -Dhttpclient.jsonplaceholder.url=" + server.jsonPlaceholderUrl()
+                + " -Dhttpclient.httpbin.url=" + server.httpBinUrl()
+                + " -Dhttpclient.websocket.url=" + server.webSocketUrl());
+        new CountDownLatch(1).await();
+    }
+}
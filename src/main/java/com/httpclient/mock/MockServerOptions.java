@@ -0,0 +1,100 @@
+package com.httpclient.mock;
+
+import com.httpclient.config.ClientProfiles;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Faults and response decorations a {@link MockServer} applies to every HTTP response.
+ *
+ * @param latency      added before every response (and every WebSocket echo)
+ * @param jitter       up to this much more latency, uniformly random
+ * @param errorRate    share (0..1) of requests answered with {@code errorStatus} instead
+ * @param errorStatus  status of injected errors
+ * @param bandwidth    response bytes per second per exchange, 0 for unlimited
+ * @param cacheMaxAge  when positive, 200 GET responses carry {@code Cache-Control: max-age} and
+ *                     an ETag, and a matching {@code If-None-Match} gets a 304
+ * @param compression  gzip responses of 256 bytes or more for clients that accept it
+ */
+public record MockServerOptions(Duration latency,
+                                Duration jitter,
+                                double errorRate,
+                                int errorStatus,
+                                long bandwidth,
+                                Duration cacheMaxAge,
+                                boolean compression) {
+
+    /**
+     * Immediate, error-free, unthrottled, no cache headers, no compression
+     */
+    public static MockServerOptions defaults() {
+        return new MockServerOptions(Duration.ZERO, Duration.ZERO, 0.0, 503, 0, Duration.ZERO, false);
+    }
+
+    /**
+     * Defaults overridden by {@code httpclient.mock.<setting>} system properties or
+     * {@code HTTPCLIENT_MOCK_<SETTING>} environment variables: latency, jitter, error-rate,
+     * error-status, bandwidth, cache-max-age and compression, in the formats client profiles use
+     */
+    public static MockServerOptions fromSystemProperties() {
+        Function<String, String> setting = name -> {
+            String value = System.getProperty("httpclient.mock." + name);
+            return value != null ? value
+                    : System.getenv("HTTPCLIENT_MOCK_" + name.toUpperCase(Locale.ROOT).replace('-', '_'));
+        };
+        MockServerOptions options = defaults();
+        String latency = setting.apply("latency");
+        String jitter = setting.apply("jitter");
+        if (latency != null || jitter != null) {
+            options = options.withLatency(latency == null ? Duration.ZERO : ClientProfiles.parseDuration(latency),
+                    jitter == null ? Duration.ZERO : ClientProfiles.parseDuration(jitter));
+        }
+        String errorRate = setting.apply("error-rate");
+        String errorStatus = setting.apply("error-status");
+        if (errorRate != null || errorStatus != null) {
+            options = options.withErrors(errorRate == null ? options.errorRate() : Double.parseDouble(errorRate),
+                    errorStatus == null ? options.errorStatus() : Integer.parseInt(errorStatus));
+        }
+        String bandwidth = setting.apply("bandwidth");
+        if (bandwidth != null) {
+            options = options.withBandwidth(ClientProfiles.parseSize(bandwidth));
+        }
+        String cacheMaxAge = setting.apply("cache-max-age");
+        if (cacheMaxAge != null) {
+            options = options.withCaching(ClientProfiles.parseDuration(cacheMaxAge));
+        }
+        String compression = setting.apply("compression");
+        if (compression != null) {
+            options = options.withCompression(Boolean.parseBoolean(compression));
+        }
+        return options;
+    }
+
+    public MockServerOptions withLatency(Duration latency, Duration jitter) {
+        return new MockServerOptions(latency, jitter, errorRate, errorStatus, bandwidth, cacheMaxAge, compression);
+    }
+
+    public MockServerOptions withErrors(double errorRate, int errorStatus) {
+        return new MockServerOptions(latency, jitter, errorRate, errorStatus, bandwidth, cacheMaxAge, compression);
+    }
+
+    /**
+     * Cap each response at {@code bytesPerSecond}; 0 removes the cap
+     */
+    public MockServerOptions withBandwidth(long bytesPerSecond) {
+        return new MockServerOptions(latency, jitter, errorRate, errorStatus, bytesPerSecond, cacheMaxAge, compression);
+    }
+
+    /**
+     * Cache-Control max-age and ETags on GET responses; {@link Duration#ZERO} turns them off
+     */
+    public MockServerOptions withCaching(Duration maxAge) {
+        return new MockServerOptions(latency, jitter, errorRate, errorStatus, bandwidth, maxAge, compression);
+    }
+
+    public MockServerOptions withCompression(boolean compression) {
+        return new MockServerOptions(latency, jitter, errorRate, errorStatus, bandwidth, cacheMaxAge, compression);
+    }
+}
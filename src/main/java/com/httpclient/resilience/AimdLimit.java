@@ -0,0 +1,48 @@
+package com.httpclient.resilience;
+
+import java.time.Duration;
+
+/**
+ * Additive-increase / multiplicative-decrease limit, like TCP congestion control.
+ * <p>
+ * Grows by one for every successful sample taken while the limit was actually in use,
+ * and shrinks by {@code backoffRatio} on a drop or a sample slower than {@code slowThreshold}.
+ */
+public class AimdLimit implements LimitAlgorithm {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long slowThresholdNanos;
+    private int limit;
+
+    public AimdLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio, Duration slowThreshold) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    /**
+     * 20 initial, 1..200, back off to 90% on drops or samples over 5 seconds
+     */
+    public static AimdLimit defaults() {
+        return new AimdLimit(20, 1, 200, 0.9, Duration.ofSeconds(5));
+    }
+
+    @Override
+    public int limit() {
+        return limit;
+    }
+
+    @Override
+    public void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (dropped || rttNanos > slowThresholdNanos) {
+            limit = Math.max(minLimit, (int) (limit * backoffRatio));
+        } else if (inFlight * 2 >= limit) {
+            // Only grow when the current limit is actually being used
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+}
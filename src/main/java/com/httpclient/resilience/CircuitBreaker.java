@@ -0,0 +1,254 @@
+package com.httpclient.resilience;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Lock-free circuit breaker over a count-based sliding window.
+ * <p>
+ * CLOSED lets every call through and records its outcome in a ring of the last
+ * {@code windowSize} calls. Once the window holds {@code minimumCalls} and either the
+ * failure or the slow-call rate reaches its threshold, the circuit OPENs and rejects calls
+ * immediately with a {@link CircuitBreakerOpenException}, so callers stop queueing behind a
+ * stalled upstream. After {@code openDuration} it goes HALF_OPEN and lets
+ * {@code halfOpenProbes} calls through: if they all succeed quickly it CLOSEs with an empty
+ * window, any failure or slow probe OPENs it again.
+ * <p>
+ * State lives in an immutable phase object swapped by CAS; outcomes that arrive after the
+ * phase they were admitted in has ended are dropped. Every transition is reported to the
+ * listener on the thread that caused it.
+ */
+public class CircuitBreaker {
+
+    private static final int RECORDED = 1;
+    private static final int FAILED = 2;
+    private static final int SLOW = 4;
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * A state change, with the window rates that caused it
+     */
+    public record Transition(String name, State from, State to, double failureRate, double slowCallRate,
+                             Instant at) {
+    }
+
+    /**
+     * Current state and window of one breaker
+     */
+    public record Stats(State state, int calls, double failureRate, double slowCallRate, long rejected) {
+    }
+
+    /**
+     * Admission of one call; report its outcome exactly once. Only the first report counts.
+     */
+    public interface Permit {
+        /**
+         * The call ended; latency is measured from admission
+         */
+        void release(boolean failed);
+
+        /**
+         * The call is still running but already past the slow-call duration; count it as
+         * slow now instead of when it ends
+         */
+        void markSlow();
+
+        /**
+         * The call ended without telling anything about the upstream, e.g. it was cancelled
+         */
+        void abandon();
+    }
+
+    private final String name;
+    private final CircuitBreakerPolicy policy;
+    private final Consumer<Transition> listener;
+    private final AtomicReference<Phase> phase;
+    private final AtomicIntegerArray window;
+    private final AtomicLong cursor = new AtomicLong();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger slowCalls = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    public CircuitBreaker(String name, CircuitBreakerPolicy policy) {
+        this(name, policy, transition -> {
+        });
+    }
+
+    public CircuitBreaker(String name, CircuitBreakerPolicy policy, Consumer<Transition> listener) {
+        this.name = name;
+        this.policy = policy;
+        this.listener = listener;
+        this.window = new AtomicIntegerArray(policy.windowSize());
+        this.phase = new AtomicReference<>(new Phase(State.CLOSED, System.nanoTime(), 0));
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public CircuitBreakerPolicy policy() {
+        return policy;
+    }
+
+    public State state() {
+        return phase.get().state;
+    }
+
+    /**
+     * Admit one call
+     *
+     * @throws CircuitBreakerOpenException if the circuit is open or all probes are taken
+     */
+    public Permit acquire() throws CircuitBreakerOpenException {
+        while (true) {
+            Phase current = phase.get();
+            switch (current.state) {
+                case CLOSED:
+                    return new CallPermit(current);
+                case HALF_OPEN:
+                    if (current.probesLeft.getAndDecrement() > 0) {
+                        return new CallPermit(current);
+                    }
+                    current.probesLeft.incrementAndGet();
+                    throw reject(Duration.ZERO);
+                default:
+                    long openFor = System.nanoTime() - current.sinceNanos;
+                    long remaining = policy.openDuration().toNanos() - openFor;
+                    if (remaining > 0) {
+                        throw reject(Duration.ofNanos(remaining));
+                    }
+                    // Whoever wins the CAS starts probing; everyone loops to the new phase
+                    transition(current, State.HALF_OPEN);
+            }
+        }
+    }
+
+    public Stats stats() {
+        int total = calls.get();
+        return new Stats(state(), total, rate(failures.get(), total), rate(slowCalls.get(), total), rejected.sum());
+    }
+
+    private CircuitBreakerOpenException reject(Duration retryAfter) {
+        rejected.increment();
+        return new CircuitBreakerOpenException("Circuit " + name + " is " + state(), retryAfter);
+    }
+
+    /**
+     * Outcome of a call admitted while {@code admitted} was the phase
+     */
+    private void record(Phase admitted, int outcome) {
+        if (phase.get() != admitted) {
+            return;
+        }
+        if (admitted.state == State.HALF_OPEN) {
+            if ((outcome & (FAILED | SLOW)) != 0) {
+                transition(admitted, State.OPEN);
+            } else if (admitted.probeSuccesses.incrementAndGet() >= policy.halfOpenProbes()) {
+                transition(admitted, State.CLOSED);
+            }
+            return;
+        }
+
+        int slot = (int) (cursor.getAndIncrement() % window.length());
+        int previous = window.getAndSet(slot, outcome);
+        int total = (previous & RECORDED) == 0 ? calls.incrementAndGet() : calls.get();
+        int failed = failures.addAndGet(bit(outcome, FAILED) - bit(previous, FAILED));
+        int slow = slowCalls.addAndGet(bit(outcome, SLOW) - bit(previous, SLOW));
+        if (total >= policy.minimumCalls()
+                && (rate(failed, total) >= policy.failureRateThreshold()
+                || rate(slow, total) >= policy.slowCallRateThreshold())) {
+            transition(admitted, State.OPEN);
+        }
+    }
+
+    private void transition(Phase from, State to) {
+        int total = calls.get();
+        double failureRate = rate(failures.get(), total);
+        double slowCallRate = rate(slowCalls.get(), total);
+        if (to == State.CLOSED) {
+            // Only the probe that completed the set gets here, and nothing records while half-open
+            for (int i = 0; i < window.length(); i++) {
+                window.set(i, 0);
+            }
+            calls.set(0);
+            failures.set(0);
+            slowCalls.set(0);
+        }
+        Phase next = new Phase(to, System.nanoTime(), to == State.HALF_OPEN ? policy.halfOpenProbes() : 0);
+        if (phase.compareAndSet(from, next)) {
+            try {
+                listener.accept(new Transition(name, from.state, to, failureRate, slowCallRate, Instant.now()));
+            } catch (RuntimeException e) {
+                // A broken listener must not break the call that triggered it
+            }
+        }
+    }
+
+    private static int bit(int outcome, int flag) {
+        return (outcome & flag) != 0 ? 1 : 0;
+    }
+
+    private static double rate(int count, int total) {
+        return total == 0 ? 0.0 : (double) count / total;
+    }
+
+    /**
+     * One stay in a state; probe counters belong to the half-open stay they were issued in
+     */
+    private static final class Phase {
+        final State state;
+        final long sinceNanos;
+        final AtomicInteger probesLeft;
+        final AtomicInteger probeSuccesses = new AtomicInteger();
+
+        Phase(State state, long sinceNanos, int probes) {
+            this.state = state;
+            this.sinceNanos = sinceNanos;
+            this.probesLeft = new AtomicInteger(probes);
+        }
+    }
+
+    private class CallPermit implements Permit {
+        private final Phase admitted;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean reported = new AtomicBoolean();
+
+        CallPermit(Phase admitted) {
+            this.admitted = admitted;
+        }
+
+        @Override
+        public void release(boolean failed) {
+            if (reported.compareAndSet(false, true)) {
+                boolean slow = System.nanoTime() - startNanos >= policy.slowCallDuration().toNanos();
+                record(admitted, RECORDED | (failed ? FAILED : 0) | (slow ? SLOW : 0));
+            }
+        }
+
+        @Override
+        public void markSlow() {
+            if (reported.compareAndSet(false, true)) {
+                record(admitted, RECORDED | SLOW);
+            }
+        }
+
+        @Override
+        public void abandon() {
+            if (reported.compareAndSet(false, true) && admitted.state == State.HALF_OPEN) {
+                // Give the probe back
+                admitted.probesLeft.incrementAndGet();
+            }
+        }
+    }
+}
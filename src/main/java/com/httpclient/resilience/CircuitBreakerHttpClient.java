@@ -0,0 +1,176 @@
+package com.httpclient.resilience;
+
+import com.httpclient.util.ForwardingHttpClient;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * HttpClient decorator with one {@link CircuitBreaker} per host (or per route).
+ * <p>
+ * While a host's circuit is open, requests to it fail at once with a
+ * {@link CircuitBreakerOpenException} instead of holding a thread or a future for the full
+ * request timeout. Calls still running when they pass the slow-call duration are counted
+ * as slow right then, so a stalled upstream trips the breaker after about
+ * {@code slowCallDuration}, not after the first timeouts come back.
+ * <p>
+ * Put it outside a {@link RetryingHttpClient} to stop retries along with first attempts;
+ * {@link RetryPolicy} never retries the rejection itself.
+ */
+public class CircuitBreakerHttpClient extends ForwardingHttpClient {
+
+    /**
+     * Fires markSlow for calls still running after the slow-call duration. A completed call
+     * cancels its timer, which with remove-on-cancel also drops the task (and the permit it
+     * holds) from the queue right away instead of at the deadline.
+     */
+    private static final ScheduledThreadPoolExecutor SLOW_CALL_TIMER = slowCallTimer();
+
+    private final CircuitBreakerPolicy policy;
+    private final Function<HttpRequest, String> key;
+    private final Consumer<CircuitBreaker.Transition> listener;
+    private final long slowCallNanos;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public CircuitBreakerHttpClient(HttpClient delegate) {
+        this(delegate, CircuitBreakerPolicy.defaults());
+    }
+
+    public CircuitBreakerHttpClient(HttpClient delegate, CircuitBreakerPolicy policy) {
+        this(delegate, policy, byHost(), transition -> {
+        });
+    }
+
+    /**
+     * @param key      which breaker a request belongs to, e.g. {@link #byHost()} or {@link #byRoute()}
+     * @param listener told about every state change of every breaker
+     */
+    public CircuitBreakerHttpClient(HttpClient delegate, CircuitBreakerPolicy policy,
+                                    Function<HttpRequest, String> key,
+                                    Consumer<CircuitBreaker.Transition> listener) {
+        super(delegate);
+        this.policy = policy;
+        this.key = key;
+        this.listener = listener;
+        this.slowCallNanos = policy.slowCallDuration().toNanos();
+    }
+
+    /**
+     * One breaker per host:port
+     */
+    public static Function<HttpRequest, String> byHost() {
+        return request -> request.uri().getHost() + ":" + port(request.uri());
+    }
+
+    /**
+     * One breaker per host:port and first path segment, e.g. "api:443/users"
+     */
+    public static Function<HttpRequest, String> byRoute() {
+        return request -> {
+            String path = request.uri().getRawPath() == null ? "" : request.uri().getRawPath();
+            int end = path.indexOf('/', 1);
+            return request.uri().getHost() + ":" + port(request.uri()) + (end < 0 ? path : path.substring(0, end));
+        };
+    }
+
+    /**
+     * The breaker for {@code name}, created on first use
+     */
+    public CircuitBreaker breaker(String name) {
+        return breakers.computeIfAbsent(name, n -> new CircuitBreaker(n, policy, listener));
+    }
+
+    public Map<String, CircuitBreaker.Stats> stats() {
+        Map<String, CircuitBreaker.Stats> stats = new LinkedHashMap<>();
+        breakers.forEach((name, breaker) -> stats.put(name, breaker.stats()));
+        return stats;
+    }
+
+    /**
+     * Print one line per breaker
+     */
+    public void printStats() {
+        stats().forEach((name, s) -> System.out.println("  " + name
+                + ": " + s.state()
+                + ", calls=" + s.calls()
+                + ", failures=" + String.format("%.0f", s.failureRate() * 100) + "%"
+                + ", slow=" + String.format("%.0f", s.slowCallRate() * 100) + "%"
+                + ", rejected=" + s.rejected()));
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler)
+            throws IOException, InterruptedException {
+        return await(sendAsync(request, responseBodyHandler));
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler) {
+        return sendAsync(request, responseBodyHandler, null);
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler,
+                                                            HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        CircuitBreaker.Permit permit;
+        try {
+            permit = breaker(key.apply(request)).acquire();
+        } catch (CircuitBreakerOpenException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<HttpResponse<T>> future;
+        try {
+            future = pushPromiseHandler == null
+                    ? delegate.sendAsync(request, responseBodyHandler)
+                    : delegate.sendAsync(request, responseBodyHandler, pushPromiseHandler);
+        } catch (RuntimeException e) {
+            permit.abandon();
+            throw e;
+        }
+        ScheduledFuture<?> slowCall = SLOW_CALL_TIMER.schedule(permit::markSlow, slowCallNanos, TimeUnit.NANOSECONDS);
+        return future.whenComplete((response, error) -> {
+            slowCall.cancel(false);
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            if (cause instanceof CancellationException
+                    || cause instanceof LimitExceededException
+                    || cause instanceof CircuitBreakerOpenException) {
+                // Never reached the upstream
+                permit.abandon();
+            } else {
+                permit.release(policy.isFailure(response, cause));
+            }
+        });
+    }
+
+    private static ScheduledThreadPoolExecutor slowCallTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1,
+                Thread.ofPlatform().daemon().name("circuit-breaker-slow-calls").factory());
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    private static int port(URI uri) {
+        if (uri.getPort() != -1) {
+            return uri.getPort();
+        }
+        return "https".equalsIgnoreCase(uri.getScheme()) || "wss".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+    }
+}
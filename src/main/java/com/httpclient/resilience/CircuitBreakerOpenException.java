@@ -0,0 +1,29 @@
+package com.httpclient.resilience;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.time.Duration;
+
+/**
+ * A request was rejected without being sent because the circuit for its host or route is
+ * open (or half-open with all probes taken)
+ */
+public class CircuitBreakerOpenException extends IOException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Duration retryAfter;
+
+    public CircuitBreakerOpenException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Time until the circuit lets probe requests through
+     */
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+}
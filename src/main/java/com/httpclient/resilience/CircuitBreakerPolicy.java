@@ -0,0 +1,84 @@
+package com.httpclient.resilience;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+
+/**
+ * When a {@link CircuitBreaker} opens and how it recovers.
+ *
+ * @param windowSize            outcomes kept in the sliding window
+ * @param minimumCalls          outcomes needed in the window before the rates are trusted
+ * @param failureRateThreshold  failure share (0..1) that opens the circuit
+ * @param slowCallDuration      calls taking at least this long count as slow, as soon as they
+ *                              pass it rather than when they finally end
+ * @param slowCallRateThreshold slow share (0..1) that opens the circuit
+ * @param openDuration          how long the circuit rejects everything before probing
+ * @param halfOpenProbes        probe calls let through; all must succeed to close again
+ * @param failureStatuses       response codes that count as failures (I/O errors always do)
+ */
+public record CircuitBreakerPolicy(int windowSize,
+                                   int minimumCalls,
+                                   double failureRateThreshold,
+                                   Duration slowCallDuration,
+                                   double slowCallRateThreshold,
+                                   Duration openDuration,
+                                   int halfOpenProbes,
+                                   Set<Integer> failureStatuses) {
+
+    /**
+     * Window of 100 (at least 20), open at 50% failures or 80% calls over 2 s, stay open
+     * 10 s, then 5 probes; 500/502/503/504 are failures
+     */
+    public static CircuitBreakerPolicy defaults() {
+        return new CircuitBreakerPolicy(100, 20, 0.5, Duration.ofSeconds(2), 0.8,
+                Duration.ofSeconds(10), 5, Set.of(500, 502, 503, 504));
+    }
+
+    public CircuitBreakerPolicy withWindow(int windowSize, int minimumCalls) {
+        return new CircuitBreakerPolicy(windowSize, minimumCalls, failureRateThreshold, slowCallDuration,
+                slowCallRateThreshold, openDuration, halfOpenProbes, failureStatuses);
+    }
+
+    public CircuitBreakerPolicy withFailureRateThreshold(double failureRateThreshold) {
+        return new CircuitBreakerPolicy(windowSize, minimumCalls, failureRateThreshold, slowCallDuration,
+                slowCallRateThreshold, openDuration, halfOpenProbes, failureStatuses);
+    }
+
+    public CircuitBreakerPolicy withSlowCalls(Duration slowCallDuration, double slowCallRateThreshold) {
+        return new CircuitBreakerPolicy(windowSize, minimumCalls, failureRateThreshold, slowCallDuration,
+                slowCallRateThreshold, openDuration, halfOpenProbes, failureStatuses);
+    }
+
+    public CircuitBreakerPolicy withOpenDuration(Duration openDuration) {
+        return new CircuitBreakerPolicy(windowSize, minimumCalls, failureRateThreshold, slowCallDuration,
+                slowCallRateThreshold, openDuration, halfOpenProbes, failureStatuses);
+    }
+
+    public CircuitBreakerPolicy withHalfOpenProbes(int halfOpenProbes) {
+        return new CircuitBreakerPolicy(windowSize, minimumCalls, failureRateThreshold, slowCallDuration,
+                slowCallRateThreshold, openDuration, halfOpenProbes, failureStatuses);
+    }
+
+    public CircuitBreakerPolicy withFailureStatuses(Set<Integer> failureStatuses) {
+        return new CircuitBreakerPolicy(windowSize, minimumCalls, failureRateThreshold, slowCallDuration,
+                slowCallRateThreshold, openDuration, halfOpenProbes, failureStatuses);
+    }
+
+    /**
+     * Whether this outcome counts against the upstream. Rejections by a limiter or another
+     * breaker never reached it and don't count.
+     */
+    public boolean isFailure(HttpResponse<?> response, Throwable error) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            return cause instanceof IOException
+                    && !(cause instanceof LimitExceededException)
+                    && !(cause instanceof CircuitBreakerOpenException);
+        }
+        return failureStatuses.contains(response.statusCode());
+    }
+}
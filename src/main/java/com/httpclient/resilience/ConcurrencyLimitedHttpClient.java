@@ -0,0 +1,92 @@
+package com.httpclient.resilience;
+
+import com.httpclient.util.ForwardingHttpClient;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * HttpClient decorator that bounds in-flight requests per host with a {@link ConcurrencyLimiter}.
+ * <p>
+ * Each request waits for a permit before it is handed to the delegate and returns it when
+ * the response (or failure) arrives. Timeouts, 429 and 503 count as drops, which makes
+ * the limit back off; everything else feeds its round-trip time into the limit algorithm.
+ */
+public class ConcurrencyLimitedHttpClient extends ForwardingHttpClient {
+
+    private final ConcurrencyLimiter limiter;
+
+    public ConcurrencyLimitedHttpClient(HttpClient delegate, ConcurrencyLimiter limiter) {
+        super(delegate);
+        this.limiter = limiter;
+    }
+
+    public ConcurrencyLimiter limiter() {
+        return limiter;
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler)
+            throws IOException, InterruptedException {
+        ConcurrencyLimiter.Permit permit = await(limiter.acquire(host(request)));
+        HttpResponse<T> response = null;
+        Throwable failure = null;
+        try {
+            response = delegate.send(request, responseBodyHandler);
+            return response;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            permit.release(isDrop(response, failure));
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler) {
+        return limited(request, () -> delegate.sendAsync(request, responseBodyHandler));
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler,
+                                                            HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        return limited(request, () -> delegate.sendAsync(request, responseBodyHandler, pushPromiseHandler));
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> limited(HttpRequest request,
+                                                           Supplier<CompletableFuture<HttpResponse<T>>> send) {
+        return limiter.acquire(host(request)).thenCompose(permit -> {
+            CompletableFuture<HttpResponse<T>> sent;
+            try {
+                sent = send.get();
+            } catch (RuntimeException e) {
+                // No round trip to measure, and the permit would otherwise never come back
+                permit.release(true);
+                return CompletableFuture.failedFuture(e);
+            }
+            return sent.whenComplete((response, error) -> permit.release(isDrop(response, error)));
+        });
+    }
+
+    private static String host(HttpRequest request) {
+        return request.uri().getHost();
+    }
+
+    /**
+     * Whether the outcome signals that the host is overloaded
+     */
+    private static boolean isDrop(HttpResponse<?> response, Throwable error) {
+        if (error != null) {
+            Throwable cause = error.getCause() != null ? error.getCause() : error;
+            return cause instanceof HttpTimeoutException;
+        }
+        return response != null && (response.statusCode() == 429 || response.statusCode() == 503);
+    }
+}
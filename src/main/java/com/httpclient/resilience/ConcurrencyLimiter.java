@@ -0,0 +1,180 @@
+package com.httpclient.resilience;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Per-host adaptive concurrency limiter.
+ * <p>
+ * Each host gets its own {@link LimitAlgorithm}. A request that finds the host at its
+ * limit waits in a bounded FIFO queue until a permit frees up or its queue timeout
+ * expires; when the queue is full it is rejected immediately. Either way the caller sees
+ * a {@link LimitExceededException} instead of piling more work onto a struggling host.
+ */
+public class ConcurrencyLimiter {
+
+    private final Supplier<LimitAlgorithm> algorithmFactory;
+    private final int maxQueued;
+    private final Duration queueTimeout;
+    private final Map<String, HostLimiter> hosts = new ConcurrentHashMap<>();
+
+    /**
+     * Current state of one host
+     */
+    public record HostStats(int limit, int inFlight, int queued, long rejected, long timedOut) {
+    }
+
+    /**
+     * Held while a request is in flight; {@link #release} feeds the algorithm.
+     * Only the first release counts.
+     */
+    public interface Permit {
+        void release(boolean dropped);
+    }
+
+    /**
+     * @param algorithmFactory creates the limit algorithm for each new host
+     * @param maxQueued        requests that may wait per host; 0 rejects as soon as the limit is hit
+     * @param queueTimeout     how long a queued request waits before it is rejected
+     */
+    public ConcurrencyLimiter(Supplier<LimitAlgorithm> algorithmFactory, int maxQueued, Duration queueTimeout) {
+        this.algorithmFactory = algorithmFactory;
+        this.maxQueued = maxQueued;
+        this.queueTimeout = queueTimeout;
+    }
+
+    /**
+     * Gradient limit, queue of 100 with a 1 second deadline
+     */
+    public static ConcurrencyLimiter defaults() {
+        return new ConcurrencyLimiter(GradientLimit::defaults, 100, Duration.ofSeconds(1));
+    }
+
+    /**
+     * A permit for {@code host}, immediately if under the limit, otherwise once one frees up
+     */
+    public CompletableFuture<Permit> acquire(String host) {
+        return hosts.computeIfAbsent(host, h -> new HostLimiter(h, algorithmFactory.get())).acquire();
+    }
+
+    public Map<String, HostStats> stats() {
+        Map<String, HostStats> stats = new LinkedHashMap<>();
+        hosts.forEach((host, limiter) -> stats.put(host, limiter.stats()));
+        return stats;
+    }
+
+    /**
+     * Print one line per host
+     */
+    public void printStats() {
+        stats().forEach((host, s) -> System.out.println("  " + host
+                + ": limit=" + s.limit()
+                + ", inFlight=" + s.inFlight()
+                + ", queued=" + s.queued()
+                + ", rejected=" + s.rejected()
+                + ", timedOut=" + s.timedOut()));
+    }
+
+    private class HostLimiter {
+        private final String host;
+        private final LimitAlgorithm algorithm;
+        private final ArrayDeque<CompletableFuture<Permit>> waiters = new ArrayDeque<>();
+        private int inFlight;
+        private long rejected;
+        private long timedOut;
+
+        HostLimiter(String host, LimitAlgorithm algorithm) {
+            this.host = host;
+            this.algorithm = algorithm;
+        }
+
+        synchronized CompletableFuture<Permit> acquire() {
+            if (inFlight < algorithm.limit()) {
+                return CompletableFuture.completedFuture(grant());
+            }
+            if (waiters.size() >= maxQueued) {
+                rejected++;
+                return CompletableFuture.failedFuture(new LimitExceededException(
+                        "Concurrency limit " + algorithm.limit() + " reached for " + host));
+            }
+
+            CompletableFuture<Permit> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            CompletableFuture.delayedExecutor(queueTimeout.toNanos(), TimeUnit.NANOSECONDS)
+                    .execute(() -> expire(waiter));
+            return waiter;
+        }
+
+        /**
+         * Must hold the lock
+         */
+        private Permit grant() {
+            inFlight++;
+            int inFlightAtStart = inFlight;
+            long start = System.nanoTime();
+            AtomicBoolean released = new AtomicBoolean();
+            return dropped -> {
+                if (released.compareAndSet(false, true)) {
+                    release(System.nanoTime() - start, inFlightAtStart, dropped);
+                }
+            };
+        }
+
+        private void release(long rttNanos, int inFlightAtStart, boolean dropped) {
+            Map<CompletableFuture<Permit>, Permit> granted = new LinkedHashMap<>();
+            synchronized (this) {
+                inFlight--;
+                algorithm.onSample(rttNanos, inFlightAtStart, dropped);
+
+                // The limit may have grown, so admit as many waiters as now fit
+                Iterator<CompletableFuture<Permit>> queued = waiters.iterator();
+                while (queued.hasNext() && inFlight < algorithm.limit()) {
+                    CompletableFuture<Permit> waiter = queued.next();
+                    queued.remove();
+                    if (!waiter.isDone()) {
+                        granted.put(waiter, grant());
+                    }
+                }
+            }
+            // Complete outside the lock: each waiter starts its request on this thread
+            granted.forEach((waiter, permit) -> {
+                if (!waiter.complete(permit)) {
+                    giveBack();
+                }
+            });
+        }
+
+        /**
+         * Return a permit whose waiter went away without using it, without feeding a sample
+         */
+        private synchronized void giveBack() {
+            inFlight--;
+        }
+
+        private void expire(CompletableFuture<Permit> waiter) {
+            boolean removed;
+            synchronized (this) {
+                removed = waiters.remove(waiter);
+                if (removed) {
+                    timedOut++;
+                }
+            }
+            if (removed) {
+                waiter.completeExceptionally(new LimitExceededException(
+                        "Timed out after " + queueTimeout.toMillis() + " ms waiting for a permit to " + host));
+            }
+        }
+
+        synchronized HostStats stats() {
+            return new HostStats(algorithm.limit(), inFlight, waiters.size(), rejected, timedOut);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.httpclient.resilience;
+
+/**
+ * Constant limit that ignores samples, for a hard cap set by configuration.
+ */
+public class FixedLimit implements LimitAlgorithm {
+
+    private final int limit;
+
+    public FixedLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1: " + limit);
+        }
+        this.limit = limit;
+    }
+
+    @Override
+    public int limit() {
+        return limit;
+    }
+
+    @Override
+    public void onSample(long rttNanos, int inFlight, boolean dropped) {
+        // Fixed by configuration
+    }
+}
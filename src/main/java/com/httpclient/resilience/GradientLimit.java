@@ -0,0 +1,70 @@
+package com.httpclient.resilience;
+
+/**
+ * Latency-gradient limit in the style of Netflix's Gradient2.
+ * <p>
+ * Compares the latest RTT against a slow-moving average RTT. While they agree the limit
+ * grows by roughly {@code sqrt(limit)}; when RTT rises above the average (queueing
+ * somewhere downstream) the limit is scaled down by {@code averageRtt / rtt}, never
+ * by more than half per sample. Drops halve the limit outright.
+ */
+public class GradientLimit implements LimitAlgorithm {
+
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double rttTolerance;
+    private final double averageDecay;
+    private double limit;
+    private double averageRttNanos;
+
+    /**
+     * @param smoothing    weight of each new estimate in the limit (0..1)
+     * @param rttTolerance how much slower than average a sample may be before the limit shrinks
+     * @param averageWindow number of samples the long-term average RTT spans
+     */
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit,
+                         double smoothing, double rttTolerance, int averageWindow) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.rttTolerance = rttTolerance;
+        this.averageDecay = 2.0 / (averageWindow + 1);
+    }
+
+    /**
+     * 20 initial, 1..200, 0.2 smoothing, 1.5x RTT tolerance, 600-sample average
+     */
+    public static GradientLimit defaults() {
+        return new GradientLimit(20, 1, 200, 0.2, 1.5, 600);
+    }
+
+    @Override
+    public int limit() {
+        return (int) limit;
+    }
+
+    @Override
+    public void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (dropped) {
+            limit = Math.max(minLimit, limit / 2);
+            return;
+        }
+
+        averageRttNanos = averageRttNanos == 0
+                ? rttNanos
+                : averageRttNanos + averageDecay * (rttNanos - averageRttNanos);
+
+        // Not enough load to learn anything about the downstream capacity
+        if (inFlight * 2 < limit) {
+            return;
+        }
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, rttTolerance * averageRttNanos / rttNanos));
+        double estimate = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - smoothing) + estimate * smoothing));
+    }
+}
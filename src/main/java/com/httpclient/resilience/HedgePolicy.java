@@ -0,0 +1,80 @@
+package com.httpclient.resilience;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * When to send a backup copy of a slow GET.
+ * <p>
+ * The hedge delay tracks a latency percentile (p95 by default) per host, so only the
+ * slowest few percent of requests are duplicated. Latencies are recorded into an
+ * HdrHistogram recorder and the percentile is recomputed from the last interval every
+ * {@code refreshInterval}; until enough samples exist the initial delay is used.
+ */
+public class HedgePolicy {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(2);
+    private static final int MIN_SAMPLES = 100;
+
+    private final double percentile;
+    private final Duration initialDelay;
+    private final Duration minDelay;
+    private final long refreshIntervalNanos;
+    private final Map<String, HostLatency> hosts = new ConcurrentHashMap<>();
+
+    public HedgePolicy(double percentile, Duration initialDelay, Duration minDelay, Duration refreshInterval) {
+        this.percentile = percentile;
+        this.initialDelay = initialDelay;
+        this.minDelay = minDelay;
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+    }
+
+    /**
+     * p95, 200 ms until warmed up, never under 5 ms, refreshed every 10 s
+     */
+    public static HedgePolicy defaults() {
+        return new HedgePolicy(95.0, Duration.ofMillis(200), Duration.ofMillis(5), Duration.ofSeconds(10));
+    }
+
+    /**
+     * How long to wait for the primary request to {@code host} before hedging
+     */
+    public Duration delay(String host) {
+        return Duration.ofNanos(latency(host).delayNanos());
+    }
+
+    /**
+     * Feed the latency of a completed (winning) attempt
+     */
+    public void record(String host, long latencyNanos) {
+        latency(host).recorder.recordValue(Math.min(Math.max(latencyNanos, 0), HIGHEST_TRACKABLE_NANOS));
+    }
+
+    private HostLatency latency(String host) {
+        return hosts.computeIfAbsent(host, h -> new HostLatency());
+    }
+
+    private class HostLatency {
+        final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_NANOS, 2);
+        Histogram interval;
+        long delayNanos = initialDelay.toNanos();
+        long lastRefreshNanos = System.nanoTime();
+
+        synchronized long delayNanos() {
+            long now = System.nanoTime();
+            if (now - lastRefreshNanos >= refreshIntervalNanos) {
+                lastRefreshNanos = now;
+                interval = recorder.getIntervalHistogram(interval);
+                if (interval.getTotalCount() >= MIN_SAMPLES) {
+                    delayNanos = Math.max(minDelay.toNanos(), interval.getValueAtPercentile(percentile));
+                }
+            }
+            return delayNanos;
+        }
+    }
+}
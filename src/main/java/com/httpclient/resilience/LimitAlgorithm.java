@@ -0,0 +1,22 @@
+package com.httpclient.resilience;
+
+/**
+ * Decides how many requests may be in flight to one host, from observed samples.
+ * Implementations are called under the limiter's per-host lock and need no locking.
+ */
+public interface LimitAlgorithm {
+
+    /**
+     * Current concurrency limit (at least 1)
+     */
+    int limit();
+
+    /**
+     * Feed one completed request
+     *
+     * @param rttNanos round-trip time of the request
+     * @param inFlight requests in flight when it started, itself included
+     * @param dropped  whether it failed in a way that signals overload (timeout, 429, 503)
+     */
+    void onSample(long rttNanos, int inFlight, boolean dropped);
+}
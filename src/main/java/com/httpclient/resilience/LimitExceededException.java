@@ -0,0 +1,18 @@
+package com.httpclient.resilience;
+
+import java.io.IOException;
+import java.io.Serial;
+
+/**
+ * A request was not sent because the host's concurrency limit was reached and the
+ * queue was full, or the request's queue deadline expired first
+ */
+public class LimitExceededException extends IOException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public LimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,67 @@
+package com.httpclient.resilience;
+
+/**
+ * Caps retries (and hedges) to a fraction of regular traffic so they cannot amplify an outage.
+ * <p>
+ * Every original request deposits {@code ratio} tokens; every retry withdraws one. A small
+ * floor of {@code minPerSecond} tokens per second keeps low-traffic clients able to retry
+ * at all. The balance is capped so that a quiet period cannot bank an unbounded burst.
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final double minPerSecond;
+    private final double maxBalance;
+    private double balance;
+    private long lastRefillNanos = System.nanoTime();
+
+    /**
+     * @param ratio        retries allowed per original request (0.2 = at most 20% extra load)
+     * @param minPerSecond retries always allowed per second regardless of traffic
+     * @param maxBalance   most tokens that can be saved up
+     */
+    public RetryBudget(double ratio, double minPerSecond, double maxBalance) {
+        this.ratio = ratio;
+        this.minPerSecond = minPerSecond;
+        this.maxBalance = maxBalance;
+        this.balance = maxBalance;
+    }
+
+    /**
+     * 20% extra load, 10 retries/s floor, at most 100 tokens banked
+     */
+    public static RetryBudget defaults() {
+        return new RetryBudget(0.2, 10, 100);
+    }
+
+    /**
+     * Record an original (non-retry) request
+     */
+    public synchronized void deposit() {
+        refill();
+        balance = Math.min(maxBalance, balance + ratio);
+    }
+
+    /**
+     * Take one token for a retry; false when the budget is spent
+     */
+    public synchronized boolean tryWithdraw() {
+        refill();
+        if (balance < 1.0) {
+            return false;
+        }
+        balance -= 1.0;
+        return true;
+    }
+
+    public synchronized double balance() {
+        refill();
+        return balance;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        balance = Math.min(maxBalance, balance + (now - lastRefillNanos) / 1e9 * minPerSecond);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,74 @@
+package com.httpclient.resilience;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * When and how often a failed request may be retried.
+ *
+ * @param maxAttempts       total attempts including the first one
+ * @param baseDelay         backoff before the first retry; doubles with every retry
+ * @param maxDelay          cap on a single backoff
+ * @param retryableStatuses response codes worth retrying
+ * @param idempotentMethods only these methods are ever retried or hedged
+ */
+public record RetryPolicy(int maxAttempts,
+                          Duration baseDelay,
+                          Duration maxDelay,
+                          Set<Integer> retryableStatuses,
+                          Set<String> idempotentMethods) {
+
+    /**
+     * 3 attempts, 100 ms doubling up to 2 s, retry 429/502/503/504 and I/O errors
+     * for GET, HEAD, OPTIONS, PUT and DELETE
+     */
+    public static RetryPolicy defaults() {
+        return new RetryPolicy(3, Duration.ofMillis(100), Duration.ofSeconds(2),
+                Set.of(429, 502, 503, 504),
+                Set.of("GET", "HEAD", "OPTIONS", "PUT", "DELETE"));
+    }
+
+    public RetryPolicy withMaxAttempts(int maxAttempts) {
+        return new RetryPolicy(maxAttempts, baseDelay, maxDelay, retryableStatuses, idempotentMethods);
+    }
+
+    public RetryPolicy withBackoff(Duration baseDelay, Duration maxDelay) {
+        return new RetryPolicy(maxAttempts, baseDelay, maxDelay, retryableStatuses, idempotentMethods);
+    }
+
+    public boolean isIdempotent(String method) {
+        return idempotentMethods.contains(method);
+    }
+
+    /**
+     * Whether this outcome is a transient failure worth another attempt
+     */
+    public boolean isRetryable(HttpResponse<?> response, Throwable error) {
+        if (error != null) {
+            Throwable cause = (error instanceof CompletionException || error instanceof ExecutionException)
+                    && error.getCause() != null ? error.getCause() : error;
+            // Budget/limit/breaker rejections are deliberate back-pressure, not transient errors
+            return cause instanceof IOException
+                    && !(cause instanceof LimitExceededException)
+                    && !(cause instanceof CircuitBreakerOpenException);
+        }
+        return retryableStatuses.contains(response.statusCode());
+    }
+
+    /**
+     * "Full jitter" backoff for the given retry (1 = first retry): uniform in
+     * [0, min(maxDelay, baseDelay * 2^(retry-1))]
+     */
+    public Duration backoff(int retry) {
+        long max = maxDelay.toNanos();
+        long delay = baseDelay.compareTo(maxDelay) >= 0 ? max : baseDelay.toNanos();
+        int shift = Math.min(Math.max(0, retry - 1), 62);
+        long ceiling = delay > max >> shift ? max : delay << shift;
+        return Duration.ofNanos(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+}
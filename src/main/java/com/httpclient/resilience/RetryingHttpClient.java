@@ -0,0 +1,264 @@
+package com.httpclient.resilience;
+
+import com.httpclient.util.ForwardingHttpClient;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * HttpClient decorator that retries transient failures and hedges slow GETs.
+ * <p>
+ * Only idempotent methods (see {@link RetryPolicy}) are retried, with jittered exponential
+ * backoff or the server's {@code Retry-After}. Every retry and hedge spends a token from a
+ * shared {@link RetryBudget}, so a failing host sees at most a fixed fraction of extra load.
+ * <p>
+ * The request's own timeout (or the client's default deadline) is the budget for the whole
+ * call: each attempt is sent with the time that is left, and no retry is started that could
+ * not finish before the deadline.
+ * <p>
+ * With a {@link HedgePolicy}, a GET that has not answered within the host's p95 latency gets
+ * a second copy; the first good response wins and the other attempt is cancelled.
+ */
+public class RetryingHttpClient extends ForwardingHttpClient {
+
+    private final RetryPolicy policy;
+    private final RetryBudget budget;
+    private final HedgePolicy hedgePolicy;
+    private final Duration defaultDeadline;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder budgetExhausted = new LongAdder();
+    private final LongAdder deadlineExceeded = new LongAdder();
+
+    /**
+     * Counters since the client was created
+     */
+    public record Stats(long requests, long retries, long hedges, long hedgeWins,
+                        long budgetExhausted, long deadlineExceeded) {
+    }
+
+    /**
+     * Retries with the default budget and a 30 second deadline, no hedging
+     */
+    public RetryingHttpClient(HttpClient delegate, RetryPolicy policy) {
+        this(delegate, policy, RetryBudget.defaults(), null, Duration.ofSeconds(30));
+    }
+
+    /**
+     * @param hedgePolicy     null disables hedging
+     * @param defaultDeadline total time allowed when the request has no timeout of its own
+     */
+    public RetryingHttpClient(HttpClient delegate, RetryPolicy policy, RetryBudget budget,
+                              HedgePolicy hedgePolicy, Duration defaultDeadline) {
+        super(delegate);
+        this.policy = policy;
+        this.budget = budget;
+        this.hedgePolicy = hedgePolicy;
+        this.defaultDeadline = defaultDeadline;
+    }
+
+    public Stats stats() {
+        return new Stats(requests.sum(), retries.sum(), hedges.sum(), hedgeWins.sum(),
+                budgetExhausted.sum(), deadlineExceeded.sum());
+    }
+
+    public void printStats() {
+        Stats s = stats();
+        System.out.println("  requests=" + s.requests()
+                + ", retries=" + s.retries()
+                + ", hedges=" + s.hedges()
+                + " (won " + s.hedgeWins() + ")"
+                + ", budgetExhausted=" + s.budgetExhausted()
+                + ", deadlineExceeded=" + s.deadlineExceeded());
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler)
+            throws IOException, InterruptedException {
+        return await(sendAsync(request, responseBodyHandler));
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler) {
+        requests.increment();
+        budget.deposit();
+        long deadlineNanos = System.nanoTime() + request.timeout().orElse(defaultDeadline).toNanos();
+        return attempt(request, responseBodyHandler, deadlineNanos, 1);
+    }
+
+    // Push promises are tied to a single exchange, so these are not retried
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler,
+                                                            HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        return delegate.sendAsync(request, responseBodyHandler, pushPromiseHandler);
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> attempt(HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                                                           long deadlineNanos, int attempt) {
+        long remaining = deadlineNanos - System.nanoTime();
+        if (remaining <= 0) {
+            deadlineExceeded.increment();
+            return CompletableFuture.failedFuture(new HttpTimeoutException(
+                    "Deadline exceeded before attempt " + attempt + " of " + request.uri()));
+        }
+
+        HttpRequest timed = HttpRequest.newBuilder(request, (name, value) -> true)
+                .timeout(Duration.ofNanos(remaining))
+                .build();
+        CompletableFuture<HttpResponse<T>> sent = hedgePolicy != null && "GET".equals(request.method())
+                ? new Hedge<>(timed, handler).start(remaining)
+                : delegate.sendAsync(timed, handler);
+
+        return sent.handle((response, error) -> {
+            if (attempt >= policy.maxAttempts()
+                    || !policy.isIdempotent(request.method())
+                    || !policy.isRetryable(response, error)) {
+                return outcome(response, error);
+            }
+
+            Duration backoff = retryAfter(response, deadlineNanos).orElseGet(() -> policy.backoff(attempt));
+            if (System.nanoTime() + backoff.toNanos() >= deadlineNanos) {
+                deadlineExceeded.increment();
+                return outcome(response, error);
+            }
+            if (!budget.tryWithdraw()) {
+                budgetExhausted.increment();
+                return outcome(response, error);
+            }
+
+            retries.increment();
+            return CompletableFuture.supplyAsync(() -> null,
+                            CompletableFuture.delayedExecutor(backoff.toNanos(), TimeUnit.NANOSECONDS))
+                    .thenCompose(ignored -> attempt(request, handler, deadlineNanos, attempt + 1));
+        }).thenCompose(Function.identity());
+    }
+
+    private static <T> CompletableFuture<HttpResponse<T>> outcome(HttpResponse<T> response, Throwable error) {
+        return error != null ? CompletableFuture.failedFuture(error) : CompletableFuture.completedFuture(response);
+    }
+
+    /**
+     * {@code Retry-After} in its delta-seconds form, capped at the policy's max delay and the
+     * time left before the deadline; HTTP dates and negative values are ignored
+     */
+    private Optional<Duration> retryAfter(HttpResponse<?> response, long deadlineNanos) {
+        if (response == null) {
+            return Optional.empty();
+        }
+        return response.headers().firstValue("Retry-After").flatMap(value -> {
+            long seconds;
+            try {
+                seconds = Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                return Optional.empty();
+            }
+            if (seconds < 0) {
+                return Optional.empty();
+            }
+            Duration requested = Duration.ofSeconds(seconds);
+            Duration remaining = Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()));
+            Duration cap = remaining.compareTo(policy.maxDelay()) < 0 ? remaining : policy.maxDelay();
+            return Optional.of(requested.compareTo(cap) > 0 ? cap : requested);
+        });
+    }
+
+    /**
+     * One primary attempt plus at most one hedge racing it
+     */
+    private final class Hedge<T> {
+        private final HttpRequest request;
+        private final HttpResponse.BodyHandler<T> handler;
+        private final String host;
+        private final CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        private final List<CompletableFuture<HttpResponse<T>>> attempts = new ArrayList<>(2);
+        private int pending;
+
+        Hedge(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+            this.request = request;
+            this.handler = handler;
+            this.host = request.uri().getHost();
+        }
+
+        CompletableFuture<HttpResponse<T>> start(long remainingNanos) {
+            launch(false);
+
+            // A hedge that cannot beat the deadline would only add load
+            long delay = hedgePolicy.delay(host).toNanos();
+            if (delay < remainingNanos) {
+                CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(() -> {
+                    if (!result.isDone() && budget.tryWithdraw()) {
+                        hedges.increment();
+                        launch(true);
+                    }
+                });
+            }
+
+            result.whenComplete((response, error) -> cancelAll());
+            return result;
+        }
+
+        private void launch(boolean hedge) {
+            synchronized (this) {
+                if (result.isDone()) {
+                    return;
+                }
+                pending++;
+            }
+            long start = System.nanoTime();
+            CompletableFuture<HttpResponse<T>> attempt = delegate.sendAsync(request, handler);
+            synchronized (this) {
+                attempts.add(attempt);
+            }
+            if (result.isDone()) {
+                attempt.cancel(true);
+            }
+            attempt.whenComplete((response, error) -> onComplete(response, error, hedge, start));
+        }
+
+        private void onComplete(HttpResponse<T> response, Throwable error, boolean hedge, long start) {
+            boolean last;
+            synchronized (this) {
+                last = --pending == 0;
+            }
+            if (error == null && !policy.isRetryable(response, null)) {
+                if (result.complete(response)) {
+                    hedgePolicy.record(host, System.nanoTime() - start);
+                    if (hedge) {
+                        hedgeWins.increment();
+                    }
+                }
+            } else if (last) {
+                // Nothing else is racing; let the retry loop decide what to do with the failure
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(response);
+                }
+            }
+        }
+
+        private void cancelAll() {
+            List<CompletableFuture<HttpResponse<T>>> snapshot;
+            synchronized (this) {
+                snapshot = List.copyOf(attempts);
+            }
+            snapshot.forEach(attempt -> attempt.cancel(true));
+        }
+    }
+}
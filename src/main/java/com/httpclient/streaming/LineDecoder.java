@@ -0,0 +1,106 @@
+package com.httpclient.streaming;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Splits a byte stream into lines as buffers arrive and turns them into items.
+ * <p>
+ * Lines end at LF, CR or CRLF, also when the CR and LF arrive in different buffers. A line
+ * that lies within one heap buffer is handed over straight from its backing array; only
+ * lines split across buffers are copied. Splitting on ASCII bytes never cuts a UTF-8
+ * sequence, so each line can be decoded on its own.
+ * <p>
+ * Not thread-safe: one connection feeds it at a time.
+ */
+abstract class LineDecoder<T> {
+
+    private final int maxLineBytes;
+    private byte[] partial = new byte[256];
+    private int partialLength;
+    private boolean skipLineFeed;
+
+    LineDecoder(int maxLineBytes) {
+        this.maxLineBytes = maxLineBytes;
+    }
+
+    /**
+     * Adjust the request for (re)connecting, e.g. add Accept or resume headers
+     */
+    abstract void prepare(HttpRequest.Builder request, HttpRequest original);
+
+    /**
+     * Handle one complete line, without its terminator
+     */
+    abstract void line(byte[] bytes, int offset, int length, Consumer<? super T> out) throws IOException;
+
+    /**
+     * The connection ended; {@code partial} holds bytes after the last line terminator, which
+     * are a complete last line only if the stream ended {@code clean}ly
+     */
+    abstract void end(byte[] partial, int length, boolean clean, Consumer<? super T> out) throws IOException;
+
+    final void feed(ByteBuffer buffer, Consumer<? super T> out) throws IOException {
+        while (buffer.hasRemaining()) {
+            int start = buffer.position();
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (buffer.get(start) == '\n') {
+                    buffer.position(++start);
+                    continue;
+                }
+            }
+            int limit = buffer.limit();
+            int end = start;
+            byte b = 0;
+            while (end < limit && (b = buffer.get(end)) != '\n' && b != '\r') {
+                end++;
+            }
+            if (end == limit) {
+                append(buffer, start, end - start);
+                buffer.position(limit);
+                return;
+            }
+            buffer.position(end + 1);
+            skipLineFeed = b == '\r';
+
+            if (partialLength == 0 && buffer.hasArray()) {
+                checkLength(end - start);
+                line(buffer.array(), buffer.arrayOffset() + start, end - start, out);
+            } else {
+                append(buffer, start, end - start);
+                line(partial, 0, partialLength, out);
+                partialLength = 0;
+            }
+        }
+    }
+
+    /**
+     * The connection ended, cleanly or not; reset for the next one
+     */
+    final void finish(boolean clean, Consumer<? super T> out) throws IOException {
+        int length = partialLength;
+        partialLength = 0;
+        skipLineFeed = false;
+        end(partial, length, clean, out);
+    }
+
+    private void append(ByteBuffer buffer, int from, int length) throws IOException {
+        checkLength(partialLength + length);
+        if (partialLength + length > partial.length) {
+            partial = Arrays.copyOf(partial, Math.min(Math.max(partial.length * 2, partialLength + length),
+                    maxLineBytes));
+        }
+        buffer.get(from, partial, partialLength, length);
+        partialLength += length;
+    }
+
+    private void checkLength(int length) throws IOException {
+        if (length > maxLineBytes) {
+            throw new IOException("Line longer than " + maxLineBytes + " bytes");
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.httpclient.streaming;
+
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Newline-delimited JSON (or any line-based text): every non-blank line is one item. A last
+ * line without a terminator still counts when the stream ends cleanly.
+ */
+final class NdjsonDecoder<T> extends LineDecoder<T> {
+
+    static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private final Function<String, T> mapper;
+
+    NdjsonDecoder(int maxLineBytes, Function<String, T> mapper) {
+        super(maxLineBytes);
+        this.mapper = mapper;
+    }
+
+    @Override
+    void prepare(HttpRequest.Builder request, HttpRequest original) {
+        if (original.headers().firstValue("Accept").isEmpty()) {
+            request.setHeader("Accept", MEDIA_TYPE);
+        }
+    }
+
+    @Override
+    void line(byte[] bytes, int offset, int length, Consumer<? super T> out) {
+        if (isBlank(bytes, offset, length)) {
+            return;
+        }
+        out.accept(mapper.apply(new String(bytes, offset, length, StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    void end(byte[] partial, int length, boolean clean, Consumer<? super T> out) {
+        // After a failure the tail is most likely a line cut off mid-way
+        if (clean) {
+            line(partial, 0, length, out);
+        }
+    }
+
+    private static boolean isBlank(byte[] bytes, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if (bytes[i] != ' ' && bytes[i] != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,22 @@
+package com.httpclient.streaming;
+
+import com.google.gson.Gson;
+
+/**
+ * One dispatched server-sent event.
+ *
+ * @param id    the last event ID in effect when it was dispatched; empty if none was ever set
+ * @param event the event type, {@code "message"} unless the server named one
+ * @param data  the data lines joined with {@code \n}
+ */
+public record ServerSentEvent(String id, String event, String data) {
+
+    public static final String DEFAULT_EVENT = "message";
+
+    /**
+     * Deserialize the data as JSON
+     */
+    public <T> T data(Gson gson, Class<T> type) {
+        return gson.fromJson(data, type);
+    }
+}
@@ -0,0 +1,115 @@
+package com.httpclient.streaming;
+
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * The text/event-stream format as browsers parse it: {@code event}, {@code data}, {@code id}
+ * and {@code retry} fields, comments, and dispatch on a blank line. An event cut off by the
+ * end of a connection is dropped, but the last event ID and reconnection time carry over to
+ * the next connection.
+ */
+final class SseDecoder<T> extends LineDecoder<T> {
+
+    static final String MEDIA_TYPE = "text/event-stream";
+
+    private final Function<ServerSentEvent, T> mapper;
+    private final StringBuilder data = new StringBuilder();
+    private String eventType;
+    private volatile String lastEventId;
+    private volatile Duration retry;
+    private boolean firstLine = true;
+
+    SseDecoder(int maxLineBytes, String lastEventId, Function<ServerSentEvent, T> mapper) {
+        super(maxLineBytes);
+        this.lastEventId = lastEventId;
+        this.mapper = mapper;
+    }
+
+    /**
+     * ID of the last event received, or "" before any
+     */
+    String lastEventId() {
+        return lastEventId;
+    }
+
+    /**
+     * Reconnection time requested by the server, or null
+     */
+    Duration retry() {
+        return retry;
+    }
+
+    @Override
+    void prepare(HttpRequest.Builder request, HttpRequest original) {
+        if (original.headers().firstValue("Accept").isEmpty()) {
+            request.setHeader("Accept", MEDIA_TYPE);
+        }
+        request.setHeader("Cache-Control", "no-cache");
+        if (!lastEventId.isEmpty()) {
+            request.setHeader("Last-Event-ID", lastEventId);
+        }
+    }
+
+    @Override
+    void line(byte[] bytes, int offset, int length, Consumer<? super T> out) {
+        String line = new String(bytes, offset, length, StandardCharsets.UTF_8);
+        if (firstLine) {
+            firstLine = false;
+            if (line.startsWith("\uFEFF")) {
+                line = line.substring(1);
+            }
+        }
+        if (line.isEmpty()) {
+            dispatch(out);
+            return;
+        }
+        if (line.charAt(0) == ':') {
+            return;
+        }
+
+        int colon = line.indexOf(':');
+        String field = colon < 0 ? line : line.substring(0, colon);
+        String value = colon < 0 ? "" : line.substring(line.startsWith(" ", colon + 1) ? colon + 2 : colon + 1);
+        switch (field) {
+            case "event" -> eventType = value;
+            case "data" -> data.append(value).append('\n');
+            case "id" -> {
+                if (value.indexOf('\0') < 0) {
+                    lastEventId = value;
+                }
+            }
+            case "retry" -> {
+                if (!value.isEmpty() && value.length() < 19 && value.chars().allMatch(c -> c >= '0' && c <= '9')) {
+                    retry = Duration.ofMillis(Long.parseLong(value));
+                }
+            }
+            default -> {
+                // Unknown fields are ignored
+            }
+        }
+    }
+
+    @Override
+    void end(byte[] partial, int length, boolean clean, Consumer<? super T> out) {
+        data.setLength(0);
+        eventType = null;
+        firstLine = true;
+    }
+
+    private void dispatch(Consumer<? super T> out) {
+        if (data.isEmpty()) {
+            eventType = null;
+            return;
+        }
+        data.setLength(data.length() - 1);
+        ServerSentEvent event = new ServerSentEvent(lastEventId,
+                eventType == null || eventType.isEmpty() ? ServerSentEvent.DEFAULT_EVENT : eventType, data.toString());
+        data.setLength(0);
+        eventType = null;
+        out.accept(mapper.apply(event));
+    }
+}
@@ -0,0 +1,42 @@
+package com.httpclient.streaming;
+
+import java.time.Duration;
+
+/**
+ * Reconnect and framing settings of a {@link StreamingClient}.
+ *
+ * @param reconnectDelay       wait before reconnecting an event stream, unless the server set one
+ *                             with {@code retry:}; doubles per attempt that delivers no event
+ * @param maxReconnectDelay    cap on the doubled delay
+ * @param maxReconnectAttempts consecutive attempts without an event before the stream fails;
+ *                             0 never reconnects
+ * @param maxLineBytes         longest line (SSE field or NDJSON record) accepted; longer ones fail
+ *                             the stream instead of buffering without bound
+ */
+public record StreamOptions(Duration reconnectDelay,
+                            Duration maxReconnectDelay,
+                            int maxReconnectAttempts,
+                            int maxLineBytes) {
+
+    /**
+     * Reconnect after 1 s, backing off to 30 s, give up after 10 empty attempts; 1 MiB lines
+     */
+    public static StreamOptions defaults() {
+        return new StreamOptions(Duration.ofSeconds(1), Duration.ofSeconds(30), 10, 1024 * 1024);
+    }
+
+    public StreamOptions withReconnect(Duration reconnectDelay, Duration maxReconnectDelay, int maxReconnectAttempts) {
+        return new StreamOptions(reconnectDelay, maxReconnectDelay, maxReconnectAttempts, maxLineBytes);
+    }
+
+    /**
+     * End the stream when the connection ends
+     */
+    public StreamOptions withoutReconnect() {
+        return withReconnect(reconnectDelay, maxReconnectDelay, 0);
+    }
+
+    public StreamOptions withMaxLineBytes(int maxLineBytes) {
+        return new StreamOptions(reconnectDelay, maxReconnectDelay, maxReconnectAttempts, maxLineBytes);
+    }
+}
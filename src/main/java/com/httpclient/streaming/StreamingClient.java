@@ -0,0 +1,376 @@
+package com.httpclient.streaming;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Consumes long-lived streaming responses, server-sent events and newline-delimited JSON,
+ * as {@link Flow.Publisher}s of items parsed while the bytes arrive.
+ * <p>
+ * Each subscription sends its own request once the subscriber first asks for items. The
+ * response body is pulled one chunk at a time and only while the subscriber has unmet
+ * demand, so a slow subscriber stops reads from the connection instead of buffering the
+ * stream in memory: items decoded from a chunk are held until requested, and the next chunk
+ * is not asked for until they are gone. Items are delivered on the client's executor
+ * threads, or on the thread calling {@link Flow.Subscription#request}.
+ * <p>
+ * Event streams reconnect when the connection drops, closes, or answers 5xx or 429, after
+ * the server's {@code retry:} time or {@link StreamOptions#reconnectDelay()}, resending the
+ * last event ID in {@code Last-Event-ID} so the server can resume. A 204 ends the stream,
+ * other statuses fail it. NDJSON has no resume point, so those streams end with their
+ * connection.
+ */
+public class StreamingClient {
+
+    private static final Gson DEFAULT_GSON = new Gson();
+
+    private final HttpClient client;
+    private final StreamOptions options;
+    private final LongAdder reconnects = new LongAdder();
+
+    public StreamingClient(HttpClient client) {
+        this(client, StreamOptions.defaults());
+    }
+
+    public StreamingClient(HttpClient client, StreamOptions options) {
+        this.client = client;
+        this.options = options;
+    }
+
+    /**
+     * Server-sent events from {@code request}. A {@code Last-Event-ID} header on it is
+     * where the first connection resumes.
+     */
+    public Flow.Publisher<ServerSentEvent> events(HttpRequest request) {
+        return events(request, Function.identity());
+    }
+
+    /**
+     * Server-sent events whose data is JSON, deserialized into {@code type}
+     */
+    public <T> Flow.Publisher<T> events(HttpRequest request, Class<T> type) {
+        return events(request, DEFAULT_GSON, type);
+    }
+
+    public <T> Flow.Publisher<T> events(HttpRequest request, Gson gson, Class<T> type) {
+        return events(request, event -> event.data(gson, type));
+    }
+
+    private <T> Flow.Publisher<T> events(HttpRequest request, Function<ServerSentEvent, T> mapper) {
+        String lastEventId = request.headers().firstValue("Last-Event-ID").orElse("");
+        return subscriber -> new StreamSubscription<>(subscriber, request, true,
+                () -> new SseDecoder<>(options.maxLineBytes(), lastEventId, mapper)).start();
+    }
+
+    /**
+     * The lines of a line-delimited response, blank ones skipped
+     */
+    public Flow.Publisher<String> lines(HttpRequest request) {
+        return ndjson(request, Function.identity());
+    }
+
+    /**
+     * Newline-delimited JSON, one {@code type} per line
+     */
+    public <T> Flow.Publisher<T> ndjson(HttpRequest request, Class<T> type) {
+        return ndjson(request, DEFAULT_GSON, type);
+    }
+
+    public <T> Flow.Publisher<T> ndjson(HttpRequest request, Gson gson, Class<T> type) {
+        return ndjson(request, line -> gson.fromJson(line, type));
+    }
+
+    private <T> Flow.Publisher<T> ndjson(HttpRequest request, Function<String, T> mapper) {
+        return subscriber -> new StreamSubscription<>(subscriber, request, false,
+                () -> new NdjsonDecoder<>(options.maxLineBytes(), mapper)).start();
+    }
+
+    /**
+     * Reconnects made by all event streams of this client
+     */
+    public long reconnects() {
+        return reconnects.sum();
+    }
+
+    /**
+     * One subscriber's stream, across reconnects.
+     * <p>
+     * As in {@code BufferSubscription}, a single thread drains at a time: it hands queued
+     * items to the subscriber while there is demand, then either signals the end or asks the
+     * current connection for one more chunk.
+     */
+    private final class StreamSubscription<T> implements Flow.Subscription {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final HttpRequest request;
+        private final boolean resumable;
+        private final LineDecoder<T> decoder;
+        private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private volatile Flow.Subscription upstream;
+        private volatile boolean upstreamRequested;
+        private volatile CompletableFuture<?> exchange;
+        private volatile boolean cancelled;
+        private volatile boolean completed;
+        private volatile Throwable error;
+        private volatile long receivedOnConnection;
+        private boolean terminated;
+        private int emptyAttempts;
+
+        StreamSubscription(Flow.Subscriber<? super T> subscriber, HttpRequest request, boolean resumable,
+                           Supplier<LineDecoder<T>> decoder) {
+            this.subscriber = subscriber;
+            this.request = request;
+            this.resumable = resumable;
+            this.decoder = decoder.get();
+        }
+
+        void start() {
+            subscriber.onSubscribe(this);
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("non-positive subscription request: " + n));
+                return;
+            }
+            demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+            if (started.compareAndSet(false, true)) {
+                connect();
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void connect() {
+            if (cancelled) {
+                return;
+            }
+            HttpRequest.Builder builder = HttpRequest.newBuilder(request, (name, value) -> true);
+            decoder.prepare(builder, request);
+            Connection connection = new Connection();
+            receivedOnConnection = 0;
+            CompletableFuture<?> sent;
+            try {
+                sent = client.sendAsync(builder.build(), connection::handle);
+            } catch (RuntimeException e) {
+                // E.g. a closed client: nothing to reconnect to
+                connection.end(e, false);
+                return;
+            }
+            exchange = sent;
+            sent.whenComplete((response, failure) -> {
+                if (failure != null) {
+                    connection.end(failure instanceof CompletionException && failure.getCause() != null
+                            ? failure.getCause() : failure, true);
+                }
+            });
+        }
+
+        private void emit(T item) {
+            queue.add(item);
+            receivedOnConnection++;
+        }
+
+        private void connectionEnded(Throwable failure, boolean mayReconnect) {
+            if (cancelled) {
+                return;
+            }
+            if (resumable && mayReconnect && options.maxReconnectAttempts() > 0) {
+                emptyAttempts = receivedOnConnection > 0 ? 0 : emptyAttempts + 1;
+                if (emptyAttempts <= options.maxReconnectAttempts()) {
+                    long delay = reconnectDelayNanos(((SseDecoder<?>) decoder).retry());
+                    reconnects.increment();
+                    CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(this::connect);
+                    drain();
+                    return;
+                }
+                failure = new IOException("No events from " + request.uri() + " after "
+                        + options.maxReconnectAttempts() + " reconnects", failure);
+            }
+            if (failure != null) {
+                error = failure;
+            } else {
+                completed = true;
+            }
+            drain();
+        }
+
+        /**
+         * The server's retry time or the configured delay, doubled per attempt that brought no
+         * events, capped at the maximum. A server may send any retry up to 18 digits, so it is
+         * capped before converting to nanos and the doubling saturates instead of overflowing.
+         */
+        private long reconnectDelayNanos(Duration retry) {
+            long max = options.maxReconnectDelay().toNanos();
+            Duration base = retry != null ? retry : options.reconnectDelay();
+            long delay = base.compareTo(options.maxReconnectDelay()) >= 0 ? max : base.toNanos();
+            int doublings = Math.min(Math.max(0, emptyAttempts - 1), 20);
+            return delay > max >> doublings ? max : delay << doublings;
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (cancelled) {
+                    queue.clear();
+                    Flow.Subscription current = upstream;
+                    if (current != null) {
+                        current.cancel();
+                    }
+                    CompletableFuture<?> pending = exchange;
+                    if (pending != null) {
+                        pending.cancel(true);
+                    }
+                } else if (!terminated) {
+                    long requested = demand.get();
+                    long emitted = 0;
+                    T item;
+                    while (emitted < requested && !cancelled && (item = queue.poll()) != null) {
+                        subscriber.onNext(item);
+                        emitted++;
+                    }
+                    if (emitted > 0 && requested != Long.MAX_VALUE) {
+                        demand.addAndGet(-emitted);
+                    }
+                    if (!cancelled && queue.isEmpty()) {
+                        Throwable failure = error;
+                        if (failure != null || completed) {
+                            terminated = true;
+                            if (failure != null) {
+                                subscriber.onError(failure);
+                            } else {
+                                subscriber.onComplete();
+                            }
+                        } else if (demand.get() > 0 && !upstreamRequested) {
+                            Flow.Subscription current = upstream;
+                            if (current != null) {
+                                upstreamRequested = true;
+                                current.request(1);
+                            }
+                        }
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * One HTTP exchange of the stream; whichever of the body and the response future
+         * reports the end first decides what happens next
+         */
+        private final class Connection implements HttpResponse.BodySubscriber<Void> {
+            private final CompletableFuture<Void> body = new CompletableFuture<>();
+            private final AtomicBoolean ended = new AtomicBoolean();
+
+            HttpResponse.BodySubscriber<Void> handle(HttpResponse.ResponseInfo info) {
+                int status = info.statusCode();
+                if (status == 204) {
+                    end(null, false);
+                    return HttpResponse.BodySubscribers.replacing(null);
+                }
+                if (status < 200 || status >= 300) {
+                    end(new IOException(request.method() + " " + request.uri() + " returned " + status),
+                            status >= 500 || status == 429);
+                    return HttpResponse.BodySubscribers.replacing(null);
+                }
+                return this;
+            }
+
+            void end(Throwable failure, boolean mayReconnect) {
+                if (!ended.compareAndSet(false, true)) {
+                    return;
+                }
+                upstream = null;
+                upstreamRequested = false;
+                if (failure == null) {
+                    body.complete(null);
+                } else {
+                    body.completeExceptionally(failure);
+                }
+                try {
+                    decoder.finish(failure == null, StreamSubscription.this::emit);
+                } catch (Throwable t) {
+                    failure = t;
+                    mayReconnect = false;
+                }
+                connectionEnded(failure, mayReconnect);
+            }
+
+            @Override
+            public CompletionStage<Void> getBody() {
+                return body;
+            }
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                if (cancelled || ended.get()) {
+                    subscription.cancel();
+                    return;
+                }
+                upstream = subscription;
+                upstreamRequested = false;
+                drain();
+            }
+
+            @Override
+            public void onNext(List<ByteBuffer> item) {
+                upstreamRequested = false;
+                try {
+                    for (ByteBuffer buffer : item) {
+                        decoder.feed(buffer, StreamSubscription.this::emit);
+                    }
+                } catch (Throwable t) {
+                    Flow.Subscription current = upstream;
+                    if (current != null) {
+                        current.cancel();
+                    }
+                    end(t, false);
+                    return;
+                }
+                drain();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                end(throwable, true);
+            }
+
+            @Override
+            public void onComplete() {
+                end(null, true);
+            }
+        }
+    }
+}
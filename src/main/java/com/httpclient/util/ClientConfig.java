@@ -0,0 +1,59 @@
+package com.httpclient.util;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Everything that distinguishes one shared client from another in {@link HttpClientRegistry}.
+ * Two equal configs always map to the same client instance.
+ */
+public record ClientConfig(HttpClient.Version version,
+                           Duration connectTimeout,
+                           HttpClient.Redirect redirect,
+                           ExecutorType executor) {
+
+    /**
+     * Which executor the client runs its async work on
+     */
+    public enum ExecutorType {
+        /** JDK default cached thread pool */
+        DEFAULT,
+        /** One virtual thread per task */
+        VIRTUAL_THREADS,
+        /** Fixed pool of daemon platform threads */
+        FIXED_THREADS
+    }
+
+    /**
+     * Same settings as {@link HttpClientFactory#createHttp2Client()}
+     */
+    public static ClientConfig http2() {
+        return new ClientConfig(HttpClient.Version.HTTP_2,
+                Duration.ofSeconds(Config.CONNECT_TIMEOUT_SECONDS),
+                HttpClient.Redirect.NORMAL,
+                ExecutorType.DEFAULT);
+    }
+
+    /**
+     * Same settings as {@link HttpClientFactory#createHttp11Client()}
+     */
+    public static ClientConfig http11() {
+        return http2().withVersion(HttpClient.Version.HTTP_1_1);
+    }
+
+    public ClientConfig withVersion(HttpClient.Version version) {
+        return new ClientConfig(version, connectTimeout, redirect, executor);
+    }
+
+    public ClientConfig withConnectTimeout(Duration connectTimeout) {
+        return new ClientConfig(version, connectTimeout, redirect, executor);
+    }
+
+    public ClientConfig withRedirect(HttpClient.Redirect redirect) {
+        return new ClientConfig(version, connectTimeout, redirect, executor);
+    }
+
+    public ClientConfig withExecutor(ExecutorType executor) {
+        return new ClientConfig(version, connectTimeout, redirect, executor);
+    }
+}
@@ -1,24 +1,31 @@
 package com.httpclient.util;
 
+import com.httpclient.mock.MockServer;
+import com.httpclient.mock.MockServerOptions;
 
-public class Config {
-
-    // REST API endpoints for testing
-    public static final String JSON_PLACEHOLDER_URL = "https://jsonplaceholder.typicode.com";
-    public static final String GET_POSTS_URL = JSON_PLACEHOLDER_URL + "/posts";
-    public static final String GET_POST_URL = JSON_PLACEHOLDER_URL + "/posts/1";
-    public static final String CREATE_POST_URL = JSON_PLACEHOLDER_URL + "/posts";
-
-    // HTTP Bin for various HTTP methods testing
-    public static final String HTTP_BIN_URL = "https://httpbin.org";
-    public static final String HTTP_BIN_GET = HTTP_BIN_URL + "/get";
-    public static final String HTTP_BIN_POST = HTTP_BIN_URL + "/post";
-    public static final String HTTP_BIN_PUT = HTTP_BIN_URL + "/put";
-    public static final String HTTP_BIN_DELETE = HTTP_BIN_URL + "/delete";
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Function;
 
-    // WebSocket test endpoints
-    public static final String WEBSOCKET_ECHO_URL = "wss://echo.websocket.org";
-    public static final String WEBSOCKET_TEST_URL = "wss://ws.postman-echo.com/raw";
+/**
+ * Endpoints used by the demos, and the built-in defaults for client settings.
+ * <p>
+ * The endpoints default to public services. Each can be overridden with a
+ * {@code httpclient.<name>} system property or {@code HTTPCLIENT_<NAME>} environment variable
+ * (jsonplaceholder.url, httpbin.url, websocket.url, websocket.test.url), and
+ * {@code -Dhttpclient.mock=true} (or {@code HTTPCLIENT_MOCK=true}) points all of them at an
+ * in-process {@link MockServer}, configured by {@link MockServerOptions#fromSystemProperties()},
+ * so the demos run offline. The mock starts on the first endpoint lookup, not when this class
+ * loads.
+ * <p>
+ * The timeouts and limits here are only the starting point of
+ * {@link com.httpclient.config.ClientProfile#defaults(String)}; deployments tune them through
+ * {@link com.httpclient.config.ClientProfiles} files and environment variables instead of
+ * rebuilding.
+ */
+public class Config {
 
     // Timeout configurations
     public static final int CONNECT_TIMEOUT_SECONDS = 10;
@@ -27,4 +34,75 @@ public class Config {
     // Performance testing
     public static final int CONCURRENT_REQUESTS = 10;
     public static final int TOTAL_REQUESTS = 100;
-}
\ No newline at end of file
+
+    // Guarded by Config.class; started on first use, not when the class loads
+    private static MockServer mock;
+    private static boolean mockChecked;
+
+    // REST API endpoints for testing
+    public static String jsonPlaceholderUrl() {
+        return endpoint("jsonplaceholder.url", MockServer::jsonPlaceholderUrl, "https://jsonplaceholder.typicode.com");
+    }
+
+    public static String postsUrl() {
+        return jsonPlaceholderUrl() + "/posts";
+    }
+
+    public static String postUrl() {
+        return jsonPlaceholderUrl() + "/posts/1";
+    }
+
+    public static String usersUrl() {
+        return jsonPlaceholderUrl() + "/users";
+    }
+
+    // HTTP Bin for various HTTP methods testing (/get, /post, /put, /delete, ...)
+    public static String httpBinUrl() {
+        return endpoint("httpbin.url", MockServer::httpBinUrl, "https://httpbin.org");
+    }
+
+    // WebSocket test endpoints
+    public static String webSocketEchoUrl() {
+        return endpoint("websocket.url", MockServer::webSocketUrl, "wss://echo.websocket.org");
+    }
+
+    public static String webSocketTestUrl() {
+        return endpoint("websocket.test.url", MockServer::webSocketUrl, "wss://ws.postman-echo.com/raw");
+    }
+
+    /**
+     * The mock server the endpoints point at, if {@code httpclient.mock} is on; started by
+     * the first call
+     *
+     * @throws UncheckedIOException if it is on but could not start
+     */
+    public static synchronized Optional<MockServer> mockServer() {
+        if (!mockChecked) {
+            String enabled = System.getProperty("httpclient.mock", System.getenv("HTTPCLIENT_MOCK"));
+            if (Boolean.parseBoolean(enabled)) {
+                try {
+                    mock = MockServer.start(MockServerOptions.fromSystemProperties());
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not start the mock server", e);
+                }
+            }
+            mockChecked = true;
+        }
+        return Optional.ofNullable(mock);
+    }
+
+    /**
+     * An explicit override wins and leaves the mock alone; otherwise the mock if it is on,
+     * else {@code fallback}
+     */
+    private static String endpoint(String name, Function<MockServer, String> mocked, String fallback) {
+        String value = System.getProperty("httpclient." + name);
+        if (value == null) {
+            value = System.getenv("HTTPCLIENT_" + name.toUpperCase(Locale.ROOT).replace('.', '_'));
+        }
+        if (value != null && !value.isBlank()) {
+            return value.replaceAll("/+$", "");
+        }
+        return mockServer().map(mocked).orElse(fallback);
+    }
+}
@@ -1,7 +1,20 @@
 package com.httpclient.util;
 
+import com.httpclient.cache.CachingHttpClient;
+import com.httpclient.cache.HttpCache;
+import com.httpclient.compression.CompressingHttpClient;
+import com.httpclient.config.ClientProfile;
+import com.httpclient.config.ClientProfiles;
+import com.httpclient.config.RequestTimeoutHttpClient;
+import com.httpclient.resilience.ConcurrencyLimitedHttpClient;
+import com.httpclient.resilience.ConcurrencyLimiter;
+import com.httpclient.resilience.FixedLimit;
+
+import java.io.IOException;
 import java.net.http.HttpClient;
 import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 /**
  * Factory for creating configured HttpClient instances
@@ -30,6 +43,102 @@ public class    HttpClientFactory {
                 .build();
     }
 
+    /**
+     * Create an HTTP/2 client that runs its async work on virtual threads
+     * instead of the JDK default cached thread pool
+     */
+    public static HttpClient createVirtualThreadHttp2Client() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(Config.CONNECT_TIMEOUT_SECONDS))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    /**
+     * Create an HTTP/1.1 client that runs its async work on virtual threads
+     */
+    public static HttpClient createVirtualThreadHttp11Client() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(Config.CONNECT_TIMEOUT_SECONDS))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    /**
+     * Create a client from a {@link ClientConfig}
+     */
+    public static HttpClient createClient(ClientConfig config) {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(config.version())
+                .connectTimeout(config.connectTimeout())
+                .followRedirects(config.redirect());
+
+        Executor executor = executor(config.executor(), 0);
+        if (executor != null) {
+            builder.executor(executor);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Create a client from a {@link ClientProfile}: the base client with the profile's
+     * protocol, timeouts and executor, wrapped in the decorators the profile turns on.
+     * Cache hits skip the concurrency limit, and compressed responses are cached decoded
+     * ({@code Vary: Accept-Encoding} does not keep them out of the cache).
+     */
+    public static HttpClient createClient(ClientProfile profile) {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(profile.version())
+                .connectTimeout(profile.connectTimeout())
+                .followRedirects(profile.redirect());
+
+        Executor executor = executor(profile.executor(), profile.executorThreads());
+        if (executor != null) {
+            builder.executor(executor);
+        }
+
+        HttpClient client = new RequestTimeoutHttpClient(builder.build(), profile.requestTimeout());
+        if (profile.maxConcurrentRequests() > 0) {
+            int limit = profile.maxConcurrentRequests();
+            client = new ConcurrencyLimitedHttpClient(client, new ConcurrencyLimiter(
+                    () -> new FixedLimit(limit), profile.maxQueuedRequests(), profile.requestTimeout()));
+        }
+        if (profile.compression()) {
+            client = new CompressingHttpClient(client);
+        }
+        if (profile.cacheSize() > 0) {
+            HttpCache cache = new HttpCache(profile.cacheSize());
+            client = client instanceof CompressingHttpClient compressing
+                    ? CachingHttpClient.aboveDecoding(compressing, cache)
+                    : new CachingHttpClient(client, cache);
+        }
+        return client;
+    }
+
+    /**
+     * Create a client from the named profile of {@link ClientProfiles#fromEnvironment()}
+     */
+    public static HttpClient createClient(String profile) throws IOException {
+        return createClient(ClientProfiles.fromEnvironment().profile(profile));
+    }
+
+    /**
+     * Executor for {@code type}, or null for the JDK default
+     */
+    private static Executor executor(ClientConfig.ExecutorType type, int threads) {
+        return switch (type) {
+            case DEFAULT -> null;
+            case VIRTUAL_THREADS -> Executors.newVirtualThreadPerTaskExecutor();
+            case FIXED_THREADS -> Executors.newFixedThreadPool(
+                    threads > 0 ? threads : Runtime.getRuntime().availableProcessors(),
+                    Thread.ofPlatform().daemon().name("http-client-", 0).factory());
+        };
+    }
+
     /**
      * Create a client with custom timeout
      */
@@ -0,0 +1,223 @@
+package com.httpclient.util;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Registry of long-lived, shared HttpClient instances keyed by {@link ClientConfig}.
+ * <p>
+ * Building an HttpClient is cheap, but each one owns its own connection pool, TLS
+ * session cache and selector thread. Creating one per call throws all of that away,
+ * so callers should borrow a client from here instead and never close it themselves:
+ * {@code close()}/{@code shutdown()} on a shared client are no-ops, and the real
+ * clients are only shut down by {@link #shutdown(Duration)}.
+ * <p>
+ * {@code java.net.http} does not expose its connection pool, so connection counts are
+ * estimated per origin: one connection for HTTP/2 (multiplexed), otherwise the peak
+ * number of concurrent exchanges, which is what an HTTP/1.1 pool has to open.
+ */
+public class HttpClientRegistry {
+
+    private static final Map<ClientConfig, SharedHttpClient> CLIENTS = new ConcurrentHashMap<>();
+
+    /**
+     * Request and connection figures of one shared client
+     */
+    public record ClientStats(long requests, int origins, int estimatedConnections) {
+
+        /**
+         * Fraction of requests that did not need a new connection
+         */
+        public double reuseRatio() {
+            return requests == 0 ? 0.0 : Math.max(0.0, 1.0 - (double) estimatedConnections / requests);
+        }
+    }
+
+    private HttpClientRegistry() {
+    }
+
+    /**
+     * The shared client for this configuration, created on first use
+     */
+    public static HttpClient get(ClientConfig config) {
+        return CLIENTS.computeIfAbsent(config,
+                c -> new SharedHttpClient(HttpClientFactory.createClient(c)));
+    }
+
+    /**
+     * The shared default (HTTP/2) client
+     */
+    public static HttpClient shared() {
+        return get(ClientConfig.http2());
+    }
+
+    /**
+     * Stats of every client created so far
+     */
+    public static Map<ClientConfig, ClientStats> stats() {
+        Map<ClientConfig, ClientStats> stats = new LinkedHashMap<>();
+        CLIENTS.forEach((config, client) -> stats.put(config, client.stats()));
+        return stats;
+    }
+
+    /**
+     * Print one line per shared client
+     */
+    public static void printStats() {
+        stats().forEach((config, s) -> System.out.println("  " + config.version() + "/" + config.executor()
+                + ": requests=" + s.requests()
+                + ", origins=" + s.origins()
+                + ", connections≈" + s.estimatedConnections()
+                + ", reuse=" + String.format("%.1f", s.reuseRatio() * 100) + "%"));
+    }
+
+    /**
+     * Stop accepting new requests on every shared client, wait up to {@code grace}
+     * for in-flight exchanges to finish, then force the rest closed.
+     */
+    public static void shutdown(Duration grace) throws InterruptedException {
+        Map<ClientConfig, SharedHttpClient> clients = new LinkedHashMap<>(CLIENTS);
+        CLIENTS.keySet().removeAll(clients.keySet());
+
+        clients.values().forEach(client -> client.delegate().shutdown());
+        long deadline = System.nanoTime() + grace.toNanos();
+        for (SharedHttpClient client : clients.values()) {
+            Duration remaining = Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+            if (!client.delegate().awaitTermination(remaining)) {
+                client.delegate().shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Shared client: counts exchanges per origin and ignores close/shutdown from borrowers
+     */
+    private static class SharedHttpClient extends ForwardingHttpClient {
+
+        private final Map<String, OriginStats> origins = new ConcurrentHashMap<>();
+
+        SharedHttpClient(HttpClient delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler)
+                throws IOException, InterruptedException {
+            OriginStats origin = begin(request);
+            HttpResponse<T> response = null;
+            try {
+                response = delegate.send(request, responseBodyHandler);
+                return response;
+            } finally {
+                origin.end(response);
+            }
+        }
+
+        @Override
+        public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                                HttpResponse.BodyHandler<T> responseBodyHandler) {
+            return tracked(request, () -> delegate.sendAsync(request, responseBodyHandler));
+        }
+
+        @Override
+        public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                                HttpResponse.BodyHandler<T> responseBodyHandler,
+                                                                HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+            return tracked(request, () -> delegate.sendAsync(request, responseBodyHandler, pushPromiseHandler));
+        }
+
+        private <T> CompletableFuture<HttpResponse<T>> tracked(HttpRequest request,
+                                                               Supplier<CompletableFuture<HttpResponse<T>>> send) {
+            OriginStats origin = begin(request);
+            CompletableFuture<HttpResponse<T>> sent;
+            try {
+                sent = send.get();
+            } catch (RuntimeException e) {
+                origin.end(null);
+                throw e;
+            }
+            return sent.whenComplete((response, error) -> origin.end(response));
+        }
+
+        @Override
+        public void shutdown() {
+            // Owned by the registry
+        }
+
+        @Override
+        public void shutdownNow() {
+            // Owned by the registry
+        }
+
+        @Override
+        public void close() {
+            // Owned by the registry
+        }
+
+        private OriginStats begin(HttpRequest request) {
+            OriginStats origin = origins.computeIfAbsent(origin(request.uri()), key -> new OriginStats());
+            origin.begin();
+            return origin;
+        }
+
+        ClientStats stats() {
+            long requests = 0;
+            int connections = 0;
+            for (OriginStats origin : origins.values()) {
+                requests += origin.requests.sum();
+                connections += origin.estimatedConnections();
+            }
+            return new ClientStats(requests, origins.size(), connections);
+        }
+    }
+
+    /**
+     * scheme://host:port, with the scheme's default port when the URI has none, so
+     * {@code https://api} and {@code https://api:443} are one origin
+     */
+    static String origin(URI uri) {
+        int port = uri.getPort();
+        if (port < 0) {
+            port = "https".equalsIgnoreCase(uri.getScheme()) || "wss".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        }
+        return uri.getScheme().toLowerCase(Locale.ROOT) + "://" + uri.getHost().toLowerCase(Locale.ROOT) + ":" + port;
+    }
+
+    /**
+     * Exchange counters for one scheme://host:port
+     */
+    private static class OriginStats {
+        final LongAdder requests = new LongAdder();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger peakInFlight = new AtomicInteger();
+        volatile boolean multiplexed;
+
+        void begin() {
+            requests.increment();
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        }
+
+        void end(HttpResponse<?> response) {
+            inFlight.decrementAndGet();
+            if (response != null && response.version() == HttpClient.Version.HTTP_2) {
+                multiplexed = true;
+            }
+        }
+
+        int estimatedConnections() {
+            return multiplexed ? 1 : peakInFlight.get();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.httpclient.util;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reusable request settings for one base URL, with cached URIs and GET requests.
+ * <p>
+ * {@code HttpRequest} is immutable and can be sent any number of times, yet the demos
+ * rebuilt {@code HttpRequest.newBuilder().uri(URI.create(url))...} for every call, which
+ * re-parses the URL and copies the headers each time. A template resolves each path once
+ * and hands out the same {@code HttpRequest} for repeated GETs; requests with a body are
+ * built from the cached URI and the template's headers and timeout.
+ * <p>
+ * The caches stop growing at {@code maxCached} entries, so endpoints with ids in the path
+ * still work, they just don't all get cached.
+ */
+public class RequestTemplate {
+
+    private static final int DEFAULT_MAX_CACHED = 1024;
+
+    private final URI base;
+    private final HttpRequest prototype;
+    private final int maxCached;
+    private final Map<String, URI> uris = new ConcurrentHashMap<>();
+    private final Map<String, HttpRequest> gets = new ConcurrentHashMap<>();
+
+    /**
+     * Requests to {@code baseUrl} with the given timeout and header name/value pairs
+     */
+    public RequestTemplate(String baseUrl, Duration timeout, String... headers) {
+        this(baseUrl, timeout, DEFAULT_MAX_CACHED, headers);
+    }
+
+    public RequestTemplate(String baseUrl, Duration timeout, int maxCached, String... headers) {
+        this.base = URI.create(baseUrl);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(base).timeout(timeout);
+        if (headers.length > 0) {
+            builder.headers(headers);
+        }
+        this.prototype = builder.build();
+        this.maxCached = maxCached;
+    }
+
+    /**
+     * {@code path} resolved against the base URL; "" is the base URL itself
+     */
+    public URI uri(String path) {
+        URI uri = uris.get(path);
+        if (uri == null) {
+            // URI.resolve drops the slash between an empty base path and a relative path
+            uri = path.isEmpty() ? base
+                    : base.resolve(base.getRawPath().isEmpty() && !path.startsWith("/") ? "/" + path : path);
+            if (uris.size() < maxCached) {
+                uris.putIfAbsent(path, uri);
+            }
+        }
+        return uri;
+    }
+
+    /**
+     * The GET request for {@code path}; the same instance on every call while cached
+     */
+    public HttpRequest get(String path) {
+        HttpRequest request = gets.get(path);
+        if (request == null) {
+            request = builder(path).GET().build();
+            if (gets.size() < maxCached) {
+                gets.putIfAbsent(path, request);
+            }
+        }
+        return request;
+    }
+
+    /**
+     * A request with a body; never cached since publishers are usually one-off
+     */
+    public HttpRequest request(String method, String path, HttpRequest.BodyPublisher body) {
+        return builder(path).method(method, body).build();
+    }
+
+    /**
+     * Builder pre-filled with the template's headers and timeout, for anything else
+     */
+    public HttpRequest.Builder builder(String path) {
+        return HttpRequest.newBuilder(prototype, (name, value) -> true).uri(uri(path));
+    }
+}
@@ -0,0 +1,25 @@
+package com.httpclient.websocket;
+
+/**
+ * Wire format for logical channels multiplexed over one WebSocket: how subscribe,
+ * unsubscribe and publish are framed, and how an inbound message names its channel.
+ */
+public interface ChannelCodec {
+
+    /**
+     * A message for {@code channel} carrying {@code payload}
+     */
+    record Envelope(String channel, String payload) {
+    }
+
+    String subscribe(String channel);
+
+    String unsubscribe(String channel);
+
+    String publish(String channel, String payload);
+
+    /**
+     * The envelope of an inbound message, or null if it belongs to no channel
+     */
+    Envelope decode(CharSequence message);
+}
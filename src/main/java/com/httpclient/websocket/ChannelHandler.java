@@ -0,0 +1,10 @@
+package com.httpclient.websocket;
+
+/**
+ * Receives the messages of one logical channel, on the connection's receive thread
+ */
+@FunctionalInterface
+public interface ChannelHandler {
+
+    void onMessage(WebSocketChannel channel, String payload);
+}
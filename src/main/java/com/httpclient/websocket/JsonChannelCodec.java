@@ -0,0 +1,56 @@
+package com.httpclient.websocket;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+/**
+ * JSON envelopes: {@code {"type":"subscribe|unsubscribe|message","channel":"...","data":"..."}}.
+ * A {@code data} value that is not a string is passed on as its JSON text.
+ */
+public class JsonChannelCodec implements ChannelCodec {
+
+    @Override
+    public String subscribe(String channel) {
+        return envelope("subscribe", channel, null);
+    }
+
+    @Override
+    public String unsubscribe(String channel) {
+        return envelope("unsubscribe", channel, null);
+    }
+
+    @Override
+    public String publish(String channel, String payload) {
+        return envelope("message", channel, payload);
+    }
+
+    @Override
+    public Envelope decode(CharSequence message) {
+        try {
+            JsonObject json = JsonParser.parseString(message.toString()).getAsJsonObject();
+            JsonElement channel = json.get("channel");
+            JsonElement data = json.get("data");
+            if (channel == null || data == null) {
+                return null;
+            }
+            String payload = data.isJsonPrimitive() && data.getAsJsonPrimitive().isString()
+                    ? data.getAsString()
+                    : data.toString();
+            return new Envelope(channel.getAsString(), payload);
+        } catch (JsonParseException | IllegalStateException e) {
+            return null;
+        }
+    }
+
+    private static String envelope(String type, String channel, String data) {
+        JsonObject json = new JsonObject();
+        json.addProperty("type", type);
+        json.addProperty("channel", channel);
+        if (data != null) {
+            json.addProperty("data", data);
+        }
+        return json.toString();
+    }
+}
@@ -0,0 +1,45 @@
+package com.httpclient.websocket;
+
+import java.time.Duration;
+
+/**
+ * Heartbeat, reconnect and replay settings of a {@link ReconnectingWebSocket}.
+ *
+ * @param pingInterval    how often a ping is sent to measure RTT and keep the connection warm
+ * @param idleTimeout     a connection that received nothing (not even a pong) for this long is dropped
+ * @param initialBackoff  ceiling of the first reconnect delay; doubles per failed attempt
+ * @param maxBackoff      cap on the reconnect delay ceiling
+ * @param replayCapacity  unacknowledged messages kept for replay; the oldest is dropped when full
+ * @param autoAcknowledge treat a message as delivered once the socket accepted it, instead of waiting
+ *                        for {@link ReconnectingWebSocket#acknowledge(long)}
+ */
+public record ReconnectOptions(Duration pingInterval,
+                               Duration idleTimeout,
+                               Duration initialBackoff,
+                               Duration maxBackoff,
+                               int replayCapacity,
+                               boolean autoAcknowledge) {
+
+    /**
+     * Ping every 15 s, drop after 45 s of silence, reconnect within 0.5 s..30 s, replay up to 1024
+     */
+    public static ReconnectOptions defaults() {
+        return new ReconnectOptions(Duration.ofSeconds(15), Duration.ofSeconds(45),
+                Duration.ofMillis(500), Duration.ofSeconds(30), 1024, true);
+    }
+
+    public ReconnectOptions withHeartbeat(Duration pingInterval, Duration idleTimeout) {
+        return new ReconnectOptions(pingInterval, idleTimeout, initialBackoff, maxBackoff, replayCapacity,
+                autoAcknowledge);
+    }
+
+    public ReconnectOptions withBackoff(Duration initialBackoff, Duration maxBackoff) {
+        return new ReconnectOptions(pingInterval, idleTimeout, initialBackoff, maxBackoff, replayCapacity,
+                autoAcknowledge);
+    }
+
+    public ReconnectOptions withReplay(int replayCapacity, boolean autoAcknowledge) {
+        return new ReconnectOptions(pingInterval, idleTimeout, initialBackoff, maxBackoff, replayCapacity,
+                autoAcknowledge);
+    }
+}
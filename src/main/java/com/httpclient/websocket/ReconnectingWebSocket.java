@@ -0,0 +1,327 @@
+package com.httpclient.websocket;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A WebSocket that survives disconnects.
+ * <p>
+ * <b>Heartbeat.</b> A ping carrying its send time goes out every {@code pingInterval}; the
+ * pong yields the round-trip time. A connection that has received nothing for
+ * {@code idleTimeout} is considered dead and dropped, which catches half-open sockets that
+ * never report an error.
+ * <p>
+ * <b>Reconnect.</b> After a close or error the socket is reopened after a "full jitter"
+ * delay, uniform between zero and a ceiling that doubles per failed attempt. Spreading
+ * clients out like this keeps a server restart from being met by every client at once.
+ * <p>
+ * <b>Replay.</b> Every outbound message gets a sequence number and stays in a bounded ring
+ * until it is acknowledged, either when the socket accepted it ({@code autoAcknowledge}) or
+ * when the application calls {@link #acknowledge(long)} after the server confirmed it. After
+ * a reconnect the ring is replayed in order before anything new, so delivery is
+ * at-least-once.
+ * <p>
+ * {@link #ready()} completes whenever a connection is up, so callers can wait for it
+ * instead of sleeping.
+ */
+public class ReconnectingWebSocket implements AutoCloseable {
+
+    /**
+     * Connection health; RTTs are null until the first pong
+     */
+    public record Stats(boolean connected, long connects, long reconnectAttempts,
+                        Duration lastRtt, Duration smoothedRtt, int unacknowledged, long dropped) {
+    }
+
+    private record Pending(long sequence, CharSequence text, ByteBuffer data) {
+    }
+
+    private final HttpClient client;
+    private final URI uri;
+    private final WebSocketOptions sessionOptions;
+    private final ReconnectOptions options;
+    private final WebSocketHandler handler;
+    private final ScheduledExecutorService heartbeat;
+
+    // Guarded by this
+    private final ArrayDeque<Pending> ring = new ArrayDeque<>();
+    private long nextSequence = 1;
+    private long dropped;
+    private WebSocketSession session;
+    private CompletableFuture<Void> ready = new CompletableFuture<>();
+    private int attempt;
+    private long connects;
+    private long reconnectAttempts;
+
+    private volatile long lastReceivedNanos;
+    private volatile long lastRttNanos = -1;
+    private volatile long smoothedRttNanos = -1;
+    private volatile boolean closed;
+
+    private ReconnectingWebSocket(HttpClient client, URI uri, WebSocketOptions sessionOptions,
+                                  ReconnectOptions options, WebSocketHandler handler) {
+        this.client = client;
+        this.uri = uri;
+        // Replayed messages must fit in the send queue on top of the current one
+        this.sessionOptions = sessionOptions.withMaxQueuedSends(
+                Math.max(sessionOptions.maxQueuedSends(), options.replayCapacity() + 1));
+        this.options = options;
+        this.handler = handler;
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("ws-heartbeat").factory());
+    }
+
+    /**
+     * Start connecting; {@link #ready()} completes once the first connection is up
+     */
+    public static ReconnectingWebSocket connect(HttpClient client, URI uri, WebSocketOptions sessionOptions,
+                                                ReconnectOptions options, WebSocketHandler handler) {
+        ReconnectingWebSocket socket = new ReconnectingWebSocket(client, uri, sessionOptions, options, handler);
+        long interval = options.pingInterval().toNanos();
+        socket.heartbeat.scheduleAtFixedRate(socket::beat, interval, interval, TimeUnit.NANOSECONDS);
+        socket.open();
+        return socket;
+    }
+
+    /**
+     * Completes when a connection is up; after a disconnect a new, pending future is returned
+     */
+    public synchronized CompletableFuture<Void> ready() {
+        return ready;
+    }
+
+    /**
+     * Send (or buffer, while disconnected) a text message
+     *
+     * @return its sequence number, for {@link #acknowledge(long)}
+     */
+    public long sendText(CharSequence message) {
+        return send(message, null);
+    }
+
+    /**
+     * Send (or buffer) a binary message; it may be replayed, so it must not be modified afterwards
+     *
+     * @return its sequence number, for {@link #acknowledge(long)}
+     */
+    public long sendBinary(ByteBuffer message) {
+        return send(null, message);
+    }
+
+    /**
+     * Forget every buffered message up to and including {@code sequence}
+     */
+    public synchronized void acknowledge(long sequence) {
+        while (!ring.isEmpty() && ring.peek().sequence() <= sequence) {
+            ring.poll();
+        }
+    }
+
+    public synchronized Stats stats() {
+        long last = lastRttNanos;
+        long smoothed = smoothedRttNanos;
+        return new Stats(session != null, connects, reconnectAttempts,
+                last < 0 ? null : Duration.ofNanos(last),
+                smoothed < 0 ? null : Duration.ofNanos(smoothed),
+                ring.size(), dropped);
+    }
+
+    /**
+     * Stop reconnecting and close the current connection
+     */
+    @Override
+    public void close() {
+        WebSocketSession current;
+        CompletableFuture<Void> pending;
+        synchronized (this) {
+            closed = true;
+            current = session;
+            session = null;
+            pending = ready;
+        }
+        heartbeat.shutdownNow();
+        pending.completeExceptionally(new IllegalStateException("WebSocket closed"));
+        if (current != null) {
+            current.close(WebSocket.NORMAL_CLOSURE, "Client closed");
+        }
+    }
+
+    private long send(CharSequence text, ByteBuffer data) {
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("WebSocket closed");
+            }
+            Pending message = new Pending(nextSequence++, text, data);
+            if (ring.size() >= options.replayCapacity()) {
+                ring.poll();
+                dropped++;
+            }
+            ring.add(message);
+            // Under the lock, so the socket sees messages in ring order
+            if (session != null) {
+                transmit(session, message);
+            }
+            return message.sequence();
+        }
+    }
+
+    private void transmit(WebSocketSession target, Pending message) {
+        CompletableFuture<Void> sent = message.text() != null
+                ? target.sendText(message.text())
+                : target.sendBinary(message.data().duplicate());
+        if (options.autoAcknowledge()) {
+            sent.thenRun(() -> acknowledge(message.sequence()));
+        }
+        // A failed send stays in the ring and goes out again after the reconnect
+    }
+
+    private void open() {
+        CompletableFuture<WebSocketSession> connecting;
+        try {
+            connecting = WebSocketSession.connect(client, uri, sessionOptions, new Listener());
+        } catch (RuntimeException e) {
+            connecting = CompletableFuture.failedFuture(e);
+        }
+        connecting.whenComplete((opened, error) -> {
+            // Nobody observes this future: anything thrown here would silently end the reconnects
+            try {
+                if (error != null) {
+                    scheduleReconnect();
+                } else {
+                    opened(opened);
+                }
+            } catch (RuntimeException e) {
+                handler.onError(opened, e);
+            }
+        });
+    }
+
+    private void opened(WebSocketSession opened) {
+        CompletableFuture<Void> nowReady;
+        synchronized (this) {
+            if (closed) {
+                opened.close(WebSocket.NORMAL_CLOSURE, "Client closed");
+                return;
+            }
+            session = opened;
+            attempt = 0;
+            connects++;
+            lastReceivedNanos = System.nanoTime();
+            // Copy: sends that complete immediately acknowledge (and remove) themselves
+            List.copyOf(ring).forEach(message -> transmit(opened, message));
+            nowReady = ready;
+        }
+        nowReady.complete(null);
+    }
+
+    private void disconnected(WebSocketSession lost) {
+        synchronized (this) {
+            if (session != lost) {
+                return;
+            }
+            session = null;
+            ready = new CompletableFuture<>();
+        }
+        if (!closed) {
+            scheduleReconnect();
+        }
+    }
+
+    private void scheduleReconnect() {
+        int retry;
+        synchronized (this) {
+            retry = attempt++;
+            reconnectAttempts++;
+        }
+        long delay = ThreadLocalRandom.current().nextLong(backoffCeilingNanos(options, retry) + 1);
+        CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(() -> {
+            if (!closed) {
+                open();
+            }
+        });
+    }
+
+    /**
+     * initialBackoff doubled {@code retry} times, saturating at maxBackoff
+     */
+    static long backoffCeilingNanos(ReconnectOptions options, int retry) {
+        long max = options.maxBackoff().toNanos();
+        long initial = options.initialBackoff().compareTo(options.maxBackoff()) >= 0
+                ? max
+                : options.initialBackoff().toNanos();
+        int shift = Math.min(Math.max(0, retry), 62);
+        return initial > max >> shift ? max : initial << shift;
+    }
+
+    private void beat() {
+        WebSocketSession current;
+        synchronized (this) {
+            current = session;
+        }
+        if (current == null) {
+            return;
+        }
+        if (System.nanoTime() - lastReceivedNanos > options.idleTimeout().toNanos()) {
+            current.abort();
+            disconnected(current);
+            return;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(Long.BYTES).putLong(0, System.nanoTime());
+        // Still waiting for the previous pong is not an error; the idle check covers it
+        current.ping(payload).exceptionally(error -> null);
+    }
+
+    private class Listener implements WebSocketHandler {
+
+        @Override
+        public void onOpen(WebSocketSession opened) {
+            handler.onOpen(opened);
+        }
+
+        @Override
+        public void onText(WebSocketSession current, CharSequence message) {
+            lastReceivedNanos = System.nanoTime();
+            handler.onText(current, message);
+        }
+
+        @Override
+        public void onBinary(WebSocketSession current, ByteBuffer message) {
+            lastReceivedNanos = System.nanoTime();
+            handler.onBinary(current, message);
+        }
+
+        @Override
+        public void onPong(WebSocketSession current, ByteBuffer message) {
+            long now = System.nanoTime();
+            lastReceivedNanos = now;
+            if (message.remaining() == Long.BYTES) {
+                long rtt = now - message.getLong(message.position());
+                lastRttNanos = rtt;
+                long smoothed = smoothedRttNanos;
+                smoothedRttNanos = smoothed < 0 ? rtt : (7 * smoothed + rtt) / 8;
+            }
+            handler.onPong(current, message);
+        }
+
+        @Override
+        public void onClose(WebSocketSession current, int statusCode, String reason) {
+            handler.onClose(current, statusCode, reason);
+            disconnected(current);
+        }
+
+        @Override
+        public void onError(WebSocketSession current, Throwable error) {
+            handler.onError(current, error);
+            disconnected(current);
+        }
+    }
+}
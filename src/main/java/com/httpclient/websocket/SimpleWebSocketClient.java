@@ -1,21 +1,29 @@
 package com.httpclient.websocket;
 
+import com.httpclient.util.Config;
+import com.httpclient.util.HttpClientRegistry;
+
 import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CompletionStage;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Simple WebSocket client that connects to an echo server
+ * Simple WebSocket client that connects to an echo server, reconnecting if the
+ * connection drops
  */
 public class SimpleWebSocketClient {
 
-    private WebSocket webSocket;
+    // Only the most recent messages are kept for getReceivedMessages()
+    private static final int MAX_RETAINED_MESSAGES = 100;
+
+    private ReconnectingWebSocket webSocket;
     private final CountDownLatch latch = new CountDownLatch(1);
-    private StringBuilder receivedMessages = new StringBuilder();
+    private final ArrayDeque<String> receivedMessages = new ArrayDeque<>();
+    private long receivedCount;
 
     /**
      * Connect to a WebSocket server
@@ -23,82 +31,123 @@ public class SimpleWebSocketClient {
     public void connect(String url) throws Exception {
         System.out.println("🔗 Connecting to WebSocket: " + url);
 
-        // Create WebSocket listener
-        WebSocket.Listener listener = new WebSocket.Listener() {
+        // Receives complete messages; fragments are reassembled by the session
+        WebSocketHandler handler = new WebSocketHandler() {
 
             @Override
-            public void onOpen(WebSocket webSocket) {
+            public void onOpen(WebSocketSession session) {
                 System.out.println("✅ WebSocket connection opened");
-                webSocket.request(1); // Request first message
             }
 
             @Override
-            public CompletionStage<?> onText(WebSocket webSocket,
-                                             CharSequence data,
-                                             boolean last) {
-                System.out.println("📨 Received: " + data);
-                receivedMessages.append(data).append("\n");
-                webSocket.request(1); // Request next message
-                return CompletableFuture.completedFuture(null);
+            public void onText(WebSocketSession session, CharSequence message) {
+                System.out.println("📨 Received: " + message);
+                retain(message.toString());
             }
 
             @Override
-            public CompletionStage<?> onClose(WebSocket webSocket,
-                                              int statusCode,
-                                              String reason) {
-                System.out.println("🔌 WebSocket closed: " + statusCode + " - " + reason);
-                latch.countDown(); // Signal that connection is closed
-                return CompletableFuture.completedFuture(null);
+            public void onBinary(WebSocketSession session, ByteBuffer message) {
+                System.out.println("📨 Received " + message.remaining() + " bytes");
+                retain("<" + message.remaining() + " bytes>");
             }
 
             @Override
-            public void onError(WebSocket webSocket, Throwable error) {
-                System.err.println("❌ WebSocket error: " + error.getMessage());
-                latch.countDown();
+            public void onClose(WebSocketSession session, int statusCode, String reason) {
+                System.out.println("🔌 WebSocket closed: " + statusCode + " - " + reason + " (reconnecting)");
             }
-        };
 
-        // Build and connect
-        CompletableFuture<WebSocket> wsFuture = HttpClient.newHttpClient()
-                .newWebSocketBuilder()
-                .buildAsync(URI.create(url), listener);
+            @Override
+            public void onError(WebSocketSession session, Throwable error) {
+                System.err.println("❌ WebSocket error: " + error.getMessage() + " (reconnecting)");
+            }
+        };
 
-        this.webSocket = wsFuture.join();
+        // Build and connect, then wait until the socket is actually open
+        this.webSocket = ReconnectingWebSocket.connect(HttpClientRegistry.shared(), URI.create(url),
+                WebSocketOptions.defaults(), ReconnectOptions.defaults(), handler);
+        webSocket.ready().get(Config.CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
         System.out.println("✅ WebSocket client ready");
     }
 
     /**
-     * Send a message to the WebSocket server
+     * Completes whenever the client is connected
+     */
+    public CompletableFuture<Void> ready() {
+        return webSocket.ready();
+    }
+
+    /**
+     * Send a message to the WebSocket server; while reconnecting it is buffered and sent
+     * once the connection is back
      */
     public void sendMessage(String message) {
-        if (webSocket != null && !webSocket.isOutputClosed()) {
+        if (webSocket != null) {
             System.out.println("📤 Sending: " + message);
-            webSocket.sendText(message, true);
+            webSocket.sendText(message);
         } else {
             System.err.println("❌ Cannot send - WebSocket not connected");
         }
     }
 
     /**
-     * Wait for messages (blocks until connection closes)
+     * Wait until {@code count} messages have been received in total, or the timeout passes
+     *
+     * @return whether they all arrived
+     */
+    public boolean awaitMessages(int count, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (receivedMessages) {
+            while (receivedCount < count) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(receivedMessages, remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Wait for messages (blocks until the client is closed)
      */
     public void waitForCompletion() throws InterruptedException {
         latch.await(30, TimeUnit.SECONDS);
     }
 
     /**
-     * Close the WebSocket connection
+     * Close the WebSocket connection and stop reconnecting
      */
     public void close() {
         if (webSocket != null) {
-            webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "Goodbye");
+            ReconnectingWebSocket.Stats stats = webSocket.stats();
+            System.out.println("📈 Connects: " + stats.connects()
+                    + ", RTT: " + (stats.smoothedRtt() == null ? "n/a" : stats.smoothedRtt().toMillis() + " ms")
+                    + ", Unacknowledged: " + stats.unacknowledged());
+            webSocket.close();
         }
+        latch.countDown();
     }
 
     /**
-     * Get all received messages
+     * Get the most recent received messages, one per line
      */
     public String getReceivedMessages() {
-        return receivedMessages.toString();
+        synchronized (receivedMessages) {
+            StringBuilder all = new StringBuilder();
+            receivedMessages.forEach(message -> all.append(message).append("\n"));
+            return all.toString();
+        }
+    }
+
+    private void retain(String message) {
+        synchronized (receivedMessages) {
+            if (receivedMessages.size() == MAX_RETAINED_MESSAGES) {
+                receivedMessages.poll();
+            }
+            receivedMessages.add(message);
+            receivedCount++;
+            receivedMessages.notifyAll();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,69 @@
+package com.httpclient.websocket;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One logical subscription managed by a {@link WebSocketChannelManager}.
+ * <p>
+ * The channel is bound to one pooled connection at a time; when that connection drops
+ * the manager re-subscribes it on another one, so the handle stays valid.
+ */
+public class WebSocketChannel {
+
+    private final WebSocketChannelManager manager;
+    private final URI endpoint;
+    private final String name;
+    private final ChannelHandler handler;
+    volatile WebSocketChannelManager.Connection connection;
+    volatile boolean active;
+    volatile boolean closed;
+
+    WebSocketChannel(WebSocketChannelManager manager, URI endpoint, String name, ChannelHandler handler) {
+        this.manager = manager;
+        this.endpoint = endpoint;
+        this.name = name;
+        this.handler = handler;
+    }
+
+    public URI endpoint() {
+        return endpoint;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Id of the pooled connection currently carrying this channel, -1 while unassigned
+     */
+    public int connectionId() {
+        WebSocketChannelManager.Connection current = connection;
+        return current == null ? -1 : current.id;
+    }
+
+    /**
+     * Publish on this channel; fails if the carrying connection drops before it is sent
+     */
+    public CompletableFuture<Void> send(String payload) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Channel " + name + " is closed"));
+        }
+        WebSocketChannelManager.Connection current = connection;
+        if (current == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Channel " + name + " is reconnecting"));
+        }
+        return current.send(manager.codec().publish(name, payload));
+    }
+
+    /**
+     * Unsubscribe and release the channel's slot on its connection
+     */
+    public CompletableFuture<Void> close() {
+        return manager.unsubscribe(this);
+    }
+
+    void deliver(String payload) {
+        handler.onMessage(this, payload);
+    }
+}
@@ -0,0 +1,320 @@
+package com.httpclient.websocket;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Multiplexes many logical channels over a small pool of WebSocket connections per endpoint.
+ * <p>
+ * A new channel goes to the least loaded connection of its endpoint; another connection is
+ * opened while the pool is below {@code connectionsPerEndpoint}, so channels spread out
+ * instead of piling onto one socket. Inbound messages are decoded with a {@link ChannelCodec}
+ * and routed to the channel's {@link ChannelHandler}. When a connection drops, its channels
+ * are re-subscribed on the remaining (or a fresh) connection; failed attempts are retried
+ * after {@code resubscribeDelay}.
+ */
+public class WebSocketChannelManager implements AutoCloseable {
+
+    /**
+     * Load of one pooled connection
+     */
+    public record ConnectionLoad(int id, URI endpoint, int channels, boolean open,
+                                 long messagesSent, long messagesReceived, int queued) {
+    }
+
+    private final HttpClient client;
+    private final WebSocketOptions options;
+    private final ChannelCodec codec;
+    private final int connectionsPerEndpoint;
+    private final int maxChannelsPerConnection;
+    private final Duration resubscribeDelay;
+    private final Map<URI, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionIds = new AtomicInteger();
+    private volatile boolean closed;
+
+    /**
+     * JSON envelopes, up to 4 connections per endpoint with 1000 channels each
+     */
+    public WebSocketChannelManager(HttpClient client) {
+        this(client, WebSocketOptions.defaults(), new JsonChannelCodec(), 4, 1000, Duration.ofSeconds(1));
+    }
+
+    public WebSocketChannelManager(HttpClient client, WebSocketOptions options, ChannelCodec codec,
+                                   int connectionsPerEndpoint, int maxChannelsPerConnection,
+                                   Duration resubscribeDelay) {
+        this.client = client;
+        this.options = options;
+        this.codec = codec;
+        this.connectionsPerEndpoint = connectionsPerEndpoint;
+        this.maxChannelsPerConnection = maxChannelsPerConnection;
+        this.resubscribeDelay = resubscribeDelay;
+    }
+
+    ChannelCodec codec() {
+        return codec;
+    }
+
+    /**
+     * Subscribe to {@code channel} at {@code endpoint}; the future completes once the
+     * subscribe message has been sent
+     */
+    public CompletableFuture<WebSocketChannel> subscribe(URI endpoint, String channel, ChannelHandler handler) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Channel manager is closed"));
+        }
+        WebSocketChannel subscription = new WebSocketChannel(this, endpoint, channel, handler);
+        Endpoint pool = endpoints.computeIfAbsent(endpoint, Endpoint::new);
+        if (!pool.register(subscription)) {
+            return CompletableFuture.failedFuture(new IllegalStateException(
+                    "Already subscribed to " + channel + " at " + endpoint));
+        }
+        return pool.attach(subscription)
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        subscription.closed = true;
+                        pool.unregister(subscription);
+                    } else {
+                        subscription.active = true;
+                    }
+                })
+                .thenApply(ignored -> subscription);
+    }
+
+    CompletableFuture<Void> unsubscribe(WebSocketChannel channel) {
+        if (channel.closed) {
+            return CompletableFuture.completedFuture(null);
+        }
+        channel.closed = true;
+        Endpoint pool = endpoints.get(channel.endpoint());
+        Connection connection = channel.connection;
+        if (pool != null) {
+            pool.unregister(channel);
+        }
+        if (connection == null || !connection.isOpen()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return connection.send(codec.unsubscribe(channel.name()));
+    }
+
+    /**
+     * Load of every pooled connection, grouped by endpoint
+     */
+    public List<ConnectionLoad> stats() {
+        List<ConnectionLoad> loads = new ArrayList<>();
+        endpoints.values().forEach(pool -> loads.addAll(pool.stats()));
+        return loads;
+    }
+
+    /**
+     * Print one line per pooled connection
+     */
+    public void printStats() {
+        stats().forEach(load -> System.out.println("  #" + load.id() + " " + load.endpoint()
+                + ": channels=" + load.channels()
+                + ", open=" + load.open()
+                + ", sent=" + load.messagesSent()
+                + ", received=" + load.messagesReceived()
+                + ", queued=" + load.queued()));
+    }
+
+    /**
+     * Close every pooled connection; channels are not re-subscribed afterwards
+     */
+    @Override
+    public void close() {
+        closed = true;
+        endpoints.values().forEach(Endpoint::closeAll);
+        endpoints.clear();
+    }
+
+    /**
+     * Pooled connections and subscribed channels of one endpoint
+     */
+    private class Endpoint {
+        private final URI uri;
+        private final List<Connection> connections = new ArrayList<>();
+        private final Map<String, WebSocketChannel> channels = new LinkedHashMap<>();
+
+        Endpoint(URI uri) {
+            this.uri = uri;
+        }
+
+        synchronized boolean register(WebSocketChannel channel) {
+            return channels.putIfAbsent(channel.name(), channel) == null;
+        }
+
+        void unregister(WebSocketChannel channel) {
+            Connection connection;
+            synchronized (this) {
+                channels.remove(channel.name(), channel);
+                connection = channel.connection;
+                channel.connection = null;
+            }
+            if (connection != null) {
+                connection.channels.remove(channel.name(), channel);
+            }
+        }
+
+        /**
+         * Bind the channel to the least loaded connection (opening one if the pool should
+         * grow) and send its subscribe message
+         */
+        CompletableFuture<Void> attach(WebSocketChannel channel) {
+            Connection connection;
+            synchronized (this) {
+                connection = pick();
+                if (connection == null) {
+                    return CompletableFuture.failedFuture(new RejectedExecutionException(
+                            "All " + connectionsPerEndpoint + " connections to " + uri + " carry "
+                                    + maxChannelsPerConnection + " channels"));
+                }
+                connection.channels.put(channel.name(), channel);
+                channel.connection = connection;
+            }
+            return connection.ready.thenCompose(session -> session.sendText(codec.subscribe(channel.name())));
+        }
+
+        /**
+         * Must hold the lock
+         */
+        private Connection pick() {
+            Connection least = connections.stream()
+                    .min(Comparator.comparingInt(c -> c.channels.size()))
+                    .orElse(null);
+            boolean canGrow = connections.size() < connectionsPerEndpoint;
+            if (least == null
+                    || (canGrow && !least.channels.isEmpty())
+                    || least.channels.size() >= maxChannelsPerConnection) {
+                if (!canGrow) {
+                    return null;
+                }
+                Connection connection = new Connection(this);
+                connections.add(connection);
+                return connection;
+            }
+            return least;
+        }
+
+        /**
+         * A connection went away: move its established channels to the rest of the pool.
+         * Channels still waiting for their first subscribe fail through {@link #subscribe}.
+         */
+        void dropped(Connection connection) {
+            List<WebSocketChannel> orphans;
+            synchronized (this) {
+                if (!connections.remove(connection)) {
+                    return;
+                }
+                orphans = new ArrayList<>(connection.channels.values());
+                connection.channels.clear();
+                orphans.forEach(channel -> channel.connection = null);
+            }
+            orphans.stream().filter(channel -> channel.active).forEach(this::resubscribe);
+        }
+
+        private void resubscribe(WebSocketChannel channel) {
+            if (closed || channel.closed) {
+                return;
+            }
+            attach(channel).exceptionally(error -> {
+                synchronized (this) {
+                    Connection failed = channel.connection;
+                    if (failed != null) {
+                        failed.channels.remove(channel.name(), channel);
+                        channel.connection = null;
+                    }
+                }
+                CompletableFuture.delayedExecutor(resubscribeDelay.toMillis(), TimeUnit.MILLISECONDS)
+                        .execute(() -> resubscribe(channel));
+                return null;
+            });
+        }
+
+        synchronized List<ConnectionLoad> stats() {
+            return connections.stream().map(Connection::load).toList();
+        }
+
+        void closeAll() {
+            List<Connection> all;
+            synchronized (this) {
+                all = new ArrayList<>(connections);
+                connections.clear();
+            }
+            all.forEach(Connection::close);
+        }
+    }
+
+    /**
+     * One pooled socket and the channels it carries
+     */
+    class Connection implements WebSocketHandler {
+        final int id = connectionIds.incrementAndGet();
+        final Map<String, WebSocketChannel> channels = new ConcurrentHashMap<>();
+        private final Endpoint endpoint;
+        private final CompletableFuture<WebSocketSession> ready;
+
+        Connection(Endpoint endpoint) {
+            this.endpoint = endpoint;
+            this.ready = WebSocketSession.connect(client, endpoint.uri, options, this);
+            ready.whenComplete((session, error) -> {
+                if (error != null) {
+                    endpoint.dropped(this);
+                }
+            });
+        }
+
+        boolean isOpen() {
+            WebSocketSession session = ready.getNow(null);
+            return session != null && session.isOpen();
+        }
+
+        CompletableFuture<Void> send(String message) {
+            return ready.thenCompose(session -> session.sendText(message));
+        }
+
+        ConnectionLoad load() {
+            WebSocketSession session = ready.getNow(null);
+            WebSocketSession.Stats stats = session == null ? new WebSocketSession.Stats(0, 0, 0) : session.stats();
+            return new ConnectionLoad(id, endpoint.uri, channels.size(), isOpen(),
+                    stats.messagesSent(), stats.messagesReceived(), stats.queued());
+        }
+
+        void close() {
+            ready.thenAccept(session -> session.close(WebSocket.NORMAL_CLOSURE, "Channel manager closed"));
+        }
+
+        @Override
+        public void onText(WebSocketSession session, CharSequence message) {
+            ChannelCodec.Envelope envelope = codec.decode(message);
+            if (envelope == null) {
+                return;
+            }
+            WebSocketChannel channel = channels.get(envelope.channel());
+            if (channel != null) {
+                channel.deliver(envelope.payload());
+            }
+        }
+
+        @Override
+        public void onClose(WebSocketSession session, int statusCode, String reason) {
+            endpoint.dropped(this);
+        }
+
+        @Override
+        public void onError(WebSocketSession session, Throwable error) {
+            endpoint.dropped(this);
+        }
+    }
+}
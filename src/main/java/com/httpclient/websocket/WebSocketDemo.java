@@ -1,7 +1,13 @@
 package com.httpclient.websocket;
 
 import com.httpclient.util.Config;
+import com.httpclient.util.HttpClientRegistry;
 
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -15,53 +21,78 @@ public class WebSocketDemo {
         SimpleWebSocketClient client = new SimpleWebSocketClient();
 
         try {
-            // 1. Connect to WebSocket echo server
-            client.connect(Config.WEBSOCKET_ECHO_URL);
-
-            // Small delay to ensure connection is ready
-            TimeUnit.SECONDS.sleep(1);
+            // 1. Connect to WebSocket echo server (returns once the socket is open)
+            client.connect(Config.webSocketEchoUrl());
 
             // 2. Send multiple test messages
             System.out.println("\n--- Sending Test Messages ---");
 
             client.sendMessage("Hello WebSocket!");
-            TimeUnit.SECONDS.sleep(1);
-
             client.sendMessage("This is Java 25 HTTP Client");
-            TimeUnit.SECONDS.sleep(1);
-
             client.sendMessage("Testing real-time communication");
-            TimeUnit.SECONDS.sleep(1);
 
-            // 3. Wait for all responses
+            // 3. Wait for all responses (some echo servers send a greeting first)
             System.out.println("\n--- Waiting for responses ---");
-            client.waitForCompletion();
+            if (!client.awaitMessages(3, Duration.ofSeconds(10))) {
+                System.out.println("⚠️ Not all echoes arrived in time");
+            }
 
             // 4. Show received messages
             System.out.println("\n--- All Received Messages ---");
             System.out.println(client.getReceivedMessages());
 
+            // 5. Several logical channels sharing pooled sockets
+            multiplexedChannels();
+
         } catch (Exception e) {
             System.err.println("❌ Error in WebSocket demo: " + e.getMessage());
             e.printStackTrace();
         } finally {
-            // 5. Cleanup
+            // 6. Cleanup
             client.close();
             System.out.println("\n✅ WebSocket demo completed");
         }
     }
 
+    /**
+     * Subscribe five channels over a pool of two sockets; the echo server sends every
+     * envelope back, so each channel should receive exactly its own message
+     */
+    public static void multiplexedChannels() throws Exception {
+        System.out.println("\n--- Multiplexed Channels ---");
+
+        List<String> channels = List.of("prices", "orders", "news", "alerts", "chat");
+        CountDownLatch received = new CountDownLatch(channels.size());
+        URI endpoint = URI.create(Config.webSocketEchoUrl());
+
+        try (WebSocketChannelManager manager = new WebSocketChannelManager(HttpClientRegistry.shared(),
+                WebSocketOptions.defaults(), new JsonChannelCodec(), 2, 100, Duration.ofSeconds(1))) {
+            List<WebSocketChannel> subscriptions = new ArrayList<>();
+            for (String name : channels) {
+                subscriptions.add(manager.subscribe(endpoint, name, (channel, payload) -> {
+                    System.out.println("📨 [" + channel.name() + " @ #" + channel.connectionId() + "] " + payload);
+                    received.countDown();
+                }).join());
+            }
+
+            subscriptions.forEach(channel -> channel.send("update for " + channel.name()));
+            received.await(10, TimeUnit.SECONDS);
+
+            System.out.println("Connection load:");
+            manager.printStats();
+        }
+    }
+
     /**
      * Simple echo test - connect, send one message, receive echo
      */
     public static void quickEchoTest() throws Exception {
         SimpleWebSocketClient client = new SimpleWebSocketClient();
-        client.connect(Config.WEBSOCKET_ECHO_URL);
+        client.connect(Config.webSocketEchoUrl());
 
-        TimeUnit.SECONDS.sleep(1);
         client.sendMessage("Quick test message");
 
-        TimeUnit.SECONDS.sleep(2);
+        client.awaitMessages(1, Duration.ofSeconds(5));
         System.out.println("Received: " + client.getReceivedMessages());
 
         client.close();
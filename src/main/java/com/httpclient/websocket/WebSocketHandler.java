@@ -0,0 +1,36 @@
+package com.httpclient.websocket;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Callbacks of a {@link WebSocketSession}, one per complete (reassembled) message.
+ * <p>
+ * They run on the socket's receive thread, one at a time; hand slow work to another
+ * executor so the next frames can be read.
+ */
+public interface WebSocketHandler {
+
+    default void onOpen(WebSocketSession session) {
+    }
+
+    default void onText(WebSocketSession session, CharSequence message) {
+    }
+
+    /**
+     * {@code message} is only valid during the call; copy it to keep it
+     */
+    default void onBinary(WebSocketSession session, ByteBuffer message) {
+    }
+
+    /**
+     * Answer to one of our pings; {@code message} is only valid during the call
+     */
+    default void onPong(WebSocketSession session, ByteBuffer message) {
+    }
+
+    default void onClose(WebSocketSession session, int statusCode, String reason) {
+    }
+
+    default void onError(WebSocketSession session, Throwable error) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.httpclient.websocket;
+
+import com.httpclient.body.ByteBufferPool;
+
+/**
+ * Flow-control settings of a {@link WebSocketSession}.
+ *
+ * @param maxQueuedSends messages that may wait behind the one being sent; beyond that sends are rejected
+ * @param demandWindow   frames requested from the socket up front; half of it is re-requested at a time
+ * @param maxMessageSize largest reassembled message (bytes for binary, chars for text); bigger ones close
+ *                       the socket with 1008
+ * @param pool           buffers for reassembling fragmented binary messages
+ */
+public record WebSocketOptions(int maxQueuedSends, int demandWindow, int maxMessageSize, ByteBufferPool pool) {
+
+    /**
+     * 1024 queued sends, 64-frame window, 1 MiB messages, shared buffer pool
+     */
+    public static WebSocketOptions defaults() {
+        return new WebSocketOptions(1024, 64, 1024 * 1024, ByteBufferPool.shared());
+    }
+
+    public WebSocketOptions withMaxQueuedSends(int maxQueuedSends) {
+        return new WebSocketOptions(maxQueuedSends, demandWindow, maxMessageSize, pool);
+    }
+
+    public WebSocketOptions withDemandWindow(int demandWindow) {
+        return new WebSocketOptions(maxQueuedSends, demandWindow, maxMessageSize, pool);
+    }
+
+    public WebSocketOptions withMaxMessageSize(int maxMessageSize) {
+        return new WebSocketOptions(maxQueuedSends, demandWindow, maxMessageSize, pool);
+    }
+}
@@ -0,0 +1,355 @@
+package com.httpclient.websocket;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * WebSocket connection built for sustained message rates.
+ * <p>
+ * <b>Sending.</b> {@link WebSocket} allows only one outstanding send; starting another
+ * before the previous future completes is an error. Messages are therefore queued
+ * (bounded by {@link WebSocketOptions#maxQueuedSends()}) and each completion starts the
+ * next one straight away, so a burst goes out back to back.
+ * <p>
+ * <b>Receiving.</b> Instead of {@code request(1)} per frame, the session keeps a window of
+ * demand open and tops it up in batches. Fragmented messages are reassembled (binary ones
+ * into pooled buffers) and handed to the {@link WebSocketHandler} once complete;
+ * single-frame messages are passed through without copying.
+ */
+public class WebSocketSession {
+
+    // 1009 (message too big) is reserved for servers by the JDK client, so use policy violation
+    public static final int POLICY_VIOLATION = 1008;
+
+    private enum Kind { TEXT, BINARY, CLOSE }
+
+    private record Outbound(Kind kind, CharSequence text, ByteBuffer data, int statusCode,
+                            CompletableFuture<Void> sent) {
+    }
+
+    /**
+     * Counters since the session opened
+     */
+    public record Stats(long messagesSent, long messagesReceived, int queued) {
+    }
+
+    private final WebSocketOptions options;
+    private final WebSocketHandler handler;
+    private final CompletableFuture<Void> closed = new CompletableFuture<>();
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder messagesReceived = new LongAdder();
+
+    // Send side, guarded by the queue's lock
+    private final ArrayDeque<Outbound> queue = new ArrayDeque<>();
+    private boolean sending;
+    private boolean closing;
+
+    // Receive side, only touched from the listener (the JDK serializes its callbacks)
+    private final StringBuilder text = new StringBuilder();
+    private boolean textFragmented;
+    private ByteBuffer binary;
+    private boolean skipping;
+    private int consumed;
+
+    private volatile WebSocket webSocket;
+
+    private WebSocketSession(WebSocketOptions options, WebSocketHandler handler) {
+        this.options = options;
+        this.handler = handler;
+    }
+
+    /**
+     * Open a session; the future completes once the handshake is done
+     */
+    public static CompletableFuture<WebSocketSession> connect(HttpClient client, URI uri,
+                                                              WebSocketOptions options, WebSocketHandler handler) {
+        WebSocketSession session = new WebSocketSession(options, handler);
+        return client.newWebSocketBuilder()
+                .buildAsync(uri, session.new Listener())
+                .thenApply(webSocket -> session);
+    }
+
+    public WebSocket webSocket() {
+        return webSocket;
+    }
+
+    public boolean isOpen() {
+        WebSocket ws = webSocket;
+        return ws != null && !ws.isOutputClosed() && !ws.isInputClosed();
+    }
+
+    /**
+     * Completes when the peer closes the socket, exceptionally on a transport error
+     */
+    public CompletableFuture<Void> closeFuture() {
+        return closed;
+    }
+
+    public Stats stats() {
+        synchronized (queue) {
+            return new Stats(messagesSent.sum(), messagesReceived.sum(), queue.size());
+        }
+    }
+
+    /**
+     * Queue a text message; the future completes once it has been handed to the socket
+     */
+    public CompletableFuture<Void> sendText(CharSequence message) {
+        return enqueue(new Outbound(Kind.TEXT, message, null, 0, new CompletableFuture<>()));
+    }
+
+    /**
+     * Queue a binary message; {@code message} must not be modified until the future completes
+     */
+    public CompletableFuture<Void> sendBinary(ByteBuffer message) {
+        return enqueue(new Outbound(Kind.BINARY, null, message, 0, new CompletableFuture<>()));
+    }
+
+    /**
+     * Send a close frame after everything already queued; later sends are rejected
+     */
+    public CompletableFuture<Void> close(int statusCode, String reason) {
+        return enqueue(new Outbound(Kind.CLOSE, reason, null, statusCode, new CompletableFuture<>()));
+    }
+
+    /**
+     * Send a ping outside the message queue: control frames may interleave with data, but
+     * only one ping may be outstanding at a time
+     */
+    public CompletableFuture<Void> ping(ByteBuffer payload) {
+        return webSocket.sendPing(payload).thenApply(ws -> null);
+    }
+
+    /**
+     * Drop the connection without a close handshake and fail everything still queued
+     */
+    public void abort() {
+        WebSocket ws = webSocket;
+        if (ws != null) {
+            ws.abort();
+        }
+        failQueued(new IllegalStateException("WebSocket aborted"));
+    }
+
+    private CompletableFuture<Void> enqueue(Outbound outbound) {
+        synchronized (queue) {
+            if (closing) {
+                return CompletableFuture.failedFuture(new IllegalStateException("WebSocket is closing"));
+            }
+            if (queue.size() >= options.maxQueuedSends()) {
+                return CompletableFuture.failedFuture(new RejectedExecutionException(
+                        "Send queue full (" + options.maxQueuedSends() + " messages)"));
+            }
+            closing = outbound.kind() == Kind.CLOSE;
+            queue.add(outbound);
+            if (sending) {
+                return outbound.sent();
+            }
+            sending = true;
+        }
+        pump();
+        return outbound.sent();
+    }
+
+    /**
+     * Send queued messages one after another. Sends that complete immediately are handled
+     * in this loop rather than by recursing from their completion.
+     */
+    private void pump() {
+        while (true) {
+            Outbound next;
+            synchronized (queue) {
+                next = queue.poll();
+                if (next == null) {
+                    sending = false;
+                    return;
+                }
+            }
+
+            CompletableFuture<WebSocket> write = switch (next.kind()) {
+                case TEXT -> webSocket.sendText(next.text(), true);
+                case BINARY -> webSocket.sendBinary(next.data(), true);
+                case CLOSE -> webSocket.sendClose(next.statusCode(), next.text().toString());
+            };
+
+            if (write.isDone()) {
+                write.whenComplete((ws, error) -> sent(next, error));
+                continue;
+            }
+            write.whenComplete((ws, error) -> {
+                sent(next, error);
+                pump();
+            });
+            return;
+        }
+    }
+
+    private void sent(Outbound outbound, Throwable error) {
+        if (error != null) {
+            outbound.sent().completeExceptionally(error);
+        } else {
+            if (outbound.kind() != Kind.CLOSE) {
+                messagesSent.increment();
+            }
+            outbound.sent().complete(null);
+        }
+    }
+
+    private void failQueued(Throwable error) {
+        List<Outbound> failed;
+        synchronized (queue) {
+            closing = true;
+            failed = new ArrayList<>(queue);
+            queue.clear();
+        }
+        failed.forEach(outbound -> outbound.sent().completeExceptionally(error));
+    }
+
+    /**
+     * Count one consumed frame and re-request half the window once half of it is used
+     */
+    private void replenish(WebSocket ws) {
+        if (++consumed >= Math.max(1, options.demandWindow() / 2)) {
+            ws.request(consumed);
+            consumed = 0;
+        }
+    }
+
+    /**
+     * Drop the oversized message (and its remaining fragments) and close with 1008
+     */
+    private void tooBig(boolean last) {
+        text.setLength(0);
+        textFragmented = false;
+        releaseBinary();
+        skipping = !last;
+        close(POLICY_VIOLATION, "Message exceeds " + options.maxMessageSize()).exceptionally(error -> {
+            abort();
+            return null;
+        });
+    }
+
+    private void releaseBinary() {
+        if (binary != null) {
+            options.pool().release(binary);
+            binary = null;
+        }
+    }
+
+    private void deliverText(CharSequence message) {
+        messagesReceived.increment();
+        handler.onText(this, message);
+    }
+
+    private void deliverBinary(ByteBuffer message) {
+        messagesReceived.increment();
+        handler.onBinary(this, message.asReadOnlyBuffer());
+    }
+
+    /**
+     * Append a fragment, moving to a buffer of a larger size class when the current one is full
+     */
+    private void appendBinary(ByteBuffer fragment) {
+        if (binary == null) {
+            binary = options.pool().acquire();
+        }
+        if (binary.remaining() < fragment.remaining()) {
+            int needed = binary.position() + fragment.remaining();
+            ByteBuffer larger = options.pool().acquire(Math.min(options.maxMessageSize(),
+                    Math.max(needed, binary.capacity() * 2)));
+            larger.put(binary.flip());
+            options.pool().release(binary);
+            binary = larger;
+        }
+        binary.put(fragment);
+    }
+
+    private class Listener implements WebSocket.Listener {
+
+        @Override
+        public void onOpen(WebSocket ws) {
+            webSocket = ws;
+            ws.request(options.demandWindow());
+            handler.onOpen(WebSocketSession.this);
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket ws, CharSequence data, boolean last) {
+            if (skipping) {
+                skipping = !last;
+            } else if (last && !textFragmented) {
+                deliverText(data);
+            } else if (text.length() + data.length() > options.maxMessageSize()) {
+                tooBig(last);
+            } else {
+                text.append(data);
+                textFragmented = !last;
+                if (last) {
+                    deliverText(text);
+                    text.setLength(0);
+                }
+            }
+            replenish(ws);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onBinary(WebSocket ws, ByteBuffer data, boolean last) {
+            if (skipping) {
+                skipping = !last;
+            } else if (last && binary == null) {
+                deliverBinary(data);
+            } else if ((binary == null ? 0 : binary.position()) + data.remaining() > options.maxMessageSize()) {
+                tooBig(last);
+            } else {
+                appendBinary(data);
+                if (last) {
+                    deliverBinary(binary.flip());
+                    releaseBinary();
+                }
+            }
+            replenish(ws);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onPing(WebSocket ws, ByteBuffer message) {
+            // The JDK answers pings itself
+            replenish(ws);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onPong(WebSocket ws, ByteBuffer message) {
+            handler.onPong(WebSocketSession.this, message);
+            replenish(ws);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket ws, int statusCode, String reason) {
+            releaseBinary();
+            failQueued(new IllegalStateException("WebSocket closed: " + statusCode + " " + reason));
+            handler.onClose(WebSocketSession.this, statusCode, reason);
+            closed.complete(null);
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket ws, Throwable error) {
+            releaseBinary();
+            failQueued(error);
+            handler.onError(WebSocketSession.this, error);
+            closed.completeExceptionally(error);
+        }
+    }
+}
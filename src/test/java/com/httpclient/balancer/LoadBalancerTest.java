@@ -0,0 +1,148 @@
+package com.httpclient.balancer;
+
+import com.httpclient.batch.BatchResult;
+import com.httpclient.batch.HttpBatch;
+import com.httpclient.mock.MockServer;
+import com.httpclient.mock.MockServerOptions;
+import com.httpclient.util.HttpClientFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadBalancerTest {
+
+    private static final MockServerOptions FAST =
+            MockServerOptions.defaults().withLatency(Duration.ofMillis(5), Duration.ZERO);
+
+    private final List<MockServer> servers = new ArrayList<>();
+    private HttpClient http;
+
+    @BeforeEach
+    void createClient() {
+        http = HttpClientFactory.createHttp11Client();
+    }
+
+    @AfterEach
+    void stop() {
+        http.close();
+        servers.forEach(MockServer::close);
+    }
+
+    @Test
+    void slowReplicaGetsAClearlySmallerShare() throws Exception {
+        URI fast1 = start(FAST);
+        URI fast2 = start(FAST);
+        URI slow = start(FAST.withLatency(Duration.ofMillis(100), Duration.ZERO));
+        LoadBalancer balancer = new LoadBalancer(List.of(fast1, fast2, slow));
+        // Connection setup and JIT warm-up would otherwise dominate the first latency samples
+        sendAll(balancer, 100, 8);
+        Map<URI, LoadBalancer.EndpointStats> before = byUri(balancer);
+
+        List<BatchResult<String>> results = sendAll(balancer, 400, 8);
+
+        assertTrue(results.stream().allMatch(BatchResult::isSuccess));
+        Map<URI, LoadBalancer.EndpointStats> after = byUri(balancer);
+        Function<URI, Long> share = uri -> after.get(uri).requests() - before.get(uri).requests();
+        long fewestFast = Math.min(share.apply(fast1), share.apply(fast2));
+        assertTrue(share.apply(slow) * 3 < fewestFast, "slow got " + share.apply(slow) + ", a fast one " + fewestFast);
+    }
+
+    @Test
+    void failingReplicasAreEjectedUpToTheCap() throws Exception {
+        URI healthy = start(FAST);
+        List<URI> broken = List.of(
+                start(FAST.withErrors(1.0, 503)),
+                start(FAST.withErrors(1.0, 503)),
+                start(FAST.withErrors(1.0, 503)));
+        List<URI> all = new ArrayList<>(broken);
+        all.add(healthy);
+        LoadBalancer balancer = new LoadBalancer(all, LoadBalancerOptions.defaults()
+                .withEjection(3, Duration.ofSeconds(30), Duration.ofMinutes(1))
+                .withMaxEjectedPercent(0.5));
+
+        sendAll(balancer, 200, 1);
+
+        Map<URI, LoadBalancer.EndpointStats> stats = byUri(balancer);
+        assertFalse(stats.get(healthy).ejected());
+        assertEquals(0, stats.get(healthy).failures());
+        List<URI> ejected = broken.stream().filter(uri -> stats.get(uri).ejected()).toList();
+        // Half of four: the third broken replica stays in rotation however often it fails
+        assertEquals(2, ejected.size());
+
+        sendAll(balancer, 100, 1);
+
+        Map<URI, LoadBalancer.EndpointStats> after = byUri(balancer);
+        for (URI uri : ejected) {
+            assertEquals(stats.get(uri).requests(), after.get(uri).requests(), uri + " got traffic while ejected");
+        }
+        assertEquals(2, after.values().stream().filter(LoadBalancer.EndpointStats::ejected).count());
+    }
+
+    @Test
+    void weightRampsUpAfterEjection() throws Exception {
+        URI target = URI.create("http://10.0.0.1:8080");
+        URI other = URI.create("http://10.0.0.2:8080");
+        Duration ejection = Duration.ofMillis(200);
+        Duration slowStart = Duration.ofSeconds(1);
+        LoadBalancer balancer = new LoadBalancer(List.of(target, other), LoadBalancerOptions.defaults()
+                .withEjection(1, ejection, Duration.ofSeconds(5))
+                .withSlowStart(slowStart));
+        assertEquals(1.0, byUri(balancer).get(target).weight(), "initial endpoints start warm");
+
+        while (!byUri(balancer).get(target).ejected()) {
+            LoadBalancer.Selection selection = balancer.pick();
+            selection.release(selection.uri().equals(target));
+        }
+        Thread.sleep(ejection.toMillis() + 20);
+
+        LoadBalancer.EndpointStats returned = byUri(balancer).get(target);
+        assertFalse(returned.ejected());
+        assertTrue(returned.weight() < 0.3, "weight right after ejection " + returned.weight());
+
+        Thread.sleep(slowStart.toMillis() / 2);
+        double halfway = byUri(balancer).get(target).weight();
+        assertTrue(halfway > returned.weight() && halfway < 1.0, "weight halfway " + halfway);
+
+        Thread.sleep(slowStart.toMillis() / 2 + 50);
+        assertEquals(1.0, byUri(balancer).get(target).weight());
+    }
+
+    private URI start(MockServerOptions options) throws Exception {
+        MockServer server = MockServer.start(options);
+        servers.add(server);
+        return server.baseUri();
+    }
+
+    private List<BatchResult<String>> sendAll(LoadBalancer balancer, int count, int concurrency) throws Exception {
+        LoadBalancedHttpClient client = new LoadBalancedHttpClient(http, balancer);
+        // The host only names the service; the balancer fills in the replica
+        List<HttpRequest> requests = IntStream.range(0, count)
+                .mapToObj(i -> HttpRequest.newBuilder(URI.create("http://posts/posts/" + (i % 100 + 1))).build())
+                .toList();
+        return new HttpBatch(client, concurrency, concurrency)
+                .sendAll(requests, HttpResponse.BodyHandlers.ofString())
+                .get(60, TimeUnit.SECONDS);
+    }
+
+    private static Map<URI, LoadBalancer.EndpointStats> byUri(LoadBalancer balancer) {
+        return balancer.stats().stream()
+                .collect(Collectors.toMap(LoadBalancer.EndpointStats::uri, Function.identity()));
+    }
+}
@@ -0,0 +1,149 @@
+package com.httpclient.batch;
+
+import com.httpclient.body.BufferedResponse;
+import com.httpclient.mock.MockServer;
+import com.httpclient.mock.MockServerOptions;
+import com.httpclient.util.ForwardingHttpClient;
+import com.httpclient.util.HttpClientFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpBatchTest {
+
+    private MockServer server;
+    private HttpClient http;
+
+    @BeforeEach
+    void start() throws Exception {
+        server = MockServer.start(MockServerOptions.defaults().withLatency(Duration.ofMillis(20), Duration.ZERO));
+        http = HttpClientFactory.createHttp11Client();
+    }
+
+    @AfterEach
+    void stop() {
+        http.close();
+        server.close();
+    }
+
+    @Test
+    void resultsComeBackInInputOrderWithinTheWindow() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        HttpClient counting = new ForwardingHttpClient(http) {
+            @Override
+            public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                                    HttpResponse.BodyHandler<T> handler) {
+                peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                return delegate.sendAsync(request, handler).whenComplete((response, error) -> inFlight.decrementAndGet());
+            }
+        };
+        List<HttpRequest> requests = IntStream.rangeClosed(1, 40)
+                .mapToObj(id -> HttpRequest.newBuilder(server.baseUri().resolve("/posts/" + id)).build())
+                .toList();
+
+        List<BatchResult<String>> results = new HttpBatch(counting, 4, 4)
+                .sendAll(requests, HttpResponse.BodyHandlers.ofString())
+                .get(30, TimeUnit.SECONDS);
+
+        assertEquals(40, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).index());
+            assertTrue(results.get(i).response().body().contains("\"id\":" + (i + 1)));
+        }
+        assertTrue(peak.get() <= 4, "peak in flight " + peak);
+    }
+
+    @Test
+    void http2WindowOpensOnlyOnceTheOriginSpeaksHttp2() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        HttpClient h2 = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build();
+        HttpClient counting = new ForwardingHttpClient(h2) {
+            @Override
+            public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                                    HttpResponse.BodyHandler<T> handler) {
+                peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                return delegate.sendAsync(request, handler).whenComplete((response, error) -> inFlight.decrementAndGet());
+            }
+        };
+        List<HttpRequest> requests = IntStream.rangeClosed(1, 40)
+                .mapToObj(id -> HttpRequest.newBuilder(server.baseUri().resolve("/posts/" + id)).build())
+                .toList();
+
+        try (h2) {
+            List<BatchResult<String>> results = new HttpBatch(counting, 100, 3)
+                    .sendAll(requests, HttpResponse.BodyHandlers.ofString())
+                    .get(30, TimeUnit.SECONDS);
+
+            // The mock only speaks HTTP/1.1, so the window never widens past the connection cap
+            assertTrue(results.stream().noneMatch(BatchResult::isFailure));
+            assertTrue(peak.get() <= 3, "peak in flight " + peak);
+        }
+
+        peak.set(0);
+        HttpClient multiplexing = new ForwardingHttpClient(http) {
+            @Override
+            public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                                    HttpResponse.BodyHandler<T> handler) {
+                peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                BufferedResponse response = new BufferedResponse(200, HttpHeaders.of(Map.of(), (name, value) -> true),
+                        HttpClient.Version.HTTP_2, request.uri(), new byte[0]);
+                return CompletableFuture.supplyAsync(() -> response,
+                                CompletableFuture.delayedExecutor(20, TimeUnit.MILLISECONDS))
+                        .thenCompose(buffered -> buffered.deliver(request, handler))
+                        .whenComplete((ignored, error) -> inFlight.decrementAndGet());
+            }
+        };
+
+        new HttpBatch(multiplexing, 10, 3).sendAll(requests, HttpResponse.BodyHandlers.ofString())
+                .get(30, TimeUnit.SECONDS);
+
+        assertTrue(peak.get() > 3 && peak.get() <= 10, "peak in flight " + peak);
+    }
+
+    @Test
+    void synchronousFailuresDoNotRecurse() throws Exception {
+        HttpClient rejecting = new ForwardingHttpClient(http) {
+            private final AtomicInteger calls = new AtomicInteger();
+
+            @Override
+            public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                                    HttpResponse.BodyHandler<T> handler) {
+                if (calls.incrementAndGet() % 2 == 0) {
+                    throw new IllegalStateException("rejected");
+                }
+                return CompletableFuture.failedFuture(new IOException("rejected"));
+            }
+        };
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:1/")).build();
+        List<HttpRequest> requests = IntStream.range(0, 100_000).mapToObj(i -> request).toList();
+
+        List<BatchResult<String>> results = new HttpBatch(rejecting, 1, 1)
+                .sendAll(requests, HttpResponse.BodyHandlers.ofString())
+                .get(30, TimeUnit.SECONDS);
+
+        assertEquals(100_000, results.size());
+        assertTrue(results.stream().allMatch(BatchResult::isFailure));
+        assertInstanceOf(IOException.class, results.get(0).error());
+        assertInstanceOf(IllegalStateException.class, results.get(1).error());
+    }
+}
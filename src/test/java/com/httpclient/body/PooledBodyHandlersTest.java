@@ -0,0 +1,79 @@
+package com.httpclient.body;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PooledBodyHandlersTest {
+
+    private final ByteBufferPool pool = new ByteBufferPool(512, 4096, 64 * 1024, false);
+
+    @Test
+    void contentLengthIsOnlyAHint() throws Exception {
+        HttpResponse.BodySubscriber<PooledBodyHandlers.PooledBody> subscriber = PooledBodyHandlers.ofPooled(pool)
+                .apply(info(200, "100000000"));
+        subscriber.onSubscribe(new NoSubscription());
+        byte[] chunk = "x".repeat(3000).getBytes(StandardCharsets.UTF_8);
+        subscriber.onNext(List.of(ByteBuffer.wrap(chunk), ByteBuffer.wrap(chunk)));
+        subscriber.onComplete();
+
+        try (PooledBodyHandlers.PooledBody body = subscriber.getBody().toCompletableFuture().get(1, TimeUnit.SECONDS)) {
+            assertEquals(6000, body.size());
+            // Presized to the largest class, then grown by what actually arrived
+            assertEquals(8192, body.buffer().capacity());
+        }
+    }
+
+    @Test
+    void emptyBodiesAreNotPresized() throws Exception {
+        HttpResponse.BodySubscriber<PooledBodyHandlers.PooledBody> subscriber = PooledBodyHandlers.ofPooled(pool)
+                .apply(info(304, "4096"));
+        subscriber.onSubscribe(new NoSubscription());
+        subscriber.onComplete();
+
+        try (PooledBodyHandlers.PooledBody body = subscriber.getBody().toCompletableFuture().get(1, TimeUnit.SECONDS)) {
+            assertEquals(0, body.size());
+            assertEquals(512, body.buffer().capacity());
+        }
+    }
+
+    private static HttpResponse.ResponseInfo info(int status, String contentLength) {
+        HttpHeaders headers = HttpHeaders.of(Map.of("Content-Length", List.of(contentLength)), (name, value) -> true);
+        return new HttpResponse.ResponseInfo() {
+            @Override
+            public int statusCode() {
+                return status;
+            }
+
+            @Override
+            public HttpHeaders headers() {
+                return headers;
+            }
+
+            @Override
+            public HttpClient.Version version() {
+                return HttpClient.Version.HTTP_1_1;
+            }
+        };
+    }
+
+    private static class NoSubscription implements Flow.Subscription {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.httpclient.cache;
+
+import com.httpclient.body.BufferedResponse;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CacheEntryTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    void maxAgeSetsFreshnessLessAge() {
+        CacheEntry entry = CacheEntry.from(response(200, "Cache-Control", "public, max-age=60", "Age", "10"), NOW)
+                .orElseThrow();
+
+        assertEquals(NOW + 50_000, entry.freshUntilMillis());
+        assertTrue(entry.isFresh(NOW + 49_999));
+        assertFalse(entry.isFresh(NOW + 50_000));
+    }
+
+    @Test
+    void hugeOrNegativeAgesSaturate() {
+        CacheEntry forever = CacheEntry.from(response(200, "Cache-Control", "max-age=" + Long.MAX_VALUE), NOW)
+                .orElseThrow();
+        assertEquals(Long.MAX_VALUE, forever.freshUntilMillis());
+
+        CacheEntry aged = CacheEntry.from(response(200, "Cache-Control", "max-age=60",
+                "Age", String.valueOf(Long.MAX_VALUE / 10), "ETag", "\"a\""), NOW).orElseThrow();
+        assertFalse(aged.isFresh(NOW));
+
+        assertTrue(CacheEntry.from(response(200, "Cache-Control", "max-age=-60"), NOW).isEmpty());
+    }
+
+    @Test
+    void expiresIsRelativeToDate() {
+        CacheEntry entry = CacheEntry.from(response(200,
+                "Date", "Tue, 14 Nov 2023 22:13:20 GMT",
+                "Expires", "Tue, 14 Nov 2023 22:15:20 GMT"), NOW).orElseThrow();
+
+        assertEquals(NOW + 120_000, entry.freshUntilMillis());
+    }
+
+    @Test
+    void noCacheIsStoredStaleWhenRevalidatable() {
+        CacheEntry entry = CacheEntry.from(response(200, "Cache-Control", "no-cache, max-age=60", "ETag", "\"a\""), NOW)
+                .orElseThrow();
+
+        assertFalse(entry.isFresh(NOW));
+        assertTrue(entry.hasValidators());
+    }
+
+    @Test
+    void refusesWhatMayNotBeReused() {
+        assertTrue(CacheEntry.from(response(200, "Cache-Control", "no-store", "ETag", "\"a\""), NOW).isEmpty());
+        assertTrue(CacheEntry.from(response(200, "Cache-Control", "private, max-age=60"), NOW).isEmpty());
+        assertTrue(CacheEntry.from(response(200, "Cache-Control", "max-age=60", "Vary", "Cookie"), NOW).isEmpty());
+        assertTrue(CacheEntry.from(response(404, "Cache-Control", "max-age=60"), NOW).isEmpty());
+        assertTrue(CacheEntry.from(response(200, "Cache-Control", "max-age=0"), NOW).isEmpty());
+    }
+
+    @Test
+    void varyIsAcceptedOnlyOnIgnoredHeaders() {
+        Set<String> ignored = Set.of("accept-encoding");
+
+        assertTrue(CacheEntry.from(response(200, "Cache-Control", "max-age=60", "Vary", "Accept-Encoding"),
+                NOW, ignored).isPresent());
+        assertTrue(CacheEntry.from(response(200, "Cache-Control", "max-age=60", "Vary", "Accept-Encoding, Cookie"),
+                NOW, ignored).isEmpty());
+        assertTrue(CacheEntry.from(response(200, "Cache-Control", "max-age=60", "Vary", "*"),
+                NOW, ignored).isEmpty());
+        assertTrue(CacheEntry.from(response(200, "Cache-Control", "max-age=60", "Vary", "Accept-Encoding"),
+                NOW).isEmpty());
+    }
+
+    @Test
+    void revalidationRefreshesFreshnessAndKeepsBody() {
+        CacheEntry stale = CacheEntry.from(response(200, "Cache-Control", "max-age=0", "ETag", "\"a\""), NOW)
+                .orElseThrow();
+        HttpHeaders notModified = HttpHeaders.of(Map.of(
+                "Cache-Control", List.of("max-age=30"),
+                "Content-Length", List.of("0")), (name, value) -> true);
+
+        CacheEntry refreshed = stale.revalidated(notModified, NOW + 5_000);
+
+        assertTrue(refreshed.isFresh(NOW + 34_999));
+        assertEquals("max-age=30", refreshed.response().headers().firstValue("Cache-Control").orElseThrow());
+        assertTrue(refreshed.response().headers().firstValue("Content-Length").isEmpty());
+        assertEquals("\"a\"", refreshed.etag().orElseThrow());
+        assertEquals("body", new String(refreshed.response().body()));
+    }
+
+    static BufferedResponse response(int status, String... headers) {
+        return response(status, "body".getBytes(), headers);
+    }
+
+    static BufferedResponse response(int status, byte[] body, String... headers) {
+        Map<String, List<String>> map = new LinkedHashMap<>();
+        for (int i = 0; i < headers.length; i += 2) {
+            map.put(headers[i], List.of(headers[i + 1]));
+        }
+        return new BufferedResponse(status, HttpHeaders.of(map, (name, value) -> true),
+                HttpClient.Version.HTTP_1_1, URI.create("http://example.com/"), body);
+    }
+}
@@ -0,0 +1,143 @@
+package com.httpclient.cache;
+
+import com.httpclient.mock.MockServer;
+import com.httpclient.mock.MockServerOptions;
+import com.httpclient.util.HttpClientFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachingHttpClientTest {
+
+    private static HttpClient http;
+
+    private MockServer server;
+    private CachingHttpClient client;
+
+    @BeforeAll
+    static void createClient() {
+        http = HttpClientFactory.createHttp11Client();
+    }
+
+    @AfterAll
+    static void closeClient() {
+        http.close();
+    }
+
+    @BeforeEach
+    void start() throws Exception {
+        server = MockServer.start(MockServerOptions.defaults().withCaching(Duration.ofSeconds(1)));
+        client = new CachingHttpClient(http, new HttpCache(1024 * 1024));
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void freshResponsesAreServedWithoutTheOrigin() throws Exception {
+        HttpResponse<String> first = get("/posts/1");
+        HttpResponse<String> second = get("/posts/1");
+
+        assertEquals(first.body(), second.body());
+        assertEquals(1, server.requests());
+        HttpCache.Stats stats = client.cache().stats();
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.hits());
+    }
+
+    @Test
+    void staleResponsesAreRevalidatedWithTheirETag() throws Exception {
+        String body = get("/posts/1").body();
+        Thread.sleep(1_100);
+
+        HttpResponse<String> revalidated = get("/posts/1");
+
+        assertEquals(200, revalidated.statusCode());
+        assertEquals(body, revalidated.body());
+        assertEquals(2, server.requests());
+        assertEquals(1, server.notModified());
+        assertEquals(1, client.cache().stats().revalidations());
+
+        // The 304 made the entry fresh again
+        get("/posts/1");
+        assertEquals(2, server.requests());
+        assertEquals(1, client.cache().stats().hits());
+    }
+
+    @Test
+    void noCacheRequestsAlwaysRevalidate() throws Exception {
+        get("/posts/1");
+
+        HttpResponse<String> response = client.send(request("/posts/1").header("Cache-Control", "no-cache").build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(1, server.notModified());
+        assertEquals(1, client.cache().stats().revalidations());
+    }
+
+    @Test
+    void noStoreRequestsBypassTheCache() throws Exception {
+        HttpRequest noStore = request("/posts/1").header("Cache-Control", "no-store").build();
+        client.send(noStore, HttpResponse.BodyHandlers.ofString());
+        client.send(noStore, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(2, server.requests());
+        assertEquals(0, client.cache().stats().memoryEntries());
+        assertEquals(0, client.cache().stats().misses());
+    }
+
+    @Test
+    void noStoreResponsesAreNotKept() throws Exception {
+        server.setOptions(MockServerOptions.defaults());
+        String path = MockServer.HTTP_BIN_PATH + "/response-headers?Cache-Control=no-store&ETag=%22a%22";
+
+        get(path);
+        HttpResponse<String> second = get(path);
+
+        assertTrue(second.body().contains("no-store"));
+        assertEquals(2, server.requests());
+        assertEquals(2, client.cache().stats().misses());
+        assertEquals(0, client.cache().stats().memoryEntries());
+    }
+
+    @Test
+    void credentialedAndPrivateResponsesAreNotShared() throws Exception {
+        server.setOptions(MockServerOptions.defaults());
+        String cacheable = MockServer.HTTP_BIN_PATH + "/response-headers?Cache-Control=max-age%3D60";
+        String personal = MockServer.HTTP_BIN_PATH + "/response-headers?Cache-Control=private,max-age%3D60";
+        String shared = MockServer.HTTP_BIN_PATH + "/response-headers?Cache-Control=public,max-age%3D60";
+
+        for (int i = 0; i < 2; i++) {
+            client.send(request(cacheable).header("Authorization", "Bearer " + i).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            get(personal);
+            client.send(request(shared).header("Authorization", "Bearer " + i).build(),
+                    HttpResponse.BodyHandlers.ofString());
+        }
+
+        assertEquals(5, server.requests());
+        assertEquals(1, client.cache().stats().hits());
+        assertEquals(1, client.cache().stats().memoryEntries());
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(request(path).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(server.baseUri().resolve(path));
+    }
+}
@@ -0,0 +1,85 @@
+package com.httpclient.cache;
+
+import com.httpclient.mock.MockServer;
+import com.httpclient.mock.MockServerOptions;
+import com.httpclient.util.ForwardingHttpClient;
+import com.httpclient.util.HttpClientFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CoalescingHttpClientTest {
+
+    private MockServer server;
+    private HttpClient http;
+
+    @BeforeEach
+    void start() throws Exception {
+        server = MockServer.start(MockServerOptions.defaults().withLatency(Duration.ofMillis(200), Duration.ZERO));
+        http = HttpClientFactory.createHttp11Client();
+    }
+
+    @AfterEach
+    void stop() {
+        http.close();
+        server.close();
+    }
+
+    @Test
+    void concurrentIdenticalGetsShareOneExchange() {
+        CoalescingHttpClient client = new CoalescingHttpClient(http);
+        HttpRequest request = HttpRequest.newBuilder(server.baseUri().resolve("/posts/1")).build();
+
+        List<CompletableFuture<HttpResponse<String>>> responses = IntStream.range(0, 10)
+                .mapToObj(i -> client.sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+                .toList();
+        List<String> bodies = responses.stream().map(CompletableFuture::join).map(HttpResponse::body).toList();
+
+        assertEquals(1, bodies.stream().distinct().count());
+        assertEquals(1, server.requests());
+        CoalescingHttpClient.Stats stats = client.stats();
+        assertEquals(1, stats.upstream());
+        assertEquals(9, stats.collapsed());
+        assertEquals(0, stats.inFlight());
+    }
+
+    @Test
+    void delegateThrowingDoesNotStrandTheKey() throws Exception {
+        AtomicBoolean fail = new AtomicBoolean(true);
+        CoalescingHttpClient client = new CoalescingHttpClient(new ForwardingHttpClient(http) {
+            @Override
+            public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                                    HttpResponse.BodyHandler<T> handler) {
+                if (fail.getAndSet(false)) {
+                    throw new IllegalStateException("closed");
+                }
+                return delegate.sendAsync(request, handler);
+            }
+        });
+        HttpRequest request = HttpRequest.newBuilder(server.baseUri().resolve("/posts/1")).build();
+
+        CompletableFuture<HttpResponse<String>> failed = client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        ExecutionException error = assertThrows(ExecutionException.class, () -> failed.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        assertEquals(0, client.stats().inFlight());
+
+        HttpResponse<String> response = client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(200, response.statusCode());
+    }
+}
@@ -0,0 +1,131 @@
+package com.httpclient.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpCacheTest {
+
+    /**
+     * Each entry is its body plus the 512-byte header allowance, so two fit in 2 KiB
+     */
+    private static final int BODY_BYTES = 512;
+    private static final long TWO_ENTRIES = 2 * (BODY_BYTES + 512);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void memoryTierEvictsLeastRecentlyUsed() {
+        HttpCache cache = new HttpCache(TWO_ENTRIES);
+        cache.put("a", entry());
+        cache.put("b", entry());
+        cache.get("a");
+
+        cache.put("c", entry());
+
+        assertTrue(cache.get("a").isPresent());
+        assertTrue(cache.get("b").isEmpty());
+        assertTrue(cache.get("c").isPresent());
+        HttpCache.Stats stats = cache.stats();
+        assertEquals(1, stats.evictions());
+        assertEquals(2, stats.memoryEntries());
+        assertEquals(TWO_ENTRIES, stats.memoryBytes());
+    }
+
+    @Test
+    void evictedEntriesSpillToDiskAndArePromotedBack() throws IOException {
+        DiskCacheStore disk = new DiskCacheStore(directory, 1024 * 1024);
+        HttpCache cache = new HttpCache(TWO_ENTRIES, disk);
+        cache.put("a", entry());
+        cache.put("b", entry());
+        cache.put("c", entry());
+        assertTrue(disk.sizeBytes() > 0);
+
+        CacheEntry promoted = cache.get("a").orElseThrow();
+
+        assertEquals(BODY_BYTES, promoted.response().body().length);
+        assertEquals("\"a\"", promoted.etag().orElseThrow());
+        // "a" took "b"'s place in memory, "b" went to disk in its turn
+        assertEquals(2, cache.stats().memoryEntries());
+        assertTrue(disk.get("a").isEmpty());
+        assertTrue(disk.get("b").isPresent());
+    }
+
+    @Test
+    void diskTierEvictsLeastRecentlyUsedByBytes() throws IOException {
+        DiskCacheStore disk = new DiskCacheStore(directory, 1024 * 1024);
+        disk.put("a", entry());
+        long entryBytes = disk.sizeBytes();
+        disk = new DiskCacheStore(directory.resolve("bounded"), 2 * entryBytes);
+        disk.put("a", entry());
+        disk.put("b", entry());
+        disk.get("a");
+
+        disk.put("c", entry());
+
+        assertEquals(2 * entryBytes, disk.sizeBytes());
+        assertTrue(disk.get("a").isPresent());
+        assertTrue(disk.get("b").isEmpty());
+        assertTrue(disk.get("c").isPresent());
+    }
+
+    @Test
+    void diskIndexIsRebuiltOnStart() throws IOException {
+        DiskCacheStore disk = new DiskCacheStore(directory, 1024 * 1024);
+        disk.put("a", entry());
+        long size = disk.sizeBytes();
+
+        DiskCacheStore reopened = new DiskCacheStore(directory, 1024 * 1024);
+
+        assertEquals(size, reopened.sizeBytes());
+        assertEquals(BODY_BYTES, reopened.get("a").orElseThrow().response().body().length);
+    }
+
+    @Test
+    void entriesLargerThanMemoryGoStraightToDisk() throws IOException {
+        DiskCacheStore disk = new DiskCacheStore(directory, 1024 * 1024);
+        HttpCache cache = new HttpCache(BODY_BYTES, disk);
+
+        cache.put("a", entry());
+
+        assertEquals(0, cache.stats().memoryEntries());
+        assertTrue(disk.get("a").isPresent());
+    }
+
+    @Test
+    void diskFailuresAreCountedAndDropped() throws IOException {
+        DiskCacheStore disk = new DiskCacheStore(directory, 1024 * 1024);
+        HttpCache cache = new HttpCache(BODY_BYTES, disk);
+        cache.put("a", entry());
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.write(file, new byte[] {1, 2, 3});
+            }
+        }
+
+        assertTrue(cache.get("a").isEmpty());
+        assertEquals(0, disk.sizeBytes());
+
+        Path missing = directory.resolve("gone");
+        DiskCacheStore unwritable = new DiskCacheStore(missing, 1024 * 1024);
+        Files.delete(missing);
+        HttpCache failing = new HttpCache(BODY_BYTES, unwritable);
+        failing.put("a", entry());
+
+        assertTrue(failing.get("a").isEmpty());
+        assertEquals(1, cache.stats().diskErrors());
+        assertEquals(1, failing.stats().diskErrors());
+    }
+
+    private static CacheEntry entry() {
+        return new CacheEntry(CacheEntryTest.response(200, new byte[BODY_BYTES],
+                "Cache-Control", "max-age=60", "ETag", "\"a\""), 0, Long.MAX_VALUE);
+    }
+}
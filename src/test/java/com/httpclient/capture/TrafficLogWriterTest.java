@@ -0,0 +1,215 @@
+package com.httpclient.capture;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrafficLogWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsExchangesAcrossReopening() throws IOException {
+        Path file = directory.resolve("traffic.log");
+        try (TrafficLogWriter writer = TrafficLogWriter.open(file)) {
+            writer.append(exchange("/posts/1", Map.of("Accept", List.of("application/json")), "{}".getBytes()));
+        }
+        try (TrafficLogWriter writer = TrafficLogWriter.open(file)) {
+            writer.append(exchange("/posts/2", Map.of("Accept", List.of("application/json")), null));
+        }
+
+        List<CapturedExchange> read = TrafficLogReader.readAll(file);
+
+        assertEquals(2, read.size());
+        assertEquals(URI.create("http://localhost/posts/1"), read.get(0).uri());
+        assertArrayEquals("{}".getBytes(), read.get(0).responseBody());
+        assertEquals(List.of("application/json"), read.get(1).headers().get("Accept"));
+    }
+
+    @Test
+    void rejectedFrameLeavesNoDictionaryEntriesBehind() throws IOException {
+        Path file = directory.resolve("traffic.log");
+        Map<String, List<String>> fresh = Map.of("X-Trace", List.of("first-seen-in-the-rejected-frame"));
+        try (TrafficLogWriter writer = TrafficLogWriter.open(file)) {
+            writer.append(exchange("/posts/1", Map.of(), null));
+            byte[] huge = new byte[TrafficLogFormat.MAX_FRAME_BYTES + 1];
+            assertThrows(IOException.class, () -> writer.append(exchange("/posts/2", fresh, huge)));
+            // Refers to the same strings; they must be defined again in this frame
+            writer.append(exchange("/posts/3", fresh, null));
+        }
+
+        try (TrafficLogReader reader = TrafficLogReader.open(file)) {
+            List<CapturedExchange> read = List.of(reader.next(), reader.next());
+            assertFalse(reader.hasNext());
+            assertFalse(reader.truncated());
+            assertEquals(URI.create("http://localhost/posts/3"), read.get(1).uri());
+            assertEquals(fresh.get("X-Trace"), read.get(1).headers().get("X-Trace"));
+        }
+    }
+
+    @Test
+    void failedWriteStopsTheWriter() throws IOException {
+        Path file = directory.resolve("traffic.log");
+        FailingChannel channel = new FailingChannel(
+                FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE));
+        try (TrafficLogWriter writer = TrafficLogWriter.open(file, channel)) {
+            writer.append(exchange("/posts/1", Map.of(), null));
+            writer.flush();
+
+            channel.failing = true;
+            writer.append(exchange("/posts/2", Map.of("X-Trace", List.of("never-written")), null));
+            assertThrows(IOException.class, writer::flush);
+            channel.failing = false;
+
+            assertTrue(writer.isFailed());
+            // Would refer to dictionary entries that never reached the file
+            assertThrows(IOException.class, () -> writer.append(
+                    exchange("/posts/3", Map.of("X-Trace", List.of("never-written")), null)));
+            assertThrows(IOException.class, writer::flush);
+        }
+
+        try (TrafficLogWriter writer = TrafficLogWriter.open(file)) {
+            writer.append(exchange("/posts/4", Map.of("X-Trace", List.of("never-written")), null));
+        }
+        try (TrafficLogReader reader = TrafficLogReader.open(file)) {
+            assertEquals(URI.create("http://localhost/posts/1"), reader.next().uri());
+            CapturedExchange last = reader.next();
+            assertEquals(URI.create("http://localhost/posts/4"), last.uri());
+            assertEquals(List.of("never-written"), last.headers().get("X-Trace"));
+            assertFalse(reader.hasNext());
+            assertFalse(reader.truncated());
+        }
+    }
+
+    private static CapturedExchange exchange(String path, Map<String, List<String>> headers, byte[] responseBody) {
+        return new CapturedExchange(TrafficLogFormat.nowMicros(), "GET", URI.create("http://localhost" + path),
+                HttpClient.Version.HTTP_1_1, headers, 0, null, 200, 1_000,
+                responseBody == null ? 0 : responseBody.length, responseBody, null);
+    }
+
+    /**
+     * Writes through to a real channel until {@code failing}, then writes a few bytes and
+     * throws, like a disk that fills up halfway through a frame
+     */
+    private static final class FailingChannel extends FileChannel {
+        private final FileChannel delegate;
+        volatile boolean failing;
+
+        FailingChannel(FileChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (!failing) {
+                return delegate.write(src);
+            }
+            ByteBuffer part = src.slice(src.position(), Math.min(src.remaining(), 3));
+            int written = delegate.write(part);
+            src.position(src.position() + written);
+            throw new IOException("No space left on device");
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.httpclient.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ClientProfilesTest {
+
+    @Test
+    void sizesTakeBinaryUnits() {
+        assertEquals(65536, ClientProfiles.parseSize("65536"));
+        assertEquals(64 * 1024, ClientProfiles.parseSize("64k"));
+        assertEquals(32L << 20, ClientProfiles.parseSize("32MiB"));
+        assertEquals(2L << 30, ClientProfiles.parseSize("2 GB"));
+    }
+
+    @Test
+    void oversizedValuesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ClientProfiles.parseSize("9000000000000g"));
+        assertThrows(IllegalArgumentException.class, () -> ClientProfiles.parseSize("99999999999999999999"));
+        assertThrows(IllegalArgumentException.class, () -> ClientProfiles.of(
+                Map.of("cached", Map.of("cacheSize", "9000000000000GiB")), Map.of(), "test"));
+    }
+}
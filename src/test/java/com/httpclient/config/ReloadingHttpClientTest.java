@@ -0,0 +1,69 @@
+package com.httpclient.config;
+
+import com.httpclient.mock.MockServer;
+import com.httpclient.mock.MockServerOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReloadingHttpClientTest {
+
+    // Built here rather than read from the environment, so HTTPCLIENT_* variables can't change the outcome
+    private static final ClientProfiles PROFILES = ClientProfiles.of(Map.of(
+            "cached", Map.of("cacheSize", "1MiB", "compression", "true"),
+            "http11", Map.of("version", "HTTP_1_1")), Map.of(), "test");
+
+    private MockServer server;
+    private ReloadingHttpClient client;
+
+    @BeforeEach
+    void start() throws Exception {
+        server = MockServer.start(MockServerOptions.defaults()
+                .withCaching(Duration.ofMinutes(1))
+                .withCompression(true));
+        client = new ReloadingHttpClient(PROFILES.profile("cached"));
+    }
+
+    @AfterEach
+    void stop() {
+        client.shutdownNow();
+        server.close();
+    }
+
+    @Test
+    void asyncRequestsGoThroughTheCachedProfilesCache() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(server.baseUri().resolve("/posts")).build();
+
+        HttpResponse<String> first = client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .get(10, TimeUnit.SECONDS);
+        HttpResponse<String> second = client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .get(10, TimeUnit.SECONDS);
+
+        // Compressed with Vary: Accept-Encoding on the wire, decoded and cached all the same
+        assertTrue(first.body().startsWith("["));
+        assertEquals(first.body(), second.body());
+        assertEquals(1, server.requests());
+    }
+
+    @Test
+    void reloadSwitchesNewRequestsToTheNewProfile() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(server.baseUri().resolve("/posts/1")).build();
+        client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertTrue(client.reload(PROFILES.profile("http11")));
+        client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals("http11", client.profile().name());
+        assertEquals(1, client.reloads());
+        assertEquals(2, server.requests());
+    }
+}
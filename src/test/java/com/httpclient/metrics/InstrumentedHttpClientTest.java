@@ -0,0 +1,68 @@
+package com.httpclient.metrics;
+
+import com.httpclient.mock.MockServer;
+import com.httpclient.util.ForwardingHttpClient;
+import com.httpclient.util.HttpClientFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InstrumentedHttpClientTest {
+
+    private MockServer server;
+    private HttpClient http;
+
+    @BeforeEach
+    void start() throws Exception {
+        server = MockServer.start();
+        http = HttpClientFactory.createHttp11Client();
+    }
+
+    @AfterEach
+    void stop() {
+        http.close();
+        server.close();
+    }
+
+    @Test
+    void exchangesAreMeasured() throws Exception {
+        InMemoryMetricsRegistry registry = new InMemoryMetricsRegistry();
+        InstrumentedHttpClient client = new InstrumentedHttpClient(http, registry);
+        HttpRequest request = HttpRequest.newBuilder(server.baseUri().resolve("/posts/1")).build();
+
+        client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        ExchangeTags tags = new ExchangeTags(request.uri().getHost(), "GET", HttpClient.Version.HTTP_1_1);
+        assertEquals(1, registry.counter(InstrumentedHttpClient.RESPONSES + 200, tags));
+        assertEquals(1, registry.timer(InstrumentedHttpClient.TOTAL, tags).getTotalCount());
+        assertEquals(0, registry.gauge(InstrumentedHttpClient.IN_FLIGHT, tags));
+    }
+
+    @Test
+    void delegateThrowingEndsTheExchange() {
+        InMemoryMetricsRegistry registry = new InMemoryMetricsRegistry();
+        InstrumentedHttpClient client = new InstrumentedHttpClient(new ForwardingHttpClient(http) {
+            @Override
+            public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                                    HttpResponse.BodyHandler<T> handler) {
+                throw new IllegalStateException("closed");
+            }
+        }, registry, true);
+        HttpRequest request = HttpRequest.newBuilder(server.baseUri().resolve("/posts/1")).build();
+
+        assertThrows(IllegalStateException.class,
+                () -> client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+
+        ExchangeTags tags = new ExchangeTags(request.uri().getHost(), "GET", http.version());
+        assertEquals(0, registry.gauge(InstrumentedHttpClient.IN_FLIGHT, tags));
+        assertEquals(1, registry.counter(InstrumentedHttpClient.ERRORS + "IllegalStateException", tags));
+    }
+}
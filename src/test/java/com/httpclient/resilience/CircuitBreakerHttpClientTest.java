@@ -0,0 +1,128 @@
+package com.httpclient.resilience;
+
+import com.httpclient.mock.MockServer;
+import com.httpclient.mock.MockServerOptions;
+import com.httpclient.util.HttpClientFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerHttpClientTest {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(5);
+    private static final MockServerOptions HEALTHY =
+            MockServerOptions.defaults().withLatency(Duration.ofMillis(5), Duration.ZERO);
+
+    private final List<CircuitBreaker.Transition> transitions = new CopyOnWriteArrayList<>();
+    private MockServer server;
+    private HttpClient http;
+    private CircuitBreakerHttpClient client;
+
+    @BeforeEach
+    void start() throws Exception {
+        server = MockServer.start(HEALTHY);
+        http = HttpClientFactory.createHttp11Client();
+        CircuitBreakerPolicy policy = CircuitBreakerPolicy.defaults()
+                .withWindow(20, 10)
+                .withSlowCalls(Duration.ofMillis(200), 0.5)
+                .withOpenDuration(Duration.ofSeconds(1))
+                .withHalfOpenProbes(3);
+        client = new CircuitBreakerHttpClient(http, policy, CircuitBreakerHttpClient.byHost(), transitions::add);
+    }
+
+    @AfterEach
+    void stop() {
+        http.shutdownNow();
+        server.close();
+    }
+
+    @Test
+    void stalledUpstreamTripsTheBreakerLongBeforeTheTimeout() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(200, client.send(request(), HttpResponse.BodyHandlers.discarding()).statusCode());
+        }
+        CircuitBreaker breaker = client.breaker(CircuitBreakerHttpClient.byHost().apply(request()));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+
+        // Every request now hangs past its timeout; slow calls are counted while still running
+        server.setOptions(HEALTHY.withLatency(REQUEST_TIMEOUT.multipliedBy(2), Duration.ZERO));
+        long stalledAt = System.nanoTime();
+        while (breaker.state() == CircuitBreaker.State.CLOSED && elapsed(stalledAt).compareTo(REQUEST_TIMEOUT) < 0) {
+            client.sendAsync(request(), HttpResponse.BodyHandlers.discarding());
+            Thread.sleep(10);
+        }
+        Duration tripped = elapsed(stalledAt);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertTrue(tripped.compareTo(Duration.ofSeconds(1)) < 0, "opened after " + tripped);
+
+        long rejectedAt = System.nanoTime();
+        assertThrows(CircuitBreakerOpenException.class, () -> client.send(request(), HttpResponse.BodyHandlers.discarding()));
+        Duration rejection = elapsed(rejectedAt);
+        assertTrue(rejection.compareTo(Duration.ofMillis(100)) < 0, "rejected after " + rejection);
+
+        // Once the open duration is over, three good probes close it again
+        server.setOptions(HEALTHY);
+        awaitUntil(() -> breaker.state() == CircuitBreaker.State.CLOSED, Duration.ofSeconds(4), () -> {
+            try {
+                client.send(request(), HttpResponse.BodyHandlers.discarding());
+            } catch (CircuitBreakerOpenException e) {
+                // Still open
+            }
+        });
+
+        List<String> seen = transitions.stream().map(t -> t.from() + "->" + t.to()).toList();
+        assertEquals(List.of("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED"), seen);
+        CircuitBreaker.Transition opened = transitions.getFirst();
+        assertTrue(opened.slowCallRate() >= 0.5, "slow call rate " + opened.slowCallRate());
+    }
+
+    @Test
+    void failedProbeReopensTheCircuit() throws Exception {
+        server.setOptions(HEALTHY.withErrors(1.0, 503));
+        CircuitBreaker breaker = client.breaker(CircuitBreakerHttpClient.byHost().apply(request()));
+        for (int i = 0; i < 10; i++) {
+            client.send(request(), HttpResponse.BodyHandlers.discarding());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+
+        Thread.sleep(1_100);
+        client.send(request(), HttpResponse.BodyHandlers.discarding());
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        List<String> seen = transitions.stream().map(t -> t.from() + "->" + t.to()).toList();
+        assertEquals(List.of("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->OPEN"), seen);
+    }
+
+    private HttpRequest request() {
+        return HttpRequest.newBuilder(server.baseUri().resolve("/posts/1")).timeout(REQUEST_TIMEOUT).build();
+    }
+
+    private static Duration elapsed(long sinceNanos) {
+        return Duration.ofNanos(System.nanoTime() - sinceNanos);
+    }
+
+    private interface Attempt {
+        void run() throws Exception;
+    }
+
+    private static void awaitUntil(BooleanSupplier done, Duration timeout, Attempt attempt) throws Exception {
+        long start = System.nanoTime();
+        while (!done.getAsBoolean()) {
+            assertTrue(elapsed(start).compareTo(timeout) < 0, "gave up after " + timeout);
+            attempt.run();
+            Thread.sleep(50);
+        }
+    }
+}
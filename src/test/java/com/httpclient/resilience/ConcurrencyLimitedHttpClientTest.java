@@ -0,0 +1,66 @@
+package com.httpclient.resilience;
+
+import com.httpclient.mock.MockServer;
+import com.httpclient.util.ForwardingHttpClient;
+import com.httpclient.util.HttpClientFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConcurrencyLimitedHttpClientTest {
+
+    private MockServer server;
+    private HttpClient http;
+
+    @BeforeEach
+    void start() throws Exception {
+        server = MockServer.start();
+        http = HttpClientFactory.createHttp11Client();
+    }
+
+    @AfterEach
+    void stop() {
+        http.close();
+        server.close();
+    }
+
+    @Test
+    void delegateThrowingReturnsThePermit() throws Exception {
+        AtomicBoolean fail = new AtomicBoolean(true);
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(() -> new FixedLimit(1), 0, Duration.ofSeconds(1));
+        ConcurrencyLimitedHttpClient client = new ConcurrencyLimitedHttpClient(new ForwardingHttpClient(http) {
+            @Override
+            public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                                    HttpResponse.BodyHandler<T> handler) {
+                if (fail.getAndSet(false)) {
+                    throw new IllegalStateException("closed");
+                }
+                return delegate.sendAsync(request, handler);
+            }
+        }, limiter);
+        HttpRequest request = HttpRequest.newBuilder(server.baseUri().resolve("/posts/1")).build();
+
+        CompletableFuture<HttpResponse<String>> failed = client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        ExecutionException error = assertThrows(ExecutionException.class, () -> failed.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        assertEquals(0, limiter.stats().get(request.uri().getHost()).inFlight());
+
+        // With a limit of 1 and no queue, a leaked permit would reject this one
+        HttpResponse<String> response = client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(200, response.statusCode());
+    }
+}
@@ -0,0 +1,39 @@
+package com.httpclient.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryPolicyTest {
+
+    @Test
+    void backoffSaturatesAtMaxDelay() {
+        Duration max = Duration.ofDays(365);
+        RetryPolicy policy = RetryPolicy.defaults().withBackoff(Duration.ofSeconds(10), max);
+
+        for (int retry = 1; retry <= 100; retry++) {
+            Duration backoff = policy.backoff(retry);
+            assertFalse(backoff.isNegative());
+            assertTrue(backoff.compareTo(max) <= 0);
+        }
+        assertTrue(RetryPolicy.defaults().withBackoff(max, Duration.ofMillis(10)).backoff(1)
+                .compareTo(Duration.ofMillis(10)) <= 0);
+    }
+
+    @Test
+    void onlyCompletionWrappersAreUnwrapped() {
+        RetryPolicy policy = RetryPolicy.defaults();
+
+        assertTrue(policy.isRetryable(null, new IOException("reset")));
+        assertTrue(policy.isRetryable(null, new CompletionException(new IOException("reset"))));
+        assertTrue(policy.isRetryable(null, new ExecutionException(new IOException("reset"))));
+        assertFalse(policy.isRetryable(null, new IllegalStateException(new IOException("reset"))));
+        assertFalse(policy.isRetryable(null, new CompletionException(new LimitExceededException("full"))));
+    }
+}
@@ -0,0 +1,150 @@
+package com.httpclient.streaming;
+
+import com.httpclient.mock.MockServer;
+import com.httpclient.util.ForwardingHttpClient;
+import com.httpclient.util.HttpClientFactory;
+import com.httpclient.util.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingClientTest {
+
+    private MockServer server;
+    private HttpClient http;
+    private StreamingClient streaming;
+
+    @BeforeEach
+    void start() throws Exception {
+        server = MockServer.start();
+        http = HttpClientFactory.createHttp11Client();
+        streaming = new StreamingClient(http,
+                StreamOptions.defaults().withReconnect(Duration.ofMillis(10), Duration.ofMillis(200), 3));
+    }
+
+    @AfterEach
+    void stop() {
+        http.close();
+        server.close();
+    }
+
+    @Test
+    void ndjsonIsParsedAsItArrives() throws Exception {
+        List<User> users = collect(streaming.ndjson(request("/stream/users.ndjson?count=1000"), User.class), 7);
+
+        assertEquals(1000, users.size());
+    }
+
+    @Test
+    void eventStreamResumesFromTheLastEventId() throws Exception {
+        List<ServerSentEvent> events = collect(streaming.events(request("/stream/users?count=50&drop=20")), 1);
+
+        assertEquals(LongStream.rangeClosed(1, 50).mapToObj(Long::toString).toList(),
+                events.stream().map(ServerSentEvent::id).toList());
+        // Two drops, then the reconnect that finds the stream finished
+        assertEquals(3, streaming.reconnects());
+    }
+
+    @Test
+    void hugeServerRetryIsCappedAtTheMaximumDelay() throws Exception {
+        long start = System.nanoTime();
+        List<ServerSentEvent> events = collect(
+                streaming.events(request("/stream/users?count=3&retry=999999999999999999")), Long.MAX_VALUE);
+
+        assertEquals(3, events.size());
+        assertEquals(1, streaming.reconnects());
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(millis < 5_000, "took " + millis + " ms");
+    }
+
+    @Test
+    void synchronousSendFailureEndsTheStream() {
+        StreamingClient closed = new StreamingClient(new ForwardingHttpClient(http) {
+            @Override
+            public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                                    HttpResponse.BodyHandler<T> handler) {
+                throw new IllegalStateException("closed");
+            }
+        });
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> collect(closed.ndjson(request("/stream/users.ndjson"), User.class), 1));
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+    }
+
+    @Test
+    void unterminatedLastLineCountsOnlyOnACleanEnd() throws Exception {
+        NdjsonDecoder<String> decoder = new NdjsonDecoder<>(1024, line -> line);
+        List<String> lines = new ArrayList<>();
+
+        decoder.feed(ByteBuffer.wrap("{\"id\":1}\n{\"id\":".getBytes(StandardCharsets.UTF_8)), lines::add);
+        decoder.finish(false, lines::add);
+        decoder.feed(ByteBuffer.wrap("{\"id\":3}".getBytes(StandardCharsets.UTF_8)), lines::add);
+        decoder.finish(true, lines::add);
+
+        assertEquals(List.of("{\"id\":1}", "{\"id\":3}"), lines);
+    }
+
+    private HttpRequest request(String path) {
+        return HttpRequest.newBuilder(server.baseUri().resolve(path)).build();
+    }
+
+    /**
+     * Subscribe, requesting {@code batch} items at a time, and wait for the end
+     */
+    private static <T> List<T> collect(Flow.Publisher<T> publisher, long batch) throws Exception {
+        List<T> items = new CopyOnWriteArrayList<>();
+        CompletableFuture<List<T>> done = new CompletableFuture<>();
+        publisher.subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+            private long outstanding;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                outstanding = batch;
+                subscription.request(batch);
+            }
+
+            @Override
+            public void onNext(T item) {
+                items.add(item);
+                if (batch != Long.MAX_VALUE && --outstanding == 0) {
+                    outstanding = batch;
+                    subscription.request(batch);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(items);
+            }
+        });
+        return done.get(10, TimeUnit.SECONDS);
+    }
+}
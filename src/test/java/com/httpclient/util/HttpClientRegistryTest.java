@@ -0,0 +1,18 @@
+package com.httpclient.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HttpClientRegistryTest {
+
+    @Test
+    void originUsesTheSchemeDefaultPort() {
+        assertEquals("https://api.example.com:443", HttpClientRegistry.origin(URI.create("https://api.example.com/users")));
+        assertEquals("https://api.example.com:443", HttpClientRegistry.origin(URI.create("HTTPS://API.example.com:443/")));
+        assertEquals("http://localhost:80", HttpClientRegistry.origin(URI.create("http://localhost/posts/1")));
+        assertEquals("http://localhost:8089", HttpClientRegistry.origin(URI.create("http://localhost:8089/posts/1")));
+    }
+}
@@ -0,0 +1,25 @@
+package com.httpclient.websocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReconnectingWebSocketTest {
+
+    @Test
+    void backoffCeilingDoublesAndSaturates() {
+        ReconnectOptions options = ReconnectOptions.defaults()
+                .withBackoff(Duration.ofSeconds(10), Duration.ofDays(365));
+        long max = Duration.ofDays(365).toNanos();
+
+        assertEquals(Duration.ofSeconds(10).toNanos(), ReconnectingWebSocket.backoffCeilingNanos(options, 0));
+        assertEquals(Duration.ofSeconds(40).toNanos(), ReconnectingWebSocket.backoffCeilingNanos(options, 2));
+        for (int retry = 22; retry < 1000; retry++) {
+            assertEquals(max, ReconnectingWebSocket.backoffCeilingNanos(options, retry));
+        }
+        assertEquals(Duration.ofMillis(5).toNanos(), ReconnectingWebSocket.backoffCeilingNanos(
+                options.withBackoff(Duration.ofDays(1), Duration.ofMillis(5)), 0));
+    }
+}